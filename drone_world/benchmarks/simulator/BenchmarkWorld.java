@@ -0,0 +1,130 @@
+package simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import reference.DroneControllerSkeleton;
+import reference.MySimulationController;
+import simulator.enums.DroneState;
+import simulator.enums.EngineMode;
+import simulator.enums.PersonState;
+import simulator.interfaces.DroneController;
+
+/**
+ * Builds worlds of any size for the benchmarks, the same way the simulator loads its own but without reading files
+ */
+class BenchmarkWorld {
+
+	// A headless simulation that stops after a fixed number of ticks
+	static class BenchmarkSimulationController extends MySimulationController {
+
+		static final int TICK_SIZE = 100;
+
+		private final EngineMode engineMode;
+		private final int ticks;
+
+		BenchmarkSimulationController(long seed, EngineMode engineMode, int ticks){
+			super(seed);
+			this.engineMode = engineMode;
+			this.ticks = ticks;
+		}
+
+		@Override
+		public boolean isHeadless() {
+			return true;
+		}
+
+		@Override
+		public int getSimulatorTickSize() {
+			return TICK_SIZE;
+		}
+
+		@Override
+		public EngineMode getEngineMode() {
+			return engineMode;
+		}
+
+		@Override
+		public long getSimulationEndTime() {
+			return ((long) ticks) * TICK_SIZE;
+		}
+	}
+
+	// Keeps every drone busy by sending idle drones somewhere else at random
+	static class BenchmarkDroneController extends DroneControllerSkeleton {
+
+		private final Random random;
+
+		BenchmarkDroneController(long seed){
+			this.random = new Random(seed);
+		}
+
+		@Override
+		public void droneIdling(Drone drone) {
+			List<Place> places = new ArrayList<Place>(getSimulator().getPlaces());
+			places.remove(drone.getStart());
+			if(places.size() > 0){
+				Place p = places.get(random.nextInt(places.size()));
+				getSimulator().setDroneManifest(drone,p);
+				getSimulator().routeDrone(drone,p);
+			}
+		}
+
+		@Override
+		public String getCompanyName() {
+			return "Benchmark Drone Controller";
+		}
+	}
+
+	private BenchmarkWorld(){
+	}
+
+	/**
+	 * @return count places scattered around Santa Barbara
+	 */
+	static Set<Place> places(int count, Random r){
+		Set<Place> ret = new TreeSet<Place>();
+		for(int i = 0; i < count; i++){
+			ret.add(new Place("Place "+i,new Position(34.4+r.nextDouble()*0.1,-119.7+r.nextDouble()*0.1,0)));
+		}
+		Place.assignIds(ret);
+		return ret;
+	}
+
+	/**
+	 * @return count people waiting at random places to go to other random places
+	 */
+	static Set<Person> people(Set<Place> places, int count, Random r){
+		List<Place> list = new ArrayList<Place>(places);
+		Set<Person> ret = new TreeSet<Person>();
+		for(int i = 0; i < count; i++){
+			Place start = list.get(r.nextInt(list.size()));
+			Place end = list.get(r.nextInt(list.size()));
+			while((start == end) && (list.size() > 1)){
+				end = list.get(r.nextInt(list.size()));
+			}
+			Person person = new Person(""+i,"Person "+i,start,start.getPosition(),end,PersonState.WAITING);
+			start.addWaitingToEmbark(person);
+			ret.add(person);
+		}
+		return ret;
+	}
+
+	/**
+	 * @return count idle drones, all at the first place
+	 */
+	static Set<Drone> drones(Set<Place> places, int count, DroneController controller, Random r){
+		Set<Drone> ret = new TreeSet<Drone>();
+		Place start = places.iterator().next();
+		for(int i = 0; i < count; i++){
+			Drone drone = new Drone(controller,start,start,Simulator.DRONE_MAX_CAPACITY,r);
+			drone.setState(DroneState.IDLING);
+			ret.add(drone);
+		}
+		return ret;
+	}
+
+}
@@ -0,0 +1,65 @@
+package simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import simulator.enums.PersonState;
+
+/**
+ * Measures the copy constructors that the simulator uses to hand drones and places to controllers and the visualizer.
+ * A place is copied along with everyone waiting at it, so it is measured with queues of different lengths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CopyBenchmark {
+
+	@Param({"0", "10", "1000"})
+	int queueLength;
+
+	private Place place;
+	private Drone drone;
+
+	@Setup
+	public void setUp(){
+		Random r = new Random(0);
+		Set<Place> places = BenchmarkWorld.places(2,r);
+		List<Place> list = new ArrayList<Place>(places);
+		place = list.get(0);
+		Place other = list.get(1);
+		for(int i = 0; i < queueLength; i++){
+			place.addWaitingToEmbark(new Person(""+i,"Person "+i,place,place.getPosition(),other,PersonState.WAITING));
+		}
+		drone = BenchmarkWorld.drones(places,1,new BenchmarkWorld.BenchmarkDroneController(0),r).iterator().next();
+		drone.setManifest(places);
+	}
+
+	@Benchmark
+	public Place copyPlace(){
+		return new Place(place);
+	}
+
+	@Benchmark
+	public Drone copyDrone(){
+		return new Drone(drone);
+	}
+
+}
@@ -0,0 +1,83 @@
+package simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares calculating distances with DistanceCalculator to looking them up in a DistanceMatrix.
+ * Each benchmark works out the two distances that a flying drone needs on every tick: from where it is to where it is going
+ * and from where it started to where it is going.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DistanceBenchmark {
+
+	@Param({"10", "100"})
+	int placeCount;
+
+	private List<Place> places;
+	private Position[] dronePositions;
+	private DistanceMatrix matrix;
+
+	private int next;
+
+	@Setup
+	public void setUp(){
+		Random r = new Random(0);
+		places = new ArrayList<Place>();
+		for(int i = 0; i < placeCount; i++){
+			places.add(new Place("Place "+i,new Position(34.4+r.nextDouble()*0.1,-119.7+r.nextDouble()*0.1,0)));
+		}
+		dronePositions = new Position[placeCount];
+		for(int i = 0; i < placeCount; i++){
+			dronePositions[i] = new Position(34.4+r.nextDouble()*0.1,-119.7+r.nextDouble()*0.1,2);
+		}
+		matrix = new DistanceMatrix(places);
+	}
+
+	@Benchmark
+	public double distanceCalculator(){
+		int i = (next++) % placeCount;
+		Place start = places.get(i);
+		Place destination = places.get((i*7+3) % placeCount);
+		Position position = dronePositions[i];
+		double metersToGoal = DistanceCalculator.distance(position.getLatitude(),position.getLongitude(),destination.getPosition().getLatitude(),destination.getPosition().getLongitude());
+		double metersForTrip = DistanceCalculator.distance(start.getPosition().getLatitude(),start.getPosition().getLongitude(),destination.getPosition().getLatitude(),destination.getPosition().getLongitude());
+		return metersToGoal + metersForTrip;
+	}
+
+	@Benchmark
+	public double distanceMatrix(){
+		int i = (next++) % placeCount;
+		Place start = places.get(i);
+		Place destination = places.get((i*7+3) % placeCount);
+		Position position = dronePositions[i];
+		double metersToGoal = matrix.distance(position,destination);
+		double metersForTrip = matrix.distance(start,destination);
+		return metersToGoal + metersForTrip;
+	}
+
+	@Benchmark
+	public DistanceMatrix buildMatrix(){
+		return new DistanceMatrix(places);
+	}
+
+}
@@ -0,0 +1,92 @@
+package simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures comparing places, which the simulator does whenever it looks up a place in a manifest or a sorted set.
+ * Places that have been given ids compare by id, the rest fall back to their names and positions.
+ * Every place has a queue of people waiting at it, like a busy simulation, so that any work that depends on the queue shows up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlaceCompareBenchmark {
+
+	@Param({"100"})
+	int placeCount;
+
+	@Param({"0", "1000"})
+	int queueLength;
+
+	@Param({"true", "false"})
+	boolean assignIds;
+
+	private List<Place> places;
+	private List<Place> copies;
+	private TreeSet<Place> sorted;
+
+	private int next;
+
+	@Setup
+	public void setUp(){
+		Random r = new Random(0);
+		Set<Place> world = BenchmarkWorld.places(placeCount,r);
+		BenchmarkWorld.people(world,queueLength*placeCount,r);
+		places = new ArrayList<Place>();
+		copies = new ArrayList<Place>();
+		for(Place p: world){
+			if(assignIds){
+				places.add(p);
+			}
+			else{
+				//A place that is built by hand hasn't been given an id
+				Place q = new Place(p.getName(),p.getPosition());
+				for(Person person: p.getWaitingToEmbark()){
+					q.addWaitingToEmbark(person);
+				}
+				places.add(q);
+			}
+			copies.add(new Place(places.get(places.size()-1)));
+		}
+		sorted = new TreeSet<Place>(places);
+	}
+
+	@Benchmark
+	public int compareEqual(){
+		int i = (next++) % placeCount;
+		return places.get(i).compareTo(copies.get(i));
+	}
+
+	@Benchmark
+	public int compareDifferent(){
+		int i = (next++) % placeCount;
+		return places.get(i).compareTo(places.get((i*7+3) % placeCount));
+	}
+
+	@Benchmark
+	public boolean lookUp(){
+		int i = (next++) % placeCount;
+		return sorted.contains(copies.get(i));
+	}
+
+}
@@ -0,0 +1,89 @@
+package simulator;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import simulator.enums.DispatchMode;
+import simulator.enums.EngineMode;
+import simulator.enums.PlaceDistribution;
+
+/**
+ * Runs whole headless simulations and reports the time per simulation and, as the secondary "ticks" result, the time per tick.
+ * Simulations stop early once everyone is delivered, so ticks are counted from where the clock got to rather than assumed.
+ * Every invocation starts from a freshly generated world so that each one does the same work.
+ * Bigger worlds can be tried from the command line, e.g. -p placeCount=10000 -p personCount=1000000 -p distribution=CLUSTERED
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimulatorBenchmark {
+
+	static final int TICKS = 1000;
+
+	@Param({"10", "100"})
+	int placeCount;
+
+	@Param({"10", "100"})
+	int droneCount;
+
+	@Param({"100", "1000"})
+	int personCount;
+
+	@Param({"FIXED_TICK", "DISCRETE_EVENT"})
+	EngineMode engineMode;
+
+	@Param({"UNIFORM"})
+	PlaceDistribution distribution;
+
+	private Simulator simulator;
+
+	// How many ticks the simulations in an iteration ran, including the ones that DISCRETE_EVENT skipped over
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Ticks {
+		public long ticks;
+
+		@Setup(Level.Iteration)
+		public void reset(){
+			ticks = 0;
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void setUp(){
+		ScenarioGenerator scenario = new ScenarioGenerator(0,placeCount,personCount,droneCount,distribution);
+		List<Place> places = scenario.generatePlaces();
+		List<Person> people = scenario.generatePeople(places);
+		DroneControllerSafetyWrapper controller = new DroneControllerSafetyWrapper(new BenchmarkWorld.BenchmarkDroneController(0),false,DispatchMode.MAILBOX);
+		List<Drone> drones = scenario.generateDrones(places,controller,new Random(0));
+		simulator = new Simulator(new BenchmarkWorld.BenchmarkSimulationController(0,engineMode,TICKS),people,places,drones);
+		controller.setSimulator(simulator);
+	}
+
+	@Benchmark
+	public Simulator tick(Ticks counter){
+		simulator.start();
+		//The first tick is at 0
+		counter.ticks += simulator.getClockTick()/BenchmarkWorld.BenchmarkSimulationController.TICK_SIZE + 1;
+		return simulator;
+	}
+
+}
@@ -0,0 +1,77 @@
+package simulator;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import reference.DroneControllerSkeleton;
+import simulator.enums.DispatchMode;
+
+/**
+ * Measures a round trip through DroneControllerSafetyWrapper to a controller that does nothing,
+ * which is the cost the simulator pays on top of the controller's own work for every call back.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WrapperBenchmark {
+
+	static class Idle_DroneController extends DroneControllerSkeleton {
+
+		@Override
+		public void droneIdling(Drone drone) {
+		}
+
+		@Override
+		public String getCompanyName() {
+			return "Idle Drone Controller";
+		}
+	}
+
+	@Param({"POOLED", "MAILBOX"})
+	DispatchMode dispatchMode;
+
+	private DroneControllerSafetyWrapper wrapper;
+	private Drone drone;
+
+	@Setup
+	public void setUp(){
+		Random r = new Random(0);
+		Set<Place> places = BenchmarkWorld.places(2,r);
+		wrapper = new DroneControllerSafetyWrapper(new Idle_DroneController(),false,dispatchMode);
+		drone = BenchmarkWorld.drones(places,1,wrapper,r).iterator().next();
+	}
+
+	@TearDown
+	public void tearDown(){
+		wrapper.shutdown();
+	}
+
+	@Benchmark
+	public Drone droneCallBack(){
+		wrapper.droneIdling(drone.snapshot());
+		return drone;
+	}
+
+	@Benchmark
+	public String call(){
+		return wrapper.getCompanyName();
+	}
+
+}
@@ -32,8 +32,8 @@ public class DroneControllerSkeleton implements DroneController {
 	
 	/*********************************************/
 	/****	Things students can override *****/
-	static int droneCounter = 0;
-	protected static int incrementDroneCounter() {
+	private int droneCounter = 0;
+	protected int incrementDroneCounter() {
 		droneCounter++;
 		return droneCounter;
 	}
@@ -0,0 +1,29 @@
+package reference;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import simulator.FleetCommand;
+import simulator.FleetSnapshot;
+import simulator.enums.DroneEvent;
+import simulator.interfaces.FleetController;
+
+/** 
+ * This is a parent class for drone controllers that decide what all of their drones do at once.
+ * Override onTick instead of the drone call backs, they aren't sent to a fleet controller.
+ */
+public class FleetControllerSkeleton extends DroneControllerSkeleton implements FleetController {
+
+	@Override
+	public Set<DroneEvent> getDroneEvents() {
+		return EnumSet.noneOf(DroneEvent.class);
+	}
+
+	@Override
+	public List<FleetCommand> onTick(FleetSnapshot fleet) {
+		return new ArrayList<FleetCommand>();
+	}
+
+}
@@ -2,6 +2,9 @@ package reference;
 
 import java.util.Random;
 
+import simulator.enums.ControllerMode;
+import simulator.enums.DispatchMode;
+import simulator.enums.EngineMode;
 import simulator.interfaces.SimulationController;
 
 public class MySimulationController implements SimulationController {
@@ -26,6 +29,24 @@ public class MySimulationController implements SimulationController {
 	//100 to run the simulator as fast as possible (fast)
 	static private final int SIMULATOR_SPEED = 20;
 	
+	//True to run without the visualization, as fast as the computer can go (for batch evaluations)
+	static private final boolean HEADLESS = false;
+	
+	//Milliseconds of game time per simulator tick when running headless
+	static private final int SIMULATOR_TICK_SIZE = 100;
+	
+	//FIXED_TICK to look at every drone on every tick
+	//DISCRETE_EVENT to skip ahead to the next time a drone does something (much faster for batch evaluations)
+	static private final EngineMode ENGINE_MODE = EngineMode.FIXED_TICK;
+	
+	//POOLED to run drone controller call backs on a pool of threads
+	//MAILBOX to give each drone controller a thread of its own (less waiting on every call back)
+	static private final DispatchMode DISPATCH_MODE = DispatchMode.MAILBOX;
+	
+	//SYNCHRONOUS to wait for every drone controller call back
+	//PIPELINED to let call backs run alongside the simulator and carry out their commands on the next tick (needs MAILBOX)
+	static private final ControllerMode CONTROLLER_MODE = ControllerMode.SYNCHRONOUS;
+	
 	//While debugging it is helpful to not have the simulator quarantine your drones because
 	//if you pause your code to debug it, then if that pause is longer than 10 seconds then it
 	//causes your drone to be quarantined
@@ -36,9 +57,10 @@ public class MySimulationController implements SimulationController {
 	static private final int SIMULATION_END_TIME = 20_000_000;
 	
 	
-	// A global source of randomness
-	public static final Random random;
-	static{
+	// The source of randomness for one simulation
+	private final Random random;
+	
+	public MySimulationController(){
 		if(SAME_RANDOM_NUMBERS_EACH_TIME){
 			random = new Random(RANDOM_NUMBER_SEED);
 		}
@@ -47,6 +69,14 @@ public class MySimulationController implements SimulationController {
 		}
 	}
 	
+	/**
+	 * For running several simulations with different random numbers at the same time
+	 * @param seed
+	 */
+	public MySimulationController(long seed){
+		random = new Random(seed);
+	}
+	
 	public Random getRandom() {
 		return random;
 	}
@@ -66,6 +96,31 @@ public class MySimulationController implements SimulationController {
 		return SIMULATOR_SPEED;
 	}
 	
+	@Override
+	public boolean isHeadless() {
+		return HEADLESS;
+	}
+	
+	@Override
+	public int getSimulatorTickSize() {
+		return SIMULATOR_TICK_SIZE;
+	}
+	
+	@Override
+	public EngineMode getEngineMode() {
+		return ENGINE_MODE;
+	}
+	
+	@Override
+	public DispatchMode getDispatchMode() {
+		return DISPATCH_MODE;
+	}
+	
+	@Override
+	public ControllerMode getControllerMode() {
+		return CONTROLLER_MODE;
+	}
+	
 	@Override
 	public boolean shouldQuarantineDrones(){
 		return QUARANTINE_DRONES;
@@ -0,0 +1,241 @@
+package simulator;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+import reference.MyDroneController;
+import reference.MySimulationController;
+import robodrones.DistanceAwarePromiscuousDroneController;
+import robodrones.GreedyDroneController;
+import robodrones.PromiscuousDroneController;
+import robodrones.RandomDroneController;
+import simulator.interfaces.DroneController;
+import simulator.interfaces.Scenario;
+import simulator.interfaces.SimulationController;
+
+/**
+ * Scores controllers by running many headless simulations, one per seed, in parallel.
+ * Every simulation gets its own simulation controller, random numbers and drone controllers, so nothing is shared between them.
+ * Controllers that keep state in static fields (like robodrones.Borg) can't be run in parallel and are left out of the defaults.
+ */
+public class BatchRunner {
+
+	// The result of one simulation
+	public static class Result {
+		private long seed;
+		private long clockTick;
+		private Map<String, Pair<Integer,Long>> scores;
+
+		Result(long seed, long clockTick, Map<String, Pair<Integer,Long>> scores){
+			this.seed = seed;
+			this.clockTick = clockTick;
+			this.scores = scores;
+		}
+
+		public long getSeed() {
+			return seed;
+		}
+
+		public long getClockTick() {
+			return clockTick;
+		}
+
+		/**
+		 * @return a map from company name to (score, total transit time of the delivered passengers)
+		 */
+		public Map<String, Pair<Integer,Long>> getScores() {
+			return scores;
+		}
+	}
+
+	// Runs the reference simulation settings without a visualization
+	static class HeadlessSimulationController extends MySimulationController {
+
+		HeadlessSimulationController(long seed){
+			super(seed);
+		}
+
+		@Override
+		public boolean isHeadless() {
+			return true;
+		}
+	}
+
+	private int threads;
+	private LongFunction<SimulationController> simulationControllers;
+	private Supplier<List<DroneController>> droneControllers;
+	private LongFunction<Scenario> scenarios;
+
+	/**
+	 * @param threads, how many simulations to run at once
+	 * @param simulationControllers, makes a new headless simulation controller from a seed
+	 * @param droneControllers, makes a new instance of every company's controller for each simulation
+	 */
+	public BatchRunner(int threads, LongFunction<SimulationController> simulationControllers, Supplier<List<DroneController>> droneControllers){
+		this(threads,simulationControllers,droneControllers,null);
+	}
+
+	/**
+	 * @param threads, how many simulations to run at once
+	 * @param simulationControllers, makes a new headless simulation controller from a seed
+	 * @param droneControllers, makes a new instance of every company's controller for each simulation
+	 * @param scenarios, makes the world of each simulation from its seed, or null for the places, people and drones that Simulator loads
+	 */
+	public BatchRunner(int threads, LongFunction<SimulationController> simulationControllers, Supplier<List<DroneController>> droneControllers, LongFunction<Scenario> scenarios){
+		if(threads < 1){
+			throw new IllegalArgumentException("A batch needs at least one thread");
+		}
+		if((simulationControllers == null) || (droneControllers == null)){
+			throw new IllegalArgumentException("Please supply simulation and drone controllers");
+		}
+		this.threads = threads;
+		this.simulationControllers = simulationControllers;
+		this.droneControllers = droneControllers;
+		this.scenarios = scenarios;
+	}
+
+	/**
+	 * Run one simulation to the end on the calling thread
+	 */
+	Result runOne(long seed){
+		SimulationController simController = simulationControllers.apply(seed);
+		if(!simController.isHeadless()){
+			throw new IllegalArgumentException("Batch simulations have to be headless");
+		}
+
+		Collection<Place> places;
+		Collection<Drone> drones;
+		Collection<Person> people;
+		if(scenarios == null){
+			Set<Place> loadedPlaces = Simulator.loadPlaces(simController);
+			Set<Drone> loadedDrones = new TreeSet<Drone>();
+			for(DroneController controller: droneControllers.get()){
+				loadedDrones.addAll(Simulator.loadDrones(loadedPlaces,new DroneControllerSafetyWrapper(controller,simController.shouldQuarantineDrones(),simController.getDispatchMode()),simController.getRandom()));
+			}
+			places = loadedPlaces;
+			drones = loadedDrones;
+			people = Simulator.loadPeople(loadedPlaces,simController.getRandom());
+		}
+		else{
+			Scenario scenario = scenarios.apply(seed);
+			List<Place> generatedPlaces = scenario.generatePlaces();
+			List<Drone> generatedDrones = new ArrayList<Drone>();
+			for(DroneController controller: droneControllers.get()){
+				generatedDrones.addAll(scenario.generateDrones(generatedPlaces,new DroneControllerSafetyWrapper(controller,simController.shouldQuarantineDrones(),simController.getDispatchMode()),simController.getRandom()));
+			}
+			places = generatedPlaces;
+			drones = generatedDrones;
+			people = scenario.generatePeople(generatedPlaces);
+		}
+
+		Simulator simulator = new Simulator(simController,people,places,drones);
+		simulator.start();
+
+		return new Result(seed,simulator.getClockTick(),simulator.getScores());
+	}
+
+	/**
+	 * Run a simulation for each seed from firstSeed to firstSeed+runs-1
+	 * @return the results in seed order
+	 */
+	public List<Result> run(long firstSeed, int runs){
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try{
+			List<Future<Result>> futures = new ArrayList<Future<Result>>();
+			for(int i = 0; i < runs; i++){
+				long seed = firstSeed + i;
+				futures.add(pool.submit(() -> runOne(seed)));
+			}
+
+			List<Result> results = new ArrayList<Result>();
+			for(Future<Result> f: futures){
+				try {
+					results.add(f.get());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while waiting for a simulation",e);
+				} catch (ExecutionException e) {
+					throw new RuntimeException("A simulation failed",e.getCause());
+				}
+			}
+			return results;
+		}
+		finally{
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Add up the results of a batch
+	 * @return a map from company name to (runs won, total score)
+	 */
+	public static Map<String, Pair<Integer,Long>> aggregate(List<Result> results){
+		Map<String, Pair<Integer,Long>> ret = new TreeMap<String, Pair<Integer,Long>>();
+		for(Result result: results){
+			//The winner has the highest score, ties go to the fastest total transit time
+			String winner = null;
+			Pair<Integer,Long> best = null;
+			for(Entry<String, Pair<Integer,Long>> e: result.getScores().entrySet()){
+				if(e.getKey() == null){
+					continue;
+				}
+				Pair<Integer,Long> score = e.getValue();
+				if((best == null) || (score.getKey() > best.getKey()) || ((score.getKey().equals(best.getKey())) && (score.getValue() < best.getValue()))){
+					best = score;
+					winner = e.getKey();
+				}
+				ret.merge(e.getKey(),new Pair<Integer,Long>(0,(long)score.getKey()),(v1,v2) ->{return (new Pair<Integer,Long>(v1.getKey()+v2.getKey(),v1.getValue()+v2.getValue()));});
+			}
+			if(winner != null){
+				ret.merge(winner,new Pair<Integer,Long>(1,0L),(v1,v2) ->{return (new Pair<Integer,Long>(v1.getKey()+v2.getKey(),v1.getValue()+v2.getValue()));});
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Usage: BatchRunner [runs] [threads] [first seed] [scenario file]
+	 */
+	public static void main(String[] args) throws IOException {
+		int runs = (args.length > 0) ? Integer.parseInt(args[0]) : 8;
+		int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		long firstSeed = (args.length > 2) ? Long.parseLong(args[2]) : 0L;
+		//Every simulation shares the one mapped file
+		ScenarioFile scenario = (args.length > 3) ? ScenarioFile.open(Paths.get(args[3])) : null;
+
+		BatchRunner batch = new BatchRunner(threads,
+				(long seed) -> new HeadlessSimulationController(seed),
+				() -> Arrays.asList(new MyDroneController(),
+						new DistanceAwarePromiscuousDroneController(),
+						new GreedyDroneController(),
+						new PromiscuousDroneController(),
+						new RandomDroneController()),
+				(scenario == null) ? null : (long seed) -> scenario);
+
+		long start = System.currentTimeMillis();
+		List<Result> results = batch.run(firstSeed,runs);
+		long elapsed = System.currentTimeMillis() - start;
+
+		System.out.println("Batch Results:");
+		System.out.println("\t"+runs+" simulations on "+threads+" threads in "+elapsed+"ms");
+		for(Entry<String, Pair<Integer,Long>> e: aggregate(results).entrySet()){
+			System.out.println("\t"+e.getKey()+" won "+e.getValue().getKey()+" of "+runs+" with an average score of "+(e.getValue().getValue()/(double)runs));
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+package simulator;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import reference.MyDroneController;
+import robodrones.GreedyDroneController;
+import robodrones.RandomDroneController;
+import simulator.enums.PlaceDistribution;
+
+public class BatchRunnerTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	// Short simulations with big ticks so the test runs quickly
+	static class TestBatch_SimulationController extends BatchRunner.HeadlessSimulationController {
+
+		TestBatch_SimulationController(long seed) {
+			super(seed);
+		}
+
+		@Override
+		public int getSimulatorTickSize() {
+			return 1000;
+		}
+
+		@Override
+		public long getSimulationEndTime() {
+			return 1_000_000;
+		}
+	}
+
+	private static BatchRunner makeBatch(int threads){
+		return new BatchRunner(threads,(long seed) -> new TestBatch_SimulationController(seed),() -> Arrays.asList(new GreedyDroneController(),new RandomDroneController()));
+	}
+
+	@Test
+	//Simulations that run side by side have to come out the same as ones that run one at a time
+	public void testIsolation() {
+		int runs = 4;
+		List<BatchRunner.Result> serial = makeBatch(1).run(10L,runs);
+		List<BatchRunner.Result> parallel = makeBatch(runs).run(10L,runs);
+
+		assertEquals(runs,serial.size());
+		assertEquals(runs,parallel.size());
+		for(int i = 0; i < runs; i++){
+			assertEquals(10L+i,serial.get(i).getSeed());
+			assertEquals(serial.get(i).getSeed(),parallel.get(i).getSeed());
+			assertEquals(serial.get(i).getClockTick(),parallel.get(i).getClockTick());
+
+			Map<String, Pair<Integer,Long>> expected = serial.get(i).getScores();
+			Map<String, Pair<Integer,Long>> actual = parallel.get(i).getScores();
+			assertEquals(expected.keySet(),actual.keySet());
+			for(Entry<String, Pair<Integer,Long>> e: expected.entrySet()){
+				assertEquals(e.getValue().getKey(),actual.get(e.getKey()).getKey());
+				assertEquals(e.getValue().getValue(),actual.get(e.getKey()).getValue());
+			}
+		}
+
+		//Every run has a winner and the scores add up
+		Map<String, Pair<Integer,Long>> totals = BatchRunner.aggregate(parallel);
+		assertFalse(totals.isEmpty());
+		int wins = 0;
+		for(Entry<String, Pair<Integer,Long>> e: totals.entrySet()){
+			wins += e.getValue().getKey();
+			long score = 0;
+			for(BatchRunner.Result r: parallel){
+				if(r.getScores().get(e.getKey()) != null){
+					score += r.getScores().get(e.getKey()).getKey();
+				}
+			}
+			assertEquals(score,(long)e.getValue().getValue());
+		}
+		assertEquals(runs,wins);
+	}
+
+	@Test
+	//Generated worlds come out the same whether the simulations run side by side or not
+	public void testScenario() {
+		int runs = 2;
+		List<BatchRunner.Result> serial = new BatchRunner(1,(long seed) -> new TestBatch_SimulationController(seed),() -> Arrays.asList(new GreedyDroneController(),new RandomDroneController()),
+				(long seed) -> new ScenarioGenerator(seed,50,500,5,PlaceDistribution.CLUSTERED)).run(10L,runs);
+		List<BatchRunner.Result> parallel = new BatchRunner(runs,(long seed) -> new TestBatch_SimulationController(seed),() -> Arrays.asList(new GreedyDroneController(),new RandomDroneController()),
+				(long seed) -> new ScenarioGenerator(seed,50,500,5,PlaceDistribution.CLUSTERED)).run(10L,runs);
+
+		assertEquals(runs,serial.size());
+		for(int i = 0; i < runs; i++){
+			assertEquals(serial.get(i).getClockTick(),parallel.get(i).getClockTick());
+			assertEquals(serial.get(i).getScores().keySet(),parallel.get(i).getScores().keySet());
+			for(Entry<String, Pair<Integer,Long>> e: serial.get(i).getScores().entrySet()){
+				assertEquals(e.getValue().getKey(),parallel.get(i).getScores().get(e.getKey()).getKey());
+				assertEquals(e.getValue().getValue(),parallel.get(i).getScores().get(e.getKey()).getValue());
+			}
+		}
+	}
+
+	@Test
+	public void testDegenerate() {
+		try{
+			new BatchRunner(0,(long seed) -> new TestBatch_SimulationController(seed),() -> Arrays.asList(new MyDroneController()));
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		try{
+			new BatchRunner(1,null,null);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+	}
+
+}
@@ -0,0 +1,232 @@
+package simulator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+import simulator.enums.DroneState;
+import simulator.enums.PersonState;
+
+/**
+ * Reads back what CheckpointWriter wrote, in the same order.
+ * Anything that doesn't fit, like a place id that isn't in the simulation, means the file is broken or is for a different world.
+ */
+class CheckpointReader {
+
+	private final Path path;
+	private final ByteBuffer buffer;
+	// The simulation's places, by id
+	private final Place[] places;
+	// The people read by getPeople, in the order they were written
+	private Person[] people = new Person[0];
+
+	CheckpointReader(Path path, Place[] places) throws IOException{
+		this.path = path;
+		this.places = places;
+		try(FileChannel channel = FileChannel.open(path,StandardOpenOption.READ)){
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+		}
+		if((buffer.remaining() < 2 * Integer.BYTES) || (buffer.getInt() != CheckpointWriter.MAGIC)){
+			throw new IOException("Not a checkpoint file: "+path);
+		}
+		int version = buffer.getInt();
+		if(version != CheckpointWriter.VERSION){
+			throw new IOException("Checkpoint file "+path+" is version "+version+", expected version "+CheckpointWriter.VERSION);
+		}
+	}
+
+	private ByteBuffer need(int bytes) throws IOException{
+		if(buffer.remaining() < bytes){
+			throw new IOException("Checkpoint file "+path+" ends too soon");
+		}
+		return buffer;
+	}
+
+	IOException broken(String why){
+		return new IOException("Checkpoint file "+path+" is broken, "+why);
+	}
+
+	int getInt() throws IOException{
+		return need(Integer.BYTES).getInt();
+	}
+
+	long getLong() throws IOException{
+		return need(Long.BYTES).getLong();
+	}
+
+	double getDouble() throws IOException{
+		return need(Double.BYTES).getDouble();
+	}
+
+	boolean getBoolean() throws IOException{
+		return need(1).get() != 0;
+	}
+
+	/**
+	 * @return how many of something there are, which has to fit in what is left of the file at bytes each
+	 */
+	int getCount(int bytes) throws IOException{
+		int ret = getInt();
+		if((ret < 0) || ((long) ret * bytes > buffer.remaining())){
+			throw broken("it has "+ret+" of something");
+		}
+		return ret;
+	}
+
+	byte[] getBytes() throws IOException{
+		int length = getInt();
+		if(length == -1){
+			return null;
+		}
+		if(length < 0){
+			throw broken("it has "+length+" bytes of something");
+		}
+		byte[] ret = new byte[length];
+		need(length).get(ret);
+		return ret;
+	}
+
+	String getString() throws IOException{
+		byte[] bytes = getBytes();
+		return (bytes == null) ? null : new String(bytes,StandardCharsets.UTF_8);
+	}
+
+	Long getNullableLong() throws IOException{
+		boolean present = getBoolean();
+		long x = getLong();
+		return present ? x : null;
+	}
+
+	Place getPlace() throws IOException{
+		int id = getInt();
+		if(id == Place.UNASSIGNED){
+			return null;
+		}
+		if((id < 0) || (id >= places.length)){
+			throw new IllegalArgumentException("Checkpoint file "+path+" has a place that isn't in this simulation: "+id);
+		}
+		return places[id];
+	}
+
+	Position getPosition() throws IOException{
+		boolean present = getBoolean();
+		double latitude = getDouble();
+		double longitude = getDouble();
+		double height = getDouble();
+		return present ? new Position(latitude,longitude,height) : null;
+	}
+
+	private <E extends Enum<E>> E getEnum(Class<E> type) throws IOException{
+		int ordinal = getInt();
+		E[] values = type.getEnumConstants();
+		if((ordinal < 0) || (ordinal >= values.length)){
+			throw broken("it has a "+type.getSimpleName()+" of "+ordinal);
+		}
+		return values[ordinal];
+	}
+
+	/**
+	 * Read everyone, who aren't put in line or counted
+	 * @return the people in the order they were written
+	 */
+	Person[] getPeople() throws IOException{
+		people = new Person[getCount(1)];
+		for(int i = 0; i < people.length; i++){
+			String id = getString();
+			String name = getString();
+			Place start = getPlace();
+			Place destination = getPlace();
+			Position position = getPosition();
+			Person p = new Person(id,name,start,(position == null) ? new Position(0,0,0) : position,destination,getEnum(PersonState.class));
+			if(position == null){
+				p.setPosition(null);
+			}
+			p.setStartTransitTime(getNullableLong());
+			p.setEndTransitTime(getNullableLong());
+			p.setDeliveryCompany(getString());
+			people[i] = p;
+		}
+		return people;
+	}
+
+	/**
+	 * Read references to people that were read by getPeople into into, which is emptied first
+	 */
+	void getPeopleRefs(Collection<Person> into) throws IOException{
+		int count = getCount(Integer.BYTES);
+		into.clear();
+		for(int i = 0; i < count; i++){
+			int index = getInt();
+			if((index < 0) || (index >= people.length)){
+				throw broken("it refers to person "+index+" of "+people.length);
+			}
+			into.add(people[index]);
+		}
+	}
+
+	/**
+	 * Read what CheckpointWriter.putDrone wrote into a drone that has already been found by its id
+	 */
+	void getDrone(Drone drone) throws IOException{
+		drone.setState(getEnum(DroneState.class));
+		drone.setStart(getPlace());
+		drone.setDestination(getPlace());
+		Manifest manifest = new Manifest();
+		int stops = getCount(Integer.BYTES);
+		for(int i = 0; i < stops; i++){
+			Place p = getPlace();
+			if(p == null){
+				throw broken("drone "+drone.getId()+" has a manifest with nowhere on it");
+			}
+			manifest.add(p);
+		}
+		drone.setManifest(manifest);
+		drone.setCapacity(getInt());
+		drone.setEmbarkingStart(getLong());
+		drone.setEmbarkingDuration(getInt());
+		drone.setEmbarkingCapacity(getInt());
+		drone.setDisembarkingStart(getLong());
+		drone.setDisembarkingDuration(getInt());
+		drone.setDisembarkingCapacity(getInt());
+		drone.setAscensionTime(getLong());
+		drone.setDescensionTime(getLong());
+		drone.setTransitStart(getLong());
+		drone.setTransitEnd(getLong());
+		drone.setPosition(getPosition());
+		drone.setCharge(getDouble());
+		boolean recharging = getBoolean();
+		double from = getDouble();
+		long since = getLong();
+		double perTick = getDouble();
+		long event = getLong();
+		if(recharging){
+			drone.getFleet().restoreRecharging(drone.getSlot(),from,since,perTick,event);
+		}
+		drone.setRechargeRate(getDouble());
+		drone.setDischargeRate(getDouble());
+		drone.setSpeed(getDouble());
+		drone.setLastUpdateTime(getLong());
+		synchronized(drone.getPassengers()){
+			getPeopleRefs(drone.getPassengers());
+			for(Person p: drone.getPassengers()){
+				p.board(drone);
+			}
+		}
+		getPeopleRefs(drone.getEmbarkers());
+		getPeopleRefs(drone.getDisembarkers());
+	}
+
+	/**
+	 * Make sure everything in the file was read
+	 */
+	void finish() throws IOException{
+		if(buffer.hasRemaining()){
+			throw broken("it has "+buffer.remaining()+" bytes left over");
+		}
+	}
+
+}
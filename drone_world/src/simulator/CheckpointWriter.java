@@ -0,0 +1,189 @@
+package simulator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Writes a checkpoint of a simulation, see Simulator.checkpoint and CheckpointReader.
+ * Everything is written in order with no lengths to skip over, so a checkpoint can only be read back from the start.
+ * People are written once and everything else refers to them by the order they were written in, places are referred to by id.
+ * Strings and byte arrays are a length, -1 for null, followed by the bytes.
+ */
+class CheckpointWriter implements Closeable {
+
+	static final int MAGIC = 0x44574350; // "DWCP"
+	static final int VERSION = 2;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+	private final Map<Person,Integer> personIndex = new IdentityHashMap<Person,Integer>();
+
+	CheckpointWriter(Path path) throws IOException{
+		this.channel = FileChannel.open(path,StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING,StandardOpenOption.WRITE);
+		putInt(MAGIC);
+		putInt(VERSION);
+	}
+
+	private ByteBuffer room(int bytes) throws IOException{
+		if(buffer.remaining() < bytes){
+			flush();
+		}
+		return buffer;
+	}
+
+	private void flush() throws IOException{
+		buffer.flip();
+		while(buffer.hasRemaining()){
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	void putInt(int x) throws IOException{
+		room(Integer.BYTES).putInt(x);
+	}
+
+	void putLong(long x) throws IOException{
+		room(Long.BYTES).putLong(x);
+	}
+
+	void putDouble(double x) throws IOException{
+		room(Double.BYTES).putDouble(x);
+	}
+
+	void putBoolean(boolean x) throws IOException{
+		room(1).put((byte) (x ? 1 : 0));
+	}
+
+	void putBytes(byte[] bytes) throws IOException{
+		if(bytes == null){
+			putInt(-1);
+			return;
+		}
+		putInt(bytes.length);
+		if(bytes.length <= buffer.capacity()){
+			room(bytes.length).put(bytes);
+		}
+		else{
+			flush();
+			ByteBuffer big = ByteBuffer.wrap(bytes);
+			while(big.hasRemaining()){
+				channel.write(big);
+			}
+		}
+	}
+
+	void putString(String s) throws IOException{
+		putBytes((s == null) ? null : s.getBytes(StandardCharsets.UTF_8));
+	}
+
+	void putNullableLong(Long x) throws IOException{
+		putBoolean(x != null);
+		putLong((x == null) ? 0 : x);
+	}
+
+	void putPlace(Place place) throws IOException{
+		putInt((place == null) ? Place.UNASSIGNED : place.getId());
+	}
+
+	void putPosition(Position position) throws IOException{
+		putBoolean(position != null);
+		putDouble((position == null) ? 0 : position.getLatitude());
+		putDouble((position == null) ? 0 : position.getLongitude());
+		putDouble((position == null) ? 0 : position.getHeight());
+	}
+
+	/**
+	 * Write everyone, who can then be referred to with putPeopleRefs
+	 */
+	void putPeople(Collection<Person> people) throws IOException{
+		putInt(people.size());
+		for(Person p: people){
+			personIndex.put(p,personIndex.size());
+			putString(p.getId());
+			putString(p.getName());
+			putPlace(p.getStart());
+			putPlace(p.getDestination());
+			putPosition(p.getPosition());
+			putInt(p.getState().ordinal());
+			putNullableLong(p.getStartTransitTime());
+			putNullableLong(p.getEndTransitTime());
+			putString(p.getDeliveryCompany());
+		}
+	}
+
+	/**
+	 * Refer to people that were written by putPeople, in order
+	 */
+	void putPeopleRefs(Collection<Person> people) throws IOException{
+		putInt(people.size());
+		for(Person p: people){
+			Integer index = personIndex.get(p);
+			if(index == null){
+				throw new IllegalArgumentException("Someone isn't being kept track of by the simulation: "+p);
+			}
+			putInt(index);
+		}
+	}
+
+	/**
+	 * Write everything about a drone that changes during a simulation, the rest comes from the drone it is restored into
+	 */
+	void putDrone(Drone drone) throws IOException{
+		putString(drone.getId());
+		putInt(drone.getState().ordinal());
+		putPlace(drone.getStart());
+		putPlace(drone.getDestination());
+		putInt(drone.getManifest().size());
+		for(Place p: drone.getManifest()){
+			putPlace(p);
+		}
+		putInt(drone.getCapacity());
+		putLong(drone.getEmbarkingStart());
+		putInt(drone.getEmbarkingDuration());
+		putInt(drone.getEmbarkingCapacity());
+		putLong(drone.getDisembarkingStart());
+		putInt(drone.getDisembarkingDuration());
+		putInt(drone.getDisembarkingCapacity());
+		putLong(drone.getAscensionTime());
+		putLong(drone.getDescensionTime());
+		putLong(drone.getTransitStart());
+		putLong(drone.getTransitEnd());
+		putPosition(drone.getPosition());
+		putDouble(drone.getCharge());
+		FleetState fleet = drone.getFleet();
+		putBoolean(fleet.isRecharging(drone.getSlot()));
+		putDouble(fleet.getRechargeFrom(drone.getSlot()));
+		putLong(fleet.getRechargeSince(drone.getSlot()));
+		putDouble(fleet.getRechargePerTick(drone.getSlot()));
+		putLong(fleet.getRechargeEvent(drone.getSlot()));
+		putDouble(drone.getRechargeRate());
+		putDouble(drone.getDischargeRate());
+		putDouble(drone.getSpeed());
+		putLong(drone.getLastUpdateTime());
+		synchronized(drone.getPassengers()){
+			putPeopleRefs(drone.getPassengers());
+		}
+		putPeopleRefs(drone.getEmbarkers());
+		putPeopleRefs(drone.getDisembarkers());
+	}
+
+	@Override
+	public void close() throws IOException{
+		try{
+			flush();
+		}
+		finally{
+			channel.close();
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+package simulator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+/**
+ * An append only log of the commands that controllers give, written as they are carried out, so that a run can be
+ * replayed without the controllers, see Simulator.journal and CommandJournalReader.
+ *
+ * The file is laid out as:
+ *   header: magic, version, tick size, place count, drone count (ints), event driven (byte)
+ *   commands: tick, turn (longs), command (byte), drone slot (int), followed by
+ *     the place id (int) for ROUTE, or the number of places and their ids (ints) for MANIFEST
+ * Commands can come from controller threads, so writing one is synchronized.
+ */
+class CommandJournal implements Closeable {
+
+	static final int MAGIC = 0x44574A4C; // "DWJL"
+	static final int VERSION = 1;
+
+	static final byte ROUTE = 1;
+	static final byte HOLD = 2;
+	static final byte MANIFEST = 3;
+	static final byte QUARANTINE = 4;
+
+	private final Path path;
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+
+	CommandJournal(Path path, int tickSize, int placeCount, int droneCount, boolean eventDriven) throws IOException{
+		this.path = path;
+		this.channel = FileChannel.open(path,StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING,StandardOpenOption.WRITE);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(tickSize).putInt(placeCount).putInt(droneCount).put((byte) (eventDriven ? 1 : 0));
+	}
+
+	private ByteBuffer room(int bytes){
+		if(buffer.remaining() < bytes){
+			flush();
+		}
+		return buffer;
+	}
+
+	private void flush(){
+		buffer.flip();
+		try{
+			while(buffer.hasRemaining()){
+				channel.write(buffer);
+			}
+		}
+		catch(IOException e){
+			throw new UncheckedIOException("Couldn't write to the journal "+path,e);
+		}
+		buffer.clear();
+	}
+
+	private void command(long tick, long turn, byte command, Drone drone){
+		room(2 * Long.BYTES + 1 + Integer.BYTES).putLong(tick).putLong(turn).put(command).putInt(drone.getSlot());
+	}
+
+	synchronized void route(long tick, long turn, Drone drone, Place place){
+		command(tick,turn,ROUTE,drone);
+		room(Integer.BYTES).putInt(place.getId());
+	}
+
+	synchronized void hold(long tick, long turn, Drone drone){
+		command(tick,turn,HOLD,drone);
+	}
+
+	synchronized void manifest(long tick, long turn, Drone drone, Set<Place> manifest){
+		command(tick,turn,MANIFEST,drone);
+		room(Integer.BYTES).putInt(manifest.size());
+		for(Place p: manifest){
+			room(Integer.BYTES).putInt(p.getId());
+		}
+	}
+
+	synchronized void quarantine(long tick, long turn, Drone drone){
+		command(tick,turn,QUARANTINE,drone);
+	}
+
+	@Override
+	public synchronized void close() throws IOException{
+		try{
+			flush();
+		}
+		catch(UncheckedIOException e){
+			throw e.getCause();
+		}
+		finally{
+			channel.close();
+		}
+	}
+
+}
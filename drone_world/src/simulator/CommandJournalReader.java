@@ -0,0 +1,141 @@
+package simulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads back the commands in a CommandJournal one at a time, in the order they were carried out.
+ * The file is memory mapped and the header is checked when it is opened, a command that is cut short or doesn't
+ * make sense is found when the replay gets to it.
+ */
+class CommandJournalReader {
+
+	private final Path path;
+	private final ByteBuffer map;
+	private final int tickSize;
+	private final int placeCount;
+	private final int droneCount;
+	private final boolean eventDriven;
+
+	// The command that is up next, valid while hasCommand is true
+	private boolean hasCommand;
+	private long tick;
+	private long turn;
+	private byte command;
+	private int slot;
+	private int[] places;
+
+	CommandJournalReader(Path path) throws IOException{
+		this.path = path;
+		try(FileChannel channel = FileChannel.open(path,StandardOpenOption.READ)){
+			this.map = channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+		}
+		if((map.remaining() < 5 * Integer.BYTES + 1) || (map.getInt() != CommandJournal.MAGIC)){
+			throw new IOException("Not a journal file: "+path);
+		}
+		int version = map.getInt();
+		if(version != CommandJournal.VERSION){
+			throw new IOException("Journal file "+path+" is version "+version+", expected version "+CommandJournal.VERSION);
+		}
+		this.tickSize = map.getInt();
+		this.placeCount = map.getInt();
+		this.droneCount = map.getInt();
+		this.eventDriven = map.get() != 0;
+		try{
+			next();
+		}
+		catch(UncheckedIOException e){
+			throw e.getCause();
+		}
+	}
+
+	int getTickSize() {
+		return tickSize;
+	}
+
+	int getPlaceCount() {
+		return placeCount;
+	}
+
+	int getDroneCount() {
+		return droneCount;
+	}
+
+	boolean isEventDriven() {
+		return eventDriven;
+	}
+
+	boolean hasCommand(){
+		return hasCommand;
+	}
+
+	long getTick(){
+		return tick;
+	}
+
+	long getTurn(){
+		return turn;
+	}
+
+	byte getCommand(){
+		return command;
+	}
+
+	int getSlot(){
+		return slot;
+	}
+
+	/**
+	 * @return the place ids for a ROUTE, one of them, or a MANIFEST
+	 */
+	int[] getPlaces(){
+		return places;
+	}
+
+	private ByteBuffer need(int bytes){
+		if(map.remaining() < bytes){
+			throw new UncheckedIOException(new IOException("Journal file "+path+" ends part way through a command"));
+		}
+		return map;
+	}
+
+	/**
+	 * Move on to the next command
+	 */
+	void next(){
+		hasCommand = map.hasRemaining();
+		if(!hasCommand){
+			return;
+		}
+		tick = need(Long.BYTES).getLong();
+		turn = need(Long.BYTES).getLong();
+		command = need(1).get();
+		slot = need(Integer.BYTES).getInt();
+		switch(command){
+			case CommandJournal.ROUTE:
+				places = new int[]{need(Integer.BYTES).getInt()};
+				break;
+			case CommandJournal.MANIFEST:
+				int count = need(Integer.BYTES).getInt();
+				if((count < 0) || (count > placeCount)){
+					throw new UncheckedIOException(new IOException("Journal file "+path+" has a manifest with "+count+" places"));
+				}
+				places = new int[count];
+				for(int i = 0; i < count; i++){
+					places[i] = need(Integer.BYTES).getInt();
+				}
+				break;
+			case CommandJournal.HOLD:
+			case CommandJournal.QUARANTINE:
+				places = new int[0];
+				break;
+			default:
+				throw new UncheckedIOException(new IOException("Journal file "+path+" has an unknown command "+command));
+		}
+	}
+
+}
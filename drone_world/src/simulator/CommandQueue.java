@@ -0,0 +1,62 @@
+package simulator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Commands that controllers give while the simulator is pipelining, held until the simulator gets to a point where it can apply them.
+ * Controllers add commands from their own threads through a lock free queue.  The simulator applies them in drone order,
+ * and in the order they were given for each drone, so that which controller thread got there first doesn't change the outcome.
+ */
+class CommandQueue {
+
+	private static class Entry {
+		private final int slot;
+		private final long sequence;
+		private final Runnable command;
+
+		private Entry(int slot, long sequence, Runnable command){
+			this.slot = slot;
+			this.sequence = sequence;
+			this.command = command;
+		}
+	}
+
+	private static final Comparator<Entry> ORDER = Comparator.comparingInt((Entry e) -> e.slot).thenComparingLong(e -> e.sequence);
+
+	private final Queue<Entry> queue = new ConcurrentLinkedQueue<Entry>();
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * Hold a command for the drone in slot
+	 */
+	void add(int slot, Runnable command){
+		queue.offer(new Entry(slot,sequence.getAndIncrement(),command));
+	}
+
+	boolean isEmpty(){
+		return queue.isEmpty();
+	}
+
+	/**
+	 * Apply every command that has been given so far
+	 * @return how many commands were applied
+	 */
+	int apply(){
+		List<Entry> due = new ArrayList<Entry>();
+		Entry e;
+		while((e = queue.poll()) != null){
+			due.add(e);
+		}
+		due.sort(ORDER);
+		for(Entry x: due){
+			x.command.run();
+		}
+		return due.size();
+	}
+
+}
@@ -0,0 +1,81 @@
+package simulator;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CommandQueueTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testOrder() {
+		CommandQueue queue = new CommandQueue();
+		List<String> applied = new ArrayList<String>();
+		assertTrue(queue.isEmpty());
+		queue.add(2,() -> applied.add("2a"));
+		queue.add(0,() -> applied.add("0a"));
+		queue.add(2,() -> applied.add("2b"));
+		queue.add(1,() -> applied.add("1a"));
+		queue.add(0,() -> applied.add("0b"));
+		assertFalse(queue.isEmpty());
+		assertTrue(applied.isEmpty());
+
+		assertEquals(5,queue.apply());
+		assertEquals(List.of("0a","0b","1a","2a","2b"),applied);
+		assertTrue(queue.isEmpty());
+		assertEquals(0,queue.apply());
+	}
+
+	@Test
+	public void testManyThreads() throws Exception {
+		CommandQueue queue = new CommandQueue();
+		List<Integer> applied = Collections.synchronizedList(new ArrayList<Integer>());
+		int threads = 8;
+		int each = 1000;
+		List<Thread> running = new ArrayList<Thread>();
+		for(int t = 0; t < threads; t++){
+			int slot = t;
+			Thread thread = new Thread(() -> {
+				for(int i = 0; i < each; i++){
+					int x = slot*each+i;
+					queue.add(slot,() -> applied.add(x));
+				}
+			});
+			running.add(thread);
+			thread.start();
+		}
+		for(Thread t: running){
+			t.join();
+		}
+
+		//However the threads were interleaved, commands come out by slot and then in the order they were given
+		assertEquals(threads*each,queue.apply());
+		for(int i = 0; i < applied.size(); i++){
+			assertEquals(i,(int)applied.get(i));
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+package simulator;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import reference.DroneControllerSkeleton;
+import simulator.enums.DroneEvent;
+import simulator.interfaces.DroneController;
+
+/**
+ * Works out which call backs a drone controller wants, so that the simulator doesn't snapshot drones and make calls for the rest.
+ * A controller can say which ones it wants. If it doesn't, it wants the ones it overrides from DroneControllerSkeleton, whose
+ * versions only print what happened.
+ */
+class ControllerEvents {
+
+	//The DroneController method for each event
+	private static final Map<DroneEvent,String> METHODS = new EnumMap<DroneEvent,String>(DroneEvent.class);
+	static{
+		METHODS.put(DroneEvent.SIMULATION_START,"droneSimulationStart");
+		METHODS.put(DroneEvent.SIMULATION_END,"droneSimulationEnd");
+		METHODS.put(DroneEvent.BEHAVING_BADLY,"droneBehavingBadly");
+		METHODS.put(DroneEvent.EMBARKING_START,"droneEmbarkingStart");
+		METHODS.put(DroneEvent.EMBARKING_A_GROUP_START,"droneEmbarkingAGroupStart");
+		METHODS.put(DroneEvent.EMBARKING_A_GROUP_END,"droneEmbarkingAGroupEnd");
+		METHODS.put(DroneEvent.EMBARKING_END,"droneEmbarkingEnd");
+		METHODS.put(DroneEvent.ASCENDING_START,"droneAscendingStart");
+		METHODS.put(DroneEvent.ASCENDING_END,"droneAscendingEnd");
+		METHODS.put(DroneEvent.TRANSITING_START,"droneTransitingStart");
+		METHODS.put(DroneEvent.TRANSITING,"droneTransiting");
+		METHODS.put(DroneEvent.TRANSITING_END,"droneTransitingEnd");
+		METHODS.put(DroneEvent.EXPLODING,"droneExploding");
+		METHODS.put(DroneEvent.HAS_DIED,"droneHasDied");
+		METHODS.put(DroneEvent.DESCENDING_START,"droneDescendingStart");
+		METHODS.put(DroneEvent.DESCENDING_END,"droneDescendingEnd");
+		METHODS.put(DroneEvent.DISEMBARKING_START,"droneDisembarkingStart");
+		METHODS.put(DroneEvent.DISEMBARKING_GROUP_START,"droneDisembarkingGroupStart");
+		METHODS.put(DroneEvent.DISEMBARKING_GROUP_END,"droneDisembarkingGroupEnd");
+		METHODS.put(DroneEvent.DISEMBARKING_END,"droneDisembarkingEnd");
+		METHODS.put(DroneEvent.RECHARGING_START,"droneRechargingStart");
+		METHODS.put(DroneEvent.RECHARGING,"droneRecharging");
+		METHODS.put(DroneEvent.RECHARGING_END,"droneRechargingEnd");
+		METHODS.put(DroneEvent.IDLING,"droneIdling");
+	}
+
+	//Controller classes only have to be looked at once
+	private static final Map<Class<?>,Set<DroneEvent>> detected = new ConcurrentHashMap<Class<?>,Set<DroneEvent>>();
+
+	private ControllerEvents(){
+	}
+
+	/**
+	 * @return the call backs that controller wants, which can't be changed
+	 */
+	static Set<DroneEvent> of(DroneController controller){
+		if(controller == null){
+			return Collections.unmodifiableSet(EnumSet.noneOf(DroneEvent.class));
+		}
+		Set<DroneEvent> declared = controller.getDroneEvents();
+		if(declared != null){
+			Set<DroneEvent> ret = EnumSet.noneOf(DroneEvent.class);
+			ret.addAll(declared);
+			return Collections.unmodifiableSet(ret);
+		}
+		return detected.computeIfAbsent(controller.getClass(),ControllerEvents::detect);
+	}
+
+	/**
+	 * @return the call backs that a controller class overrides
+	 */
+	private static Set<DroneEvent> detect(Class<?> c){
+		Set<DroneEvent> ret = EnumSet.noneOf(DroneEvent.class);
+		for(Map.Entry<DroneEvent,String> e: METHODS.entrySet()){
+			boolean withPercent = (e.getKey() == DroneEvent.TRANSITING) || (e.getKey() == DroneEvent.RECHARGING);
+			try{
+				Method m = withPercent ? c.getMethod(e.getValue(),Drone.class,double.class) : c.getMethod(e.getValue(),Drone.class);
+				if(m.getDeclaringClass() != DroneControllerSkeleton.class){
+					ret.add(e.getKey());
+				}
+			}
+			catch(NoSuchMethodException ex){
+				//Every controller has every call back, but if one can't be found it is better to make the call than to miss it
+				ret.add(e.getKey());
+			}
+		}
+		return Collections.unmodifiableSet(ret);
+	}
+
+}
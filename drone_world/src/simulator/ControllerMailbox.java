@@ -0,0 +1,125 @@
+package simulator;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs one controller's calls on a worker thread of its own.  Calls are handed over through a lock free queue and the
+ * worker is woken with unpark, so a call doesn't have to get a lock or a thread from a pool.
+ * A worker that is stuck in a call that timed out is abandoned and the next call starts a new one.
+ * Workers that have nothing to do for a while stop and are started again when they are needed.
+ */
+class ControllerMailbox {
+
+	// How long a worker waits for a call before it stops
+	private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+	private final String name;
+	private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<Runnable>();
+	private final AtomicReference<Thread> worker = new AtomicReference<Thread>();
+	private volatile boolean shutdown = false;
+
+	/**
+	 * @param name, what to call the worker thread
+	 */
+	ControllerMailbox(String name){
+		this.name = name;
+	}
+
+	/**
+	 * Hand a call to the worker
+	 * @return the result of the call, or null if the mailbox has been shut down
+	 */
+	<R> Future<R> submit(Callable<R> call){
+		if(shutdown){
+			return null;
+		}
+		FutureTask<R> task = new FutureTask<R>(call);
+		mailbox.offer(task);
+		Thread t = worker.get();
+		if(t == null){
+			startWorker();
+		}
+		else{
+			LockSupport.unpark(t);
+		}
+		return task;
+	}
+
+	/**
+	 * Stop using the current worker, because it is stuck in a call that won't finish
+	 */
+	void abandon(){
+		Thread t = worker.get();
+		if((t != null) && worker.compareAndSet(t,null)){
+			t.interrupt();
+		}
+		if(!mailbox.isEmpty()){
+			startWorker();
+		}
+	}
+
+	/**
+	 * Stop taking calls and let the worker stop
+	 */
+	void shutdown(){
+		shutdown = true;
+		Thread t = worker.getAndSet(null);
+		if(t != null){
+			LockSupport.unpark(t);
+		}
+	}
+
+	boolean isShutdown(){
+		return shutdown;
+	}
+
+	private void startWorker(){
+		Thread t = new Thread(this::work,name);
+		t.setDaemon(true);
+		if(worker.compareAndSet(null,t)){
+			t.start();
+		}
+		else{
+			Thread current = worker.get();
+			if(current != null){
+				LockSupport.unpark(current);
+			}
+		}
+	}
+
+	private void work(){
+		Thread self = Thread.currentThread();
+		long idleSince = System.nanoTime();
+		while(worker.get() == self){
+			Runnable call = mailbox.poll();
+			if(call != null){
+				call.run();
+				//A cancelled call leaves the worker interrupted
+				Thread.interrupted();
+				idleSince = System.nanoTime();
+			}
+			else if((System.nanoTime() - idleSince) >= IDLE_NANOS){
+				//Stop, unless a call came in while stopping and no one else has started a worker for it
+				if(!worker.compareAndSet(self,null)){
+					return;
+				}
+				if(mailbox.isEmpty() || (!worker.compareAndSet(null,self))){
+					return;
+				}
+				idleSince = System.nanoTime();
+			}
+			else{
+				LockSupport.parkNanos(this,IDLE_NANOS);
+				Thread.interrupted();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,93 @@
+package simulator;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ControllerMailboxTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testCallsRunInOrderOnOneThread() throws Exception {
+		ControllerMailbox mailbox = new ControllerMailbox("test");
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int i = 0; i < 100; i++){
+			int x = i;
+			Future<Integer> f = mailbox.submit(() -> {threads.add(Thread.currentThread()); return x;});
+			assertEquals(x,(int)f.get(1,TimeUnit.SECONDS));
+		}
+		assertEquals(100,threads.size());
+		for(Thread t: threads){
+			assertSame(threads.get(0),t);
+			assertNotSame(Thread.currentThread(),t);
+		}
+		mailbox.shutdown();
+	}
+
+	@Test
+	public void testStuckCall() throws Exception {
+		ControllerMailbox mailbox = new ControllerMailbox("test");
+		CountDownLatch never = new CountDownLatch(1);
+		Future<Object> stuck = mailbox.submit(() -> {
+			//Ignore interrupts like a badly behaved controller
+			while(true){
+				try{
+					never.await();
+					return null;
+				}
+				catch(InterruptedException e){
+				}
+			}
+		});
+		try{
+			stuck.get(50,TimeUnit.MILLISECONDS);
+			fail("This should time out");
+		}
+		catch(TimeoutException e){
+			stuck.cancel(true);
+			mailbox.abandon();
+		}
+
+		//The next call gets a new worker
+		Future<String> f = mailbox.submit(() -> "ok");
+		assertEquals("ok",f.get(1,TimeUnit.SECONDS));
+		never.countDown();
+		mailbox.shutdown();
+	}
+
+	@Test
+	public void testShutdown() {
+		ControllerMailbox mailbox = new ControllerMailbox("test");
+		assertFalse(mailbox.isShutdown());
+		mailbox.shutdown();
+		assertTrue(mailbox.isShutdown());
+		assertNull(mailbox.submit(() -> "too late"));
+	}
+
+}
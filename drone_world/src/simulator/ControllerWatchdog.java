@@ -0,0 +1,189 @@
+package simulator;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps track of the deadlines of every controller call that is running and does something about the ones that run out of time.
+ * Deadlines are kept in a hashed timer wheel that one thread turns, so the threads waiting on calls don't have to
+ * time their waits and a call that finishes in time costs two atomic operations.  The thread is only woken up for a new
+ * deadline when it has nothing to watch, a wheel that is turning picks new deadlines up before they can be due.
+ * All the simulations in a program share one watchdog.
+ */
+class ControllerWatchdog {
+
+	// How often the wheel turns, which is also how late a deadline can be noticed
+	static final long TICK_MILLIS = 5;
+	private static final int WHEEL_SIZE = 512;
+
+	private static ControllerWatchdog shared = null;
+
+	/**
+	 * @return the watchdog that everyone shares, started the first time it is needed
+	 */
+	static synchronized ControllerWatchdog getShared(){
+		if(shared == null){
+			shared = new ControllerWatchdog("Controller Watchdog");
+		}
+		return shared;
+	}
+
+	/**
+	 * A call that is being watched
+	 */
+	static class Deadline {
+		private static final int RUNNING = 0;
+		private static final int FINISHED = 1;
+		private static final int EXPIRED = 2;
+
+		private final long started;
+		private final long expires;
+		private final Runnable onExpiry;
+		private final AtomicInteger state = new AtomicInteger(RUNNING);
+		//How many more times the wheel has to go around before this deadline is due
+		private long rounds;
+
+		private Deadline(long started, long expires, Runnable onExpiry){
+			this.started = started;
+			this.expires = expires;
+			this.onExpiry = onExpiry;
+		}
+
+		/**
+		 * The call finished
+		 * @return false if it finished too late and the deadline has already expired
+		 */
+		boolean finish(){
+			return state.compareAndSet(RUNNING,FINISHED);
+		}
+
+		boolean isExpired(){
+			return state.get() == EXPIRED;
+		}
+
+		/**
+		 * @return how many milliseconds the call has been running
+		 */
+		long elapsedMillis(){
+			return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+		}
+
+		private boolean expire(){
+			if(state.compareAndSet(RUNNING,EXPIRED)){
+				onExpiry.run();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	private final Queue<Deadline> incoming = new ConcurrentLinkedQueue<Deadline>();
+	// Only the watchdog thread touches the wheel
+	private final List<List<Deadline>> wheel;
+	private long watching = 0;
+	private long tick = 0;
+	private final long startTime;
+	private final Thread thread;
+	//True while the thread is parked until there is something to watch
+	private volatile boolean idle = false;
+	//How many times watch has had to wake the thread up
+	private final AtomicLong wakeUps = new AtomicLong();
+
+	ControllerWatchdog(String name){
+		wheel = new ArrayList<List<Deadline>>(WHEEL_SIZE);
+		for(int i = 0; i < WHEEL_SIZE; i++){
+			wheel.add(new ArrayList<Deadline>());
+		}
+		startTime = System.nanoTime();
+		thread = new Thread(this::turn,name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Start watching a call
+	 * @param timeoutMillis, how long the call has
+	 * @param onExpiry, what to do, on the watchdog thread, if the call doesn't finish in time
+	 */
+	Deadline watch(long timeoutMillis, Runnable onExpiry){
+		long now = System.nanoTime();
+		Deadline d = new Deadline(now,now + TimeUnit.MILLISECONDS.toNanos(timeoutMillis),onExpiry);
+		incoming.offer(d);
+		//The wheel turns every tick while it is watching anything and the deadline can't be due before the next tick
+		if(idle){
+			wakeUps.incrementAndGet();
+			LockSupport.unpark(thread);
+		}
+		return d;
+	}
+	
+	/**
+	 * @return how many times a new deadline has had to wake the watchdog up
+	 */
+	long getWakeUps(){
+		return wakeUps.get();
+	}
+
+	private long ticksSinceStart(long nanoTime){
+		return TimeUnit.NANOSECONDS.toMillis(nanoTime - startTime)/TICK_MILLIS;
+	}
+
+	private void turn(){
+		while(true){
+			if(watching == 0){
+				//Nothing is in the wheel so there is nothing to catch up on
+				tick = ticksSinceStart(System.nanoTime());
+			}
+			
+			//Put new deadlines in the slot for the first tick that starts after they expire
+			Deadline d;
+			while((d = incoming.poll()) != null){
+				long due = Math.max(tick,ticksSinceStart(d.expires)+1);
+				d.rounds = (due - tick)/WHEEL_SIZE;
+				wheel.get((int)(due % WHEEL_SIZE)).add(d);
+				watching++;
+			}
+
+			//Catch up to the clock, one slot at a time
+			long now = ticksSinceStart(System.nanoTime());
+			for(; tick <= now; tick++){
+				Iterator<Deadline> i = wheel.get((int)(tick % WHEEL_SIZE)).iterator();
+				while(i.hasNext()){
+					d = i.next();
+					if(d.state.get() != Deadline.RUNNING){
+						i.remove();
+						watching--;
+					}
+					else if(d.rounds > 0){
+						d.rounds--;
+					}
+					else{
+						i.remove();
+						watching--;
+						d.expire();
+					}
+				}
+			}
+
+			if(watching == 0){
+				//Deadlines offered after this is set wake the thread up, ones offered before it are seen here
+				idle = true;
+				if(incoming.isEmpty()){
+					LockSupport.park(this);
+				}
+				idle = false;
+			}
+			else{
+				LockSupport.parkNanos(this,TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS));
+			}
+		}
+	}
+
+}
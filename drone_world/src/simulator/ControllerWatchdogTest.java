@@ -0,0 +1,96 @@
+package simulator;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ControllerWatchdogTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testFinishInTime() throws Exception {
+		ControllerWatchdog watchdog = new ControllerWatchdog("test");
+		CountDownLatch expired = new CountDownLatch(1);
+		ControllerWatchdog.Deadline d = watchdog.watch(50,() -> expired.countDown());
+		assertTrue(d.finish());
+		assertFalse(expired.await(100,TimeUnit.MILLISECONDS));
+		assertFalse(d.isExpired());
+	}
+
+	@Test
+	public void testExpire() throws Exception {
+		ControllerWatchdog watchdog = new ControllerWatchdog("test");
+		CountDownLatch expired = new CountDownLatch(1);
+		ControllerWatchdog.Deadline d = watchdog.watch(20,() -> expired.countDown());
+		assertTrue(expired.await(1,TimeUnit.SECONDS));
+		assertTrue(d.isExpired());
+		//It never expires early
+		assertTrue(d.elapsedMillis() >= 20);
+		//Finishing after expiring is too late
+		assertFalse(d.finish());
+	}
+
+	@Test
+	public void testManyDeadlines() throws Exception {
+		ControllerWatchdog watchdog = new ControllerWatchdog("test");
+		int n = 1000;
+		CountDownLatch expired = new CountDownLatch(n/2);
+		ControllerWatchdog.Deadline[] deadlines = new ControllerWatchdog.Deadline[n];
+		for(int i = 0; i < n; i++){
+			//Some go around the wheel more than once
+			deadlines[i] = watchdog.watch(10+(i%4)*1000,() -> expired.countDown());
+		}
+		for(int i = 0; i < n; i += 2){
+			assertTrue(deadlines[i].finish());
+		}
+		assertTrue(expired.await(10,TimeUnit.SECONDS));
+		for(int i = 0; i < n; i++){
+			assertEquals((i % 2) == 1,deadlines[i].isExpired());
+		}
+	}
+
+	@Test
+	//A watchdog that is already watching something isn't woken up for every new deadline
+	public void testWakeUps() throws Exception {
+		ControllerWatchdog watchdog = new ControllerWatchdog("test");
+		ControllerWatchdog.Deadline first = watchdog.watch(10*Simulator.ONE_SECOND,() -> {});
+		//Give the thread time to put the first deadline in the wheel
+		Thread.sleep(5*ControllerWatchdog.TICK_MILLIS);
+		long wakeUps = watchdog.getWakeUps();
+		assertTrue(wakeUps <= 1);
+		for(int i = 0; i < 1000; i++){
+			assertTrue(watchdog.watch(10*Simulator.ONE_SECOND,() -> {}).finish());
+		}
+		assertEquals(wakeUps,watchdog.getWakeUps());
+		
+		//Deadlines are still noticed when it comes back to them
+		CountDownLatch expired = new CountDownLatch(1);
+		watchdog.watch(20,() -> expired.countDown());
+		assertTrue(expired.await(1,TimeUnit.SECONDS));
+		assertEquals(wakeUps,watchdog.getWakeUps());
+		assertTrue(first.finish());
+	}
+
+}
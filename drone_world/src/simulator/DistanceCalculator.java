@@ -2,7 +2,7 @@ package simulator;
 
 public class DistanceCalculator {
 	
-	private static double deg2rad(double deg) {
+	static double deg2rad(double deg) {
 		return (deg * Math.PI / 180.0);
 	}
 	
@@ -19,10 +19,18 @@ public class DistanceCalculator {
 	 * @return
 	 */
 	public static double distance(double lat1, double lon1, double lat2, double lon2) {
+		return distance(Math.sin(deg2rad(lat1)), Math.cos(deg2rad(lat1)), Math.sin(deg2rad(lat2)), Math.cos(deg2rad(lat2)), lon1 - lon2);
+	}
+	
+	/**
+	 * Calculate the distance between 2 points in meters from the sine and cosine of their latitudes, which can be cached
+	 * @param theta, the difference in their longitudes in degrees
+	 * @return
+	 */
+	static double distance(double sinLat1, double cosLat1, double sinLat2, double cosLat2, double theta) {
 		String unit = "K";
 		
-		double theta = lon1 - lon2;
-		double dist = Math.sin(deg2rad(lat1)) * Math.sin(deg2rad(lat2)) + Math.cos(deg2rad(lat1)) * Math.cos(deg2rad(lat2)) * Math.cos(deg2rad(theta));
+		double dist = sinLat1 * sinLat2 + cosLat1 * cosLat2 * Math.cos(deg2rad(theta));
 		dist = Math.acos(dist);
 		dist = rad2deg(dist);
 		dist = dist * 60 * 1.1515;
@@ -0,0 +1,142 @@
+package simulator;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Distances in meters between the places in a simulation. The trigonometry for each place is done once when the
+ * matrix is built and the distance between every pair of places is looked up instead of calculated.
+ * The numbers are the same as the ones that DistanceCalculator returns.
+ */
+public class DistanceMatrix {
+
+	//Past this many places the table gets too big to keep and distances between places are calculated from the cached trigonometry
+	static final int MAX_TABLE_PLACES = 2048;
+
+	//Where each place's values are in the arrays.  This is the place's id when the places have ids from 0 to n-1,
+	//otherwise they are looked up by name so that copies of places work too
+	private Map<String,Integer> index;
+	private String[] names;
+
+	//Per place values
+	private double[] latitude;
+	private double[] longitude;
+	private double[] sinLatitude;
+	private double[] cosLatitude;
+
+	//Row major distances between places, null if there are too many places
+	private double[] table;
+
+	public DistanceMatrix(Collection<Place> places){
+		if(places == null){
+			throw new IllegalArgumentException("Can't build a distance matrix without places");
+		}
+		int n = places.size();
+		index = new HashMap<String,Integer>();
+		names = new String[n];
+		latitude = new double[n];
+		longitude = new double[n];
+		sinLatitude = new double[n];
+		cosLatitude = new double[n];
+
+		boolean byId = true;
+		boolean[] seen = new boolean[n];
+		for(Place p: places){
+			int id = p.getId();
+			if((id < 0) || (id >= n) || seen[id]){
+				byId = false;
+				break;
+			}
+			seen[id] = true;
+		}
+
+		int next = 0;
+		for(Place p: places){
+			int i = byId ? p.getId() : next++;
+			if(index.put(p.getName(),i) != null){
+				throw new IllegalArgumentException("Two places are called "+p.getName());
+			}
+			names[i] = p.getName();
+			Position position = p.getPosition();
+			latitude[i] = position.getLatitude();
+			longitude[i] = position.getLongitude();
+			sinLatitude[i] = Math.sin(DistanceCalculator.deg2rad(latitude[i]));
+			cosLatitude[i] = Math.cos(DistanceCalculator.deg2rad(latitude[i]));
+		}
+
+		if(n <= MAX_TABLE_PLACES){
+			table = new double[n*n];
+			for(int from = 0; from < n; from++){
+				for(int to = 0; to < n; to++){
+					table[from*n+to] = calculate(from,to);
+				}
+			}
+		}
+		else{
+			table = null;
+		}
+	}
+
+	private int indexOf(Place place){
+		int id = place.getId();
+		if((id >= 0) && (id < names.length) && (names[id] != null) && (names[id].equals(place.getName()))){
+			return id;
+		}
+		Integer i = index.get(place.getName());
+		if(i == null){
+			throw new IllegalArgumentException("Unknown place: "+place.getName());
+		}
+		return i;
+	}
+
+	private double calculate(int from, int to){
+		return DistanceCalculator.distance(sinLatitude[from], cosLatitude[from], sinLatitude[to], cosLatitude[to], longitude[from] - longitude[to]);
+	}
+
+	/**
+	 * @return how many places are in the matrix
+	 */
+	public int size(){
+		return latitude.length;
+	}
+
+	/**
+	 * The distance between two places in meters
+	 */
+	public double distance(Place from, Place to){
+		int f = indexOf(from);
+		int t = indexOf(to);
+		if(table == null){
+			return calculate(f,t);
+		}
+		else{
+			return table[f*latitude.length+t];
+		}
+	}
+
+	/**
+	 * The distance from somewhere, like a flying drone, to a place in meters
+	 */
+	public double distance(Position from, Place to){
+		return distance(from.getLatitude(),from.getLongitude(),to);
+	}
+
+	/**
+	 * The distance from a latitude and longitude to a place in meters
+	 */
+	public double distance(double latitude, double longitude, Place to){
+		int t = indexOf(to);
+		double lat = DistanceCalculator.deg2rad(latitude);
+		return DistanceCalculator.distance(Math.sin(lat), Math.cos(lat), sinLatitude[t], cosLatitude[t], longitude - this.longitude[t]);
+	}
+
+	double sinLatitude(Place place){
+		return sinLatitude[indexOf(place)];
+	}
+
+	double cosLatitude(Place place){
+		return cosLatitude[indexOf(place)];
+	}
+
+}
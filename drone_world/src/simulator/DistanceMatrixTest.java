@@ -0,0 +1,85 @@
+package simulator;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class DistanceMatrixTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	private static List<Place> loadTestPlaces(){
+		List<Place> ret = new ArrayList<Place>();
+		ret.add(new Place("Winter Hall",new Position(34.448868,-119.6629439,0)));
+		ret.add(new Place("SBCC",new Position(34.4060661,-119.69755,0)));
+		ret.add(new Place("Show Grounds",new Position(34.4300057,-119.7363983,0)));
+		ret.add(new Place("Dog Beach",new Position(34.4026544,-119.7426834,0)));
+		return ret;
+	}
+
+	@Test
+	public void testMatchesDistanceCalculator() {
+		List<Place> places = loadTestPlaces();
+		DistanceMatrix matrix = new DistanceMatrix(places);
+		assertEquals(places.size(),matrix.size());
+
+		for(Place from: places){
+			for(Place to: places){
+				double expected = DistanceCalculator.distance(from.getPosition().getLatitude(),from.getPosition().getLongitude(),to.getPosition().getLatitude(),to.getPosition().getLongitude());
+				assertEquals(expected,matrix.distance(from,to),0.0);
+				assertEquals(expected,matrix.distance(from.getPosition(),to),0.0);
+				//Copies of places are found by name
+				assertEquals(expected,matrix.distance(new Place(from),new Place(to)),0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testDegenerate() {
+		try{
+			new DistanceMatrix(null);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+
+		List<Place> places = loadTestPlaces();
+		places.add(new Place("SBCC",new Position(34.0,-119.0,0)));
+		try{
+			new DistanceMatrix(places);
+			fail("Place names have to be unique");
+		}
+		catch(IllegalArgumentException e){
+		}
+
+		DistanceMatrix matrix = new DistanceMatrix(loadTestPlaces());
+		try{
+			matrix.distance(new Place("Nowhere",new Position(0,0,0)),places.get(0));
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+	}
+
+}
@@ -9,8 +9,9 @@ import java.util.TreeSet;
 import simulator.enums.DroneState;
 import simulator.enums.PersonState;
 import simulator.interfaces.DroneController;
+import simulator.interfaces.DroneView;
 
-public class Drone implements Comparable<Drone>{
+public class Drone implements Comparable<Drone>, DroneView{
 	
 	//This is the controller that makes decisions for this drone
 	private DroneController controller;
@@ -23,7 +24,6 @@ public class Drone implements Comparable<Drone>{
 	private String companyName;
 	
 	private Place start;
-	private Position position;
 	private Place destination;
 	
 	//The list of places that passengers are told the drone is going to - effects their boarding
@@ -50,25 +50,24 @@ public class Drone implements Comparable<Drone>{
 	//How many milliseconds it takes to lower from to cruising altitude
 	private long descensionTime;
 	
-	//Time of start of transit
-	private long transitStart;
-	private long transitEnd;
-	
-	// between 0.0 and 1.0 with 1.0 full charged
-	private double charge;
+	// Where the drone is, the times of the start and end of transit, it's charge, speed and discharge rate are kept in
+	// a fleet with the rest of the simulation's drones, in this drone's slot
+	private FleetState fleet;
+	private int slot;
 	
 	// Percentage of charged gained per second while recharging
 	private double rechargeRate;
 	
-	// Percentage of charge lost per meter
-	private double dischargeRate;
-	
 	// How many passengers can this drone carry?
 	private int capacity;
 	private Set<Person> passengers;
 	
-	// meters per second;
-	private double speed;
+	// Keeps count of drones by state for the simulator this drone is in
+	private StateCounter<DroneState> stateCounter;
+	
+	// When the simulator next needs to look at this drone and the last tick it was brought up to date (only used when the simulator is event driven)
+	private long nextEventTime;
+	private long lastUpdateTime;
 	
 	
 	public DroneController getController() {
@@ -109,14 +108,67 @@ public class Drone implements Comparable<Drone>{
 	
 	void setStart(Place start) {
 		this.start = start;
+		if(fleet != null){
+			fleet.unplan(slot);
+		}
 	}
 	
+	/**
+	 * @return a copy of where the drone is
+	 */
 	public Position getPosition(){
-		return position;
+		return fleet.getPosition(slot);
 	}
 	
 	void setPosition(Position position){
-		this.position = position;
+		fleet.setPosition(slot,position);
+	}
+	
+	void setPosition(double latitude, double longitude, double height){
+		fleet.setPosition(slot,latitude,longitude,height);
+	}
+	
+	/**
+	 * @return false if the drone isn't anywhere, the simulator uses this and the next three instead of copying the position
+	 */
+	boolean hasPosition(){
+		return fleet.isPositioned(slot);
+	}
+	
+	double getLatitude(){
+		return fleet.getLatitude(slot);
+	}
+	
+	double getLongitude(){
+		return fleet.getLongitude(slot);
+	}
+	
+	double getHeight(){
+		return fleet.getHeight(slot);
+	}
+	
+	void setHeight(double height){
+		fleet.setHeight(slot,height);
+	}
+	
+	FleetState getFleet(){
+		return fleet;
+	}
+	
+	int getSlot(){
+		return slot;
+	}
+	
+	/**
+	 * Move this drone's numbers into a new slot in fleet
+	 */
+	void setFleet(FleetState fleet){
+		int newSlot = fleet.add();
+		if(this.fleet != null){
+			fleet.copy(this.fleet,this.slot,newSlot);
+		}
+		this.fleet = fleet;
+		this.slot = newSlot;
 	}
 
 	public Place getDestination() {
@@ -125,6 +177,9 @@ public class Drone implements Comparable<Drone>{
 	
 	void setDestination(Place place){
 		destination = place;
+		if(fleet != null){
+			fleet.unplan(slot);
+		}
 	}
 
 	public Set<Place> getManifest() {
@@ -140,8 +195,25 @@ public class Drone implements Comparable<Drone>{
 	}
 
 	void setState(DroneState state) {
+		if(stateCounter != null){
+			stateCounter.moved(this.state,state);
+		}
+		//A drone only recharges while it is recharging
+		if((state != DroneState.RECHARGING) && (fleet != null)){
+			fleet.stopRecharging(slot);
+		}
 		this.state = state;
 	}
+	
+	void setStateCounter(StateCounter<DroneState> stateCounter){
+		if(this.stateCounter != null){
+			this.stateCounter.remove(this.state);
+		}
+		this.stateCounter = stateCounter;
+		if(this.stateCounter != null){
+			this.stateCounter.add(this.state);
+		}
+	}
 
 	public long getEmbarkingStart() {
 		return embarkingStart;
@@ -216,27 +288,27 @@ public class Drone implements Comparable<Drone>{
 	}
 
 	public long getTransitStart() {
-		return transitStart;
+		return fleet.getTransitStart(slot);
 	}
 
 	void setTransitStart(long transitStart) {
-		this.transitStart = transitStart;
+		fleet.setTransitStart(slot,transitStart);
 	}
 
 	public long getTransitEnd() {
-		return transitEnd;
+		return fleet.getTransitEnd(slot);
 	}
 
 	void setTransitEnd(long transitEnd) {
-		this.transitEnd = transitEnd;
+		fleet.setTransitEnd(slot,transitEnd);
 	}
 
 	public double getCharge() {
-		return charge;
+		return fleet.getCharge(slot);
 	}
 
 	void setCharge(double charge) {
-		this.charge = charge;
+		fleet.setCharge(slot,charge);
 	}
 
 	public double getRechargeRate() {
@@ -248,11 +320,11 @@ public class Drone implements Comparable<Drone>{
 	}
 	
 	public double getDischargeRate() {
-		return dischargeRate;
+		return fleet.getDischargeRate(slot);
 	}
 
 	void setDischargeRate(double dischargeRate) {
-		this.dischargeRate = dischargeRate;
+		fleet.setDischargeRate(slot,dischargeRate);
 	}
 
 	public int getCapacity() {
@@ -268,11 +340,27 @@ public class Drone implements Comparable<Drone>{
 	}
 
 	public double getSpeed(){
-		return speed;
+		return fleet.getSpeed(slot);
 	}
 	
 	void setSpeed(double speed) {
-		this.speed = speed;
+		fleet.setSpeed(slot,speed);
+	}
+	
+	long getNextEventTime() {
+		return nextEventTime;
+	}
+
+	void setNextEventTime(long nextEventTime) {
+		this.nextEventTime = nextEventTime;
+	}
+
+	long getLastUpdateTime() {
+		return lastUpdateTime;
+	}
+
+	void setLastUpdateTime(long lastUpdateTime) {
+		this.lastUpdateTime = lastUpdateTime;
 	}
 	
 	void quarantine(){
@@ -289,6 +377,7 @@ public class Drone implements Comparable<Drone>{
 	public Drone(DroneController controller, Place start,Place destination,int capacity,Random r) {
 		
 		this.controller = controller;
+		this.setFleet(new FleetState(1));
 		
 		// Make up a unique id
 		long x = r.nextLong();
@@ -306,10 +395,10 @@ public class Drone implements Comparable<Drone>{
 		}
 		
 		//Set defaults
-		speed = 100.0;
-		charge = 1.0;
+		setSpeed(100.0);
+		setCharge(1.0);
 		rechargeRate = 0.10;
-		dischargeRate = 0.0002;
+		setDischargeRate(0.0002);
 		
 		embarkingDuration= 20*Simulator.ONE_SECOND;
 		embarkingCapacity = 1;
@@ -323,9 +412,9 @@ public class Drone implements Comparable<Drone>{
 		descensionTime = 60*Simulator.ONE_SECOND;
 		
 		this.start = start;
-		this.position = start.getPosition();
+		this.setPosition(start.getPosition());
 		this.destination = destination;
-		this.manifest = new TreeSet<Place>();
+		this.manifest = new Manifest();
 		
 		this.setState(DroneState.BEGIN);
 		
@@ -344,21 +433,14 @@ public class Drone implements Comparable<Drone>{
 			throw new IllegalArgumentException("Can't copy construct null");
 		}
 		
-		this.setController(drone.getController());
+		this.setFleet(new FleetState(1));
+		copyValuesFrom(drone);
 		
-		this.setId(drone.getId());
-		this.setName(drone.getName());
-		this.setCompanyName(drone.getCompanyName());
 		this.setStart(new Place(drone.getStart()));
-		this.setPosition(new Position(drone.getPosition()));
+		this.setPosition(drone.getPosition());
 		this.setDestination(new Place(drone.getDestination()));
-		this.setManifest(new TreeSet<Place>());
-		this.getManifest().addAll(drone.getManifest());
-		this.setState(drone.getState());
+		this.setManifest(Manifest.copyOf(drone.getManifest()));
 		
-		this.setEmbarkingStart(drone.getEmbarkingStart());
-		this.setEmbarkingDuration(drone.getEmbarkingDuration());
-		this.setEmbarkingCapacity(drone.getEmbarkingCapacity());
 		if(drone.getEmbarkers() == null){
 			this.embarkers = null;
 		}
@@ -369,9 +451,6 @@ public class Drone implements Comparable<Drone>{
 			}
 		}
 		
-		this.setDisembarkingStart(drone.getDisembarkingStart());
-		this.setDisembarkingDuration(drone.getDisembarkingDuration());
-		this.setDisembarkingCapacity(drone.getDisembarkingCapacity());
 		if(drone.getDisembarkers() == null){
 			this.disembarkers = null;
 		}
@@ -382,18 +461,6 @@ public class Drone implements Comparable<Drone>{
 			}
 		}
 		
-		this.setAscensionTime(drone.getAscensionTime());
-		this.setDescensionTime(drone.getDescensionTime());
-		
-		this.setTransitStart(drone.getTransitStart());
-		this.setTransitEnd(drone.getTransitEnd());
-		
-		this.setCharge(drone.getCharge());
-		this.setRechargeRate(drone.getRechargeRate());
-		this.setDischargeRate(drone.getDischargeRate());
-		
-		this.capacity = drone.getCapacity();
-		
 		if(drone.getPassengers() == null){
 			this.passengers = null;
 		}
@@ -405,9 +472,54 @@ public class Drone implements Comparable<Drone>{
 				}
 			}
 		}
+	}
+	
+	/**
+	 * For subclasses that fill themselves in and keep their own numbers instead of a fleet
+	 */
+	Drone(){
+	}
+	
+	/**
+	 * Copy everything that isn't a place, a position or a collection
+	 */
+	void copyValuesFrom(Drone drone){
+		this.setController(drone.getController());
+		
+		this.setId(drone.getId());
+		this.setName(drone.getName());
+		this.setCompanyName(drone.getCompanyName());
+		this.setState(drone.getState());
+		
+		this.setEmbarkingStart(drone.getEmbarkingStart());
+		this.embarkingDuration = drone.getEmbarkingDuration();
+		this.embarkingCapacity = drone.getEmbarkingCapacity();
+		
+		this.setDisembarkingStart(drone.getDisembarkingStart());
+		this.setDisembarkingDuration(drone.getDisembarkingDuration());
+		this.setDisembarkingCapacity(drone.getDisembarkingCapacity());
+		
+		this.setAscensionTime(drone.getAscensionTime());
+		this.setDescensionTime(drone.getDescensionTime());
+		
+		this.setTransitStart(drone.getTransitStart());
+		this.setTransitEnd(drone.getTransitEnd());
+		
+		this.setCharge(drone.getCharge());
+		this.setRechargeRate(drone.getRechargeRate());
+		this.setDischargeRate(drone.getDischargeRate());
+		
+		this.capacity = drone.getCapacity();
 		
 		this.setSpeed(drone.getSpeed());
 	}
+	
+	/**
+	 * A cheap read only copy of this drone to hand to a controller. Quarantining the snapshot quarantines this drone.
+	 */
+	Drone snapshot(){
+		return new DroneSnapshot(this);
+	}
 
 
 
@@ -421,35 +533,35 @@ public class Drone implements Comparable<Drone>{
 		result = prime * result + (int) (ascensionTime ^ (ascensionTime >>> 32));
 		result = prime * result + capacity;
 		long temp;
-		temp = Double.doubleToLongBits(charge);
+		temp = Double.doubleToLongBits(getCharge());
 		result = prime * result + (int) (temp ^ (temp >>> 32));
 		result = prime * result + ((companyName == null) ? 0 : companyName.hashCode());
 		result = prime * result + ((controller == null) ? 0 : controller.hashCode());
 		result = prime * result + (int) (descensionTime ^ (descensionTime >>> 32));
 		result = prime * result + ((destination == null) ? 0 : destination.hashCode());
-		temp = Double.doubleToLongBits(dischargeRate);
+		temp = Double.doubleToLongBits(getDischargeRate());
 		result = prime * result + (int) (temp ^ (temp >>> 32));
-		result = prime * result + ((disembarkers == null) ? 0 : disembarkers.hashCode());
+		result = prime * result + ((getDisembarkers() == null) ? 0 : getDisembarkers().hashCode());
 		result = prime * result + disembarkingCapacity;
 		result = prime * result + disembarkingDuration;
 		result = prime * result + (int) (disembarkingStart ^ (disembarkingStart >>> 32));
-		result = prime * result + ((embarkers == null) ? 0 : embarkers.hashCode());
+		result = prime * result + ((getEmbarkers() == null) ? 0 : getEmbarkers().hashCode());
 		result = prime * result + embarkingCapacity;
 		result = prime * result + embarkingDuration;
 		result = prime * result + (int) (embarkingStart ^ (embarkingStart >>> 32));
 		result = prime * result + ((id == null) ? 0 : id.hashCode());
-		result = prime * result + ((manifest == null) ? 0 : manifest.hashCode());
+		result = prime * result + ((getManifest() == null) ? 0 : getManifest().hashCode());
 		result = prime * result + ((name == null) ? 0 : name.hashCode());
-		result = prime * result + ((passengers == null) ? 0 : passengers.hashCode());
-		result = prime * result + ((position == null) ? 0 : position.hashCode());
+		result = prime * result + ((getPassengers() == null) ? 0 : getPassengers().hashCode());
+		result = prime * result + ((!hasPosition()) ? 0 : Position.hashCode(getLatitude(),getLongitude(),getHeight()));
 		temp = Double.doubleToLongBits(rechargeRate);
 		result = prime * result + (int) (temp ^ (temp >>> 32));
-		temp = Double.doubleToLongBits(speed);
+		temp = Double.doubleToLongBits(getSpeed());
 		result = prime * result + (int) (temp ^ (temp >>> 32));
 		result = prime * result + ((start == null) ? 0 : start.hashCode());
 		result = prime * result + ((state == null) ? 0 : state.hashCode());
-		result = prime * result + (int) (transitEnd ^ (transitEnd >>> 32));
-		result = prime * result + (int) (transitStart ^ (transitStart >>> 32));
+		result = prime * result + (int) (getTransitEnd() ^ (getTransitEnd() >>> 32));
+		result = prime * result + (int) (getTransitStart() ^ (getTransitStart() >>> 32));
 		return result;
 	}
 
@@ -468,7 +580,7 @@ public class Drone implements Comparable<Drone>{
 		if (capacity != other.capacity) {
 			return false;
 		}
-		if (Double.doubleToLongBits(charge) != Double.doubleToLongBits(other.charge)) {
+		if (Double.doubleToLongBits(getCharge()) != Double.doubleToLongBits(other.getCharge())) {
 			return false;
 		}
 		if (companyName == null) {
@@ -495,14 +607,14 @@ public class Drone implements Comparable<Drone>{
 		} else if (!destination.equals(other.destination)) {
 			return false;
 		}
-		if (Double.doubleToLongBits(dischargeRate) != Double.doubleToLongBits(other.dischargeRate)) {
+		if (Double.doubleToLongBits(getDischargeRate()) != Double.doubleToLongBits(other.getDischargeRate())) {
 			return false;
 		}
-		if (disembarkers == null) {
-			if (other.disembarkers != null) {
+		if (getDisembarkers() == null) {
+			if (other.getDisembarkers() != null) {
 				return false;
 			}
-		} else if (!disembarkers.equals(other.disembarkers)) {
+		} else if (!getDisembarkers().equals(other.getDisembarkers())) {
 			return false;
 		}
 		if (disembarkingCapacity != other.disembarkingCapacity) {
@@ -514,11 +626,11 @@ public class Drone implements Comparable<Drone>{
 		if (disembarkingStart != other.disembarkingStart) {
 			return false;
 		}
-		if (embarkers == null) {
-			if (other.embarkers != null) {
+		if (getEmbarkers() == null) {
+			if (other.getEmbarkers() != null) {
 				return false;
 			}
-		} else if (!embarkers.equals(other.embarkers)) {
+		} else if (!getEmbarkers().equals(other.getEmbarkers())) {
 			return false;
 		}
 		if (embarkingCapacity != other.embarkingCapacity) {
@@ -537,11 +649,11 @@ public class Drone implements Comparable<Drone>{
 		} else if (!id.equals(other.id)) {
 			return false;
 		}
-		if (manifest == null) {
-			if (other.manifest != null) {
+		if (getManifest() == null) {
+			if (other.getManifest() != null) {
 				return false;
 			}
-		} else if (!manifest.equals(other.manifest)) {
+		} else if (!getManifest().equals(other.getManifest())) {
 			return false;
 		}
 		if (name == null) {
@@ -551,24 +663,29 @@ public class Drone implements Comparable<Drone>{
 		} else if (!name.equals(other.name)) {
 			return false;
 		}
-		if (passengers == null) {
-			if (other.passengers != null) {
+		if (getPassengers() == null) {
+			if (other.getPassengers() != null) {
 				return false;
 			}
-		} else if (!passengers.equals(other.passengers)) {
+		} else if (!getPassengers().equals(other.getPassengers())) {
 			return false;
 		}
-		if (position == null) {
-			if (other.position != null) {
-				return false;
-			}
-		} else if (!position.equals(other.position)) {
+		if (hasPosition() != other.hasPosition()) {
+			return false;
+		}
+		if (Double.doubleToLongBits(getLatitude()) != Double.doubleToLongBits(other.getLatitude())) {
+			return false;
+		}
+		if (Double.doubleToLongBits(getLongitude()) != Double.doubleToLongBits(other.getLongitude())) {
+			return false;
+		}
+		if (Double.doubleToLongBits(getHeight()) != Double.doubleToLongBits(other.getHeight())) {
 			return false;
 		}
 		if (Double.doubleToLongBits(rechargeRate) != Double.doubleToLongBits(other.rechargeRate)) {
 			return false;
 		}
-		if (Double.doubleToLongBits(speed) != Double.doubleToLongBits(other.speed)) {
+		if (Double.doubleToLongBits(getSpeed()) != Double.doubleToLongBits(other.getSpeed())) {
 			return false;
 		}
 		if (start == null) {
@@ -581,10 +698,10 @@ public class Drone implements Comparable<Drone>{
 		if (state != other.state) {
 			return false;
 		}
-		if (transitEnd != other.transitEnd) {
+		if (getTransitEnd() != other.getTransitEnd()) {
 			return false;
 		}
-		if (transitStart != other.transitStart) {
+		if (getTransitStart() != other.getTransitStart()) {
 			return false;
 		}
 		return true;
@@ -1,20 +1,38 @@
 package simulator;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
+import simulator.enums.DispatchMode;
+import simulator.enums.DroneEvent;
+import simulator.interfaces.Checkpointable;
 import simulator.interfaces.DroneController;
+import simulator.interfaces.FleetController;
+import simulator.interfaces.SimulationController;
 import simulator.safety.Command;
 
 public class DroneControllerSafetyWrapper implements DroneController {
@@ -22,19 +40,195 @@ public class DroneControllerSafetyWrapper implements DroneController {
 	// The initial amount of time a controller can take on a call
 	private static final int INITIAL_TIMEOUT = 2 * Simulator.ONE_SECOND;
 	private static final int FINAL_TIMEOUT = 10;
+	// A call that takes more than this much of it's time is a near miss
+	private static final double NEAR_MISS = 0.5;
 	
-	// The pool that executes the drone controller calls
-	private static final ExecutorService pool = Executors.newCachedThreadPool();
-	private static final Object poolLock = new Object();
+	// How this controller's calls are run
+	private DispatchMode dispatchMode;
 	
-	private static ExecutorService getPool() {
+	// The pool that executes this controller's calls when they are POOLED, each wrapper has it's own so that simulations can run side by side
+	private ExecutorService pool = null;
+	private final Object poolLock = new Object();
+	
+	// The worker that executes this controller's calls when they are sent to a MAILBOX
+	private ControllerMailbox mailbox = null;
+	
+	// When the simulator is pipelining, drone call backs that haven't been waited for yet
+	private boolean pipelined = false;
+	// What the controller's pipelined call backs get from getSimulationController, with random numbers of their own
+	private PipelinedSimulationController pipelinedController = null;
+	// The simulator this controller was given, which keeps track of quarantines for journals
+	private Simulator simulator = null;
+	private final List<Command> pending = new ArrayList<Command>();
+	
+	private ExecutorService getPool() {
 		return pool;
 	}
 	
-	private static Object getPoolLock(){
+	private Object getPoolLock(){
 		return poolLock;
 	}
 	
+	/**
+	 * Start running a call to the controller
+	 * @return the result of the call or null if calls can't be made anymore
+	 */
+	private <R> Future<R> submit(Callable<R> call){
+		if(dispatchMode == DispatchMode.MAILBOX){
+			return mailbox.submit(call);
+		}
+		synchronized(getPoolLock()){
+			if(!getPool().isShutdown()){
+				return getPool().submit(call);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Stop running calls to the controller
+	 */
+	void shutdown(){
+		if(dispatchMode == DispatchMode.MAILBOX){
+			mailbox.shutdown();
+		}
+		else{
+			synchronized(getPoolLock()){
+				getPool().shutdown();
+				while(!getPool().isTerminated()){
+					try {
+						getPool().awaitTermination(10, TimeUnit.SECONDS);
+						if(!getPool().isTerminated()){
+							getPool().shutdownNow();
+						}
+					} catch (InterruptedException e) {
+					}
+				}
+			}
+		}
+	}
+	
+	DispatchMode getDispatchMode(){
+		return dispatchMode;
+	}
+	
+	/**
+	 * Stop waiting for drone call backs when they are made, awaitCallbacks waits for them instead.
+	 * Only a controller with a worker of its own can be pipelined, because its call backs have to run in the order they were made.
+	 * @param simulationController, the simulation's controller, which the call backs see with random numbers of their own
+	 * @return true if the controller is pipelined
+	 */
+	boolean startPipelining(SimulationController simulationController){
+		if(dispatchMode == DispatchMode.MAILBOX){
+			pipelined = true;
+			pipelinedController = new PipelinedSimulationController(simulationController);
+		}
+		return pipelined;
+	}
+	
+	/**
+	 * Start the random numbers that the pipelined call backs get over from seed
+	 */
+	void seed(long seed){
+		if(pipelinedController != null){
+			pipelinedController.getRandom().setSeed(seed);
+		}
+	}
+	
+	/**
+	 * Wait for the call backs that are still running and go back to waiting for each one as it is made
+	 */
+	void stopPipelining(){
+		awaitCallbacks();
+		pipelined = false;
+		pipelinedController = null;
+	}
+	
+	boolean isPipelined(){
+		return pipelined;
+	}
+	
+	/**
+	 * Wait for every pipelined call back to finish, in the order they were made
+	 */
+	void awaitCallbacks(){
+		for(Command c: pending){
+			c.execute();
+		}
+		pending.clear();
+	}
+	
+	/**
+	 * @return the CPU time of the thread that is running, or 0 if the JVM can't tell
+	 */
+	private static long cpuTime(){
+		if(!CPU_TIME){
+			return 0;
+		}
+		return THREADS.getCurrentThreadCpuTime();
+	}
+	
+	private void recordTiming(String methodName, long waited, long ran, long cpu){
+		waiting.computeIfAbsent(methodName,k -> new LatencyHistogram()).record(waited);
+		running.computeIfAbsent(methodName,k -> new LatencyHistogram()).record(ran);
+		cpuNanos.addAndGet(cpu);
+	}
+	
+	/**
+	 * @return for each call back, how long calls waited for the controller's thread to get to them
+	 */
+	public Map<String,LatencyHistogram> getWaitingLatency(){
+		return copyOf(waiting);
+	}
+	
+	/**
+	 * @return for each call back, how long the controller took once it was called
+	 */
+	public Map<String,LatencyHistogram> getRunningLatency(){
+		return copyOf(running);
+	}
+	
+	private static Map<String,LatencyHistogram> copyOf(Map<String,LatencyHistogram> histograms){
+		Map<String,LatencyHistogram> ret = new TreeMap<String,LatencyHistogram>();
+		for(Entry<String,LatencyHistogram> e: histograms.entrySet()){
+			ret.put(e.getKey(),new LatencyHistogram(e.getValue()));
+		}
+		return ret;
+	}
+	
+	/**
+	 * @return how much CPU time the controller's call backs have used, in nanoseconds
+	 */
+	public long getCpuTimeNanos(){
+		return cpuNanos.get();
+	}
+	
+	/**
+	 * Print how long this controller has been taking
+	 */
+	private void reportTiming(){
+		System.out.println(String.format("Drone Controller timing: %s, CPU %.3f ms",(wrapped == null) ? null : wrapped.getCompanyName(),getCpuTimeNanos()/1e6));
+		Map<String,LatencyHistogram> r = getRunningLatency();
+		for(Entry<String,LatencyHistogram> e: getWaitingLatency().entrySet()){
+			System.out.println("\t"+e.getKey()+" waiting: "+e.getValue());
+			System.out.println("\t"+e.getKey()+" running: "+r.get(e.getKey()));
+		}
+	}
+	
+	/**
+	 * @return how many calls took more than half of the time they were allowed
+	 */
+	public long getNearMissCount(){
+		return nearMisses;
+	}
+	
+	/**
+	 * @return how many calls ran out of time
+	 */
+	public long getExpiredCount(){
+		return expiredDeadlines;
+	}
+	
 	
 	// The controller that this class is wrapping
 	private DroneController wrapped = null;
@@ -46,9 +240,24 @@ public class DroneControllerSafetyWrapper implements DroneController {
 	// If a call doesn't return then it's timeout decreases, if it does it is reset
 	private Map<String, Integer> behaviorManagement;
 	
+	// The call backs that the controller wants, the others aren't made
+	private Set<DroneEvent> droneEvents = null;
+	
 	// If true, then this wrapper does it's work and quarantines a drone that takes too long
 	private boolean shouldQuarantine;
 	
+	// How many calls came close to timing out and how many did
+	private long nearMisses = 0;
+	private long expiredDeadlines = 0;
+	
+	// How long each kind of call waited to start and took to run, and how much CPU time they used
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+	private final Map<String,LatencyHistogram> waiting = new ConcurrentHashMap<String,LatencyHistogram>();
+	private final Map<String,LatencyHistogram> running = new ConcurrentHashMap<String,LatencyHistogram>();
+	private final AtomicLong cpuNanos = new AtomicLong();
+	private boolean reportedTiming = false;
+	
 	
 	/**
 	 * 
@@ -66,7 +275,7 @@ public class DroneControllerSafetyWrapper implements DroneController {
 		}
 	}
 
-	private void setBehaviorManagement(String behaviorUnit, int behaviorManagement) {
+	void setBehaviorManagement(String behaviorUnit, int behaviorManagement) {
 		this.behaviorManagement.put(behaviorUnit,behaviorManagement);
 	}
 
@@ -101,9 +310,23 @@ public class DroneControllerSafetyWrapper implements DroneController {
 	}
 
 	public DroneControllerSafetyWrapper(DroneController wrapMe,boolean shouldQuarantine){
+		this(wrapMe,shouldQuarantine,DispatchMode.MAILBOX);
+	}
+	
+	public DroneControllerSafetyWrapper(DroneController wrapMe,boolean shouldQuarantine,DispatchMode dispatchMode){
+		if(dispatchMode == null){
+			throw new IllegalArgumentException("Please supply a dispatch mode");
+		}
 		this.setWrapped(wrapMe);
 		this.behaviorManagement = new HashMap<String, Integer>();
 		this.shouldQuarantine = shouldQuarantine;
+		this.dispatchMode = dispatchMode;
+		if(dispatchMode == DispatchMode.MAILBOX){
+			this.mailbox = new ControllerMailbox("Drone Controller: "+((wrapMe == null) ? null : wrapMe.getClass().getSimpleName()));
+		}
+		else{
+			this.pool = Executors.newCachedThreadPool();
+		}
 	}
 	
 
@@ -127,7 +350,7 @@ public class DroneControllerSafetyWrapper implements DroneController {
 	
 	/**
 	 * Wrap a controller call that takes a Drone parameters and returns nothing 
-	 * @param drone, The drone to clone and pass to the method
+	 * @param drone, The drone to snapshot and pass to the method
 	 * @param method, the method to call safely
 	 */
 	private void safeControllerCall(String methodName,Drone drone,Consumer<Drone> method) {
@@ -136,7 +359,7 @@ public class DroneControllerSafetyWrapper implements DroneController {
 	
 	/**
 	 * Wrap a controller call that takes a Drone parameters and returns a result 
-	 * @param drone, The drone to clone and pass to the method
+	 * @param drone, The drone to snapshot and pass to the method
 	 * @param method, the method to call safely
 	 * @return
 	 */
@@ -148,7 +371,7 @@ public class DroneControllerSafetyWrapper implements DroneController {
 	
 	/**
 	 * Wrap a controller call that takes a Drone and one other parameters and returns a result 
-	 * @param drone, The drone to clone and pass to the method
+	 * @param drone, The drone to snapshot and pass to the method
 	 * @param data, The other data to pass to the method
 	 * @param method, the method to call safely
 	 * @return
@@ -165,68 +388,113 @@ public class DroneControllerSafetyWrapper implements DroneController {
 		}
 		
 		
-		R result = null;
-		Future<R> f = null;
+		//Controllers look at a snapshot taken now, and a pipelined one looks at it while the simulator changes the drone,
+		//along with the world as it was when the first pipelined call back on this tick was made
+		WorldSnapshot world = (pipelined && (drone != null) && (simulator != null)) ? simulator.getWorld() : null;
+		PipelinedSimulationController view = pipelinedController;
+		Drone snapshot = null;
+		if(drone != null){
+			snapshot = (world == null) ? drone.snapshot() : world.snapshot(drone);
+		}
+		Drone target = snapshot;
 		
-		synchronized(getPoolLock()){
-			if(!getPool().isShutdown()){
-				//Call the idle and allow 1 second for it to complete in case the code is badly formed
-				f = getPool().submit(new Callable<R>(){
-					@Override
-					public R call() throws Exception {
-						//Call the method
-						if(drone != null){
-							return method.apply(new Drone(drone),data);
-						}
-						else{
-							return method.apply(null,data);
-						}
+		//Call the method and allow a limited time for it to complete in case the code is badly formed
+		//The time starts when the worker starts the call, so calls that are queued behind others aren't charged for waiting
+		int timeout = manageBehavior ? getBehaviorManagement(behaviorUnit) : 0;
+		CompletableFuture<Future<R>> call = new CompletableFuture<Future<R>>();
+		AtomicReference<ControllerWatchdog.Deadline> deadline = new AtomicReference<ControllerWatchdog.Deadline>();
+		long submitted = System.nanoTime();
+		Future<R> f = submit(new Callable<R>(){
+			@Override
+			public R call() throws Exception {
+				long started = System.nanoTime();
+				long cpu = cpuTime();
+				if(manageBehavior){
+					//The watchdog cancels the call if it takes too long
+					deadline.set(ControllerWatchdog.getShared().watch(timeout,() -> {call.thenAccept(x -> x.cancel(true));}));
+				}
+				if(world != null){
+					simulator.startCallback(world,view);
+				}
+				try{
+					//Call the method
+					return method.apply(target,data);
+				}
+				finally{
+					if(world != null){
+						simulator.endCallback();
 					}
-				});
+					recordTiming(methodName,started - submitted,System.nanoTime() - started,cpuTime() - cpu);
+				}
 			}
+		});
+		
+		if(f == null){
+			return null;
 		}
+		call.complete(f);
 		
-		if(f != null){
-			do{
-				try {
-					if(manageBehavior){
-						result = f.get(getBehaviorManagement(behaviorUnit),TimeUnit.MILLISECONDS);
-						behavedWell(behaviorUnit);
-					}
-					else{
-						result = f.get();
-					}
-				} catch (InterruptedException e) {
-					f.cancel(true);
-				} catch (ExecutionException | TimeoutException e) {
-					//This is a drone Controller that throws an exception 
-					f.cancel(true);
-					if(e instanceof ExecutionException){
-						System.out.println("Drone Controller threw an exception: ");
-						e.printStackTrace();
+		if(pipelined && (drone != null)){
+			//Drone call backs don't return anything so they can be waited for later
+			pending.add(() -> {await(f,deadline,timeout,behaviorUnit,drone,manageBehavior);});
+			return null;
+		}
+		return await(f,deadline,timeout,behaviorUnit,drone,manageBehavior);
+	}
+	
+	/**
+	 * Wait for a call to finish and credit the controller with how it behaved
+	 * @return the result of the call, or null if it didn't finish properly
+	 */
+	private <R> R await(Future<R> f, AtomicReference<ControllerWatchdog.Deadline> deadline, int timeout, String behaviorUnit, Drone drone, boolean manageBehavior){
+		R result = null;
+		do{
+			try {
+				result = f.get();
+				if(manageBehavior){
+					//The call has run, so it's deadline was set when it started
+					deadline.get().finish();
+					if(deadline.get().elapsedMillis() >= timeout*NEAR_MISS){
+						nearMisses++;
 					}
-					else{
-						System.out.println("Drone Controller timed out:");
+					behavedWell(behaviorUnit);
+				}
+			} catch (InterruptedException e) {
+				f.cancel(true);
+			} catch (ExecutionException | CancellationException e) {
+				//This is a drone Controller that throws an exception 
+				f.cancel(true);
+				if(e instanceof ExecutionException){
+					System.out.println("Drone Controller threw an exception: ");
+					e.printStackTrace();
+				}
+				else{
+					System.out.println("Drone Controller timed out:");
+					expiredDeadlines++;
+					if(mailbox != null){
+						//The worker may never come back from the call, the next call gets a new one
+						mailbox.abandon();
 					}
-					if(manageBehavior){
-						behavedBadly(behaviorUnit);
-					
-						if(wrapped != null){
+				}
+				if(manageBehavior){
+					behavedBadly(behaviorUnit);
+				
+					if(wrapped != null){
+						if(wants(DroneEvent.BEHAVING_BADLY)){
 							wrapped.droneBehavingBadly(drone);
-							if(this.getBehaviorManagement(behaviorUnit) <= FINAL_TIMEOUT){
-								if(drone != null){
-									drone.quarantine();
-								}
-							}
 						}
-						else{
-							if(drone != null){
-								drone.quarantine();
-							}
+						if(this.getBehaviorManagement(behaviorUnit) <= FINAL_TIMEOUT){
+							quarantine(drone);
 						}
 					}
+					else{
+						quarantine(drone);
+					}
 				}
-			}while(!f.isDone());
+			}
+		}while(!f.isDone());
+		if(deadline.get() != null){
+			deadline.get().finish();
 		}
 		
 		return result;
@@ -234,8 +502,21 @@ public class DroneControllerSafetyWrapper implements DroneController {
 
 
 	
+	private void quarantine(Drone drone){
+		if(drone == null){
+			return;
+		}
+		if(simulator != null){
+			simulator.quarantine(drone);
+		}
+		else{
+			drone.quarantine();
+		}
+	}
+	
 	@Override
 	public void setSimulator(Simulator simulator) {
+		this.simulator = simulator;
 		safeControllerCall("setSimulator",() -> {this.getWrapped().setSimulator(simulator);});
 	}
 	
@@ -250,32 +531,88 @@ public class DroneControllerSafetyWrapper implements DroneController {
 		return safeControllerCall("getCompanyName",()->{ return this.getWrapped().getCompanyName();});
 	}
 	
+	@Override
+	public Set<DroneEvent> getDroneEvents() {
+		if(droneEvents == null){
+			droneEvents = safeControllerCall("getDroneEvents",()->{ return ControllerEvents.of(this.getWrapped());});
+			if(droneEvents == null){
+				//A controller that can't say what it wants gets everything
+				droneEvents = Collections.unmodifiableSet(EnumSet.allOf(DroneEvent.class));
+			}
+		}
+		return droneEvents;
+	}
+	
+	private boolean wants(DroneEvent event){
+		return getDroneEvents().contains(event);
+	}
+	
+	/**
+	 * @return true if the wrapped controller is a FleetController
+	 */
+	boolean isFleetController(){
+		return getWrapped() instanceof FleetController;
+	}
+	
+	/**
+	 * Save the state of a wrapped controller that is Checkpointable
+	 * @return what it saved, or null if it isn't Checkpointable or didn't save in time
+	 */
+	byte[] saveState(){
+		if(!(getWrapped() instanceof Checkpointable)){
+			return null;
+		}
+		return safeControllerCall("saveState",()->{ return ((Checkpointable) this.getWrapped()).saveState();});
+	}
+	
+	/**
+	 * Give a wrapped controller that is Checkpointable back its saved state
+	 * @return false if it isn't Checkpointable
+	 */
+	boolean restoreState(byte[] state){
+		if(!(getWrapped() instanceof Checkpointable)){
+			return false;
+		}
+		safeControllerCall("restoreState",() -> {((Checkpointable) this.getWrapped()).restoreState(state);});
+		return true;
+	}
+	
+	/**
+	 * Pass a tick on to a wrapped FleetController
+	 * @return the commands it gave or null if it didn't give any in time
+	 */
+	List<FleetCommand> onTick(FleetSnapshot fleet){
+		return safeControllerCall("onTick",()->{ return ((FleetController) this.getWrapped()).onTick(fleet);});
+	}
+	
 
 	@Override
 	public void droneSimulationStart(Drone drone) {
+		if(!wants(DroneEvent.SIMULATION_START)){
+			return;
+		}
 		safeControllerCall("droneSimulationStart",drone,(Drone d)->{ this.getWrapped().droneSimulationStart(d);});
 	}
 
 	@Override
 	public void droneSimulationEnd(Drone drone) {
-		safeControllerCall("droneSimulationEnd",drone,(Drone d)->{ this.getWrapped().droneSimulationEnd(d);});
-		synchronized(getPoolLock()){
-			getPool().shutdown();
-			while(!getPool().isTerminated()){
-				try {
-					getPool().awaitTermination(10, TimeUnit.SECONDS);
-					if(!getPool().isTerminated()){
-						getPool().shutdownNow();
-					}
-				} catch (InterruptedException e) {
-				}
-			}
+		stopPipelining();
+		if(wants(DroneEvent.SIMULATION_END)){
+			safeControllerCall("droneSimulationEnd",drone,(Drone d)->{ this.getWrapped().droneSimulationEnd(d);});
+		}
+		shutdown();
+		if(!reportedTiming){
+			reportedTiming = true;
+			reportTiming();
 		}
 	}
 	
 
 	@Override
 	public void droneBehavingBadly(Drone drone) {
+		if(!wants(DroneEvent.BEHAVING_BADLY)){
+			return;
+		}
 		boolean manageBehavior = false;
 		safeControllerCall("droneBehavingBadly",drone,(Object) null,manageBehavior,(Drone d,Object o)->{ this.getWrapped().droneBehavingBadly(d);});
 	}
@@ -283,108 +620,171 @@ public class DroneControllerSafetyWrapper implements DroneController {
 
 	@Override
 	public void droneEmbarkingStart(Drone drone) {
+		if(!wants(DroneEvent.EMBARKING_START)){
+			return;
+		}
 		safeControllerCall("droneEmbarkingStart",drone, (Drone d) -> {this.getWrapped().droneEmbarkingStart(d);});
 	}
 
 	@Override
 	public void droneEmbarkingAGroupStart(Drone drone) {
+		if(!wants(DroneEvent.EMBARKING_A_GROUP_START)){
+			return;
+		}
 		safeControllerCall("droneEmbarkingAGroupStart",drone, (Drone d) -> {this.getWrapped().droneEmbarkingAGroupStart(d);});
 	}
 
 	@Override
 	public void droneEmbarkingAGroupEnd(Drone drone) {
+		if(!wants(DroneEvent.EMBARKING_A_GROUP_END)){
+			return;
+		}
 		safeControllerCall("droneEmbarkingAGroupEnd",drone, (Drone d) -> {this.getWrapped().droneEmbarkingAGroupEnd(d);});
 	}
 
 	@Override
 	public void droneEmbarkingEnd(Drone drone) {
+		if(!wants(DroneEvent.EMBARKING_END)){
+			return;
+		}
 		safeControllerCall("droneEmbarkingEnd",drone, (Drone d) -> {this.getWrapped().droneEmbarkingEnd(d);});
 	}
 
 	@Override
 	public void droneAscendingStart(Drone drone) {
+		if(!wants(DroneEvent.ASCENDING_START)){
+			return;
+		}
 		safeControllerCall("droneAscendingStart",drone, (Drone d) -> {this.getWrapped().droneAscendingStart(d);});
 	}
 
 	@Override
 	public void droneAscendingEnd(Drone drone) {
+		if(!wants(DroneEvent.ASCENDING_END)){
+			return;
+		}
 		safeControllerCall("droneAscendingEnd",drone, (Drone d) -> {this.getWrapped().droneAscendingEnd(d);});
 	}
 
 	@Override
 	public void droneTransitingStart(Drone drone) {
+		if(!wants(DroneEvent.TRANSITING_START)){
+			return;
+		}
 		safeControllerCall("droneTransitingStart",drone, (Drone d) -> {this.getWrapped().droneTransitingStart(d);});
 	}
 
 	@Override
 	public void droneTransiting(Drone drone, double percent) {
+		if(!wants(DroneEvent.TRANSITING)){
+			return;
+		}
 		boolean manageBehavior = true;
 		safeControllerCall("droneTransiting",drone, percent,manageBehavior, (Drone d,Double p) -> {this.getWrapped().droneTransiting(d,p);});
 	}
 
 	@Override
 	public void droneTransitingEnd(Drone drone) { 
+		if(!wants(DroneEvent.TRANSITING_END)){
+			return;
+		}
 		safeControllerCall("droneTranistingEnd",drone, (Drone d) -> {this.getWrapped().droneTransitingEnd(d);});
 	}
 
 	@Override
 	public void droneDescendingStart(Drone drone) {
+		if(!wants(DroneEvent.DESCENDING_START)){
+			return;
+		}
 		safeControllerCall("droneDescendingStart",drone, (Drone d) -> {this.getWrapped().droneDescendingStart(d);});
 	}
 
 	@Override
 	public void droneDescendingEnd(Drone drone) { 
+		if(!wants(DroneEvent.DESCENDING_END)){
+			return;
+		}
 		safeControllerCall("droneDescendingEnd",drone, (Drone d) -> {this.getWrapped().droneDescendingEnd(d);});
 	}
 
 	@Override
 	public void droneDisembarkingStart(Drone drone) {
+		if(!wants(DroneEvent.DISEMBARKING_START)){
+			return;
+		}
 		safeControllerCall("droneDisembarkingStart",drone, (Drone d) -> {this.getWrapped().droneDisembarkingStart(d);});
 	}
 
 	@Override
 	public void droneDisembarkingGroupStart(Drone drone) {
+		if(!wants(DroneEvent.DISEMBARKING_GROUP_START)){
+			return;
+		}
 		safeControllerCall("droneDisembarkingGroupStart",drone, (Drone d) -> {this.getWrapped().droneDisembarkingGroupStart(d);});
 	}
 
 	@Override
 	public void droneDisembarkingGroupEnd(Drone drone) {
+		if(!wants(DroneEvent.DISEMBARKING_GROUP_END)){
+			return;
+		}
 		safeControllerCall("droneDisembarkingGroupEnd",drone, (Drone d) -> {this.getWrapped().droneDisembarkingGroupEnd(d);});
 	}
 
 	@Override
 	public void droneDisembarkingEnd(Drone drone) {
+		if(!wants(DroneEvent.DISEMBARKING_END)){
+			return;
+		}
 		safeControllerCall("droneDisembarkingEnd",drone, (Drone d) -> {this.getWrapped().droneDisembarkingEnd(d);});
 	}
 
 	@Override
 	public void droneRechargingStart(Drone drone) {
+		if(!wants(DroneEvent.RECHARGING_START)){
+			return;
+		}
 		safeControllerCall("doneRechargingStart",drone, (Drone d) -> {this.getWrapped().droneRechargingStart(d);});
 	}
 
 	@Override
 	public void droneRecharging(Drone drone, double percent) {
+		if(!wants(DroneEvent.RECHARGING)){
+			return;
+		}
 		boolean manageBehavior = true;
 		safeControllerCall("droneRecharging",drone, percent, manageBehavior,(Drone d,Double p) -> {this.getWrapped().droneRecharging(d,p);});
 	}
 
 	@Override
 	public void droneRechargingEnd(Drone drone) {
+		if(!wants(DroneEvent.RECHARGING_END)){
+			return;
+		}
 		safeControllerCall("droneRechargingEnd", drone, (Drone d) -> {this.getWrapped().droneRechargingEnd(d);});
 	}
 
 	@Override
 	public void droneIdling(Drone drone) {
+		if(!wants(DroneEvent.IDLING)){
+			return;
+		}
 		safeControllerCall("droneIdling",drone, (Drone d) -> {this.getWrapped().droneIdling(d);});
 	}
 
 	@Override
 	public void droneExploding(Drone drone) {
+		if(!wants(DroneEvent.EXPLODING)){
+			return;
+		}
 		safeControllerCall("droneExploding",drone, (Drone d) -> {this.getWrapped().droneExploding(d);});
 	}
 
 	@Override
 	public void droneHasDied(Drone drone) {
+		if(!wants(DroneEvent.HAS_DIED)){
+			return;
+		}
 		safeControllerCall("droneHasDied",drone, (Drone d) -> {this.getWrapped().droneHasDied(d);});
 	}
 
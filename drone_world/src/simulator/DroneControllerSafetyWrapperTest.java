@@ -0,0 +1,177 @@
+package simulator;
+
+import static org.junit.Assert.*;
+
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import reference.DroneControllerSkeleton;
+import reference.MySimulationController;
+import simulator.enums.DispatchMode;
+import simulator.enums.DroneEvent;
+import simulator.enums.DroneState;
+
+public class DroneControllerSafetyWrapperTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	// A controller that takes too long to decide what to do with an idle drone
+	static class Slow_DroneController extends DroneControllerSkeleton {
+		volatile long idleMillis = 0;
+		volatile int idleCalls = 0;
+
+		@Override
+		public void droneIdling(Drone drone) {
+			idleCalls++;
+			try {
+				Thread.sleep(idleMillis);
+			} catch (InterruptedException e) {
+			}
+		}
+
+		@Override
+		public void droneBehavingBadly(Drone drone) {
+		}
+	}
+
+	private static void checkTimeouts(DispatchMode mode){
+		Slow_DroneController controller = new Slow_DroneController();
+		DroneControllerSafetyWrapper wrapper = new DroneControllerSafetyWrapper(controller,true,mode);
+		assertEquals(mode,wrapper.getDispatchMode());
+		Place place = new Place("Here",new Position(34.4,-119.7,0));
+		Drone drone = new Drone(wrapper,place,place,1,new Random(0));
+		drone.setState(DroneState.IDLING);
+
+		//Fast calls are fine
+		for(int i = 0; i < 10; i++){
+			wrapper.droneIdling(drone);
+		}
+		assertEquals(10,controller.idleCalls);
+		
+		//And they were timed
+		assertEquals(10,wrapper.getWaitingLatency().get("droneIdling").getCount());
+		assertEquals(10,wrapper.getRunningLatency().get("droneIdling").getCount());
+		assertTrue(wrapper.getCpuTimeNanos() >= 0);
+		assertEquals(0,wrapper.getNearMissCount());
+		assertEquals(0,wrapper.getExpiredCount());
+
+		//A call that doesn't come back in time is cancelled and counted
+		controller.idleMillis = 60*Simulator.ONE_SECOND;
+		long start = System.currentTimeMillis();
+		wrapper.droneIdling(drone);
+		long elapsed = System.currentTimeMillis() - start;
+		assertTrue(elapsed < 10*Simulator.ONE_SECOND);
+		assertEquals(1,wrapper.getExpiredCount());
+		assertEquals(DroneState.IDLING,drone.getState());
+
+		//And the controller can still be called
+		controller.idleMillis = 0;
+		wrapper.droneIdling(drone);
+		assertEquals(12,controller.idleCalls);
+		assertEquals(1,wrapper.getExpiredCount());
+		wrapper.shutdown();
+	}
+
+	@Test
+	public void testMailboxTimeouts() {
+		checkTimeouts(DispatchMode.MAILBOX);
+	}
+
+	@Test
+	public void testPooledTimeouts() {
+		checkTimeouts(DispatchMode.POOLED);
+	}
+
+	@Test
+	//Pipelined call backs queue up behind each other, and each one only has to finish in time once it has started
+	public void testPipelinedTimeouts() {
+		Slow_DroneController controller = new Slow_DroneController();
+		DroneControllerSafetyWrapper wrapper = new DroneControllerSafetyWrapper(controller,true,DispatchMode.MAILBOX);
+		assertTrue(wrapper.startPipelining(new MySimulationController()));
+		Place place = new Place("Here",new Position(34.4,-119.7,0));
+		Drone[] drones = new Drone[8];
+		for(int i = 0; i < drones.length; i++){
+			drones[i] = new Drone(wrapper,place,place,1,new Random(i));
+			drones[i].setState(DroneState.IDLING);
+		}
+		wrapper.setBehaviorManagement(drones[0].getCompanyName()+":droneIdling",200);
+		
+		//Each call takes most of it's time, so together they take far longer than one call has
+		controller.idleMillis = 150;
+		for(Drone drone: drones){
+			wrapper.droneIdling(drone);
+		}
+		wrapper.awaitCallbacks();
+		
+		assertEquals(drones.length,controller.idleCalls);
+		assertEquals(0,wrapper.getExpiredCount());
+		assertEquals(drones.length,wrapper.getNearMissCount());
+		for(Drone drone: drones){
+			assertEquals(DroneState.IDLING,drone.getState());
+		}
+		wrapper.stopPipelining();
+		wrapper.shutdown();
+	}
+
+	// A controller that says which call backs it wants
+	static class Declared_DroneController extends Slow_DroneController {
+		volatile int transitingCalls = 0;
+
+		@Override
+		public Set<DroneEvent> getDroneEvents() {
+			return EnumSet.of(DroneEvent.TRANSITING);
+		}
+
+		@Override
+		public void droneTransiting(Drone drone, double percent) {
+			transitingCalls++;
+		}
+	}
+
+	@Test
+	public void testDroneEvents() {
+		//Call backs that are overridden are wanted
+		Slow_DroneController controller = new Slow_DroneController();
+		DroneControllerSafetyWrapper wrapper = new DroneControllerSafetyWrapper(controller,true);
+		assertEquals(EnumSet.of(DroneEvent.IDLING,DroneEvent.BEHAVING_BADLY),wrapper.getDroneEvents());
+		Place place = new Place("Here",new Position(34.4,-119.7,0));
+		Drone drone = new Drone(wrapper,place,place,1,new Random(0));
+		wrapper.droneIdling(drone);
+		wrapper.droneTransiting(drone,0.5);
+		assertEquals(1,controller.idleCalls);
+		wrapper.shutdown();
+
+		//Unless the controller says otherwise
+		Declared_DroneController declared = new Declared_DroneController();
+		wrapper = new DroneControllerSafetyWrapper(declared,true);
+		assertEquals(EnumSet.of(DroneEvent.TRANSITING),wrapper.getDroneEvents());
+		drone = new Drone(wrapper,place,place,1,new Random(0));
+		wrapper.droneIdling(drone);
+		wrapper.droneTransiting(drone,0.5);
+		assertEquals(0,declared.idleCalls);
+		assertEquals(1,declared.transitingCalls);
+		wrapper.shutdown();
+	}
+
+}
@@ -0,0 +1,250 @@
+package simulator;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import simulator.enums.DroneState;
+
+/**
+ * The drone that controllers see during a call back.
+ * Everything is captured when the snapshot is made, so it doesn't change while the simulator keeps going, and the places are
+ * shared with the simulator, except in the world that pipelined controllers see.  The collections and the drone can't be modified.
+ * The numbers that live drones keep in a fleet are kept in the snapshot itself, so making one doesn't make a fleet.
+ */
+class DroneSnapshot extends Drone {
+
+	//Empty collections are shared by all snapshots
+	private static final Set<Place> NO_PLACES = Collections.unmodifiableSet(Collections.<Place>emptySet());
+	private static final Set<Person> NO_PEOPLE = Collections.unmodifiableSet(Collections.<Person>emptySet());
+
+	//The drone in the simulation that this is a snapshot of
+	private final Drone live;
+
+	private final Set<Place> manifest;
+	private final Set<Person> embarkers;
+	private final Set<Person> disembarkers;
+	private final Set<Person> passengers;
+	
+	private boolean positioned;
+	private double latitude;
+	private double longitude;
+	private double height;
+	private double charge;
+	private double speed;
+	private double dischargeRate;
+	private long transitStart;
+	private long transitEnd;
+
+	DroneSnapshot(Drone live){
+		this(live,null);
+	}
+	
+	/**
+	 * @param live, the drone, or a snapshot of it to take again as it was
+	 * @param world, the world that a pipelined controller sees, whose places and copies of people the snapshot uses instead
+	 * of the simulator's, or null
+	 */
+	DroneSnapshot(Drone live, WorldSnapshot world){
+		if(live == null){
+			throw new IllegalArgumentException("Can't snapshot null");
+		}
+		this.live = (live instanceof DroneSnapshot) ? ((DroneSnapshot) live).live : live;
+
+		copyValuesFrom(live);
+
+		this.setStart((world == null) ? live.getStart() : world.place(live.getStart()));
+		if(live.hasPosition()){
+			this.setPosition(live.getLatitude(),live.getLongitude(),live.getHeight());
+		}
+		this.setDestination((world == null) ? live.getDestination() : world.place(live.getDestination()));
+		
+		//A manifest copy shares its places with the drone's until one of them changes
+		this.manifest = copyPlaces(live.getManifest(),world);
+		this.embarkers = copyPeople(live.getEmbarkers(),world);
+		this.disembarkers = copyPeople(live.getDisembarkers(),world);
+		//The simulator can be holding the passengers' lock while it waits on the controller
+		synchronized(live.getPassengers()){
+			this.passengers = copyPeople(live.getPassengers(),world);
+		}
+	}
+	
+	private static Set<Place> copyPlaces(Set<Place> places, WorldSnapshot world){
+		if(places == null){
+			return null;
+		}
+		if(places.isEmpty()){
+			return NO_PLACES;
+		}
+		if(world != null){
+			return Collections.unmodifiableSet(world.places(places));
+		}
+		return Collections.unmodifiableSet(Manifest.copyOf(places));
+	}
+	
+	private static Set<Person> copyPeople(Set<Person> people, WorldSnapshot world){
+		if(people == null){
+			return null;
+		}
+		if(people.isEmpty()){
+			return NO_PEOPLE;
+		}
+		if(world != null){
+			Set<Person> ret = new HashSet<Person>();
+			for(Person p: people){
+				ret.add(world.copy(p));
+			}
+			return Collections.unmodifiableSet(ret);
+		}
+		return Collections.unmodifiableSet(new HashSet<Person>(people));
+	}
+
+	@Override
+	Drone snapshot(){
+		return this;
+	}
+	
+	@Override
+	public Position getPosition(){
+		if(!positioned){
+			return null;
+		}
+		return new Position(latitude,longitude,height);
+	}
+	
+	@Override
+	void setPosition(Position position){
+		if(position == null){
+			positioned = false;
+			latitude = 0.0;
+			longitude = 0.0;
+			height = 0.0;
+		}
+		else{
+			setPosition(position.getLatitude(),position.getLongitude(),position.getHeight());
+		}
+	}
+	
+	@Override
+	void setPosition(double latitude, double longitude, double height){
+		this.positioned = true;
+		this.latitude = latitude;
+		this.longitude = longitude;
+		this.height = height;
+	}
+	
+	@Override
+	boolean hasPosition(){
+		return positioned;
+	}
+	
+	@Override
+	double getLatitude(){
+		return latitude;
+	}
+	
+	@Override
+	double getLongitude(){
+		return longitude;
+	}
+	
+	@Override
+	double getHeight(){
+		return height;
+	}
+	
+	@Override
+	void setHeight(double height){
+		this.height = height;
+	}
+	
+	@Override
+	public long getTransitStart() {
+		return transitStart;
+	}
+	
+	@Override
+	void setTransitStart(long transitStart) {
+		this.transitStart = transitStart;
+	}
+	
+	@Override
+	public long getTransitEnd() {
+		return transitEnd;
+	}
+	
+	@Override
+	void setTransitEnd(long transitEnd) {
+		this.transitEnd = transitEnd;
+	}
+	
+	@Override
+	public double getCharge() {
+		return charge;
+	}
+	
+	@Override
+	void setCharge(double charge) {
+		this.charge = charge;
+	}
+	
+	@Override
+	public double getDischargeRate() {
+		return dischargeRate;
+	}
+	
+	@Override
+	void setDischargeRate(double dischargeRate) {
+		this.dischargeRate = dischargeRate;
+	}
+	
+	@Override
+	public double getSpeed(){
+		return speed;
+	}
+	
+	@Override
+	void setSpeed(double speed) {
+		this.speed = speed;
+	}
+
+	@Override
+	public Set<Place> getManifest() {
+		return manifest;
+	}
+
+	@Override
+	public Set<Person> getEmbarkers(){
+		return embarkers;
+	}
+
+	@Override
+	public Set<Person> getDisembarkers(){
+		return disembarkers;
+	}
+
+	@Override
+	public Set<Person> getPassengers(){
+		return passengers;
+	}
+	
+	@Override
+	public void setEmbarkingDuration(int duration) {
+		throw new UnsupportedOperationException("A snapshot of a drone can't be changed");
+	}
+	
+	@Override
+	public void setEmbarkingCapacity(int capacity) {
+		throw new UnsupportedOperationException("A snapshot of a drone can't be changed");
+	}
+
+	@Override
+	void quarantine(){
+		setState(DroneState.QUARANTINED);
+		//A drone that has already died stays dead
+		if((!live.getState().equals(DroneState.DEAD)) && (!live.getState().equals(DroneState.QUARANTINED))){
+			live.quarantine();
+		}
+	}
+
+}
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
 import java.util.Random;
 import java.util.Set;
 import java.util.TreeSet;
@@ -475,6 +476,70 @@ public class DroneTest {
 		}
 	}
 	
+	@Test
+	public void testSnapshot() {
+		String name = "Timbuktu";
+		Position position = new Position(10.0,20.0,0.0);
+		Place start = new Place(name, position);
+		
+		name = "Timbuk3";
+		position = new Position(15.0,25.0,0.0);
+		Place destination = new Place(name, position);
+		
+		Drone d1 = new Drone(new DroneControllerSkeleton(),start,destination,1,r);
+		Person p = new Person("id", "name", start, position, destination, PersonState.IN_DRONE);
+		d1.getPassengers().add(p);
+		
+		Drone snapshot = d1.snapshot();
+		assertEquals(d1,snapshot);
+		assertEquals(d1.hashCode(),snapshot.hashCode());
+		assertTrue(snapshot.snapshot() == snapshot);
+		
+		//Places are shared, positions are not
+		assertTrue(snapshot.getStart() == d1.getStart());
+		assertTrue(snapshot.getDestination() == d1.getDestination());
+		assertTrue(snapshot.getPosition() != d1.getPosition());
+		
+		try {
+			snapshot.getPassengers().clear();
+			fail("Snapshot passengers should be read only");
+		} catch(UnsupportedOperationException e) {
+			//expected
+		}
+		assertEquals(1,d1.getPassengers().size());
+		try {
+			snapshot.setEmbarkingCapacity(5);
+			fail("Snapshots should be read only");
+		} catch(UnsupportedOperationException e) {
+			//expected
+		}
+		
+		//The collections are captured when the snapshot is made, so changing the drone afterwards doesn't change them
+		Place.assignIds(new TreeSet<Place>(Arrays.asList(start,destination)));
+		d1.getManifest().add(destination);
+		d1.getEmbarkers().add(p);
+		Drone later = d1.snapshot();
+		d1.getManifest().add(start);
+		d1.getManifest().remove(destination);
+		d1.getEmbarkers().clear();
+		d1.getDisembarkers().add(p);
+		assertEquals(0,snapshot.getManifest().size());
+		assertEquals(0,snapshot.getEmbarkers().size());
+		assertEquals(0,snapshot.getDisembarkers().size());
+		assertEquals(1,later.getManifest().size());
+		assertTrue(later.getManifest().contains(destination));
+		assertEquals(1,later.getEmbarkers().size());
+		assertEquals(0,later.getDisembarkers().size());
+		assertEquals(1,d1.getManifest().size());
+		assertTrue(d1.getManifest().contains(start));
+		
+		//Quarantining the snapshot quarantines the drone
+		snapshot.quarantine();
+		assertEquals(DroneState.QUARANTINED,snapshot.getState());
+		assertEquals(DroneState.QUARANTINED,d1.getState());
+		assertEquals(PersonState.QUARANTINED,p.getState());
+	}
+	
 	class DroneControllerSkeletonTester implements DroneController{
 
 		@Override
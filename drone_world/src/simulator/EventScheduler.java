@@ -0,0 +1,142 @@
+package simulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Keeps track of the next tick at which each drone has something to do so that the
+ * simulator can skip over the ticks in between. 
+ * Each drone carries it's own next event time, entries in the queue that no longer match it are stale and are dropped when they come up.
+ */
+class EventScheduler {
+	
+	static final long NEVER = Long.MAX_VALUE;
+	
+	private static class Event implements Comparable<Event>{
+		private final long time;
+		private final long sequence;
+		private final Drone drone;
+		
+		Event(long time, long sequence, Drone drone){
+			this.time = time;
+			this.sequence = sequence;
+			this.drone = drone;
+		}
+		
+		boolean isStale(){
+			return drone.getNextEventTime() != time;
+		}
+
+		@Override
+		public int compareTo(Event other) {
+			if(time != other.time){
+				return Long.compare(time, other.time);
+			}
+			return Long.compare(sequence, other.sequence);
+		}
+	}
+	
+	private PriorityQueue<Event> queue;
+	private long sequence;
+	
+	//Drones that a controller has redirected since the last tick, these can be added from controller threads
+	private Queue<Drone> wakeRequests;
+	
+	EventScheduler(){
+		this.queue = new PriorityQueue<Event>();
+		this.sequence = 0;
+		this.wakeRequests = new ConcurrentLinkedQueue<Drone>();
+	}
+	
+	/**
+	 * Set the next time that a drone needs attention, replacing whatever was scheduled before
+	 * @param drone
+	 * @param time, the tick or NEVER if the drone is done
+	 */
+	void schedule(Drone drone, long time){
+		drone.setNextEventTime(time);
+		if(time != NEVER){
+			queue.add(new Event(time, sequence++, drone));
+		}
+	}
+	
+	/**
+	 * Ask for a drone to be looked at on the next tick because something outside of the drone's state machine changed it.
+	 * Safe to call from any thread.
+	 */
+	void wake(Drone drone){
+		wakeRequests.add(drone);
+	}
+	
+	/**
+	 * Move drones that have been woken up to the given tick if they aren't already scheduled sooner
+	 * @param time
+	 */
+	void applyWakeRequests(long time){
+		Drone drone;
+		while((drone = wakeRequests.poll()) != null){
+			if(drone.getNextEventTime() > time){
+				schedule(drone,time);
+			}
+		}
+	}
+	
+	/**
+	 * Take a drone that has been woken up, instead of scheduling it
+	 * @return the drone or null if none have been
+	 */
+	Drone pollWakeRequest(){
+		return wakeRequests.poll();
+	}
+	
+	/**
+	 * @return the time of the earliest event or NEVER if nothing is scheduled
+	 */
+	long peekTime(){
+		while(!queue.isEmpty() && queue.peek().isStale()){
+			queue.poll();
+		}
+		if(queue.isEmpty()){
+			return NEVER;
+		}
+		return queue.peek().time;
+	}
+	
+	boolean isEmpty(){
+		return peekTime() == NEVER;
+	}
+	
+	/**
+	 * Remove and return all of the drones that have an event at or before the given time 
+	 * @param time
+	 * @return
+	 */
+	List<Drone> popDue(long time){
+		List<Drone> ret = new ArrayList<Drone>();
+		while(peekTime() <= time){
+			Drone drone = queue.poll().drone;
+			drone.setNextEventTime(NEVER);
+			ret.add(drone);
+		}
+		return ret;
+	}
+	
+	/**
+	 * @return the drones that are scheduled in the order that they will come up, so that they can be scheduled again in the same order
+	 */
+	List<Drone> scheduled(){
+		List<Event> events = new ArrayList<Event>(queue);
+		events.removeIf(Event::isStale);
+		Collections.sort(events);
+		List<Drone> ret = new ArrayList<Drone>(events.size());
+		for(Event e: events){
+			ret.add(e.drone);
+		}
+		return ret;
+	}
+
+}
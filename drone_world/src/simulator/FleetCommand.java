@@ -0,0 +1,103 @@
+package simulator;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import simulator.interfaces.DroneView;
+
+/**
+ * Something a FleetController wants one of its drones to do.  Commands are carried out the same way as the matching Simulator
+ * methods, routeDrone, setDroneManifest and holdDrone.
+ */
+public final class FleetCommand {
+
+	private enum Kind {
+		ROUTE, MANIFEST, HOLD;
+	}
+
+	private final Kind kind;
+	private final DroneView drone;
+	private final Place place;
+	private final Set<Place> manifest;
+
+	private FleetCommand(Kind kind, DroneView drone, Place place, Set<Place> manifest){
+		if(drone == null){
+			throw new IllegalArgumentException("A command needs a drone");
+		}
+		this.kind = kind;
+		this.drone = drone;
+		this.place = place;
+		this.manifest = manifest;
+	}
+
+	/**
+	 * Send drone to place
+	 */
+	public static FleetCommand route(DroneView drone, Place place){
+		if(place == null){
+			throw new IllegalArgumentException("A route needs a place");
+		}
+		return new FleetCommand(Kind.ROUTE,drone,place,null);
+	}
+
+	/**
+	 * Tell passengers where drone is going
+	 */
+	public static FleetCommand manifest(DroneView drone, Set<Place> places){
+		Set<Place> copy = new TreeSet<Place>();
+		if(places != null){
+			copy.addAll(places);
+		}
+		return new FleetCommand(Kind.MANIFEST,drone,null,Collections.unmodifiableSet(copy));
+	}
+
+	/**
+	 * Keep an idling drone where it is
+	 */
+	public static FleetCommand hold(DroneView drone){
+		return new FleetCommand(Kind.HOLD,drone,null,null);
+	}
+
+	public DroneView getDrone(){
+		return drone;
+	}
+
+	/**
+	 * @return where the drone is routed, or null if this isn't a route
+	 */
+	public Place getPlace(){
+		return place;
+	}
+
+	/**
+	 * @return the manifest, or null if this isn't a manifest
+	 */
+	public Set<Place> getManifest(){
+		return manifest;
+	}
+
+	void apply(Simulator simulator){
+		Drone d = simulator.findDrone(drone);
+		if(d == null){
+			throw new IllegalArgumentException("Unable to find a drone with id:"+drone.getId());
+		}
+		switch(kind){
+			case ROUTE:
+				simulator.routeDrone(d,place);
+				break;
+			case MANIFEST:
+				simulator.setDroneManifest(d,manifest);
+				break;
+			case HOLD:
+				simulator.holdDrone(d);
+				break;
+		}
+	}
+
+	@Override
+	public String toString(){
+		return kind+" "+drone.getId()+((place == null) ? "" : " to "+place.getName())+((manifest == null) ? "" : " "+manifest);
+	}
+
+}
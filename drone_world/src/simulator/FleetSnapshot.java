@@ -0,0 +1,56 @@
+package simulator;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import simulator.enums.DroneEvent;
+import simulator.interfaces.DroneView;
+
+/**
+ * What a FleetController is told on each tick: a snapshot of each of its drones and the call backs that each one would have had
+ */
+public class FleetSnapshot {
+
+	private final long clockTick;
+	private final List<DroneView> drones;
+	//The call backs by drone id
+	private final Map<String,Set<DroneEvent>> events;
+
+	FleetSnapshot(long clockTick, List<DroneView> drones, Map<String,Set<DroneEvent>> events){
+		this.clockTick = clockTick;
+		this.drones = Collections.unmodifiableList(drones);
+		this.events = events;
+	}
+
+	/**
+	 * @return the simulator time of the tick
+	 */
+	public long getClockTick(){
+		return clockTick;
+	}
+
+	/**
+	 * @return read only snapshots of all of the controller's drones, in the same order on every tick
+	 */
+	public List<DroneView> getDrones(){
+		return drones;
+	}
+
+	/**
+	 * @return the call backs the drone would have had on this tick, which can't be changed
+	 */
+	public Set<DroneEvent> getEvents(DroneView drone){
+		Set<DroneEvent> ret = null;
+		if((drone != null) && (drone.getId() != null)){
+			ret = events.get(drone.getId());
+		}
+		if(ret == null){
+			return Collections.unmodifiableSet(EnumSet.noneOf(DroneEvent.class));
+		}
+		return Collections.unmodifiableSet(ret);
+	}
+
+}
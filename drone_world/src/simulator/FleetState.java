@@ -0,0 +1,505 @@
+package simulator;
+
+import java.util.Arrays;
+
+import simulator.enums.DroneState;
+
+/**
+ * The numbers that change every tick for a group of drones, kept in one array per value and indexed by the drone's slot.
+ * A drone is a view of its slot.  The simulator puts all of its drones in one fleet so that updating them walks a few
+ * arrays instead of many objects, and drones in transit are moved in one pass over them.  Drones that aren't in a simulation
+ * have a fleet of their own, snapshots keep their numbers themselves.
+ */
+class FleetState {
+
+	private int size;
+
+	//Where each drone is, positioned is false for a drone without a position
+	private double[] latitude;
+	private double[] longitude;
+	private double[] height;
+	private boolean[] positioned;
+
+	// between 0.0 and 1.0 with 1.0 full charged
+	private double[] charge;
+	// meters per second
+	private double[] speed;
+	// Percentage of charge lost per meter
+	private double[] dischargeRate;
+
+	private long[] transitStart;
+	private long[] transitEnd;
+
+	//A recharging drone's charge isn't added to on every tick, it is worked out from the charge it had when it started
+	//recharging, which is kept in charge, and how many ticks it has been recharging for
+	private boolean[] recharging;
+	private long[] rechargeSince;
+	private double[] rechargePerTick;
+	//The next tick on which a recharging drone is full or passes a level that its controller is told about
+	private long[] rechargeEvent;
+
+	//The next tick of flight for drones in transit, worked out for the whole fleet at once at the start of a tick and carried
+	//out when each drone is updated.  A plan is only good on the tick it was made for and until the drone is changed.
+	private long[] planTick;
+	private double[] plannedLatitude;
+	private double[] plannedLongitude;
+	private double[] plannedHeight;
+	private double[] plannedCharge;
+	private double[] plannedToGoal;
+	private double[] plannedForTrip;
+	private int[] plannedOutcome;
+	
+	//What happens to a drone on the tick that was planned for it
+	static final int FLYING = 0;
+	static final int ARRIVING = 1;
+	static final int OUT_OF_CHARGE = 2;
+
+	//The tick the fleet is on and how long a tick is, which is when the charge of recharging drones is worked out for
+	private long clock = 0;
+	private int tickSize = 1;
+
+	FleetState(int capacity){
+		capacity = Math.max(1,capacity);
+		size = 0;
+		latitude = new double[capacity];
+		longitude = new double[capacity];
+		height = new double[capacity];
+		positioned = new boolean[capacity];
+		charge = new double[capacity];
+		speed = new double[capacity];
+		dischargeRate = new double[capacity];
+		transitStart = new long[capacity];
+		transitEnd = new long[capacity];
+		recharging = new boolean[capacity];
+		rechargeSince = new long[capacity];
+		rechargePerTick = new double[capacity];
+		rechargeEvent = new long[capacity];
+	}
+
+	/**
+	 * Make room for one more drone
+	 * @return the new drone's slot
+	 */
+	int add(){
+		if(size == latitude.length){
+			int capacity = size*2;
+			latitude = Arrays.copyOf(latitude,capacity);
+			longitude = Arrays.copyOf(longitude,capacity);
+			height = Arrays.copyOf(height,capacity);
+			positioned = Arrays.copyOf(positioned,capacity);
+			charge = Arrays.copyOf(charge,capacity);
+			speed = Arrays.copyOf(speed,capacity);
+			dischargeRate = Arrays.copyOf(dischargeRate,capacity);
+			transitStart = Arrays.copyOf(transitStart,capacity);
+			transitEnd = Arrays.copyOf(transitEnd,capacity);
+			recharging = Arrays.copyOf(recharging,capacity);
+			rechargeSince = Arrays.copyOf(rechargeSince,capacity);
+			rechargePerTick = Arrays.copyOf(rechargePerTick,capacity);
+			rechargeEvent = Arrays.copyOf(rechargeEvent,capacity);
+			if(planTick != null){
+				int old = planTick.length;
+				planTick = Arrays.copyOf(planTick,capacity);
+				Arrays.fill(planTick,old,capacity,Long.MIN_VALUE);
+				plannedLatitude = Arrays.copyOf(plannedLatitude,capacity);
+				plannedLongitude = Arrays.copyOf(plannedLongitude,capacity);
+				plannedHeight = Arrays.copyOf(plannedHeight,capacity);
+				plannedCharge = Arrays.copyOf(plannedCharge,capacity);
+				plannedToGoal = Arrays.copyOf(plannedToGoal,capacity);
+				plannedForTrip = Arrays.copyOf(plannedForTrip,capacity);
+				plannedOutcome = Arrays.copyOf(plannedOutcome,capacity);
+			}
+		}
+		return size++;
+	}
+
+	/**
+	 * @return how many drones are in the fleet
+	 */
+	int size(){
+		return size;
+	}
+
+	/**
+	 * Copy everything about a drone from one slot to another, possibly in another fleet.  The charge of a recharging
+	 * drone is copied as it is now, the copy doesn't carry on recharging.
+	 */
+	void copy(FleetState from, int fromSlot, int toSlot){
+		latitude[toSlot] = from.latitude[fromSlot];
+		longitude[toSlot] = from.longitude[fromSlot];
+		height[toSlot] = from.height[fromSlot];
+		positioned[toSlot] = from.positioned[fromSlot];
+		charge[toSlot] = from.getCharge(fromSlot);
+		recharging[toSlot] = false;
+		speed[toSlot] = from.speed[fromSlot];
+		dischargeRate[toSlot] = from.dischargeRate[fromSlot];
+		transitStart[toSlot] = from.transitStart[fromSlot];
+		transitEnd[toSlot] = from.transitEnd[fromSlot];
+		unplan(toSlot);
+	}
+
+	/**
+	 * @return a copy of where the drone in slot is or null if it isn't anywhere
+	 */
+	Position getPosition(int slot){
+		if(!positioned[slot]){
+			return null;
+		}
+		return new Position(latitude[slot],longitude[slot],height[slot]);
+	}
+	
+	/**
+	 * @return false if the drone in slot isn't anywhere
+	 */
+	boolean isPositioned(int slot){
+		return positioned[slot];
+	}
+
+	void setPosition(int slot, Position position){
+		if(position == null){
+			positioned[slot] = false;
+			latitude[slot] = 0.0;
+			longitude[slot] = 0.0;
+			height[slot] = 0.0;
+			unplan(slot);
+		}
+		else{
+			setPosition(slot,position.getLatitude(),position.getLongitude(),position.getHeight());
+		}
+	}
+
+	void setPosition(int slot, double latitude, double longitude, double height){
+		this.positioned[slot] = true;
+		this.latitude[slot] = latitude;
+		this.longitude[slot] = longitude;
+		this.height[slot] = height;
+		unplan(slot);
+	}
+
+	double getLatitude(int slot){
+		return latitude[slot];
+	}
+
+	double getLongitude(int slot){
+		return longitude[slot];
+	}
+
+	double getHeight(int slot){
+		return height[slot];
+	}
+
+	void setHeight(int slot, double height){
+		this.height[slot] = height;
+		unplan(slot);
+	}
+
+	/**
+	 * @return the drone's charge now, a recharging drone is never more than full
+	 */
+	double getCharge(int slot){
+		if(recharging[slot]){
+			return Math.min(1.0,getRechargedCharge(slot,clock));
+		}
+		return charge[slot];
+	}
+
+	/**
+	 * Set the drone's charge, which stops it recharging
+	 */
+	void setCharge(int slot, double charge){
+		this.charge[slot] = charge;
+		this.recharging[slot] = false;
+		unplan(slot);
+	}
+
+	/**
+	 * The tick the fleet is on, recharging drones have the charge they have on it
+	 */
+	void setClock(long clock, int tickSize){
+		this.clock = clock;
+		this.tickSize = tickSize;
+	}
+
+	/**
+	 * Start recharging the drone in slot from the charge it has now
+	 * @param since, the tick it starts on, it has charged perTick more on each tick after it
+	 */
+	void startRecharging(int slot, long since, double perTick){
+		charge[slot] = getCharge(slot);
+		recharging[slot] = true;
+		rechargeSince[slot] = since;
+		rechargePerTick[slot] = perTick;
+		rechargeEvent[slot] = Long.MAX_VALUE;
+		unplan(slot);
+	}
+
+	/**
+	 * Pick up recharging where a checkpoint left off
+	 * @param from, the charge the drone started recharging from
+	 */
+	void restoreRecharging(int slot, double from, long since, double perTick, long event){
+		charge[slot] = from;
+		recharging[slot] = true;
+		rechargeSince[slot] = since;
+		rechargePerTick[slot] = perTick;
+		rechargeEvent[slot] = event;
+		unplan(slot);
+	}
+
+	/**
+	 * Stop recharging the drone in slot, keeping the charge it has now
+	 */
+	void stopRecharging(int slot){
+		if(recharging[slot]){
+			setCharge(slot,getCharge(slot));
+		}
+	}
+
+	boolean isRecharging(int slot){
+		return recharging[slot];
+	}
+
+	/**
+	 * @return the charge the recharging drone in slot started from
+	 */
+	double getRechargeFrom(int slot){
+		return charge[slot];
+	}
+
+	long getRechargeSince(int slot){
+		return rechargeSince[slot];
+	}
+
+	double getRechargePerTick(int slot){
+		return rechargePerTick[slot];
+	}
+
+	/**
+	 * @return how much charge the recharging drone in slot has on tick, without stopping at full
+	 */
+	double getRechargedCharge(int slot, long tick){
+		return charge[slot] + ((tick - rechargeSince[slot]) / tickSize) * rechargePerTick[slot];
+	}
+
+	long getRechargeEvent(int slot){
+		return rechargeEvent[slot];
+	}
+
+	void setRechargeEvent(int slot, long rechargeEvent){
+		this.rechargeEvent[slot] = rechargeEvent;
+	}
+
+	double getSpeed(int slot){
+		return speed[slot];
+	}
+
+	void setSpeed(int slot, double speed){
+		this.speed[slot] = speed;
+		unplan(slot);
+	}
+
+	double getDischargeRate(int slot){
+		return dischargeRate[slot];
+	}
+
+	void setDischargeRate(int slot, double dischargeRate){
+		this.dischargeRate[slot] = dischargeRate;
+		unplan(slot);
+	}
+
+	long getTransitStart(int slot){
+		return transitStart[slot];
+	}
+
+	void setTransitStart(int slot, long transitStart){
+		this.transitStart[slot] = transitStart;
+	}
+
+	long getTransitEnd(int slot){
+		return transitEnd[slot];
+	}
+
+	void setTransitEnd(int slot, long transitEnd){
+		this.transitEnd[slot] = transitEnd;
+	}
+
+	/**
+	 * Fly the drone in slot from start toward destination for up to ticks ticks, stopping before the tick where it
+	 * would arrive or run out of charge.  This does the same arithmetic as the simulator does for a drone in transit on each tick.
+	 * @param metersPerTick, how far the drone flies in one tick
+	 * @param transitHeight, how far above the ground drones fly
+	 * @param runOutOfCharge, if drones stop when their charge runs out
+	 * @return how many ticks the drone flew
+	 */
+	int fly(int slot, int ticks, Place start, Place destination, DistanceMatrix distances, double metersPerTick, double transitHeight, boolean runOutOfCharge){
+		Position a = start.getPosition();
+		Position b = destination.getPosition();
+		double metersForTrip = distances.distance(start,destination);
+		double toSin = distances.sinLatitude(destination);
+		double toCos = distances.cosLatitude(destination);
+
+		double lat = latitude[slot];
+		double lon = longitude[slot];
+		double h = height[slot];
+		double c = charge[slot];
+		double discharge = dischargeRate[slot];
+
+		int flown = 0;
+		for(; flown < ticks; flown++){
+			double fromLat = DistanceCalculator.deg2rad(lat);
+			double metersToGoal = DistanceCalculator.distance(Math.sin(fromLat), Math.cos(fromLat), toSin, toCos, lon - b.getLongitude());
+			if(metersToGoal <= 0){
+				metersToGoal = 1;
+			}
+			double next = c - (metersPerTick*discharge);
+			if(next < 0.0){
+				next = 0.0;
+			}
+			if(((next <= 0.0) && (runOutOfCharge)) || (metersPerTick >= metersToGoal)){
+				break;
+			}
+			c = next;
+			double percentage = 1.0 - ((metersToGoal-metersPerTick)/metersForTrip);
+			if(percentage > 1.0){
+				percentage = 1.0;
+			}
+			lat = (b.getLatitude()-a.getLatitude())*percentage+a.getLatitude();
+			lon = (b.getLongitude()-a.getLongitude())*percentage+a.getLongitude();
+			h = (b.getHeight()-a.getHeight())*percentage+a.getHeight() + transitHeight;
+		}
+
+		latitude[slot] = lat;
+		longitude[slot] = lon;
+		height[slot] = h;
+		charge[slot] = c;
+		unplan(slot);
+		return flown;
+	}
+	
+	/**
+	 * Plan the next tick of flight for every drone in the fleet that is in transit, in one pass over the fleet
+	 * @param drones, the drone in each slot
+	 */
+	void planTransits(Drone[] drones, DistanceMatrix distances, double transitHeight, boolean runOutOfCharge){
+		for(int slot = 0; slot < size; slot++){
+			Drone d = drones[slot];
+			if(d.getState() == DroneState.IN_TRANSIT){
+				planTransit(slot,d.getStart(),d.getDestination(),distances,transitHeight,runOutOfCharge);
+			}
+		}
+	}
+	
+	/**
+	 * Plan the next tick of flight for the drone in slot from start toward destination, with the same arithmetic as the
+	 * simulator uses for a drone in transit
+	 */
+	void planTransit(int slot, Place start, Place destination, DistanceMatrix distances, double transitHeight, boolean runOutOfCharge){
+		if(planTick == null){
+			planTick = new long[latitude.length];
+			Arrays.fill(planTick,Long.MIN_VALUE);
+			plannedLatitude = new double[latitude.length];
+			plannedLongitude = new double[latitude.length];
+			plannedHeight = new double[latitude.length];
+			plannedCharge = new double[latitude.length];
+			plannedToGoal = new double[latitude.length];
+			plannedForTrip = new double[latitude.length];
+			plannedOutcome = new int[latitude.length];
+		}
+		double metersToGoal = distances.distance(latitude[slot],longitude[slot],destination);
+		if(metersToGoal <= 0){
+			metersToGoal = 1;
+		}
+		double metersForTrip = distances.distance(start,destination);
+		double metersPerTick = speed[slot] * (tickSize /1000.0);
+		
+		double c = getCharge(slot) - (metersPerTick*dischargeRate[slot]);
+		if(c < 0.0){
+			c = 0.0;
+		}
+		
+		double lat = latitude[slot];
+		double lon = longitude[slot];
+		double h = height[slot];
+		int outcome;
+		if((c <= 0.0) && runOutOfCharge){
+			outcome = OUT_OF_CHARGE;
+		}
+		else if(metersPerTick >= metersToGoal){
+			//Close enough to call it an arrival
+			Position b = destination.getPosition();
+			lat = b.getLatitude();
+			lon = b.getLongitude();
+			h = transitHeight+b.getHeight();
+			outcome = ARRIVING;
+		}
+		else{
+			double percentage = 1.0 - ((metersToGoal-metersPerTick)/metersForTrip);
+			if(percentage > 1.0){
+				//This could happen if the drone was rerouted in transit to a further destination
+				percentage = 1.0;
+			}
+			// This is going to screw up if a drone is rerouted in transit because it needs to interpolate between the drone's
+			// current position and the destination, not the drone's starting point
+			Position a = start.getPosition();
+			Position b = destination.getPosition();
+			lat = (b.getLatitude()-a.getLatitude())*percentage+a.getLatitude();
+			lon = (b.getLongitude()-a.getLongitude())*percentage+a.getLongitude();
+			h = (b.getHeight()-a.getHeight())*percentage+a.getHeight() + transitHeight;
+			outcome = FLYING;
+		}
+		
+		planTick[slot] = clock;
+		plannedLatitude[slot] = lat;
+		plannedLongitude[slot] = lon;
+		plannedHeight[slot] = h;
+		plannedCharge[slot] = c;
+		plannedToGoal[slot] = metersToGoal;
+		plannedForTrip[slot] = metersForTrip;
+		plannedOutcome[slot] = outcome;
+	}
+	
+	/**
+	 * @return true if the drone in slot has a plan for this tick that is still good
+	 */
+	boolean isPlanned(int slot){
+		return (planTick != null) && (planTick[slot] == clock);
+	}
+	
+	/**
+	 * @return how far the planned drone in slot had to go to its destination before the planned tick
+	 */
+	double getPlannedToGoal(int slot){
+		return plannedToGoal[slot];
+	}
+	
+	/**
+	 * @return how far it is from the planned drone's start to its destination
+	 */
+	double getPlannedForTrip(int slot){
+		return plannedForTrip[slot];
+	}
+	
+	/**
+	 * Carry out the drone in slot's plan, it loses charge and, unless it runs out, moves
+	 * @return FLYING, ARRIVING or OUT_OF_CHARGE
+	 */
+	int fly(int slot){
+		int outcome = plannedOutcome[slot];
+		charge[slot] = plannedCharge[slot];
+		recharging[slot] = false;
+		if(outcome != OUT_OF_CHARGE){
+			setPosition(slot,plannedLatitude[slot],plannedLongitude[slot],plannedHeight[slot]);
+		}
+		unplan(slot);
+		return outcome;
+	}
+	
+	/**
+	 * Throw away the plan for the drone in slot because something about it has changed
+	 */
+	void unplan(int slot){
+		if(planTick != null){
+			planTick[slot] = Long.MIN_VALUE;
+		}
+	}
+
+}
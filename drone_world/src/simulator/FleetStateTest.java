@@ -0,0 +1,243 @@
+package simulator;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import reference.DroneControllerSkeleton;
+import simulator.enums.DroneState;
+
+public class FleetStateTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testSlots() {
+		FleetState fleet = new FleetState(1);
+		int a = fleet.add();
+		int b = fleet.add();
+		int c = fleet.add();
+		assertEquals(0,a);
+		assertEquals(1,b);
+		assertEquals(2,c);
+		assertEquals(3,fleet.size());
+
+		fleet.setPosition(b,new Position(1.0,2.0,3.0));
+		fleet.setCharge(b,0.5);
+		fleet.setSpeed(b,10.0);
+		fleet.setDischargeRate(b,0.01);
+		fleet.setTransitStart(b,100L);
+		fleet.setTransitEnd(b,200L);
+		assertEquals(new Position(1.0,2.0,3.0),fleet.getPosition(b));
+		assertNull(fleet.getPosition(a));
+
+		//Copies don't share anything
+		FleetState other = new FleetState(4);
+		int d = other.add();
+		other.copy(fleet,b,d);
+		fleet.setHeight(b,7.0);
+		assertEquals(new Position(1.0,2.0,3.0),other.getPosition(d));
+		assertEquals(0.5,other.getCharge(d),0.0);
+		assertEquals(10.0,other.getSpeed(d),0.0);
+		assertEquals(0.01,other.getDischargeRate(d),0.0);
+		assertEquals(100L,other.getTransitStart(d));
+		assertEquals(200L,other.getTransitEnd(d));
+
+		fleet.setPosition(b,null);
+		assertNull(fleet.getPosition(b));
+	}
+
+	@Test
+	public void testDroneMovesToFleet() {
+		Place place = new Place("Here",new Position(34.4,-119.7,0));
+		Drone drone = new Drone(new DroneControllerSkeleton(),place,place,1,new Random(0));
+		drone.setCharge(0.25);
+		FleetState fleet = new FleetState(2);
+		fleet.add();
+		drone.setFleet(fleet);
+		assertSame(fleet,drone.getFleet());
+		assertEquals(1,drone.getSlot());
+		assertEquals(0.25,drone.getCharge(),0.0);
+		assertEquals(place.getPosition(),drone.getPosition());
+		drone.setCharge(0.75);
+		assertEquals(0.75,fleet.getCharge(1),0.0);
+	}
+
+	@Test
+	public void testFly() {
+		List<Place> places = new ArrayList<Place>();
+		Place start = new Place("Start",new Position(34.40,-119.70,0));
+		Place destination = new Place("Destination",new Position(34.45,-119.75,0));
+		places.add(start);
+		places.add(destination);
+		DistanceMatrix matrix = new DistanceMatrix(places);
+
+		FleetState fleet = new FleetState(1);
+		int slot = fleet.add();
+		fleet.setPosition(slot,start.getPosition());
+		fleet.setCharge(slot,1.0);
+		fleet.setDischargeRate(slot,0.00002);
+
+		double metersPerTick = 100.0;
+		double trip = matrix.distance(start,destination);
+
+		//Fly one tick at a time and check against the same arithmetic done by hand
+		Position a = start.getPosition();
+		Position b = destination.getPosition();
+		int ticks = 0;
+		while(fleet.fly(slot,1,start,destination,matrix,metersPerTick,2,true) == 1){
+			ticks++;
+			double flown = metersPerTick*ticks;
+			assertEquals(1.0-(flown*0.00002),fleet.getCharge(slot),0.0000001);
+			assertTrue(fleet.getLatitude(slot) > a.getLatitude());
+			assertTrue(fleet.getLatitude(slot) < b.getLatitude());
+			assertEquals(2.0,fleet.getHeight(slot),0.0000001);
+		}
+		//It stops before the tick where it would arrive
+		assertTrue(matrix.distance(fleet.getLatitude(slot),fleet.getLongitude(slot),destination) <= metersPerTick);
+		assertEquals((int)(trip/metersPerTick),ticks,1);
+
+		//Flying many ticks at once ends up in the same place
+		int other = fleet.add();
+		fleet.setPosition(other,start.getPosition());
+		fleet.setCharge(other,1.0);
+		fleet.setDischargeRate(other,0.00002);
+		assertEquals(ticks,fleet.fly(other,ticks+10,start,destination,matrix,metersPerTick,2,true));
+		assertEquals(fleet.getLatitude(slot),fleet.getLatitude(other),0.0);
+		assertEquals(fleet.getLongitude(slot),fleet.getLongitude(other),0.0);
+		assertEquals(fleet.getCharge(slot),fleet.getCharge(other),0.0);
+
+		//Drones that run out of charge stop
+		int empty = fleet.add();
+		fleet.setPosition(empty,start.getPosition());
+		fleet.setCharge(empty,0.0001);
+		fleet.setDischargeRate(empty,0.0002);
+		assertEquals(0,fleet.fly(empty,10,start,destination,matrix,metersPerTick,2,true));
+		assertEquals(0.0001,fleet.getCharge(empty),0.0);
+	}
+
+	@Test
+	//Drones in transit are all planned in one pass, and the plan is the same flight as flying them one at a time
+	public void testPlanTransits() {
+		List<Place> places = new ArrayList<Place>();
+		Place start = new Place("Start",new Position(34.40,-119.70,0));
+		Place destination = new Place("Destination",new Position(34.45,-119.75,0));
+		places.add(start);
+		places.add(destination);
+		DistanceMatrix matrix = new DistanceMatrix(places);
+		
+		FleetState fleet = new FleetState(3);
+		Drone[] drones = new Drone[3];
+		for(int i = 0; i < drones.length; i++){
+			drones[i] = new Drone(new DroneControllerSkeleton(),start,destination,1,new Random(i));
+			drones[i].setFleet(fleet);
+			drones[i].setDischargeRate(0.00002);
+			drones[i].setState(DroneState.IN_TRANSIT);
+		}
+		drones[2].setState(DroneState.IDLING);
+		//100 meters a tick
+		fleet.setClock(1000L,1000);
+		fleet.planTransits(drones,matrix,2,true);
+		assertTrue(fleet.isPlanned(0));
+		assertTrue(fleet.isPlanned(1));
+		assertFalse(fleet.isPlanned(2));
+		assertEquals(matrix.distance(start,destination),fleet.getPlannedForTrip(0),0.0);
+		
+		assertEquals(FleetState.FLYING,fleet.fly(0));
+		assertFalse(fleet.isPlanned(0));
+		FleetState other = new FleetState(1);
+		int slot = other.add();
+		other.setPosition(slot,start.getPosition());
+		other.setCharge(slot,1.0);
+		other.setDischargeRate(slot,0.00002);
+		assertEquals(1,other.fly(slot,1,start,destination,matrix,100.0,2,true));
+		assertEquals(other.getLatitude(slot),fleet.getLatitude(0),0.0);
+		assertEquals(other.getLongitude(slot),fleet.getLongitude(0),0.0);
+		assertEquals(other.getHeight(slot),fleet.getHeight(0),0.0);
+		assertEquals(other.getCharge(slot),fleet.getCharge(0),0.0);
+		
+		//Changing a drone, or going on to the next tick, throws its plan away
+		drones[1].setDestination(start);
+		assertFalse(fleet.isPlanned(1));
+		fleet.planTransits(drones,matrix,2,true);
+		assertTrue(fleet.isPlanned(1));
+		fleet.setClock(2000L,1000);
+		assertFalse(fleet.isPlanned(1));
+		
+		//A drone that is close enough arrives, and one without enough charge doesn't move
+		fleet.setPosition(0,destination.getPosition());
+		drones[1].setDestination(destination);
+		drones[1].setCharge(0.0);
+		fleet.planTransits(drones,matrix,2,true);
+		assertEquals(FleetState.ARRIVING,fleet.fly(0));
+		assertEquals(destination.getPosition().getHeight()+2,fleet.getHeight(0),0.0);
+		double latitude = fleet.getLatitude(1);
+		assertEquals(FleetState.OUT_OF_CHARGE,fleet.fly(1));
+		assertEquals(latitude,fleet.getLatitude(1),0.0);
+	}
+	
+	@Test
+	//A recharging drone's charge is worked out from the tick the fleet is on, and stops when it is set
+	public void testRecharging() {
+		FleetState fleet = new FleetState(2);
+		int slot = fleet.add();
+		fleet.setCharge(slot,0.5);
+		fleet.setClock(1000L,250);
+		fleet.startRecharging(slot,1000L,0.1);
+		assertTrue(fleet.isRecharging(slot));
+		assertEquals(0.5,fleet.getCharge(slot),0.0);
+		
+		fleet.setClock(1500L,250);
+		assertEquals(0.5 + 2 * 0.1,fleet.getCharge(slot),0.0);
+		assertEquals(0.5 + 3 * 0.1,fleet.getRechargedCharge(slot,1750L),0.0);
+		
+		//Never more than full
+		fleet.setClock(4000L,250);
+		assertEquals(1.0,fleet.getCharge(slot),0.0);
+		assertTrue(fleet.getRechargedCharge(slot,4000L) > 1.0);
+		
+		//Copies have the charge as it is now and don't keep recharging
+		FleetState other = new FleetState(1);
+		int copy = other.add();
+		fleet.setClock(1250L,250);
+		other.copy(fleet,slot,copy);
+		assertFalse(other.isRecharging(copy));
+		assertEquals(0.6,other.getCharge(copy),0.0);
+		
+		//Stopping keeps the charge it has now
+		fleet.stopRecharging(slot);
+		assertFalse(fleet.isRecharging(slot));
+		fleet.setClock(2000L,250);
+		assertEquals(0.6,fleet.getCharge(slot),0.0);
+		
+		fleet.restoreRecharging(slot,0.5,1000L,0.1,3000L);
+		assertEquals(0.5 + 4 * 0.1,fleet.getCharge(slot),0.0);
+		assertEquals(3000L,fleet.getRechargeEvent(slot));
+		fleet.setCharge(slot,0.25);
+		assertFalse(fleet.isRecharging(slot));
+		assertEquals(0.25,fleet.getCharge(slot),0.0);
+	}
+
+}
@@ -0,0 +1,139 @@
+package simulator;
+
+/**
+ * Counts how long things take, in nanoseconds, without keeping every value.
+ * Each power of two is split into SUB_BUCKETS buckets, so a value read back is never off by more than 1/SUB_BUCKETS of itself,
+ * and recording a value costs the same no matter how many have been recorded.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	// Enough buckets for any positive long
+	private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+	private final long[] counts;
+	private long count;
+	private long total;
+	private long max;
+
+	public LatencyHistogram(){
+		counts = new long[BUCKETS];
+		count = 0;
+		total = 0;
+		max = 0;
+	}
+
+	public LatencyHistogram(LatencyHistogram other){
+		this();
+		add(other);
+	}
+
+	static int bucket(long value){
+		if(value < SUB_BUCKETS){
+			return (int) Math.max(0,value);
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) ((value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * @return the smallest value that goes in bucket
+	 */
+	static long lowestValue(int bucket){
+		if(bucket < SUB_BUCKETS){
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		int sub = bucket % SUB_BUCKETS;
+		return (1L << exponent) + (((long) sub) << (exponent - SUB_BITS));
+	}
+
+	/**
+	 * @return the largest value that goes in bucket
+	 */
+	static long highestValue(int bucket){
+		if(bucket + 1 >= BUCKETS){
+			return Long.MAX_VALUE;
+		}
+		return lowestValue(bucket + 1) - 1;
+	}
+
+	/**
+	 * Count one value, negative values are counted as 0
+	 */
+	public synchronized void record(long nanos){
+		nanos = Math.max(0,nanos);
+		counts[bucket(nanos)]++;
+		count++;
+		total += nanos;
+		max = Math.max(max,nanos);
+	}
+
+	/**
+	 * Count all the values that were counted by other
+	 */
+	public void add(LatencyHistogram other){
+		LatencyHistogram copy;
+		synchronized(other){
+			copy = new LatencyHistogram();
+			System.arraycopy(other.counts,0,copy.counts,0,BUCKETS);
+			copy.count = other.count;
+			copy.total = other.total;
+			copy.max = other.max;
+		}
+		synchronized(this){
+			for(int i = 0; i < BUCKETS; i++){
+				counts[i] += copy.counts[i];
+			}
+			count += copy.count;
+			total += copy.total;
+			max = Math.max(max,copy.max);
+		}
+	}
+
+	public synchronized long getCount(){
+		return count;
+	}
+
+	public synchronized long getMax(){
+		return max;
+	}
+
+	/**
+	 * @return the average value, or 0 if nothing has been counted
+	 */
+	public synchronized double getMean(){
+		if(count == 0){
+			return 0.0;
+		}
+		return ((double) total)/count;
+	}
+
+	/**
+	 * @param percentile, between 0 and 100
+	 * @return a value that at least percentile percent of the values are less than or equal to, or 0 if nothing has been counted
+	 */
+	public synchronized long getValueAtPercentile(double percentile){
+		if(count == 0){
+			return 0;
+		}
+		percentile = Math.min(100.0,Math.max(0.0,percentile));
+		long wanted = Math.max(1,(long) Math.ceil((percentile/100.0)*count));
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++){
+			seen += counts[i];
+			if(seen >= wanted){
+				return Math.min(highestValue(i),max);
+			}
+		}
+		return max;
+	}
+
+	@Override
+	public synchronized String toString(){
+		return String.format("%d calls, p50 %.3f ms, p99 %.3f ms, max %.3f ms",count,getValueAtPercentile(50)/1e6,getValueAtPercentile(99)/1e6,max/1e6);
+	}
+
+}
@@ -0,0 +1,85 @@
+package simulator;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testBuckets() {
+		//Every value lands in a bucket that holds it
+		Random r = new Random(0);
+		for(int i = 0; i < 100000; i++){
+			long value = (i < 1000) ? i : (r.nextLong() >>> (1 + r.nextInt(63)));
+			int bucket = LatencyHistogram.bucket(value);
+			assertTrue(LatencyHistogram.lowestValue(bucket) <= value);
+			assertTrue(LatencyHistogram.highestValue(bucket) >= value);
+		}
+		assertEquals(Long.MAX_VALUE,LatencyHistogram.highestValue(LatencyHistogram.bucket(Long.MAX_VALUE)));
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram h = new LatencyHistogram();
+		assertEquals(0,h.getCount());
+		assertEquals(0,h.getValueAtPercentile(50));
+		assertEquals(0.0,h.getMean(),0.0);
+
+		for(long i = 1; i <= 10000; i++){
+			h.record(i*1000);
+		}
+		assertEquals(10000,h.getCount());
+		assertEquals(10000000,h.getMax());
+		assertEquals(5000500.0,h.getMean(),0.001);
+		//Close to the real value, never more than a bucket off
+		assertEquals(5000000,h.getValueAtPercentile(50),5000000/16);
+		assertEquals(9900000,h.getValueAtPercentile(99),9900000/16);
+		assertTrue(h.getValueAtPercentile(99) >= 9900000);
+		assertEquals(10000000,h.getValueAtPercentile(100));
+
+		h.record(-5);
+		assertEquals(0,h.getValueAtPercentile(0));
+	}
+
+	@Test
+	public void testAdd() {
+		LatencyHistogram a = new LatencyHistogram();
+		LatencyHistogram b = new LatencyHistogram();
+		a.record(10);
+		b.record(1000);
+		b.record(2000);
+		a.add(b);
+		assertEquals(3,a.getCount());
+		assertEquals(2000,a.getMax());
+		assertEquals(2,b.getCount());
+
+		LatencyHistogram c = new LatencyHistogram(a);
+		a.record(5000);
+		assertEquals(3,c.getCount());
+		assertEquals(4,a.getCount());
+	}
+
+}
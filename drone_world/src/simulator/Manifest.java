@@ -0,0 +1,164 @@
+package simulator;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The places a drone says it is going, kept as a bit for each place id.
+ * Checking if a place is on the manifest and copying the manifest don't depend on how big the manifest is, copies share
+ * their places until one of them is changed.
+ * It iterates in id order, which is the same order as a TreeSet of the places.
+ * All the places on a manifest are from one simulation, and a place from another one isn't on it even if it has the same id.
+ */
+class Manifest extends AbstractSet<Place> {
+
+	private BitSet ids;
+	//The places on the manifest, indexed by id
+	private Place[] places;
+	//Copies share places until one of them changes it
+	private boolean shared;
+
+	Manifest(){
+		ids = new BitSet();
+		places = new Place[0];
+	}
+
+	Manifest(Manifest manifest){
+		ids = (BitSet) manifest.ids.clone();
+		places = manifest.places;
+		shared = true;
+		manifest.shared = true;
+	}
+	
+	/**
+	 * Get places ready to be changed, with room for id
+	 */
+	private void unshare(int id){
+		if(shared || (id >= places.length)){
+			places = Arrays.copyOf(places,Math.max(id+1,(id >= places.length) ? places.length*2 : places.length));
+			shared = false;
+		}
+	}
+
+	/**
+	 * Copy places into a Manifest, or into a TreeSet if some of the places haven't been loaded into a simulation
+	 */
+	static Set<Place> copyOf(Set<Place> places){
+		if(places instanceof Manifest){
+			return new Manifest((Manifest) places);
+		}
+		for(Place p: places){
+			if((p == null) || (p.getId() == Place.UNASSIGNED)){
+				return new TreeSet<Place>(places);
+			}
+		}
+		Manifest ret = new Manifest();
+		ret.addAll(places);
+		return ret;
+	}
+
+	@Override
+	public boolean add(Place place){
+		if((place == null) || (place.getId() == Place.UNASSIGNED)){
+			throw new IllegalArgumentException("Only places that are in a simulation can be on a manifest");
+		}
+		if(!isEmpty() && !place.sharesIds(places[ids.nextSetBit(0)])){
+			throw new IllegalArgumentException("Places from different simulations can't be on the same manifest");
+		}
+		int id = place.getId();
+		if(ids.get(id)){
+			return false;
+		}
+		unshare(id);
+		places[id] = place;
+		ids.set(id);
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o){
+		if(!(o instanceof Place)){
+			return false;
+		}
+		Place place = (Place) o;
+		int id = place.getId();
+		if((id == Place.UNASSIGNED) || !ids.get(id)){
+			return false;
+		}
+		return places[id].sharesIds(place);
+	}
+
+	@Override
+	public boolean remove(Object o){
+		if(!contains(o)){
+			return false;
+		}
+		int id = ((Place) o).getId();
+		unshare(id);
+		ids.clear(id);
+		places[id] = null;
+		return true;
+	}
+
+	@Override
+	public void clear(){
+		ids.clear();
+		if(shared){
+			places = new Place[places.length];
+			shared = false;
+		}
+		else{
+			Arrays.fill(places,null);
+		}
+	}
+
+	@Override
+	public int size(){
+		return ids.cardinality();
+	}
+
+	@Override
+	public boolean isEmpty(){
+		return ids.isEmpty();
+	}
+
+	@Override
+	public Iterator<Place> iterator(){
+		return new Iterator<Place>(){
+			private int next = ids.nextSetBit(0);
+			private int last = -1;
+
+			@Override
+			public boolean hasNext(){
+				return next >= 0;
+			}
+
+			@Override
+			public Place next(){
+				if(next < 0){
+					throw new NoSuchElementException();
+				}
+				last = next;
+				next = ids.nextSetBit(next+1);
+				return places[last];
+			}
+
+			@Override
+			public void remove(){
+				if(last < 0){
+					throw new IllegalStateException();
+				}
+				unshare(last);
+				ids.clear(last);
+				places[last] = null;
+				last = -1;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,106 @@
+package simulator;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * What is left of the people who have finished their trips, once the simulator has stopped keeping track of them.
+ * Keeps the totals that scoring needs, so a long simulation only holds on to the people who are still on their way.
+ * Only the simulator thread counts people, so this isn't synchronized.
+ */
+public class PassengerStatistics {
+
+	private final Map<String, Pair<Integer,Long>> scores;
+	private int retired;
+	private long totalTransitTime;
+	private long maxTransitTime;
+
+	PassengerStatistics(){
+		scores = new HashMap<String, Pair<Integer,Long>>();
+		retired = 0;
+		totalTransitTime = 0;
+		maxTransitTime = 0;
+	}
+
+	/**
+	 * Count someone who has finished their trip
+	 */
+	void retire(Person person){
+		Simulator.score(person,scores);
+		long transitTime = person.getEndTransitTime() - person.getStartTransitTime();
+		totalTransitTime += transitTime;
+		maxTransitTime = Math.max(maxTransitTime,transitTime);
+		retired++;
+	}
+
+	/**
+	 * Save the totals in a checkpoint
+	 */
+	void save(CheckpointWriter out) throws IOException{
+		out.putInt(retired);
+		out.putLong(totalTransitTime);
+		out.putLong(maxTransitTime);
+		out.putInt(scores.size());
+		for(Entry<String, Pair<Integer,Long>> e: scores.entrySet()){
+			out.putString(e.getKey());
+			out.putInt(e.getValue().getKey());
+			out.putLong(e.getValue().getValue());
+		}
+	}
+
+	/**
+	 * Replace the totals with the ones saved in a checkpoint
+	 */
+	void restore(CheckpointReader in) throws IOException{
+		retired = in.getInt();
+		totalTransitTime = in.getLong();
+		maxTransitTime = in.getLong();
+		scores.clear();
+		int companies = in.getCount(Integer.BYTES);
+		for(int i = 0; i < companies; i++){
+			String company = in.getString();
+			int score = in.getInt();
+			scores.put(company,new Pair<Integer,Long>(score,in.getLong()));
+		}
+	}
+
+	/**
+	 * @return how many people have been counted
+	 */
+	public int getRetired() {
+		return retired;
+	}
+
+	public long getTotalTransitTime() {
+		return totalTransitTime;
+	}
+
+	public long getMaxTransitTime() {
+		return maxTransitTime;
+	}
+
+	/**
+	 * @return the average time people spent in a drone, or 0 if no one has been counted
+	 */
+	public double getMeanTransitTime(){
+		if(retired == 0){
+			return 0.0;
+		}
+		return ((double) totalTransitTime)/retired;
+	}
+
+	/**
+	 * @return a map from company name to (score, total transit time of the delivered passengers) for the people who have been counted
+	 */
+	public Map<String, Pair<Integer,Long>> getScores() {
+		return new HashMap<String, Pair<Integer,Long>>(scores);
+	}
+
+	@Override
+	public String toString(){
+		return String.format("%d passengers, mean transit %.1f s, max transit %.1f s",retired,getMeanTransitTime()/Simulator.ONE_SECOND,((double) maxTransitTime)/Simulator.ONE_SECOND);
+	}
+
+}
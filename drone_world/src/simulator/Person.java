@@ -16,8 +16,10 @@ public class Person implements Comparable<Person>, Savable{
 	Place start;
 	//Place where person is going
 	Place destination;
-	//The current position of the Person that is used to render them
+	//The current position of the Person that is used to render them, when they aren't in a drone
 	Position position;
+	//The drone this person is riding in, whose position is theirs while they are on board, or null
+	private Drone carrier;
 	PersonState state;
 	//When the Person began and ended their trip
 	Long startTransitTime;
@@ -26,6 +28,11 @@ public class Person implements Comparable<Person>, Savable{
 	// The company that picked up this person
 	String deliveryCompany;
 	
+	// Keeps count of people by state for the simulator this person is in
+	private StateCounter<PersonState> stateCounter;
+	// Where changes of state are recorded, or null
+	private TelemetryRing telemetry;
+	
 
 	public String getId() {
 		return id;
@@ -64,22 +71,83 @@ public class Person implements Comparable<Person>, Savable{
 	
 
 	void setPosition(Position position){
+		this.carrier = null;
 		this.position = position;
 	}
 	
 	public Position getPosition(){
+		if(carrier != null){
+			return carrier.getPosition();
+		}
 		return new Position(position);
 	}
 	
+	/**
+	 * @return false if this person isn't anywhere.  This and the next three read where a person in a drone is straight
+	 * from the drone, instead of copying its position.
+	 */
+	private boolean hasPosition(){
+		return (carrier != null) ? carrier.hasPosition() : (position != null);
+	}
+	
+	private double latitude(){
+		return (carrier != null) ? carrier.getLatitude() : position.getLatitude();
+	}
+	
+	private double longitude(){
+		return (carrier != null) ? carrier.getLongitude() : position.getLongitude();
+	}
+	
+	private double height(){
+		return (carrier != null) ? carrier.getHeight() : position.getHeight();
+	}
+	
+	/**
+	 * Get on board a drone and go wherever it goes until getting off, instead of being moved along with it every tick
+	 */
+	void board(Drone drone){
+		this.carrier = drone;
+	}
+	
+	/**
+	 * Get off the drone this person is riding in, where it is now
+	 */
+	void alight(){
+		if(carrier != null){
+			this.position = carrier.getPosition();
+			this.carrier = null;
+		}
+	}
+	
 	
 	public PersonState getState() {
 		return state;
 	}
 
 	void setState(PersonState newState){
+		if(stateCounter != null){
+			stateCounter.moved(this.state,newState);
+		}
+		if((telemetry != null) && (this.state != newState)){
+			telemetry.person(this,this.state,newState);
+		}
 		this.state = newState;
 	}
 	
+	void setTelemetry(TelemetryRing telemetry){
+		this.telemetry = telemetry;
+	}
+	
+	void setStateCounter(StateCounter<PersonState> stateCounter){
+		if(this.stateCounter != null){
+			this.stateCounter.remove(this.state);
+		}
+		this.stateCounter = stateCounter;
+		if(this.stateCounter != null){
+			this.stateCounter.add(this.state);
+		}
+	}
+	
 
 	public Long getStartTransitTime() {
 		return startTransitTime;
@@ -141,7 +209,7 @@ public class Person implements Comparable<Person>, Savable{
 		result = prime * result + ((endTransitTime == null) ? 0 : endTransitTime.hashCode());
 		result = prime * result + ((id == null) ? 0 : id.hashCode());
 		result = prime * result + ((name == null) ? 0 : name.hashCode());
-		result = prime * result + ((position == null) ? 0 : position.hashCode());
+		result = prime * result + ((!hasPosition()) ? 0 : Position.hashCode(latitude(),longitude(),height()));
 		result = prime * result + ((start == null) ? 0 : start.getName().hashCode()); //Hash the name of the start to break the reference loop
 		result = prime * result + ((startTransitTime == null) ? 0 : startTransitTime.hashCode());
 		result = prime * result + ((state == null) ? 0 : state.hashCode());
@@ -182,10 +250,10 @@ public class Person implements Comparable<Person>, Savable{
 				return false;
 		} else if (!name.equals(other.name))
 			return false;
-		if (position == null) {
-			if (other.position != null)
+		if (!hasPosition()) {
+			if (other.hasPosition())
 				return false;
-		} else if (!position.equals(other.position))
+		} else if (!other.hasPosition() || !Position.equals(latitude(),longitude(),height(),other.latitude(),other.longitude(),other.height()))
 			return false;
 		if (start == null) {
 			if (other.start != null)
@@ -227,11 +295,13 @@ public class Person implements Comparable<Person>, Savable{
 		} else if (!id.equals(other.id))
 			return id.compareTo(other.id);
 		
-		if (position == null) {
-			if (other.position != null)
+		if (!hasPosition()) {
+			if (other.hasPosition())
 				return 1;
-		} else if (!position.equals(other.position))
-			return position.compareTo(other.position);
+		} else if (!other.hasPosition())
+			return 1;
+		else if (!Position.equals(latitude(),longitude(),height(),other.latitude(),other.longitude(),other.height()))
+			return Position.compare(latitude(),longitude(),height(),other.latitude(),other.longitude(),other.height());
 		
 		if (start == null) {
 			if (other.start != null)
@@ -2,12 +2,15 @@ package simulator;
 
 import static org.junit.Assert.*;
 
+import java.util.Random;
+
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import reference.DroneControllerSkeleton;
 import simulator.enums.PersonState;
 
 public class PersonTest {
@@ -149,4 +152,37 @@ public class PersonTest {
 		*/
 	}
 
+	
+	@Test
+	//Someone on board a drone is wherever the drone is until they get off
+	public void testBoard() {
+		Place capeTown = new Place("Cape Town",new Position(-33.9249,18.4241,0.0));
+		Place paris = new Place("Paris",new Position(48.8566,2.3522,0.0));
+		Person doug = new Person("01","Doug",paris,paris.getPosition(),capeTown,PersonState.WAITING);
+		Drone drone = new Drone(new DroneControllerSkeleton(),paris,capeTown,1,new Random(0));
+		
+		doug.board(drone);
+		drone.setPosition(10.0,20.0,30.0);
+		assertEquals(new Position(10.0,20.0,30.0),doug.getPosition());
+		Person copy = new Person(doug);
+		assertEquals(copy,doug);
+		assertTrue(copy.hashCode() == doug.hashCode());
+		assertTrue(copy.compareTo(doug) == 0);
+		//They are ordered by where the drone is, the same way as their positions
+		drone.setPosition(10.0,20.0,31.0);
+		assertEquals(new Position(10.0,20.0,31.0).compareTo(copy.getPosition()),doug.compareTo(copy));
+		assertEquals(copy.getPosition().compareTo(new Position(10.0,20.0,31.0)),copy.compareTo(doug));
+		drone.setPosition(10.0,20.0,30.0);
+		
+		//Getting a position is a copy that can't move them
+		doug.getPosition().setLatitude(0.0);
+		assertEquals(new Position(10.0,20.0,30.0),doug.getPosition());
+		
+		drone.setPosition(capeTown.getPosition());
+		doug.alight();
+		drone.setPosition(paris.getPosition());
+		assertEquals(capeTown.getPosition(),doug.getPosition());
+		assertNotEquals(copy,doug);
+	}
+
 }
@@ -0,0 +1,79 @@
+package simulator;
+
+import java.util.Random;
+
+import simulator.enums.ControllerMode;
+import simulator.enums.DispatchMode;
+import simulator.enums.EngineMode;
+import simulator.interfaces.SimulationController;
+
+/**
+ * The simulation controller that a pipelined drone controller sees during its call backs.  It is the simulation's own,
+ * except that each drone controller gets random numbers of its own, so that controllers running at the same time as each
+ * other and the simulator don't take turns at one random number generator in whatever order their threads get there.
+ */
+class PipelinedSimulationController implements SimulationController {
+
+	private final SimulationController simulationController;
+	private final Random random = new Random();
+
+	PipelinedSimulationController(SimulationController simulationController){
+		this.simulationController = simulationController;
+	}
+
+	@Override
+	public Random getRandom() {
+		return random;
+	}
+
+	@Override
+	public boolean isHighResolution() {
+		return simulationController.isHighResolution();
+	}
+
+	@Override
+	public int getNumberOfDroneModels() {
+		return simulationController.getNumberOfDroneModels();
+	}
+
+	@Override
+	public int getSimulatorSpeed() {
+		return simulationController.getSimulatorSpeed();
+	}
+
+	@Override
+	public boolean isHeadless() {
+		return simulationController.isHeadless();
+	}
+
+	@Override
+	public int getSimulatorTickSize() {
+		return simulationController.getSimulatorTickSize();
+	}
+
+	@Override
+	public EngineMode getEngineMode() {
+		return simulationController.getEngineMode();
+	}
+
+	@Override
+	public DispatchMode getDispatchMode() {
+		return simulationController.getDispatchMode();
+	}
+
+	@Override
+	public ControllerMode getControllerMode() {
+		return simulationController.getControllerMode();
+	}
+
+	@Override
+	public boolean shouldQuarantineDrones() {
+		return simulationController.shouldQuarantineDrones();
+	}
+
+	@Override
+	public long getSimulationEndTime() {
+		return simulationController.getSimulationEndTime();
+	}
+
+}
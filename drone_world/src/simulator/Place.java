@@ -1,14 +1,177 @@
 package simulator;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 public class Place implements Comparable<Place>{
 	
+	//The id of a place that hasn't been loaded into a simulation
+	public static final int UNASSIGNED = -1;
+	
+	//Where this place is in its simulation, from 0 to the number of places - 1 in name order
+	private int id = UNASSIGNED;
+	//Places that were given ids together share this, so that ids from different simulations aren't mixed up
+	private Object idSpace = null;
 	private String name;
 	private Position position;
 	
-	private LinkedList<Person> waitingToEmbark;
+	//The people waiting here, in a first come first served line for each destination by id
+	private Map<Integer,ArrayDeque<Waiting>> waitingByDestination;
+	//The lines for destinations that didn't have an id when people got in them, by name, until the destination gets one
+	private Map<String,ArrayDeque<Waiting>> waitingByName;
+	//Where the next person to arrive goes in the overall line
+	private long nextInLine;
+	private int waitingCount;
+	//The overall line, rebuilt when someone asks for it after it changes
+	private WaitingList waitingToEmbark;
+	
+	//Someone in line and when they got in line
+	private static class Waiting{
+		private final long inLine;
+		private final Person person;
+		
+		Waiting(long inLine, Person person){
+			this.inLine = inLine;
+			this.person = person;
+		}
+	}
+	
+	/**
+	 * A LinkedList so that existing controllers keep working, that can't be changed once it's been filled in
+	 */
+	private static class WaitingList extends LinkedList<Person>{
+		private static final long serialVersionUID = 1L;
+		
+		private boolean sealed;
+		
+		WaitingList(List<Person> people){
+			super(people);
+			sealed = true;
+		}
+		
+		private void check(){
+			if(sealed){
+				throw new UnsupportedOperationException("The people waiting at a place can't be changed");
+			}
+		}
+		
+		@Override public boolean add(Person p){ check(); return super.add(p); }
+		@Override public void add(int index, Person p){ check(); super.add(index,p); }
+		@Override public void addFirst(Person p){ check(); super.addFirst(p); }
+		@Override public void addLast(Person p){ check(); super.addLast(p); }
+		@Override public boolean addAll(Collection<? extends Person> c){ check(); return super.addAll(c); }
+		@Override public boolean addAll(int index, Collection<? extends Person> c){ check(); return super.addAll(index,c); }
+		@Override public boolean offer(Person p){ check(); return super.offer(p); }
+		@Override public boolean offerFirst(Person p){ check(); return super.offerFirst(p); }
+		@Override public boolean offerLast(Person p){ check(); return super.offerLast(p); }
+		@Override public void push(Person p){ check(); super.push(p); }
+		@Override public Person set(int index, Person p){ check(); return super.set(index,p); }
+		@Override public Person remove(){ check(); return super.remove(); }
+		@Override public Person remove(int index){ check(); return super.remove(index); }
+		@Override public boolean remove(Object o){ check(); return super.remove(o); }
+		@Override public Person removeFirst(){ check(); return super.removeFirst(); }
+		@Override public Person removeLast(){ check(); return super.removeLast(); }
+		@Override public boolean removeFirstOccurrence(Object o){ check(); return super.removeFirstOccurrence(o); }
+		@Override public boolean removeLastOccurrence(Object o){ check(); return super.removeLastOccurrence(o); }
+		@Override public Person poll(){ check(); return super.poll(); }
+		@Override public Person pollFirst(){ check(); return super.pollFirst(); }
+		@Override public Person pollLast(){ check(); return super.pollLast(); }
+		@Override public Person pop(){ check(); return super.pop(); }
+		@Override public void clear(){ check(); super.clear(); }
+		@Override protected void removeRange(int from, int to){ check(); super.removeRange(from,to); }
+		@Override public boolean removeAll(Collection<?> c){ check(); return super.removeAll(c); }
+		@Override public boolean retainAll(Collection<?> c){ check(); return super.retainAll(c); }
+		@Override public boolean removeIf(Predicate<? super Person> filter){ check(); return super.removeIf(filter); }
+		@Override public void replaceAll(UnaryOperator<Person> operator){ check(); super.replaceAll(operator); }
+		@Override public void sort(Comparator<? super Person> c){ check(); super.sort(c); }
+		
+		@Override
+		public ListIterator<Person> listIterator(int index){
+			ListIterator<Person> i = super.listIterator(index);
+			if(!sealed){
+				return i;
+			}
+			return new ListIterator<Person>(){
+				@Override public boolean hasNext(){ return i.hasNext(); }
+				@Override public Person next(){ return i.next(); }
+				@Override public boolean hasPrevious(){ return i.hasPrevious(); }
+				@Override public Person previous(){ return i.previous(); }
+				@Override public int nextIndex(){ return i.nextIndex(); }
+				@Override public int previousIndex(){ return i.previousIndex(); }
+				@Override public void remove(){ check(); }
+				@Override public void set(Person p){ check(); }
+				@Override public void add(Person p){ check(); }
+			};
+		}
+		
+		@Override
+		public Iterator<Person> descendingIterator(){
+			ListIterator<Person> i = listIterator(size());
+			return new Iterator<Person>(){
+				@Override public boolean hasNext(){ return i.hasPrevious(); }
+				@Override public Person next(){ return i.previous(); }
+				@Override public void remove(){ i.remove(); }
+			};
+		}
+	}
+	
+	/**
+	 * @return the id of this place in its simulation or UNASSIGNED
+	 */
+	public int getId() {
+		return id;
+	}
+	
+	void setId(int id) {
+		if((this.id != UNASSIGNED) && (this.id != id)){
+			throw new IllegalArgumentException("Place "+name+" already has the id "+this.id);
+		}
+		this.id = id;
+	}
+	
+	/**
+	 * Give the places ids in the order that they come out of places, which should be sorted so that ordering by id and by name agree
+	 */
+	static void assignIds(Collection<Place> places){
+		//Places that already have their ids keep sharing them with the places they got them with
+		Object space = null;
+		for(Place p: places){
+			if(p.idSpace != null){
+				space = p.idSpace;
+				break;
+			}
+		}
+		if(space == null){
+			space = new Object();
+		}
+		int i = 0;
+		for(Place p: places){
+			p.setId(i++);
+			if(p.idSpace == null){
+				p.idSpace = space;
+			}
+		}
+	}
+	
+	/**
+	 * @return true if other got its id along with this place, or is a copy of one that did, so that their ids refer to the same places
+	 */
+	boolean sharesIds(Place other){
+		return (other != null) && (id != UNASSIGNED) && (idSpace == other.idSpace);
+	}
 	
 	public String getName() {
 		return name;
@@ -19,20 +182,168 @@ public class Place implements Comparable<Place>{
 	}
 
 
+	/**
+	 * @return where this place is, which is shared rather than copied because places don't move and only the simulator can change a Position
+	 */
 	public Position getPosition(){
-		return new Position(position);
+		return position;
 	}
 	
 	void setPosition(Position position) {
 		this.position = position;
 	}
 
-	public LinkedList<Person> getWaitingToEmbark() {
+	/**
+	 * @return everyone waiting here in the order they arrived. This can't be changed.
+	 */
+	public synchronized LinkedList<Person> getWaitingToEmbark() {
+		if(waitingToEmbark == null){
+			List<Waiting> line = new ArrayList<Waiting>(waitingCount);
+			for(ArrayDeque<Waiting> bucket: waitingByDestination.values()){
+				line.addAll(bucket);
+			}
+			for(ArrayDeque<Waiting> bucket: waitingByName.values()){
+				line.addAll(bucket);
+			}
+			line.sort((a,b) -> Long.compare(a.inLine,b.inLine));
+			List<Person> people = new ArrayList<Person>(line.size());
+			for(Waiting w: line){
+				people.add(w.person);
+			}
+			waitingToEmbark = new WaitingList(people);
+		}
 		return waitingToEmbark;
 	}
-
-	void setWaitingToEmbark(LinkedList<Person> waitingToEmbark) {
-		this.waitingToEmbark = waitingToEmbark;
+	
+	/**
+	 * @return how many people are waiting here
+	 */
+	public synchronized int getWaitingCount(){
+		return waitingCount;
+	}
+	
+	/**
+	 * @return how many people are waiting here to go to destination
+	 */
+	public synchronized int getWaitingCount(Place destination){
+		ArrayDeque<Waiting> bucket = line(destination);
+		if(bucket == null){
+			return 0;
+		}
+		else{
+			return bucket.size();
+		}
+	}
+	
+	/**
+	 * Put someone at the end of the line
+	 */
+	synchronized void addWaitingToEmbark(Person person){
+		Place destination = person.getDestination();
+		Waiting w = new Waiting(nextInLine++,person);
+		if((destination == null) || (destination.getId() == UNASSIGNED)){
+			waitingByName.computeIfAbsent((destination == null) ? null : destination.getName(),(String d) -> new ArrayDeque<Waiting>()).addLast(w);
+		}
+		else{
+			waitingByDestination.computeIfAbsent(destination.getId(),(Integer d) -> new ArrayDeque<Waiting>()).addLast(w);
+		}
+		waitingCount++;
+		waitingToEmbark = null;
+	}
+	
+	/**
+	 * @return the line for a destination or null if no one has waited to go there
+	 */
+	private ArrayDeque<Waiting> line(Place destination){
+		moveToIds();
+		if(destination.getId() == UNASSIGNED){
+			return waitingByName.get(destination.getName());
+		}
+		return waitingByDestination.get(destination.getId());
+	}
+	
+	/**
+	 * People who got in line before their destination was loaded into a simulation are moved to the line for its id once it has one
+	 */
+	private void moveToIds(){
+		if(waitingByName.isEmpty()){
+			return;
+		}
+		Iterator<ArrayDeque<Waiting>> i = waitingByName.values().iterator();
+		while(i.hasNext()){
+			ArrayDeque<Waiting> bucket = i.next();
+			Place destination = bucket.isEmpty() ? null : bucket.peekFirst().person.getDestination();
+			if(bucket.isEmpty()){
+				i.remove();
+			}
+			else if((destination != null) && (destination.getId() != UNASSIGNED)){
+				i.remove();
+				ArrayDeque<Waiting> existing = waitingByDestination.putIfAbsent(destination.getId(),bucket);
+				if(existing != null){
+					//Both lines are in the order people got in them, so they merge into one
+					List<Waiting> merged = new ArrayList<Waiting>(existing);
+					merged.addAll(bucket);
+					merged.sort((a,b) -> Long.compare(a.inLine,b.inLine));
+					existing.clear();
+					existing.addAll(merged);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Send everyone waiting here away, for a simulation that is being restored from a checkpoint
+	 */
+	synchronized void clearWaiting(){
+		waitingByDestination.clear();
+		waitingByName.clear();
+		waitingCount = 0;
+		waitingToEmbark = null;
+	}
+	
+	/**
+	 * Take the people who have been waiting the longest to go to one of the destinations out of line
+	 * @param destinations, where the drone says it is going or null for anywhere
+	 * @param max, the most people to take
+	 * @return the people in the order they got in line
+	 */
+	synchronized List<Person> embark(Collection<Place> destinations, int max){
+		//The lines that are going the right way, each one once even if the destinations repeat a place
+		List<ArrayDeque<Waiting>> lines = new ArrayList<ArrayDeque<Waiting>>();
+		if(destinations == null){
+			lines.addAll(waitingByDestination.values());
+			lines.addAll(waitingByName.values());
+		}
+		else{
+			Set<ArrayDeque<Waiting>> seen = Collections.newSetFromMap(new IdentityHashMap<ArrayDeque<Waiting>,Boolean>());
+			for(Place p: destinations){
+				ArrayDeque<Waiting> bucket = line(p);
+				if((bucket != null) && seen.add(bucket)){
+					lines.add(bucket);
+				}
+			}
+		}
+		
+		//Repeatedly take the front of whichever line has been waiting the longest
+		List<Person> ret = new ArrayList<Person>();
+		while(ret.size() < max){
+			ArrayDeque<Waiting> next = null;
+			for(ArrayDeque<Waiting> line: lines){
+				if((!line.isEmpty()) && ((next == null) || (line.peekFirst().inLine < next.peekFirst().inLine))){
+					next = line;
+				}
+			}
+			if(next == null){
+				break;
+			}
+			ret.add(next.pollFirst().person);
+		}
+		
+		if(ret.size() > 0){
+			waitingCount -= ret.size();
+			waitingToEmbark = null;
+		}
+		return ret;
 	}
 
 	public Place(String name, Position position){
@@ -43,26 +354,44 @@ public class Place implements Comparable<Place>{
 		else{
 			this.position = new Position(position);
 		}
-		this.waitingToEmbark = new LinkedList<Person>();
+		this.waitingByDestination = new LinkedHashMap<Integer,ArrayDeque<Waiting>>();
+		this.waitingByName = new LinkedHashMap<String,ArrayDeque<Waiting>>();
 	}
 	
 	public Place(Place place){
+		this(place,true);
+	}
+	
+	/**
+	 * @param waiting, false to leave out the people waiting there, so that they can be added as they are copied
+	 */
+	Place(Place place, boolean waiting){
+		this.id = place.getId();
+		this.idSpace = place.idSpace;
 		this.setName(place.getName());
 		this.setPosition(new Position(place.getPosition()));
-		this.setWaitingToEmbark(new LinkedList<Person>());
-		for(Person p: place.getWaitingToEmbark()){
-			this.getWaitingToEmbark().add(new Person(p));
+		this.waitingByDestination = new LinkedHashMap<Integer,ArrayDeque<Waiting>>();
+		this.waitingByName = new LinkedHashMap<String,ArrayDeque<Waiting>>();
+		if(waiting){
+			for(Person p: place.getWaitingToEmbark()){
+				this.addWaitingToEmbark(new Person(p));
+			}
 		}
 	}
 
 
+	/**
+	 * Places that have been loaded into a simulation are equal if they have the same id, and never equal to one that hasn't.
+	 * Places that haven't been loaded are compared by name and position.  Who is waiting doesn't matter.
+	 */
 	@Override
 	public int hashCode() {
+		if (id != UNASSIGNED)
+			return id;
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((name == null) ? 0 : name.hashCode());
 		result = prime * result + ((position == null) ? 0 : position.hashCode());
-		result = prime * result + ((waitingToEmbark == null) ? 0 : waitingToEmbark.hashCode());
 		return result;
 	}
 
@@ -75,6 +404,15 @@ public class Place implements Comparable<Place>{
 		if (!(obj instanceof Place))
 			return false;
 		Place other = (Place) obj;
+		if ((id != UNASSIGNED) || (other.id != UNASSIGNED))
+			return id == other.id;
+		return hasNameAndPosition(other);
+	}
+	
+	/**
+	 * @return true if other has the same name and position as this place, whether or not either has an id
+	 */
+	boolean hasNameAndPosition(Place other) {
 		if (name == null) {
 			if (other.name != null)
 				return false;
@@ -85,15 +423,14 @@ public class Place implements Comparable<Place>{
 				return false;
 		} else if (!position.equals(other.position))
 			return false;
-		if (waitingToEmbark == null) {
-			if (other.waitingToEmbark != null)
-				return false;
-		} else if (!waitingToEmbark.equals(other.waitingToEmbark))
-			return false;
 		return true;
 	}
 	
 
+	/**
+	 * Places that have been loaded into a simulation are ordered by id and come after the ones that haven't, which are ordered by
+	 * name and then position.  Ids are given in name order, so the places in one simulation are in the same order either way.
+	 */
 	@Override
 	public int compareTo(Place other) {
 		if (this == other)
@@ -101,6 +438,9 @@ public class Place implements Comparable<Place>{
 		if (other == null)
 			return 1;
 		
+		if ((id != UNASSIGNED) || (other.id != UNASSIGNED))
+			return Integer.compare(id, other.id);
+		
 		if (name == null) {
 			if (other.name != null)
 				return -1;
@@ -115,28 +455,7 @@ public class Place implements Comparable<Place>{
 		} else if (!position.equals(other.position))
 			return position.compareTo(other.position);
 		
-		if (waitingToEmbark == null) {
-			if (other.waitingToEmbark != null)
-				return -1;
-		} else if (!waitingToEmbark.equals(other.waitingToEmbark)) {
-			ListIterator<Person> a = waitingToEmbark.listIterator();
-			ListIterator<Person> b = other.waitingToEmbark.listIterator();
-			while(a.hasNext() && b.hasNext()){
-				int c = a.next().compareTo(b.next());
-				if(c != 0){
-					return c;
-				}
-			}
-			if(a.hasNext()){
-				return 1;
-			}
-			if(b.hasNext()){
-				return -1;
-			}
-		}
-		
 		return 0;
 	}
 	
 }
-
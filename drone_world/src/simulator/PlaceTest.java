@@ -2,12 +2,20 @@ package simulator;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import simulator.enums.PersonState;
+
 public class PlaceTest {
 
 	@BeforeClass
@@ -40,7 +48,7 @@ public class PlaceTest {
 		assertEquals(position, place2.getPosition());
 		assertEquals(0, place2.getWaitingToEmbark().size());
 		
-		place.getWaitingToEmbark().add(PersonTest.makeDummyPerson());
+		place.addWaitingToEmbark(PersonTest.makeDummyPerson());
 		place2 = new Place(place);
 		assertEquals(name,place2.getName());
 		assertEquals(position, place2.getPosition());
@@ -108,8 +116,185 @@ public class PlaceTest {
 		
 		place1 = new Place(name, position);
 		place2 = new Place(name, position);
-		place1.getWaitingToEmbark().add(PersonTest.makeDummyPerson());
-		assertTrue(!place1.equals(place2));
-		assertTrue(place1.hashCode() != place2.hashCode());
+		place1.addWaitingToEmbark(PersonTest.makeDummyPerson());
+		//Who is waiting doesn't change which place it is
+		assertTrue(place1.equals(place2));
+		assertTrue(place1.hashCode() == place2.hashCode());
+		assertTrue(place1.compareTo(place2) == 0);
+	}
+	
+	@Test
+	public void testIds() {
+		Place a = new Place("A", new Position(10.0,20.0,0.0));
+		Place b = new Place("B", new Position(10.0,20.0,0.0));
+		Place c = new Place("C", new Position(10.0,20.0,0.0));
+		assertEquals(Place.UNASSIGNED,a.getId());
+		
+		TreeSet<Place> places = new TreeSet<Place>(Arrays.asList(c,a,b));
+		Place.assignIds(places);
+		assertEquals(0,a.getId());
+		assertEquals(1,b.getId());
+		assertEquals(2,c.getId());
+		
+		//Copies keep their id and are the same place
+		Place copy = new Place(b);
+		assertEquals(1,copy.getId());
+		assertEquals(b,copy);
+		assertTrue(b.hashCode() == copy.hashCode());
+		assertTrue(a.compareTo(copy) < 0);
+		assertTrue(c.compareTo(copy) > 0);
+		assertEquals(1,b.hashCode());
+		
+		//A place that hasn't been loaded is never the same as one that has, even with the same name and position
+		Place unloaded = new Place("B", new Position(10.0,20.0,0.0));
+		Place alsoUnloaded = new Place("B", new Position(10.0,20.0,0.0));
+		assertEquals(unloaded,alsoUnloaded);
+		assertTrue(!b.equals(unloaded));
+		assertTrue(!unloaded.equals(b));
+		//and comes before all of them, so the order is the same whichever way it is compared
+		Place z = new Place("Z", new Position(10.0,20.0,0.0));
+		assertTrue(z.compareTo(a) < 0);
+		assertTrue(a.compareTo(z) > 0);
+		assertTrue(unloaded.compareTo(z) < 0);
+		assertTrue(unloaded.compareTo(a) < 0);
+		assertTrue(a.compareTo(unloaded) > 0);
+		
+		//Ids can't change once they are assigned
+		b.setId(1);
+		try{
+			b.setId(2);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+	}
+	
+	@Test
+	public void testManifest() {
+		Place a = new Place("A", new Position(10.0,20.0,0.0));
+		Place b = new Place("B", new Position(10.0,20.0,0.0));
+		Place c = new Place("C", new Position(10.0,20.0,0.0));
+		Place.assignIds(new TreeSet<Place>(Arrays.asList(a,b,c)));
+		
+		Manifest manifest = new Manifest();
+		assertTrue(manifest.isEmpty());
+		assertTrue(manifest.add(c));
+		assertTrue(manifest.add(a));
+		assertTrue(!manifest.add(new Place(a)));
+		assertEquals(2,manifest.size());
+		assertTrue(manifest.contains(new Place(a)));
+		assertTrue(!manifest.contains(b));
+		assertTrue(!manifest.contains(new Place("A", new Position(10.0,20.0,0.0))));
+		
+		//A place from another simulation with the same id isn't on it
+		Place other = new Place("A", new Position(10.0,20.0,0.0));
+		Place.assignIds(new TreeSet<Place>(Arrays.asList(other)));
+		assertEquals(a.getId(),other.getId());
+		assertTrue(!manifest.contains(other));
+		assertTrue(!manifest.contains(new Place(other)));
+		try{
+			manifest.add(other);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		
+		//Same as a TreeSet of the same places
+		TreeSet<Place> tree = new TreeSet<Place>(Arrays.asList(a,c));
+		assertEquals(tree,manifest);
+		assertEquals(manifest,tree);
+		assertEquals(tree.hashCode(),manifest.hashCode());
+		assertEquals(new ArrayList<Place>(tree),new ArrayList<Place>(manifest));
+		
+		Manifest copy = new Manifest(manifest);
+		assertTrue(copy.remove(a));
+		assertEquals(1,copy.size());
+		assertEquals(2,manifest.size());
+		
+		try{
+			manifest.add(new Place("D", new Position(10.0,20.0,0.0)));
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		
+		//Places without ids are copied into a TreeSet
+		Set<Place> unloaded = Manifest.copyOf(new TreeSet<Place>(Arrays.asList(new Place("D", new Position(10.0,20.0,0.0)))));
+		assertTrue(unloaded instanceof TreeSet);
+		assertTrue(Manifest.copyOf(tree) instanceof Manifest);
+	}
+	
+	@Test
+	public void testEmbark() {
+		Place here = new Place("Here", new Position(10.0,20.0,0.0));
+		Place there = new Place("There", new Position(11.0,20.0,0.0));
+		Place elsewhere = new Place("Elsewhere", new Position(12.0,20.0,0.0));
+		Person p1 = new Person("01","Anne",here,here.getPosition(),there,PersonState.WAITING);
+		Person p2 = new Person("02","Bob",here,here.getPosition(),elsewhere,PersonState.WAITING);
+		Person p3 = new Person("03","Cat",here,here.getPosition(),there,PersonState.WAITING);
+		Person p4 = new Person("04","Dan",here,here.getPosition(),elsewhere,PersonState.WAITING);
+		here.addWaitingToEmbark(p1);
+		here.addWaitingToEmbark(p2);
+		here.addWaitingToEmbark(p3);
+		here.addWaitingToEmbark(p4);
+
+		//The list is in the order people arrived
+		assertEquals(Arrays.asList(p1,p2,p3,p4),here.getWaitingToEmbark());
+		assertEquals(4,here.getWaitingCount());
+		assertEquals(2,here.getWaitingCount(there));
+		assertEquals(2,here.getWaitingCount(elsewhere));
+		assertEquals(0,here.getWaitingCount(here));
+
+		//Only people going somewhere on the manifest board, in the order they arrived
+		List<Person> group = here.embark(Arrays.asList(there),3);
+		assertEquals(Arrays.asList(p1,p3),group);
+		assertEquals(Arrays.asList(p2,p4),here.getWaitingToEmbark());
+		assertEquals(0,here.getWaitingCount(there));
+		assertEquals(2,here.getWaitingCount());
+
+		//No manifest means anyone can board
+		here.addWaitingToEmbark(p1);
+		group = here.embark(null,2);
+		assertEquals(Arrays.asList(p2,p4),group);
+		assertEquals(Arrays.asList(p1),here.getWaitingToEmbark());
+
+		group = here.embark(Arrays.asList(elsewhere),2);
+		assertEquals(0,group.size());
+		assertEquals(1,here.getWaitingCount());
+		
+		//People who got in line before the places had ids are found by id afterwards, a place that is listed twice is one line
+		here.addWaitingToEmbark(p3);
+		Place.assignIds(new TreeSet<Place>(Arrays.asList(here,there,elsewhere)));
+		here.addWaitingToEmbark(p2);
+		assertEquals(2,here.getWaitingCount(new Place(there)));
+		assertEquals(1,here.getWaitingCount(elsewhere));
+		group = here.embark(Arrays.asList(there,new Place(there),elsewhere,there),3);
+		assertEquals(Arrays.asList(p1,p3,p2),group);
+		assertEquals(0,here.getWaitingCount());
+	}
+
+	@Test
+	public void testWaitingToEmbarkIsReadOnly() {
+		Place place = new Place("Timbuktu", new Position(10.0,20.0,0.0));
+		place.addWaitingToEmbark(PersonTest.makeDummyPerson());
+		try{
+			place.getWaitingToEmbark().add(PersonTest.makeDummyPerson());
+			fail("This should fail");
+		}
+		catch(UnsupportedOperationException e){
+		}
+		try{
+			place.getWaitingToEmbark().remove();
+			fail("This should fail");
+		}
+		catch(UnsupportedOperationException e){
+		}
+		try{
+			place.getWaitingToEmbark().iterator().remove();
+			fail("This should fail");
+		}
+		catch(UnsupportedOperationException | IllegalStateException e){
+		}
+		assertEquals(1,place.getWaitingToEmbark().size());
 	}
 }
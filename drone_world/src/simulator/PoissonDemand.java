@@ -0,0 +1,99 @@
+package simulator;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import simulator.enums.PersonState;
+import simulator.interfaces.Checkpointable;
+import simulator.interfaces.DemandSource;
+
+/**
+ * People who show up at random, at an average rate, until a time when no one else comes.
+ * The time between arrivals is exponential, which makes the number of arrivals in any period a Poisson process.
+ * Everyone starts at a random place and is going to a different random place.
+ * Saving a checkpoint reseeds the random numbers with a seed that is saved, the same way the simulator's are.
+ */
+public class PoissonDemand implements DemandSource, Checkpointable {
+
+	private SplittableRandom random;
+	// The average number of milliseconds between arrivals
+	private final double meanGap;
+	private final long endTime;
+
+	// Kept as a double so that rounding doesn't build up over many arrivals
+	private double nextArrival;
+	private int arrived;
+
+	/**
+	 * @param seed, the same seed always makes the same people at the same times
+	 * @param peoplePerHour, how many people arrive in an hour of simulator time, on average
+	 * @param endTime, no one arrives at or after this time
+	 */
+	public PoissonDemand(long seed, double peoplePerHour, long endTime){
+		if(!(peoplePerHour > 0)){
+			throw new IllegalArgumentException("People have to arrive at a positive rate");
+		}
+		this.random = new SplittableRandom(seed);
+		this.meanGap = (60 * 60 * Simulator.ONE_SECOND) / peoplePerHour;
+		this.endTime = endTime;
+		this.nextArrival = gap();
+		this.arrived = 0;
+	}
+
+	private double gap(){
+		return -Math.log(1.0 - random.nextDouble()) * meanGap;
+	}
+
+	/**
+	 * @return how many people have arrived so far
+	 */
+	public int getArrived(){
+		return arrived;
+	}
+
+	@Override
+	public long getNextArrivalTime() {
+		long ret = (long) Math.ceil(nextArrival);
+		return (ret < endTime) ? ret : NEVER;
+	}
+
+	@Override
+	public Person next(List<Place> places) {
+		if((places == null) || (places.size() == 0)){
+			throw new IllegalArgumentException("Places is badly formed");
+		}
+		if(getNextArrivalTime() == NEVER){
+			throw new IllegalArgumentException("No one else is coming");
+		}
+		int start = random.nextInt(places.size());
+		int end = random.nextInt(places.size());
+		while((start == end) && (places.size() > 1)){
+			end = random.nextInt(places.size());
+		}
+		String name = Simulator.FIRST_NAMES[random.nextInt(Simulator.FIRST_NAMES.length)] + " " + Simulator.LAST_NAMES[random.nextInt(Simulator.LAST_NAMES.length)];
+		Person ret = new Person("arrival " + arrived, name, places.get(start), places.get(start).getPosition(), places.get(end), PersonState.WAITING);
+		arrived++;
+		nextArrival += gap();
+		return ret;
+	}
+
+	@Override
+	public byte[] saveState() {
+		long seed = random.nextLong();
+		random = new SplittableRandom(seed);
+		return ByteBuffer.allocate(Long.BYTES + Double.BYTES + Integer.BYTES).putLong(seed).putDouble(nextArrival).putInt(arrived).array();
+	}
+
+	@Override
+	public void restoreState(byte[] state) {
+		if((state == null) || (state.length != Long.BYTES + Double.BYTES + Integer.BYTES)){
+			throw new IllegalArgumentException("Not the state of a PoissonDemand");
+		}
+		ByteBuffer b = ByteBuffer.wrap(state);
+		random = new SplittableRandom(b.getLong());
+		nextArrival = b.getDouble();
+		arrived = b.getInt();
+	}
+
+}
@@ -0,0 +1,122 @@
+package simulator;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import simulator.enums.PersonState;
+import simulator.enums.PlaceDistribution;
+import simulator.interfaces.DemandSource;
+
+public class PoissonDemandTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	private static List<Long> arrivals(PoissonDemand demand, List<Place> places){
+		List<Long> ret = new ArrayList<Long>();
+		while(demand.getNextArrivalTime() != DemandSource.NEVER){
+			long time = demand.getNextArrivalTime();
+			Person p = demand.next(places);
+			assertEquals(PersonState.WAITING,p.getState());
+			assertNotEquals(p.getStart(),p.getDestination());
+			assertTrue(places.contains(p.getStart()));
+			assertTrue(places.contains(p.getDestination()));
+			ret.add(time);
+		}
+		return ret;
+	}
+
+	@Test
+	public void testArrivals() {
+		List<Place> places = new ScenarioGenerator(1L,20,0,0,PlaceDistribution.UNIFORM).generatePlaces();
+		long hours = 10;
+		long endTime = hours*60*60*Simulator.ONE_SECOND;
+		PoissonDemand demand = new PoissonDemand(4L,600,endTime);
+		List<Long> times = arrivals(demand,places);
+
+		//About the right number of people, in order, and none after the end
+		assertEquals(times.size(),demand.getArrived());
+		assertEquals(600*hours,times.size(),4*Math.sqrt(600*hours));
+		for(int i = 1; i < times.size(); i++){
+			assertTrue(times.get(i-1) <= times.get(i));
+		}
+		assertTrue(times.get(0) >= 0);
+		assertTrue(times.get(times.size()-1) < endTime);
+
+		//The same seed gives the same arrivals
+		assertEquals(times,arrivals(new PoissonDemand(4L,600,endTime),places));
+		assertNotEquals(times,arrivals(new PoissonDemand(5L,600,endTime),places));
+	}
+
+	@Test
+	public void testCheckpoint() {
+		List<Place> places = new ScenarioGenerator(1L,20,0,0,PlaceDistribution.UNIFORM).generatePlaces();
+		long endTime = 10*60*60*Simulator.ONE_SECOND;
+		PoissonDemand saved = new PoissonDemand(4L,600,endTime);
+		for(int i = 0; i < 100; i++){
+			saved.next(places);
+		}
+		byte[] state = saved.saveState();
+
+		//A new one picks up where the saved one left off
+		PoissonDemand restored = new PoissonDemand(4L,600,endTime);
+		restored.restoreState(state);
+		assertEquals(100,restored.getArrived());
+		assertEquals(saved.getNextArrivalTime(),restored.getNextArrivalTime());
+		assertEquals(saved.next(places).getName(),restored.next(places).getName());
+		assertEquals(arrivals(saved,places),arrivals(restored,places));
+
+		try{
+			restored.restoreState(new byte[1]);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+	}
+
+	@Test
+	public void testDegenerate() {
+		try{
+			new PoissonDemand(0L,0,1000);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		PoissonDemand demand = new PoissonDemand(0L,1,0);
+		assertEquals(DemandSource.NEVER,demand.getNextArrivalTime());
+		try{
+			demand.next(new ScenarioGenerator(1L,2,0,0,PlaceDistribution.UNIFORM).generatePlaces());
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		try{
+			new PoissonDemand(0L,1,Long.MAX_VALUE).next(new ArrayList<Place>());
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+	}
+
+}
@@ -61,6 +61,13 @@ public class Position implements Comparable<Position>{
 
 	@Override
 	public int hashCode() {
+		return hashCode(latitude,longitude,height);
+	}
+	
+	/**
+	 * The hash code of a position at latitude, longitude and height, without making one
+	 */
+	static int hashCode(double latitude, double longitude, double height) {
 		final int prime = 31;
 		int result = 1;
 		long temp;
@@ -82,11 +89,18 @@ public class Position implements Comparable<Position>{
 		if (!(obj instanceof Position))
 			return false;
 		Position other = (Position) obj;
-		if (Double.doubleToLongBits(height) != Double.doubleToLongBits(other.height))
+		return equals(latitude,longitude,height,other.latitude,other.longitude,other.height);
+	}
+	
+	/**
+	 * @return true if the positions at these coordinates are equal, without making them
+	 */
+	static boolean equals(double latitude, double longitude, double height, double otherLatitude, double otherLongitude, double otherHeight) {
+		if (Double.doubleToLongBits(height) != Double.doubleToLongBits(otherHeight))
 			return false;
-		if (Double.doubleToLongBits(latitude) != Double.doubleToLongBits(other.latitude))
+		if (Double.doubleToLongBits(latitude) != Double.doubleToLongBits(otherLatitude))
 			return false;
-		if (Double.doubleToLongBits(longitude) != Double.doubleToLongBits(other.longitude))
+		if (Double.doubleToLongBits(longitude) != Double.doubleToLongBits(otherLongitude))
 			return false;
 		return true;
 	}
@@ -101,14 +115,21 @@ public class Position implements Comparable<Position>{
 		if (other == null)
 			return 1;
 		
-		if (Double.doubleToLongBits(longitude) != Double.doubleToLongBits(other.longitude))
-			return Double.compare(longitude, other.longitude);
+		return compare(latitude,longitude,height,other.latitude,other.longitude,other.height);
+	}
+	
+	/**
+	 * Compare the positions at these coordinates the same way as compareTo, without making them
+	 */
+	static int compare(double latitude, double longitude, double height, double otherLatitude, double otherLongitude, double otherHeight) {
+		if (Double.doubleToLongBits(longitude) != Double.doubleToLongBits(otherLongitude))
+			return Double.compare(longitude, otherLongitude);
 		
-		if (Double.doubleToLongBits(latitude) != Double.doubleToLongBits(other.latitude))
-			return Double.compare(other.latitude,latitude);
+		if (Double.doubleToLongBits(latitude) != Double.doubleToLongBits(otherLatitude))
+			return Double.compare(otherLatitude,latitude);
 		
-		if (Double.doubleToLongBits(height) != Double.doubleToLongBits(other.height))
-			return Double.compare(height, other.height);
+		if (Double.doubleToLongBits(height) != Double.doubleToLongBits(otherHeight))
+			return Double.compare(height, otherHeight);
 		
 		return 0;
 	}
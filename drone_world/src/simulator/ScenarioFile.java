@@ -0,0 +1,362 @@
+package simulator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import simulator.enums.DroneState;
+import simulator.enums.PersonState;
+import simulator.interfaces.DroneController;
+import simulator.interfaces.Scenario;
+
+/**
+ * A scenario saved in a compact binary file, so that a big world can be made once and used again without generating it.
+ * The file is memory mapped and every record has a fixed size, so opening a file only reads the header and
+ * any simulation can read any record straight out of the map.  Reads don't move the map's position, so one open
+ * file can be shared by all the simulations in a batch.
+ *
+ * The file is laid out as:
+ *   header: magic, version, place count, person count, drone count, name count (ints)
+ *   places: latitude, longitude, height (doubles), name (int)
+ *   people: start place, destination place, name (ints)
+ *   drones: start place, capacity (ints), which every controller gets a copy of
+ *   names: the offset of the end of each name (ints) followed by the names in UTF-8
+ */
+public class ScenarioFile implements Scenario {
+
+	static final int MAGIC = 0x44575343; // "DWSC"
+	static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 6 * Integer.BYTES;
+	private static final int PLACE_SIZE = 3 * Double.BYTES + Integer.BYTES;
+	private static final int PERSON_SIZE = 3 * Integer.BYTES;
+	private static final int DRONE_SIZE = 2 * Integer.BYTES;
+
+	private final Path path;
+	private final MappedByteBuffer map;
+	private final int placeCount;
+	private final int personCount;
+	private final int droneCount;
+	private final int nameCount;
+
+	private final int placesAt;
+	private final int peopleAt;
+	private final int dronesAt;
+	private final int nameEndsAt;
+	private final int namesAt;
+
+	// Names are decoded the first time they are needed, racing threads decode the same string so no lock is needed
+	private final String[] names;
+
+	private ScenarioFile(Path path, MappedByteBuffer map) throws IOException{
+		this.path = path;
+		this.map = map;
+		if(map.capacity() < HEADER_SIZE){
+			throw new IOException("Not a scenario file: "+path);
+		}
+		if(map.getInt(0) != MAGIC){
+			throw new IOException("Not a scenario file: "+path);
+		}
+		if(map.getInt(Integer.BYTES) != VERSION){
+			throw new IOException("Scenario file "+path+" is version "+map.getInt(Integer.BYTES)+", expected version "+VERSION);
+		}
+		this.placeCount = map.getInt(2 * Integer.BYTES);
+		this.personCount = map.getInt(3 * Integer.BYTES);
+		this.droneCount = map.getInt(4 * Integer.BYTES);
+		this.nameCount = map.getInt(5 * Integer.BYTES);
+		if((placeCount < 1) || (personCount < 0) || (droneCount < 0) || (nameCount < 0)){
+			throw new IOException("Scenario file "+path+" has a bad header");
+		}
+
+		long at = HEADER_SIZE;
+		this.placesAt = (int) at;
+		at += ((long) placeCount) * PLACE_SIZE;
+		this.peopleAt = (int) Math.min(at,Integer.MAX_VALUE);
+		at += ((long) personCount) * PERSON_SIZE;
+		this.dronesAt = (int) Math.min(at,Integer.MAX_VALUE);
+		at += ((long) droneCount) * DRONE_SIZE;
+		this.nameEndsAt = (int) Math.min(at,Integer.MAX_VALUE);
+		at += ((long) nameCount) * Integer.BYTES;
+		this.namesAt = (int) Math.min(at,Integer.MAX_VALUE);
+		if((at > map.capacity()) || ((nameCount > 0) && (namesAt + ((long) map.getInt(nameEndsAt + (nameCount-1) * Integer.BYTES)) > map.capacity()))){
+			throw new IOException("Scenario file "+path+" is too short");
+		}
+
+		this.names = new String[nameCount];
+	}
+
+	/**
+	 * Map a scenario file into memory
+	 */
+	public static ScenarioFile open(Path path) throws IOException{
+		try(FileChannel channel = FileChannel.open(path,StandardOpenOption.READ)){
+			if(channel.size() > Integer.MAX_VALUE){
+				throw new IOException("Scenario file "+path+" is too big to map");
+			}
+			//The map stays valid after the channel is closed
+			return new ScenarioFile(path,channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size()));
+		}
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	public int getPlaceCount() {
+		return placeCount;
+	}
+
+	public int getPersonCount() {
+		return personCount;
+	}
+
+	public int getDronesPerController() {
+		return droneCount;
+	}
+
+	private String name(int index){
+		if((index < 0) || (index >= nameCount)){
+			throw new IllegalArgumentException("Scenario file "+path+" has no name "+index);
+		}
+		String ret = names[index];
+		if(ret == null){
+			int start = (index == 0) ? 0 : map.getInt(nameEndsAt + (index-1) * Integer.BYTES);
+			int end = map.getInt(nameEndsAt + index * Integer.BYTES);
+			byte[] bytes = new byte[end - start];
+			map.get(namesAt + start,bytes);
+			ret = new String(bytes,StandardCharsets.UTF_8);
+			names[index] = ret;
+		}
+		return ret;
+	}
+
+	private static Place[] byIndex(List<Place> places, int count){
+		if((places == null) || (places.size() != count)){
+			throw new IllegalArgumentException("Places is badly formed");
+		}
+		return places.toArray(new Place[count]);
+	}
+
+	@Override
+	public List<Place> generatePlaces(){
+		List<Place> ret = new ArrayList<Place>(placeCount);
+		for(int i = 0; i < placeCount; i++){
+			int at = placesAt + i * PLACE_SIZE;
+			Position position = new Position(map.getDouble(at),map.getDouble(at + Double.BYTES),map.getDouble(at + 2 * Double.BYTES));
+			ret.add(new Place(name(map.getInt(at + 3 * Double.BYTES)),position));
+		}
+		Place.assignIds(ret);
+		return ret;
+	}
+
+	/**
+	 * Read the people one at a time as they are asked for, without keeping them.
+	 * The people aren't put in line at their starting places, see generatePeople.
+	 * @param places, the places that generatePlaces made
+	 */
+	public Stream<Person> streamPeople(List<Place> places){
+		Place[] byIndex = byIndex(places,placeCount);
+		return IntStream.range(0,personCount).mapToObj(i -> {
+			int at = peopleAt + i * PERSON_SIZE;
+			Place start = byIndex[map.getInt(at)];
+			Place destination = byIndex[map.getInt(at + Integer.BYTES)];
+			return new Person("" + i,name(map.getInt(at + 2 * Integer.BYTES)),start,start.getPosition(),destination,PersonState.WAITING);
+		});
+	}
+
+	@Override
+	public List<Person> generatePeople(List<Place> places){
+		Person[] ret = streamPeople(places).parallel().toArray(Person[]::new);
+		for(Person p: ret){
+			p.getStart().addWaitingToEmbark(p);
+		}
+		return Arrays.asList(ret);
+	}
+
+	@Override
+	public List<Drone> generateDrones(List<Place> places, DroneController controller, Random r){
+		Place[] byIndex = byIndex(places,placeCount);
+		if(controller == null){
+			throw new IllegalArgumentException("Please supply a valid controller");
+		}
+		List<Drone> ret = new ArrayList<Drone>(droneCount);
+		for(int i = 0; i < droneCount; i++){
+			int at = dronesAt + i * DRONE_SIZE;
+			Place thePlace = byIndex[map.getInt(at)];
+			Drone drone = new Drone(controller,thePlace,thePlace,map.getInt(at + Integer.BYTES),r);
+			drone.setState(DroneState.IDLING);
+			ret.add(drone);
+		}
+		return ret;
+	}
+
+	/******************************************************************/
+	/* Writing */
+
+	/**
+	 * Writes records through a buffer, keeping track of the names as it goes
+	 */
+	private static class Writer {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+		private final Map<String,Integer> nameIndex = new HashMap<String,Integer>();
+		private final List<String> names = new ArrayList<String>();
+
+		private Writer(FileChannel channel){
+			this.channel = channel;
+		}
+
+		private ByteBuffer room(int bytes) throws IOException{
+			if(buffer.remaining() < bytes){
+				flush();
+			}
+			return buffer;
+		}
+
+		private void flush() throws IOException{
+			buffer.flip();
+			while(buffer.hasRemaining()){
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+		private int name(String name){
+			if(name == null){
+				name = "";
+			}
+			Integer ret = nameIndex.get(name);
+			if(ret == null){
+				ret = names.size();
+				nameIndex.put(name,ret);
+				names.add(name);
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * @param places, in the order of their ids
+	 * @param people, who must all start and end at one of the places
+	 * @param droneStarts, the index of the place where each drone starts
+	 * @param capacities, how many people each drone carries
+	 */
+	private static void write(Path path, List<Place> places, Iterator<Person> people, int personCount, int[] droneStarts, int[] capacities) throws IOException{
+		Map<Place,Integer> placeIndex = new IdentityHashMap<Place,Integer>();
+		for(Place p: places){
+			placeIndex.putIfAbsent(p,placeIndex.size());
+		}
+
+		try(FileChannel channel = FileChannel.open(path,StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING,StandardOpenOption.WRITE)){
+			Writer w = new Writer(channel);
+			//The header is filled in at the end when the number of names is known
+			w.room(HEADER_SIZE).put(new byte[HEADER_SIZE]);
+
+			for(Place p: places){
+				w.room(PLACE_SIZE).putDouble(p.getPosition().getLatitude()).putDouble(p.getPosition().getLongitude()).putDouble(p.getPosition().getHeight()).putInt(w.name(p.getName()));
+			}
+
+			int written = 0;
+			while(people.hasNext()){
+				Person p = people.next();
+				Integer start = placeIndex.get(p.getStart());
+				Integer destination = placeIndex.get(p.getDestination());
+				if((start == null) || (destination == null)){
+					throw new IllegalArgumentException("Person "+p.getId()+" isn't going between the places in the scenario");
+				}
+				w.room(PERSON_SIZE).putInt(start).putInt(destination).putInt(w.name(p.getName()));
+				written++;
+			}
+			if(written != personCount){
+				throw new IllegalArgumentException("Expected "+personCount+" people but got "+written);
+			}
+
+			for(int i = 0; i < droneStarts.length; i++){
+				w.room(DRONE_SIZE).putInt(droneStarts[i]).putInt(capacities[i]);
+			}
+
+			List<byte[]> encoded = new ArrayList<byte[]>(w.names.size());
+			int end = 0;
+			for(String name: w.names){
+				byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+				encoded.add(bytes);
+				end += bytes.length;
+				w.room(Integer.BYTES).putInt(end);
+			}
+			for(byte[] bytes: encoded){
+				if(bytes.length > w.buffer.capacity()){
+					w.flush();
+					channel.write(ByteBuffer.wrap(bytes));
+				}
+				else{
+					w.room(bytes.length).put(bytes);
+				}
+			}
+			w.flush();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(places.size()).putInt(personCount).putInt(droneStarts.length).putInt(w.names.size());
+			header.flip();
+			channel.write(header,0);
+		}
+	}
+
+	/**
+	 * Save a scenario
+	 * @param path, where to save it, any file that is there is replaced
+	 * @param places, in the order of their ids
+	 * @param people, who must all start and end at one of the places
+	 * @param drones, one controller's drones, which say where every controller's drones start and how much they carry
+	 */
+	public static void write(Path path, List<Place> places, List<Person> people, List<Drone> drones) throws IOException{
+		if((places == null) || (places.size() == 0)){
+			throw new IllegalArgumentException("Places is badly formed");
+		}
+		if((people == null) || (drones == null)){
+			throw new IllegalArgumentException("Please supply people and drones");
+		}
+		int[] droneStarts = new int[drones.size()];
+		int[] capacities = new int[drones.size()];
+		for(int i = 0; i < drones.size(); i++){
+			Drone d = drones.get(i);
+			droneStarts[i] = places.indexOf(d.getStart());
+			if(droneStarts[i] < 0){
+				throw new IllegalArgumentException("Drone "+d.getId()+" doesn't start at one of the places in the scenario");
+			}
+			capacities[i] = d.getCapacity();
+		}
+		write(path,places,people.iterator(),people.size(),droneStarts,capacities);
+	}
+
+	/**
+	 * Save a generated scenario, streaming the people through so they are never all in memory at once
+	 */
+	public static void write(Path path, ScenarioGenerator scenario) throws IOException{
+		if(scenario == null){
+			throw new IllegalArgumentException("Please supply a scenario");
+		}
+		List<Place> places = scenario.generatePlaces();
+		int[] droneStarts = new int[scenario.getDronesPerController()];
+		int[] capacities = new int[scenario.getDronesPerController()];
+		for(int i = 0; i < droneStarts.length; i++){
+			droneStarts[i] = scenario.droneStart(i);
+			capacities[i] = Simulator.droneCapacity(i,droneStarts.length);
+		}
+		write(path,places,scenario.streamPeople(places).iterator(),scenario.getPersonCount(),droneStarts,capacities);
+	}
+
+}
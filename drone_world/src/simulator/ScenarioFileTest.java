@@ -0,0 +1,219 @@
+package simulator;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import reference.MyDroneController;
+import reference.MySimulationController;
+import simulator.enums.PlaceDistribution;
+
+public class ScenarioFileTest {
+
+	private Path path;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		path = Files.createTempFile("scenario",".dws");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(path);
+	}
+
+	private static void assertSamePlaces(List<Place> expected, List<Place> actual){
+		assertEquals(expected.size(),actual.size());
+		for(int i = 0; i < expected.size(); i++){
+			assertEquals(i,actual.get(i).getId());
+			assertEquals(expected.get(i).getName(),actual.get(i).getName());
+			assertEquals(expected.get(i).getPosition(),actual.get(i).getPosition());
+		}
+	}
+
+	private static void assertSamePeople(List<Person> expected, List<Person> actual){
+		assertEquals(expected.size(),actual.size());
+		for(int i = 0; i < expected.size(); i++){
+			assertEquals(expected.get(i).getId(),actual.get(i).getId());
+			assertEquals(expected.get(i).getName(),actual.get(i).getName());
+			assertEquals(expected.get(i).getStart().getId(),actual.get(i).getStart().getId());
+			assertEquals(expected.get(i).getDestination().getId(),actual.get(i).getDestination().getId());
+		}
+	}
+
+	@Test
+	//A generated scenario comes back exactly as it was generated
+	public void testGenerated() throws IOException {
+		ScenarioGenerator scenario = new ScenarioGenerator(5L,300,20000,12,PlaceDistribution.CLUSTERED);
+		ScenarioFile.write(path,scenario);
+
+		ScenarioFile file = ScenarioFile.open(path);
+		assertEquals(300,file.getPlaceCount());
+		assertEquals(20000,file.getPersonCount());
+		assertEquals(12,file.getDronesPerController());
+
+		List<Place> expectedPlaces = scenario.generatePlaces();
+		List<Place> places = file.generatePlaces();
+		assertSamePlaces(expectedPlaces,places);
+
+		assertSamePeople(scenario.generatePeople(expectedPlaces),file.generatePeople(places));
+		for(int i = 0; i < places.size(); i++){
+			assertEquals(expectedPlaces.get(i).getWaitingToEmbark().size(),places.get(i).getWaitingToEmbark().size());
+		}
+
+		List<Drone> expectedDrones = scenario.generateDrones(expectedPlaces,new MyDroneController(),new Random(0));
+		List<Drone> drones = file.generateDrones(places,new MyDroneController(),new Random(0));
+		assertEquals(expectedDrones.size(),drones.size());
+		for(int i = 0; i < drones.size(); i++){
+			assertEquals(expectedDrones.get(i).getStart().getId(),drones.get(i).getStart().getId());
+			assertEquals(expectedDrones.get(i).getCapacity(),drones.get(i).getCapacity());
+			assertEquals(expectedDrones.get(i).getId(),drones.get(i).getId());
+		}
+	}
+
+	@Test
+	//The built in Santa Barbara world, with its names, can be saved too
+	public void testLoaded() throws IOException {
+		MySimulationController simController = new MySimulationController(3L);
+		List<Place> places = new ArrayList<Place>(Simulator.loadPlaces(simController));
+		Set<Drone> loadedDrones = Simulator.loadDrones(new TreeSet<Place>(places),new MyDroneController(),simController.getRandom());
+		List<Person> people = new ArrayList<Person>(Simulator.loadPeople(new TreeSet<Place>(places),simController.getRandom()));
+		ScenarioFile.write(path,places,people,new ArrayList<Drone>(loadedDrones));
+
+		ScenarioFile file = ScenarioFile.open(path);
+		List<Place> read = file.generatePlaces();
+		assertSamePlaces(places,read);
+		assertNotNull(read.stream().filter(p -> p.getName().equals("Mother Stearn's Candy")).findFirst().orElse(null));
+
+		List<Person> readPeople = file.streamPeople(read).collect(Collectors.toList());
+		assertEquals(people.size(),readPeople.size());
+		for(int i = 0; i < people.size(); i++){
+			assertEquals(people.get(i).getName(),readPeople.get(i).getName());
+			assertEquals(people.get(i).getStart().getName(),readPeople.get(i).getStart().getName());
+			assertEquals(people.get(i).getDestination().getName(),readPeople.get(i).getDestination().getName());
+		}
+		assertEquals(loadedDrones.size(),file.getDronesPerController());
+	}
+
+	@Test
+	//One open file can set up simulations on many threads at once
+	public void testShared() throws Exception {
+		ScenarioGenerator scenario = new ScenarioGenerator(9L,100,5000,3,PlaceDistribution.UNIFORM);
+		ScenarioFile.write(path,scenario);
+		ScenarioFile file = ScenarioFile.open(path);
+		List<Place> expectedPlaces = scenario.generatePlaces();
+		List<Person> expectedPeople = scenario.generatePeople(expectedPlaces);
+
+		List<Thread> threads = new ArrayList<Thread>();
+		List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		for(int t = 0; t < 4; t++){
+			Thread thread = new Thread(() -> {
+				try{
+					List<Place> places = file.generatePlaces();
+					assertSamePlaces(expectedPlaces,places);
+					assertSamePeople(expectedPeople,file.generatePeople(places));
+				}
+				catch(Throwable e){
+					failures.add(e);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for(Thread thread: threads){
+			thread.join();
+		}
+		assertTrue(failures.toString(),failures.isEmpty());
+	}
+
+	@Test
+	public void testDegenerate() throws IOException {
+		//Not a scenario
+		Files.write(path,new byte[]{1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16,17,18,19,20,21,22,23,24,25});
+		try{
+			ScenarioFile.open(path);
+			fail("This should fail");
+		}
+		catch(IOException e){
+		}
+
+		//A version from the future
+		ScenarioFile.write(path,new ScenarioGenerator(1L,10,10,1,PlaceDistribution.UNIFORM));
+		try(FileChannel channel = FileChannel.open(path,StandardOpenOption.WRITE)){
+			ByteBuffer version = ByteBuffer.allocate(Integer.BYTES).putInt(ScenarioFile.VERSION+1);
+			version.flip();
+			channel.write(version,Integer.BYTES);
+		}
+		try{
+			ScenarioFile.open(path);
+			fail("This should fail");
+		}
+		catch(IOException e){
+		}
+
+		//Cut short
+		ScenarioFile.write(path,new ScenarioGenerator(1L,10,10,1,PlaceDistribution.UNIFORM));
+		try(FileChannel channel = FileChannel.open(path,StandardOpenOption.WRITE)){
+			channel.truncate(channel.size()-1);
+		}
+		try{
+			ScenarioFile.open(path);
+			fail("This should fail");
+		}
+		catch(IOException e){
+		}
+
+		//People going somewhere that isn't in the scenario
+		List<Place> places = new ScenarioGenerator(1L,10,10,1,PlaceDistribution.UNIFORM).generatePlaces();
+		List<Place> elsewhere = new ScenarioGenerator(2L,10,10,1,PlaceDistribution.UNIFORM).generatePlaces();
+		List<Person> people = new ScenarioGenerator(2L,10,10,1,PlaceDistribution.UNIFORM).generatePeople(elsewhere);
+		try{
+			ScenarioFile.write(path,places,people,new ArrayList<Drone>());
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		try{
+			ScenarioFile.write(path,null,people,new ArrayList<Drone>());
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+
+		//Places from a different scenario
+		ScenarioFile.write(path,new ScenarioGenerator(1L,10,10,1,PlaceDistribution.UNIFORM));
+		try{
+			ScenarioFile.open(path).generatePeople(new ScenarioGenerator(1L,11,10,1,PlaceDistribution.UNIFORM).generatePlaces());
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+	}
+
+}
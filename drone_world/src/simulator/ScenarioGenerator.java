@@ -0,0 +1,226 @@
+package simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import simulator.enums.DroneState;
+import simulator.enums.PersonState;
+import simulator.enums.PlaceDistribution;
+import simulator.interfaces.DroneController;
+import simulator.interfaces.Scenario;
+
+/**
+ * Makes up worlds of any size, for stress testing the simulator with many more places and people than Simulator.loadPlaces and loadPeople.
+ * Every place and person gets random numbers of its own, worked out from the seed and its index, so a world comes out
+ * the same no matter how many threads generate it or in what order.
+ */
+public class ScenarioGenerator implements Scenario {
+
+	// The area that the Santa Barbara places in Simulator.loadPlaces cover
+	static final double MIN_LATITUDE = 34.395299;
+	static final double MAX_LATITUDE = 34.461478;
+	static final double MIN_LONGITUDE = -119.790726;
+	static final double MAX_LONGITUDE = -119.658715;
+
+	// Keeps the random numbers for clusters, places, people and drones apart
+	private static final long CLUSTERS = 1;
+	private static final long PLACES = 2;
+	private static final long PEOPLE = 3;
+	private static final long DRONES = 4;
+
+	private final long seed;
+	private final int placeCount;
+	private final int personCount;
+	private final int dronesPerController;
+	private final PlaceDistribution distribution;
+
+	// Where the clusters are when places are CLUSTERED
+	private final Position[] clusters;
+	private final double clusterSpread;
+
+	/**
+	 * @param seed, the same seed always makes the same world
+	 * @param placeCount, how many places to make
+	 * @param personCount, how many people to make
+	 * @param dronesPerController, how many drones to give each controller
+	 * @param distribution, how to spread the places out
+	 */
+	public ScenarioGenerator(long seed, int placeCount, int personCount, int dronesPerController, PlaceDistribution distribution){
+		if(placeCount < 1){
+			throw new IllegalArgumentException("A scenario needs at least one place");
+		}
+		if(personCount < 0){
+			throw new IllegalArgumentException("A scenario can't have a negative number of people");
+		}
+		if(dronesPerController < 0){
+			throw new IllegalArgumentException("A scenario can't have a negative number of drones");
+		}
+		if(distribution == null){
+			throw new IllegalArgumentException("Please supply a place distribution");
+		}
+		this.seed = seed;
+		this.placeCount = placeCount;
+		this.personCount = personCount;
+		this.dronesPerController = dronesPerController;
+		this.distribution = distribution;
+
+		//About one cluster for every square root of places, each about as wide as the space between them
+		int clusterCount = (int) Math.ceil(Math.sqrt(placeCount));
+		this.clusters = new Position[clusterCount];
+		for(int i = 0; i < clusterCount; i++){
+			SplittableRandom r = random(CLUSTERS,i);
+			clusters[i] = new Position(between(r,MIN_LATITUDE,MAX_LATITUDE),between(r,MIN_LONGITUDE,MAX_LONGITUDE),0);
+		}
+		this.clusterSpread = Math.min(MAX_LATITUDE-MIN_LATITUDE,MAX_LONGITUDE-MIN_LONGITUDE)/(2.0*Math.sqrt(clusterCount));
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getPlaceCount() {
+		return placeCount;
+	}
+
+	public int getPersonCount() {
+		return personCount;
+	}
+
+	public int getDronesPerController() {
+		return dronesPerController;
+	}
+
+	public PlaceDistribution getDistribution() {
+		return distribution;
+	}
+
+	/**
+	 * Mixes the bits of x so that nearby inputs give unrelated outputs
+	 */
+	private static long mix(long x){
+		x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+		x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+		return x ^ (x >>> 31);
+	}
+
+	/**
+	 * @return the random numbers for the index'th thing of a kind
+	 */
+	private SplittableRandom random(long kind, long index){
+		return new SplittableRandom(mix(mix(seed + kind) + index));
+	}
+
+	private static double between(SplittableRandom r, double min, double max){
+		return min + r.nextDouble()*(max-min);
+	}
+
+	private static double clamp(double x, double min, double max){
+		return Math.min(max,Math.max(min,x));
+	}
+
+	Place place(int index){
+		SplittableRandom r = random(PLACES,index);
+		double lat;
+		double longi;
+		if(distribution == PlaceDistribution.CLUSTERED){
+			Position center = clusters[r.nextInt(clusters.length)];
+			lat = clamp(center.getLatitude() + r.nextGaussian()*clusterSpread,MIN_LATITUDE,MAX_LATITUDE);
+			longi = clamp(center.getLongitude() + r.nextGaussian()*clusterSpread,MIN_LONGITUDE,MAX_LONGITUDE);
+		}
+		else{
+			lat = between(r,MIN_LATITUDE,MAX_LATITUDE);
+			longi = between(r,MIN_LONGITUDE,MAX_LONGITUDE);
+		}
+		//Pad the number so that ordering by name and by index agree
+		String name = String.format("Place %0"+Integer.toString(placeCount-1).length()+"d",index);
+		return new Place(name,new Position(lat,longi,0));
+	}
+
+	Person person(int index, Place[] places){
+		SplittableRandom r = random(PEOPLE,index);
+		int start = r.nextInt(places.length);
+		int end = r.nextInt(places.length);
+		while((start == end) && (places.length > 1)){
+			end = r.nextInt(places.length);
+		}
+		String name = Simulator.FIRST_NAMES[r.nextInt(Simulator.FIRST_NAMES.length)] + " " + Simulator.LAST_NAMES[r.nextInt(Simulator.LAST_NAMES.length)];
+		return new Person("" + index, name, places[start], places[start].getPosition(), places[end], PersonState.WAITING);
+	}
+
+	/**
+	 * @return the index of the place where the i'th drone of every controller starts
+	 */
+	int droneStart(int i){
+		return random(DRONES,i).nextInt(placeCount);
+	}
+
+	/**
+	 * Make the places, in parallel
+	 * @return the places in the order of their ids
+	 */
+	@Override
+	public List<Place> generatePlaces(){
+		List<Place> ret = IntStream.range(0,placeCount).parallel().mapToObj(this::place).collect(Collectors.toList());
+		Place.assignIds(ret);
+		return ret;
+	}
+
+	/**
+	 * Make the people one at a time as they are asked for, without keeping them.
+	 * The stream can be made parallel and still gives the same people in the same order.
+	 * The people aren't put in line at their starting places, see generatePeople.
+	 * @param places, the places that generatePlaces made
+	 */
+	public Stream<Person> streamPeople(List<Place> places){
+		if((places == null) || (places.size() == 0)){
+			throw new IllegalArgumentException("Places is badly formed");
+		}
+		Place[] byIndex = places.toArray(new Place[places.size()]);
+		return IntStream.range(0,personCount).mapToObj(i -> person(i,byIndex));
+	}
+
+	/**
+	 * Make the people in parallel and put them in line at their starting places in index order
+	 * @param places, the places that generatePlaces made
+	 * @return the people in index order
+	 */
+	@Override
+	public List<Person> generatePeople(List<Place> places){
+		Person[] ret = streamPeople(places).parallel().toArray(Person[]::new);
+		for(Person p: ret){
+			p.getStart().addWaitingToEmbark(p);
+		}
+		return Arrays.asList(ret);
+	}
+
+	/**
+	 * Make the drones for one controller.  Every controller's drones start at the same places as every other controller's.
+	 * @param places, the places that generatePlaces made
+	 * @param controller, the controller that flies the drones
+	 * @param r, where the drones get their ids from, which has to be shared by all the controllers in a simulation so ids don't repeat
+	 */
+	@Override
+	public List<Drone> generateDrones(List<Place> places, DroneController controller, Random r){
+		if((places == null) || (places.size() == 0)){
+			throw new IllegalArgumentException("Places is badly formed");
+		}
+		if(controller == null){
+			throw new IllegalArgumentException("Please supply a valid controller");
+		}
+		List<Drone> ret = new ArrayList<Drone>(dronesPerController);
+		for(int i = 0; i < dronesPerController; i++){
+			Place thePlace = places.get(droneStart(i) % places.size());
+			Drone drone = new Drone(controller,thePlace,thePlace,Simulator.droneCapacity(i,dronesPerController),r);
+			drone.setState(DroneState.IDLING);
+			ret.add(drone);
+		}
+		return ret;
+	}
+
+}
@@ -0,0 +1,175 @@
+package simulator;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import reference.MyDroneController;
+import simulator.enums.DroneState;
+import simulator.enums.PlaceDistribution;
+
+public class ScenarioGeneratorTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testDeterministic() {
+		for(PlaceDistribution distribution: PlaceDistribution.values()){
+			ScenarioGenerator a = new ScenarioGenerator(7L,500,10000,10,distribution);
+			ScenarioGenerator b = new ScenarioGenerator(7L,500,10000,10,distribution);
+			List<Place> placesA = a.generatePlaces();
+			List<Place> placesB = b.generatePlaces();
+			assertEquals(500,placesA.size());
+			for(int i = 0; i < placesA.size(); i++){
+				assertEquals(i,placesA.get(i).getId());
+				assertEquals(placesA.get(i).getName(),placesB.get(i).getName());
+				assertEquals(placesA.get(i).getPosition(),placesB.get(i).getPosition());
+			}
+
+			//The same people come out whether or not they are made in parallel
+			List<Person> serial = a.streamPeople(placesA).collect(Collectors.toList());
+			List<Person> parallel = b.streamPeople(placesB).parallel().collect(Collectors.toList());
+			assertEquals(10000,serial.size());
+			for(int i = 0; i < serial.size(); i++){
+				assertEquals(""+i,serial.get(i).getId());
+				assertEquals(serial.get(i).getId(),parallel.get(i).getId());
+				assertEquals(serial.get(i).getName(),parallel.get(i).getName());
+				assertEquals(serial.get(i).getStart().getId(),parallel.get(i).getStart().getId());
+				assertEquals(serial.get(i).getDestination().getId(),parallel.get(i).getDestination().getId());
+			}
+
+			//A different seed makes a different world
+			List<Place> placesC = new ScenarioGenerator(8L,500,10000,10,distribution).generatePlaces();
+			assertNotEquals(placesA.get(0).getPosition(),placesC.get(0).getPosition());
+		}
+	}
+
+	@Test
+	public void testWorld() {
+		for(PlaceDistribution distribution: PlaceDistribution.values()){
+			ScenarioGenerator scenario = new ScenarioGenerator(3L,1000,5000,20,distribution);
+			List<Place> places = scenario.generatePlaces();
+
+			//Names are unique and sort the same way as ids
+			Set<Place> sorted = new TreeSet<Place>(places);
+			assertEquals(places.size(),sorted.size());
+			for(int i = 1; i < places.size(); i++){
+				assertTrue(places.get(i-1).getName().compareTo(places.get(i).getName()) < 0);
+			}
+			for(Place p: places){
+				assertTrue(p.getPosition().getLatitude() >= ScenarioGenerator.MIN_LATITUDE);
+				assertTrue(p.getPosition().getLatitude() <= ScenarioGenerator.MAX_LATITUDE);
+				assertTrue(p.getPosition().getLongitude() >= ScenarioGenerator.MIN_LONGITUDE);
+				assertTrue(p.getPosition().getLongitude() <= ScenarioGenerator.MAX_LONGITUDE);
+			}
+
+			//Everyone is waiting in line where they start and is going somewhere else
+			List<Person> people = scenario.generatePeople(places);
+			assertEquals(5000,people.size());
+			int waiting = 0;
+			for(Place p: places){
+				waiting += p.getWaitingToEmbark().size();
+			}
+			assertEquals(5000,waiting);
+			for(Person p: people){
+				assertTrue(p.getStart().getWaitingToEmbark().contains(p));
+				assertNotEquals(p.getStart(),p.getDestination());
+			}
+
+			List<Drone> drones = scenario.generateDrones(places,new MyDroneController(),new Random(0));
+			assertEquals(20,drones.size());
+			for(Drone d: drones){
+				assertEquals(DroneState.IDLING,d.getState());
+				assertTrue(d.getCapacity() >= 1);
+				assertTrue(d.getCapacity() <= Simulator.DRONE_MAX_CAPACITY);
+			}
+		}
+	}
+
+	@Test
+	public void testClustered() {
+		//Clustered places are closer to their nearest neighbor than uniform ones, on average
+		double[] nearest = new double[PlaceDistribution.values().length];
+		for(PlaceDistribution distribution: PlaceDistribution.values()){
+			List<Place> places = new ScenarioGenerator(11L,400,0,0,distribution).generatePlaces();
+			double total = 0;
+			for(Place p: places){
+				double best = Double.MAX_VALUE;
+				for(Place q: places){
+					if(p != q){
+						best = Math.min(best,DistanceCalculator.distance(p.getPosition().getLatitude(),p.getPosition().getLongitude(),q.getPosition().getLatitude(),q.getPosition().getLongitude()));
+					}
+				}
+				total += best;
+			}
+			nearest[distribution.ordinal()] = total/places.size();
+		}
+		assertTrue(nearest[PlaceDistribution.CLUSTERED.ordinal()] < nearest[PlaceDistribution.UNIFORM.ordinal()]);
+	}
+
+	@Test
+	public void testDegenerate() {
+		try{
+			new ScenarioGenerator(0L,0,10,10,PlaceDistribution.UNIFORM);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		try{
+			new ScenarioGenerator(0L,10,-1,10,PlaceDistribution.UNIFORM);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		try{
+			new ScenarioGenerator(0L,10,10,10,null);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		ScenarioGenerator scenario = new ScenarioGenerator(0L,10,10,10,PlaceDistribution.UNIFORM);
+		try{
+			scenario.streamPeople(null);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		try{
+			scenario.generateDrones(scenario.generatePlaces(),null,new Random(0));
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+
+		//A single place has everyone going nowhere
+		ScenarioGenerator lonely = new ScenarioGenerator(0L,1,10,1,PlaceDistribution.CLUSTERED);
+		List<Place> places = lonely.generatePlaces();
+		assertEquals("Place 0",places.get(0).getName());
+		assertEquals(10,lonely.generatePeople(places).size());
+	}
+
+}
@@ -1,18 +1,29 @@
 package simulator;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
 
 import reference.MyDroneController;
 import reference.MySimulationController;
@@ -21,9 +32,16 @@ import robodrones.DistanceAwarePromiscuousDroneController;
 import robodrones.GreedyDroneController;
 import robodrones.PromiscuousDroneController;
 import robodrones.RandomDroneController;
+import simulator.enums.ControllerMode;
+import simulator.enums.DroneEvent;
 import simulator.enums.DroneState;
+import simulator.enums.EngineMode;
 import simulator.enums.PersonState;
+import simulator.interfaces.Checkpointable;
+import simulator.interfaces.DemandSource;
 import simulator.interfaces.DroneController;
+import simulator.interfaces.DroneView;
+import simulator.interfaces.FleetController;
 import simulator.interfaces.SimulationController;
 import visualization.Visualizer;
 
@@ -48,22 +66,122 @@ public class Simulator {
 	//Simulator time in milliseconds
 	private long clockTick;
 	
+	//Simulator milliseconds that pass on each loop
+	private int tickSize;
+	
+	//Only used when the simulator is event driven
+	private EventScheduler scheduler;
+	
 	//The reference set of objects in the simulator
 	private Set<Drone> drones;
 	private Set<Person> people;
 	private Set<Place> places;
+	
+	//The drones by id and the places by name and by id, so that commands from controllers don't have to search
+	private Map<String,Drone> dronesById;
+	private Map<String,Place> placesByName;
+	private Place[] placesById;
+	
+	//Distances between all the places
+	private DistanceMatrix distanceMatrix;
+	
+	//People who show up during the simulation, the places they can show up at in id order, and what is left of the ones who have arrived
+	private DemandSource demand;
+	private List<Place> placeList;
+	private PassengerStatistics retired;
+	
+	//How many people and drones are in each state
+	private StateCounter<PersonState> personStates;
+	private StateCounter<DroneState> droneStates;
+	
+	//Where the drones are, their charge and the rest of the numbers that change every tick, kept together
+	private FleetState fleet;
+	
+	//The call backs that each controller wants
+	private Map<DroneController,Set<DroneEvent>> droneEvents;
+	
+	//Controllers that are told about all of their drones once a tick, their drones and what happened to them this tick
+	private Map<DroneController,Function<FleetSnapshot,List<FleetCommand>>> fleetControllers;
+	private Map<DroneController,List<Drone>> fleets;
+	private Map<Drone,Set<DroneEvent>> firedEvents;
+	
+	//The call backs in each state that are sent the drone as it was at the start of its tick
+	private static final Map<DroneState,Set<DroneEvent>> EVENTS_BY_STATE = new EnumMap<DroneState,Set<DroneEvent>>(DroneState.class);
+	static{
+		EVENTS_BY_STATE.put(DroneState.BEGIN,EnumSet.of(DroneEvent.EMBARKING_START));
+		EVENTS_BY_STATE.put(DroneState.EMBARKING,EnumSet.of(DroneEvent.EMBARKING_A_GROUP_END,DroneEvent.EMBARKING_A_GROUP_START));
+		EVENTS_BY_STATE.put(DroneState.ASCENDING,EnumSet.of(DroneEvent.ASCENDING_END));
+		EVENTS_BY_STATE.put(DroneState.IN_TRANSIT,EnumSet.of(DroneEvent.EXPLODING,DroneEvent.TRANSITING_END,DroneEvent.TRANSITING));
+		EVENTS_BY_STATE.put(DroneState.DISEMBARKING,EnumSet.of(DroneEvent.DISEMBARKING_GROUP_END,DroneEvent.DISEMBARKING_GROUP_START));
+		EVENTS_BY_STATE.put(DroneState.RECHARGING,EnumSet.of(DroneEvent.RECHARGING_END,DroneEvent.RECHARGING));
+		EVENTS_BY_STATE.put(DroneState.IDLING,EnumSet.of(DroneEvent.IDLING));
+		EVENTS_BY_STATE.put(DroneState.DYING,EnumSet.of(DroneEvent.HAS_DIED));
+	}
+	
+	//Only used while controllers are pipelined, the commands they have given and the controllers whose call backs are still running
+	private CommandQueue commands;
+	private List<DroneControllerSafetyWrapper> pipelinedControllers;
+	//What pipelined call backs see on this tick, made when the first one is made
+	private WorldSnapshot world;
+	//Where each pipelined controller's random numbers start from, drawn when pipelining starts and saved in checkpoints
+	private long controllerSeed;
+	//On a controller's thread while it runs a pipelined call back, the world it sees and its simulation controller
+	private final ThreadLocal<WorldSnapshot> callbackWorld = new ThreadLocal<WorldSnapshot>();
+	private final ThreadLocal<SimulationController> callbackController = new ThreadLocal<SimulationController>();
 
 	
 	//Flags to end the simulation
 	private boolean simulationEnded;
 	private boolean quitting;
 
+	//How long each tick takes
+	private final LatencyHistogram tickLatency = new LatencyHistogram();
+	//How many times a tick has waited on the wall clock
+	private long pacingWaits = 0;
+	
 	//How many simulation loops in which drones have not been busy
 	private int notBusyCount=0;
+	
+	//Checkpoints to write while the simulation runs, by the time to write them at
+	private final ConcurrentSkipListMap<Long,Path> checkpoints = new ConcurrentSkipListMap<Long,Path>();
+	//True if the simulation carries on from a checkpoint the next time it starts
+	private boolean restored = false;
+	//The drones that were scheduled when the checkpoint was saved, in order, or null if it wasn't event driven
+	private List<Drone> restoredSchedule = null;
+	
+	//Where the commands that controllers give are journaled, or null
+	private CommandJournal journal = null;
+	//The journal that is carried out instead of calling controllers, or null
+	private CommandJournalReader replay = null;
+	//The drones by their slot in the fleet
+	private Drone[] dronesBySlot;
+	//Where telemetry is written each tick, or null
+	private TelemetryRing telemetry = null;
+	//Where the next run of start writes telemetry, and how many records it has room for
+	private Path telemetryPath = null;
+	private int telemetryCapacity = 0;
+	//How many turns controllers have had in this run, see takeTurn
+	private long turn = 0;
 
 	static final int ONE_SECOND = 1000;
+	
+	//Controllers are told when a recharging drone crosses one of these charge levels
+	private static final double[] CHARGE_ALERTS = {0.1,0.2,0.3,0.4,0.5,0.6,0.7,0.8,0.9,1.0};
+	
+	//How much of the predicted quiet time of a flying drone the event driven simulator skips over at once.
+	//Predictions are approximate, so this leaves room to stop before the drone actually does something.
+	private static final double SKIP_MARGIN = 0.9;
 
 	public Simulator(SimulationController simulationController,Collection<Person> people,Collection<Place> places,Collection<Drone> drones){
+		this(simulationController,people,places,drones,null);
+	}
+	
+	/**
+	 * A simulation where more people show up as it goes.  People who arrive where they are going are counted in the
+	 * passenger statistics and let go, so memory only grows with the people who are waiting or in a drone.
+	 * @param demand, where the people who show up come from, or null if everyone is there at the start
+	 */
+	public Simulator(SimulationController simulationController,Collection<Person> people,Collection<Place> places,Collection<Drone> drones,DemandSource demand){
 		
 		if(simulationController == null){
 			throw new IllegalArgumentException("Can't give me a null simulation controller");
@@ -71,10 +189,13 @@ public class Simulator {
 		
 		this.simulationController = simulationController;
 		
+		this.personStates = new StateCounter<PersonState>(PersonState.class);
 		this.people = new TreeSet<Person>();
 		if(people != null){
 			for(Person p: people){
-				this.people.add(p);
+				if(this.people.add(p)){
+					p.setStateCounter(personStates);
+				}
 			}
 		}
 		
@@ -84,14 +205,59 @@ public class Simulator {
 				this.places.add(p);
 			}
 		}
+		Place.assignIds(this.places);
+		this.placeList = Collections.unmodifiableList(new ArrayList<Place>(this.places));
+		this.demand = demand;
+		this.retired = new PassengerStatistics();
+		this.placesByName = new HashMap<String,Place>();
+		this.placesById = new Place[this.places.size()];
+		for(Place p: this.places){
+			this.placesByName.putIfAbsent(p.getName(),p);
+			this.placesById[p.getId()] = p;
+		}
+		this.distanceMatrix = new DistanceMatrix(this.places);
 		
+		this.droneStates = new StateCounter<DroneState>(DroneState.class);
+		this.fleet = new FleetState((drones == null) ? 0 : drones.size());
 		this.drones = new TreeSet<Drone>();
+		this.dronesById = new HashMap<String,Drone>();
+		this.droneEvents = new IdentityHashMap<DroneController,Set<DroneEvent>>();
+		this.fleetControllers = new LinkedHashMap<DroneController,Function<FleetSnapshot,List<FleetCommand>>>();
+		this.fleets = new IdentityHashMap<DroneController,List<Drone>>();
+		this.firedEvents = new IdentityHashMap<Drone,Set<DroneEvent>>();
 		if(drones != null){
 			for(Drone d: drones){
-				this.drones.add(d);
+				if(this.drones.add(d)){
+					d.setStateCounter(droneStates);
+					d.setFleet(fleet);
+					this.dronesById.putIfAbsent(d.getId(),d);
+				}
 				d.getController().setSimulator(this);
 			}
 		}
+		this.dronesBySlot = new Drone[this.drones.size()];
+		for(Drone d: this.drones){
+			this.dronesBySlot[d.getSlot()] = d;
+		}
+		for(Drone d: this.drones){
+			DroneController c = d.getController();
+			if(!fleets.containsKey(c)){
+				Function<FleetSnapshot,List<FleetCommand>> onTick = null;
+				if(c instanceof DroneControllerSafetyWrapper){
+					if(((DroneControllerSafetyWrapper) c).isFleetController()){
+						onTick = ((DroneControllerSafetyWrapper) c)::onTick;
+					}
+				}
+				else if(c instanceof FleetController){
+					onTick = ((FleetController) c)::onTick;
+				}
+				if(onTick != null){
+					fleetControllers.put(c,onTick);
+				}
+				fleets.put(c,new ArrayList<Drone>());
+			}
+			fleets.get(c).add(d);
+		}
 	}
 	
 	private int getSimulatorSpeed() {
@@ -100,6 +266,23 @@ public class Simulator {
 		r = Math.max(1, r);
 		return r;
 	}
+	
+	/**
+	 * How many milliseconds of simulator time pass on each tick.  Interactive runs tie this to the
+	 * simulator speed, headless runs take it from the simulation controller so it can be set independently of pacing.
+	 */
+	private int getTickSize() {
+		if(isHeadless()){
+			return Math.max(1, simulationController.getSimulatorTickSize());
+		}
+		else{
+			return getSimulatorSpeed();
+		}
+	}
+	
+	public boolean isHeadless(){
+		return this.simulationController.isHeadless();
+	}
 
 
 	public void start(){
@@ -107,7 +290,11 @@ public class Simulator {
 		setQuitting(false);
 		setSimulationEnded(false);
 		
-		clockTick = -(getSimulatorSpeed());
+		tickSize = getTickSize();
+		if(!restored){
+			clockTick = -tickSize;
+		}
+		fleet.setClock(clockTick,tickSize);
 		long previousTime;
 		long currentTime = System.currentTimeMillis();
 		
@@ -121,473 +308,137 @@ public class Simulator {
 		}
 		long waitTime = getSimulatorSpeed()/factor;
 		
-		//Tell the drones we are starting
-		{
+		turn = 0;
+		startTelemetry();
+		
+		//Tell the drones we are starting, unless they were told before the checkpoint that this carries on from
+		if(!restored){
 			//Shuffle drones so that different drones get random priority on each round
 			//Shuffling manually to make sure that we only use a managed random number generator for consistency
 			ArrayList<Drone> shuffledDrones = new ArrayList<Drone>();
 			shuffledDrones.addAll(drones);
 			for(int j = 0 ; j < shuffledDrones.size(); j++){
 				Drone drone = shuffledDrones.get(j);
-				Drone cloneDrone = new Drone(drone);
-				drone.getController().droneSimulationStart(cloneDrone);
-				if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-					drone.quarantine();
+				if(takeTurn()){
+					Drone snapshot = drone.snapshot();
+					drone.getController().droneSimulationStart(snapshot);
+				}
+			}
+		}
+		
+		//In discrete event mode every drone gets looked at on the first tick
+		if(isEventDriven()){
+			scheduler = new EventScheduler();
+			if(restoredSchedule != null){
+				for(Drone drone: restoredSchedule){
+					scheduler.schedule(drone, drone.getNextEventTime());
+				}
+			}
+			else{
+				for(Drone drone: drones){
+					drone.setLastUpdateTime(clockTick);
+					scheduler.schedule(drone, clockTick + tickSize);
 				}
 			}
 		}
+		else{
+			scheduler = null;
+		}
+		startPipelining();
+		
+		restored = false;
+		restoredSchedule = null;
 		
 		//The main loop
 		while(!isQuitting() && !isSimulationEnded()){
 			setSimulationEnded(true);//If it hasn't ended then it needs to be unset
 			
-			previousTime = currentTime;
-			currentTime = System.currentTimeMillis();
-			
-			while((currentTime - previousTime) < waitTime){
-				try {
-					Thread.sleep(waitTime - (currentTime-previousTime));
-				} catch (InterruptedException e) {
-				}
+			//Only pace against the wall clock when someone is watching, replays always go as fast as they can
+			if(!isHeadless() && (replay == null)){
+				previousTime = currentTime;
 				currentTime = System.currentTimeMillis();
+				
+				while((currentTime - previousTime) < waitTime){
+					pacingWaits++;
+					try {
+						Thread.sleep(waitTime - (currentTime-previousTime));
+					} catch (InterruptedException e) {
+					}
+					currentTime = System.currentTimeMillis();
+				}
 			}
 			
-			clockTick += getSimulatorSpeed();
+			long tickStarted = System.nanoTime();
 			
-			//Shuffle drones so that different drones get random priority on each round
-			ArrayList<Drone> shuffledDrones = new ArrayList<Drone>();
+			//Carry out what the controllers decided during the last tick before anything moves
+			applyCommands();
+			
+			writeCheckpoints();
+			
+			Set<Drone> due = null;
+			if(scheduler == null){
+				clockTick += tickSize;
+			}
+			else{
+				long last = clockTick;
+				clockTick = nextEventTick();
+				skipShuffles((clockTick - last)/tickSize - 1);
+				due = catchUp(scheduler.popDue(clockTick));
+			}
+			List<Drone> shuffledDrones = new ArrayList<Drone>();
 			shuffledDrones.addAll(drones);
+			fleet.setClock(clockTick,tickSize);
+			if(telemetry != null){
+				telemetry.setTick(clockTick);
+			}
+			
+			arrive();
+			
+			//Work out where every drone in transit gets to on this tick in one pass over the fleet
+			if(scheduler == null){
+				fleet.planTransits(dronesBySlot,distanceMatrix,TRANSIT_HEIGHT,DRONES_RUN_OUT_OF_CHARGE);
+			}
+			
+			//Shuffle drones so that different drones get random priority on each round
 			Collections.shuffle(shuffledDrones,simulationController.getRandom());
 			
-			for(Drone drone:shuffledDrones){
-				Drone cloneDrone = new Drone(drone);
-				switch (drone.getState()){
-					case BEGIN:{
-						setSimulationEnded(false);
-						if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-							drone.quarantine();
-						}
-						else{
-							drone.setState(DroneState.EMBARKING);
-							drone.getController().droneEmbarkingStart(cloneDrone);
-						}
-					}
-					break;
-					case EMBARKING:{
-						setSimulationEnded(false);
-						//Check to see if the passengers have had enough time to get onboard 
-						if((clockTick - drone.getEmbarkingStart()) > drone.getEmbarkingDuration()){
-							
-							boolean embarkingSome = (drone.getEmbarkers().size() > 0);
-							for(Person person:drone.getEmbarkers()){
-								if(!drone.getEmbarkers().remove(person)){
-									throw new RuntimeException("Why didn't the person get on board?");
-								}
-								person.setState(PersonState.IN_DRONE);
-								synchronized(drone.getPassengers()){
-									if(!drone.getPassengers().add(person)){
-										throw new RuntimeException("Why didn't the person get become a passenger?");
-									}
-								}
-							}
-							
-							if(embarkingSome){
-								drone.getController().droneEmbarkingAGroupEnd(cloneDrone);
-								if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-									drone.quarantine();
-								}
-							}
-							
-							// If the drone is full then it takes off
-							synchronized(drone.getPassengers()){
-								if(drone.getPassengers().size() == drone.getCapacity()){
-									droneTakeOff(drone);
-								}
-								else if(drone.getPassengers().size() > drone.getCapacity()){
-									throw new IllegalArgumentException("Somehow we overloaded the drone"+drone);
-								}
-								else{
-									//Figure out who is still waiting to board this drone 
-									LinkedList<Person> waiting = new LinkedList<Person>();
-									for(Person person: drone.getStart().getWaitingToEmbark()){
-										if((drone.getManifest().contains(person.getDestination())) || (PEOPLE_ALWAYS_BOARD_DRONE)){
-											waiting.add(person);
-										}
-									}
-									//If no one is waiting then the drone takes off
-									if(waiting.size() == 0){
-										droneTakeOff(drone);
-									}
-									else{
-										// Figure out how many people to load
-										int nextEmbarkGroupSize = drone.getEmbarkingCapacity();
-										int remainingCapacity = drone.getCapacity() - drone.getPassengers().size();
-										if(remainingCapacity < nextEmbarkGroupSize){
-										nextEmbarkGroupSize = remainingCapacity;
-										}
-										if(waiting.size() < nextEmbarkGroupSize){
-											nextEmbarkGroupSize = waiting.size();
-										}
-										if(nextEmbarkGroupSize == 0){
-											throw new IllegalArgumentException("We should have already accounted for all cases where this is 0");
-										}
-										else{
-											drone.setEmbarkingStart(clockTick);
-											for(int i = 0; i < nextEmbarkGroupSize;i++){
-												Person loadMe = waiting.remove();
-												//Remove them from the place
-												if(!drone.getStart().getWaitingToEmbark().remove(loadMe)){
-													throw new RuntimeException("Why didn't the person embark?");
-												}
-												loadMe.setDeliveryCompany(drone.getCompanyName());
-												loadMe.setStartTransitTime(clockTick);
-												loadMe.setState(PersonState.EMBARKING);
-												drone.getEmbarkers().add(loadMe);
-											}
-											drone.getController().droneEmbarkingAGroupStart(cloneDrone);
-											if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-												drone.quarantine();
-											}
-										}
-									}
-								}
-							}
-						}
-					}
-					break;
-					case ASCENDING:{
-						setSimulationEnded(false);
-						long timeToGo = drone.getTransitStart() - clockTick;
-						if(timeToGo > 0){
-							double percentage = timeToGo/(0.0+drone.getAscensionTime());
-							double currentHeight = TRANSIT_HEIGHT - percentage*TRANSIT_HEIGHT;
-							drone.getPosition().setHeight(currentHeight);
-						}
-						else{
-							drone.getController().droneAscendingEnd(cloneDrone);
-							if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-								drone.quarantine();
-							}
-							else{
-								drone.setState(DroneState.IN_TRANSIT);
-								cloneDrone = new Drone(drone);
-								drone.getController().droneTransitingStart(cloneDrone);
-								if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-									drone.quarantine();
-								}
-							}
-						}
-					}
-					break;
-					case EXPLODING:{
-						setSimulationEnded(false);
-						
-						synchronized(drone.getPassengers()){
-							for(Person p: drone.getPassengers()){
-								p.setState(PersonState.DYING);
-							}
-						}
-						
-						long timeToGo = drone.getTransitEnd() - clockTick;
-						if(timeToGo > 0){
-							double percentage = timeToGo/(0.0+drone.getDescensionTime());
-							double currentHeight = percentage*TRANSIT_HEIGHT;
-							drone.getPosition().setHeight(currentHeight);
-						}
-						else{
-							drone.setState(DroneState.DYING);
-						}
-					}
-					break;
-					case IN_TRANSIT:{
-						setSimulationEnded(false);
-						//How far the drone has to go from it's current position to it's destination
-						double metersToGoal = DistanceCalculator.distance(drone.getPosition().getLatitude(),drone.getPosition().getLongitude(),drone.getDestination().getPosition().getLatitude(),drone.getDestination().getPosition().getLongitude());
-						//How far the drone had to go from it's original destination at launch to it's current destination (It's destination might have changed)
-						double metersForTrip = DistanceCalculator.distance(drone.getStart().getPosition().getLatitude(),drone.getStart().getPosition().getLongitude(),drone.getDestination().getPosition().getLatitude(),drone.getDestination().getPosition().getLongitude());
-						if(metersToGoal <= 0){
-							metersToGoal = 1;
-						}
-						double speed = drone.getSpeed();
-						
-						//How long it should take for the drone to get to the destination
-						//double totalTimeInSeconds = metersToGoal/speed;
-						//double totalTimeInMilliSeconds = totalTimeInSeconds *1000;
-					
-						//Time since the drone started this transit (it may have been redirected enroute)
-						//double start = drone.getTransitStart();
-						//double duration = clockTick - start;
-						
-						//Move the drone forward 
-						double metersPerTick = speed * (getSimulatorSpeed() /1000.0);
-						
-						//Deduct charge
-						double charge = drone.getCharge();
-						//Percent per meter
-						double dischargeRate = drone.getDischargeRate();
-						charge = charge - (metersPerTick*dischargeRate); 
-						if(charge < 0.0 ){
-							charge = 0.0;
-						}
-						drone.setCharge(charge);
-						
-						if((charge <= 0.0 )&&(DRONES_RUN_OUT_OF_CHARGE)){
-							drone.setState(DroneState.EXPLODING);
-							drone.setTransitEnd(clockTick+(drone.getDescensionTime()/2));
-							drone.getController().droneExploding(cloneDrone);
-							if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-								drone.quarantine();
-							}
-						}
-						else{
-							//What percentage of the way there are we?
-							double percentage = 1.0 - ((metersToGoal-metersPerTick)/metersForTrip);
-							if(percentage > 1.0){
-								//This could happen if the drone was rerouted in transit to a further destination
-								percentage = 1.0; 
-								
-							}
-						
-							//Close enough to call it an arrival
-							if(metersPerTick >= metersToGoal){
-								drone.getPosition().setLatitude(drone.getDestination().getPosition().getLatitude());
-								drone.getPosition().setLongitude(drone.getDestination().getPosition().getLongitude());
-								drone.getPosition().setHeight(TRANSIT_HEIGHT+drone.getDestination().getPosition().getHeight());
-							
-								//Arrival
-								drone.setTransitEnd(clockTick+drone.getDescensionTime());
-								drone.getController().droneTransitingEnd(cloneDrone);
-								if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-									drone.quarantine();
-								}
-								else{
-									drone.setState(DroneState.DESCENDING);
-									cloneDrone = new Drone(drone);
-									drone.getController().droneDescendingStart(cloneDrone);
-									if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-										drone.quarantine();
-									}
-								}
-							}
-							else{
-								// This is going to screw up if a drone is rerouted in transit because it needs to interpolate between the drone's
-								// current position and the destination, not the drone's starting point
-								Position a = drone.getStart().getPosition();
-								Position b = drone.getDestination().getPosition();
-								double latitude = (b.getLatitude()-a.getLatitude())*percentage+a.getLatitude();
-								double longitude = (b.getLongitude()-a.getLongitude())*percentage+a.getLongitude();
-								double height = (b.getHeight()-a.getHeight())*percentage+a.getHeight() + TRANSIT_HEIGHT;
-						
-								drone.getPosition().setLatitude(latitude);
-								drone.getPosition().setLongitude(longitude);
-								drone.getPosition().setHeight(height);
-							}
-							if(drone.getEmbarkers().size() != 0){
-								throw new IllegalStateException("Simulator Error:There shouldn't be anyone embarking if we are in transit");
-							}
-							if(drone.getDisembarkers().size() != 0){
-								throw new IllegalStateException("Simulator Error:There shouldn't be anyone disembarking if we are in transit");
-							}
-							synchronized(drone.getPassengers()){
-								for(Person p: drone.getPassengers()){
-									p.setPosition(drone.getPosition());
-								}
-							}
-						
-							/* Call back to controller */
-							drone.getController().droneTransiting(cloneDrone, 1.0-(metersToGoal/metersForTrip));
-							if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-								drone.quarantine();
-							}
-						}
-					}
-					break;
-					case DESCENDING:{
-						setSimulationEnded(false);
-						long timeToGo = drone.getTransitEnd() - clockTick;
-						if(timeToGo > 0){
-							double percentage = timeToGo/(0.0+drone.getDescensionTime());
-							double currentHeight = percentage*TRANSIT_HEIGHT;
-							drone.getPosition().setHeight(currentHeight);
-						}
-						else{
-							droneLand(drone);
-						}
-					}
-					break;
-					case DISEMBARKING:{
-						setSimulationEnded(false);
-						//If we are done with the last set of disembarkers
-						if((clockTick - drone.getDisembarkingStart()) > drone.getDisembarkingDuration()){
-							boolean disembarkingSome = (drone.getDisembarkers().size() > 0);
-							for(Person person:drone.getDisembarkers()){
-								drone.getDisembarkers().remove(person);
-								person.setState(PersonState.ARRIVED);
-								person.setEndTransitTime(clockTick);
-								person.setPosition(new Position(drone.getDestination().getPosition()));
-								//Do something with person after they arrived
-								//drone.getDestination().getWaitingToEmbark().add(person);
-							}
-							if(disembarkingSome){
-								drone.getController().droneDisembarkingGroupEnd(cloneDrone);
-								if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-									drone.quarantine();
-								}
-							}
-							//Find all the people who still want to disembark
-							LinkedList<Person> waiting = new LinkedList<Person>();
-							synchronized(drone.getPassengers()){
-								for(Person person:drone.getPassengers()){
-									if((person.getDestination().equals(drone.getDestination())) || (PEOPLE_ALWAYS_DISEMBARK_DRONE)){
-										waiting.add(person);
-									}
-								}
-							}
-							if(waiting.size() == 0){
-								droneStartRecharging(drone);
-							}
-							else{
-								// Figure out how many people to unload
-								int nextDisembarkGroupSize = drone.getDisembarkingCapacity();
-								if(waiting.size() < nextDisembarkGroupSize){
-									nextDisembarkGroupSize = waiting.size();
-								}
-								if(nextDisembarkGroupSize == 0){
-									throw new IllegalArgumentException("We should have already accounted for all cases where this is 0");
-								}
-								else{
-									for(int i =0; i< nextDisembarkGroupSize; i++){
-										Person person = waiting.remove();
-										synchronized(drone.getPassengers()){
-											if(!drone.getPassengers().remove(person)){
-												throw new RuntimeException("Why didn't the person get removed?");
-											}
-										}
-										person.setState(PersonState.DISEMBARKING);
-										drone.getDisembarkers().add(person);
-									}
-									drone.getController().droneDisembarkingGroupStart(cloneDrone);
-									if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-										drone.quarantine();
-									}
-									drone.setDisembarkingStart(clockTick);
-								}
-							}
-						}
-					}
-					break;
-					case RECHARGING:{
-						setSimulationEnded(false);
-						
-						//If the controller has told the drone to leave
-						if(!drone.getStart().equals(drone.getDestination())){
-							drone.getController().droneRechargingEnd(cloneDrone);
-							if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-								drone.quarantine();
-							}
-							else{
-								drone.setState(DroneState.BEGIN);
-							}
-						}
-						else{
-							double chargeDelta = (getSimulatorSpeed()/1000.0) * drone.getRechargeRate() ;
-							if(drone.getCharge()+ chargeDelta > 1.0){
-								drone.setCharge(1.0);
-								drone.getController().droneRechargingEnd(cloneDrone);
-								if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-									drone.quarantine();
-								}
-								else{
-									drone.setState(DroneState.IDLING);
-								}
-							}
-							else{
-								boolean alert = false;
-								double[] breaks = {0.1,0.2,0.3,0.4,0.5,0.6,0.7,0.8,0.9,1.0};
-								for(int i = 0; i < breaks.length; i++){
-									if((drone.getCharge() < breaks[i]) && ((drone.getCharge()+chargeDelta) >= breaks[i])){
-										alert = true;
-									}
-								}
-								drone.setCharge(drone.getCharge()+chargeDelta);
-								if(alert){
-									drone.getController().droneRecharging(cloneDrone,drone.getCharge());
-									if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-										drone.quarantine();
-									}
-								}
-							}
-						}
-					}
-					break;
-					case IDLING:{
-						setSimulationEnded(false);
-						
-						synchronized(drone.getPassengers()){
-							for(Person p: drone.getPassengers()){
-								p.setState(PersonState.IN_DRONE);
-							}
-						}
-						
-						if(!drone.getStart().equals(drone.getDestination())){
-							drone.setState(DroneState.BEGIN);
-						}
-						else{
-							drone.getController().droneIdling(cloneDrone);
-							if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-								drone.quarantine();
-							}
-						}
-					}
-					break;
-					case DYING:{
-						setSimulationEnded(false);
-						synchronized(drone.getPassengers()){
-							for(Person p: drone.getPassengers()){
-								p.setState(PersonState.DEAD);
-							}
-						}
-						drone.setState(DroneState.DEAD);
-						drone.getController().droneHasDied(cloneDrone);
-					}
-					break;
-					case DEAD:{
-						//simulationEnded = false;
-						//If all drones explode the simulation is ended
-					}
-					break;
-					case QUARANTINED:{
-						//simulationEnded = false;
-						//If all drones are quarantined by the simulator, the simulation is ended
-					}
-					break;
-					case IGNORED:{
-					}
-					break;
-					default:
-						throw new IllegalArgumentException("Unhandled Drone State: "+drone.getState());
+			if(scheduler == null){
+				for(Drone drone:shuffledDrones){
+					updateDrone(drone);
 				}
 			}
+			else{
+				shuffledDrones = updateDue(shuffledDrones,due);
+			}
 			
-			//Check to see if all passengers are delivered
-			boolean allDone = true;
-			boolean someWaiting = false;
-			for(Person p: people){
-				if(allDone && (!p.getState().equals(PersonState.ARRIVED))&&(!p.getState().equals(PersonState.DEAD)) && (!p.getState().equals(PersonState.QUARANTINED))){
-					allDone = false;
+			tellFleets();
+			
+			if(scheduler != null){
+				for(Drone drone:shuffledDrones){
+					scheduler.schedule(drone,predictNextEvent(drone));
 				}
-				if(!someWaiting && p.getState().equals(PersonState.WAITING)){
-					someWaiting = true;
+				scheduler.applyWakeRequests(clockTick+tickSize);
+				//Drones that are waiting on a future event are still active, and so are idle drones like they are on every fixed tick
+				if(!scheduler.isEmpty() || (droneStates.get(DroneState.IDLING) > 0)){
+					setSimulationEnded(false);
 				}
 			}
+			
+			//Check to see if all passengers are delivered and no one else is coming
+			boolean moreComing = (demand != null) && (demand.getNextArrivalTime() != DemandSource.NEVER);
+			boolean allDone = (personStates.get(PersonState.ARRIVED,PersonState.DEAD,PersonState.QUARANTINED) == personStates.total()) && !moreComing;
+			boolean someWaiting = (personStates.get(PersonState.WAITING) > 0) || moreComing;
+			if(moreComing){
+				setSimulationEnded(false);
+			}
 			if(allDone){
 				setSimulationEnded(true);
 				System.out.println("Simulation ended with all passengers delivered at time "+clockTick);
 			}
 			
 			//If there is no one waiting ignore the drones that aren't carrying passengers
-			for(Drone d: drones){
-				if(!someWaiting){
+			if(!someWaiting){
+				for(Drone d: drones){
 					if(d.getEmbarkers().size() == 0){
 						synchronized(d.getPassengers()){
 							if(d.getPassengers().size() == 0){
@@ -601,20 +452,10 @@ public class Simulator {
 			}
 			
 			//Check to see if the drones are making progress
-			boolean dronesBusy = false;
-			for(Drone d: drones){
-				if(d.getState() != DroneState.IDLING){
-					if(d.getState() != DroneState.DEAD){
-						if(d.getState() != DroneState.QUARANTINED){
-							if(d.getState() != DroneState.IGNORED){
-								dronesBusy= true;
-							}
-						}
-					}
-				}
-			}
+			boolean dronesBusy = (droneStates.get(DroneState.IDLING,DroneState.DEAD,DroneState.QUARANTINED,DroneState.IGNORED) < droneStates.total());
 			//If not quarantine one
-			if(dronesBusy){
+			//Drones that are waiting for people to show up are not stuck
+			if(dronesBusy || ((demand != null) && (personStates.get(PersonState.WAITING) == 0))){
 				notBusyCount = 0;
 			}
 			else{
@@ -642,8 +483,18 @@ public class Simulator {
 				setSimulationEnded(true);
 				System.out.println("Out of time");
 			}
+			
+			if(telemetry != null){
+				for(int i = 0; i < shuffledDrones.size(); i++){
+					telemetry.drone(shuffledDrones.get(i));
+				}
+			}
+			
+			tickLatency.record(System.nanoTime() - tickStarted);
 		}
 		
+		stopPipelining();
+		
 		//Tell the drones we are ending
 		{
 			//Shuffle drones so that different drones get random priority on each round
@@ -652,16 +503,1025 @@ public class Simulator {
 			Collections.shuffle(shuffledDrones,simulationController.getRandom());
 			for(int j = 0 ; j < shuffledDrones.size(); j++){
 				Drone d = shuffledDrones.get(j);
-				Drone cloneDrone = new Drone(d);
-				d.getController().droneSimulationEnd(cloneDrone);
-				if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-					d.quarantine();
+				if(takeTurn()){
+					Drone snapshot = d.snapshot();
+					d.getController().droneSimulationEnd(snapshot);
+				}
+			}
+		}
+		
+		closeJournals();
+	}
+	
+	/**
+	 * Journal every command that controllers give during the next run of start, along with the tick and the controller's turn
+	 * it was carried out on, so that the run can be replayed without the controllers.  The file is closed when the run ends.
+	 */
+	public void journal(Path path) throws IOException{
+		if(journal != null){
+			journal.close();
+		}
+		journal = new CommandJournal(path,getTickSize(),placesById.length,drones.size(),isEventDriven());
+	}
+	
+	/**
+	 * Write what every drone is doing on each tick, and each time someone changes state, into a ring of records in a
+	 * memory mapped file during the next run of start, see TelemetryReader.  Once the ring is full the oldest records are
+	 * written over.  The file is made when start begins and closed when the run ends.
+	 * @param capacity, how many records the ring has room for
+	 */
+	public void telemetry(Path path, int capacity){
+		if(capacity <= 0){
+			throw new IllegalArgumentException("A telemetry ring needs room for at least one record: "+capacity);
+		}
+		telemetryPath = path;
+		telemetryCapacity = capacity;
+	}
+	
+	/**
+	 * Carry out the commands in a journal during the next run of start instead of calling any controllers, as fast as the
+	 * simulator can go.  The simulator has to be made the same way as the one that was journaled, and its controllers can't
+	 * have used the simulation controller's random numbers, so that it goes the same way.
+	 * @throws IOException if the file isn't a journal
+	 * @throws IllegalArgumentException if the journal is for a different world, or later in start if the replay goes a different way
+	 */
+	public void replay(Path path) throws IOException{
+		CommandJournalReader reader = new CommandJournalReader(path);
+		if((reader.getTickSize() != getTickSize()) || (reader.isEventDriven() != isEventDriven())){
+			throw new IllegalArgumentException("Journal "+path+" was made with a different tick size or engine mode than this simulation");
+		}
+		if((reader.getPlaceCount() != placesById.length) || (reader.getDroneCount() != drones.size())){
+			throw new IllegalArgumentException("Journal "+path+" has a different number of places or drones than this simulation");
+		}
+		replay = reader;
+	}
+	
+	/**
+	 * @return true if the commands are coming from a journal instead of from controllers
+	 */
+	public boolean isReplaying(){
+		return replay != null;
+	}
+	
+	/**
+	 * A point at which a controller can change the simulation: each call back, each fleet controller's tick and each time pipelined
+	 * commands are carried out.  Replays get to the same turns on the same ticks and carry out the commands that were journaled on them.
+	 * @return false if the controller shouldn't be called because this is a replay
+	 */
+	private boolean takeTurn(){
+		return nextTurn() < 0;
+	}
+	
+	/**
+	 * Go on to the next turn, carrying out its journaled commands if this is a replay
+	 * @return how many journaled commands were carried out, or -1 if this isn't a replay
+	 */
+	private int nextTurn(){
+		turn++;
+		if(replay == null){
+			return -1;
+		}
+		return replayTurn();
+	}
+	
+	/**
+	 * Carry out the journaled commands up to this turn
+	 * @return how many there were
+	 */
+	private int replayTurn(){
+		int ret = 0;
+		while(replay.hasCommand() && (replay.getTurn() <= turn)){
+			if((replay.getTurn() == turn) && (replay.getTick() != clockTick)){
+				throw new IllegalArgumentException("The replay has gone a different way than the journal, turn "+turn+" is on tick "+clockTick+" instead of "+replay.getTick());
+			}
+			int slot = replay.getSlot();
+			if((slot < 0) || (slot >= dronesBySlot.length)){
+				throw new IllegalArgumentException("The journal has a command for a drone that isn't in this simulation: "+slot);
+			}
+			Drone d = dronesBySlot[slot];
+			int[] ids = replay.getPlaces();
+			Set<Place> places = new Manifest();
+			for(int id: ids){
+				Place p = findPlace(id);
+				if(p == null){
+					throw new IllegalArgumentException("The journal has a command with a place that isn't in this simulation: "+id);
 				}
+				places.add(p);
+			}
+			switch(replay.getCommand()){
+				case CommandJournal.ROUTE:
+					setDestination(d,findPlace(ids[0]));
+					break;
+				case CommandJournal.HOLD:
+					hold(d);
+					break;
+				case CommandJournal.MANIFEST:
+					setManifest(d,places);
+					break;
+				case CommandJournal.QUARANTINE:
+					quarantine(d);
+					break;
 			}
+			replay.next();
+			ret++;
+		}
+		return ret;
+	}
+	
+	private void startTelemetry(){
+		if(telemetryPath == null){
+			return;
 		}
+		try{
+			telemetry = new TelemetryRing(telemetryPath,telemetryCapacity,getTickSize(),dronesBySlot);
+		}
+		catch(IOException e){
+			throw new UncheckedIOException("Couldn't make the telemetry file "+telemetryPath,e);
+		}
+		telemetryPath = null;
+		telemetry.setTick(clockTick);
+		for(Person p: people){
+			p.setTelemetry(telemetry);
+		}
+	}
+	
+	private void closeJournals(){
+		if(journal != null){
+			try{
+				journal.close();
+			}
+			catch(IOException e){
+				System.err.println("Couldn't finish the journal: "+e.getMessage());
+			}
+			journal = null;
+		}
+		replay = null;
+		if(telemetry != null){
+			for(Person p: people){
+				p.setTelemetry(null);
+			}
+			try{
+				telemetry.close();
+			}
+			catch(IOException e){
+				System.err.println("Couldn't finish the telemetry: "+e.getMessage());
+			}
+			telemetry = null;
+		}
+	}
+	
+	/**
+	 * A controller's safety wrapper quarantines one of its drones
+	 * @param drone, the drone or a snapshot of it
+	 */
+	void quarantine(Drone drone){
+		Drone d = findDrone(drone);
+		if((journal != null) && (d != null) && !d.getState().equals(DroneState.DEAD) && !d.getState().equals(DroneState.QUARANTINED)){
+			journal.quarantine(clockTick,turn,d);
+		}
+		drone.quarantine();
+	}
+
+
+	
+	/**
+	 * Save everything that changes as the simulation runs, so that restore can carry on from here in another simulator.
+	 * This is for between runs of start, use checkpointAt to save a simulation that is running.
+	 * The random number generator is reseeded with a seed that is saved, so that the rest of this simulation and a restored one
+	 * use the same random numbers. Controllers and the demand source are saved if they are Checkpointable.
+	 * @throws IllegalArgumentException if there is a demand source that isn't Checkpointable
+	 */
+	public void checkpoint(Path path) throws IOException{
+		if((demand != null) && !(demand instanceof Checkpointable)){
+			throw new IllegalArgumentException("The demand source can't be saved in a checkpoint: "+demand.getClass().getName());
+		}
+		long seed = simulationController.getRandom().nextLong();
+		simulationController.getRandom().setSeed(seed);
+		//Pipelined controllers start their random numbers over from it too, the same as they do when a restored simulation starts
+		if(commands != null){
+			controllerSeed = seed;
+			seedControllers();
+		}
+		
+		try(CheckpointWriter out = new CheckpointWriter(path)){
+			out.putLong(clockTick);
+			out.putInt(notBusyCount);
+			out.putLong(seed);
+			out.putInt(placesById.length);
+			out.putInt(drones.size());
+			
+			out.putPeople(people);
+			//The people who have been let go of are still counted
+			for(PersonState state: PersonState.values()){
+				out.putInt(personStates.get(state));
+			}
+			for(Place p: placesById){
+				out.putPeopleRefs(p.getWaitingToEmbark());
+			}
+			
+			Map<Drone,Integer> droneIndex = new IdentityHashMap<Drone,Integer>();
+			for(Drone d: drones){
+				droneIndex.put(d,droneIndex.size());
+				out.putDrone(d);
+			}
+			out.putBoolean(scheduler != null);
+			if(scheduler != null){
+				List<Drone> scheduled = scheduler.scheduled();
+				out.putInt(scheduled.size());
+				for(Drone d: scheduled){
+					out.putInt(droneIndex.get(d));
+					out.putLong(d.getNextEventTime());
+				}
+			}
+			retired.save(out);
+			
+			List<DroneController> controllers = controllers();
+			out.putInt(controllers.size());
+			for(DroneController c: controllers){
+				out.putString(fleets.get(c).get(0).getCompanyName());
+				out.putBytes(saveState(c));
+			}
+			out.putBytes((demand == null) ? null : ((Checkpointable) demand).saveState());
+		}
+	}
+	
+	/**
+	 * Save a checkpoint while the simulation runs, once the clock has reached time and before the tick after it, see checkpoint.
+	 * Problems writing it are reported and the simulation keeps going.
+	 */
+	public void checkpointAt(long time, Path path){
+		if(path == null){
+			throw new IllegalArgumentException("Please supply a path for the checkpoint");
+		}
+		checkpoints.put(time,path);
+	}
+	
+	/**
+	 * Write the checkpoints that are due, between ticks
+	 */
+	private void writeCheckpoints(){
+		Entry<Long,Path> next;
+		while(((next = checkpoints.firstEntry()) != null) && (next.getKey() <= clockTick)){
+			checkpoints.remove(next.getKey(),next.getValue());
+			try{
+				checkpoint(next.getValue());
+			}
+			catch(IOException | IllegalArgumentException e){
+				System.err.println("Couldn't write a checkpoint to "+next.getValue()+": "+e.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * Carry on from a checkpoint, the next time start is called.  This simulator has to be made with the same places and drones, by id,
+	 * as the one that was saved, and with the same kinds of controllers and demand source.  Everyone in the checkpoint replaces the
+	 * people this simulator was made with.  A simulator that fails to restore is left part way and shouldn't be started.
+	 * Starting a restored simulation doesn't tell the drones that the simulation is starting, they were told before it was saved.
+	 * @throws IOException if the file can't be read or isn't a checkpoint
+	 * @throws IllegalArgumentException if the checkpoint is for a different world
+	 */
+	public void restore(Path path) throws IOException{
+		CheckpointReader in = new CheckpointReader(path,placesById);
+		long savedClockTick = in.getLong();
+		int savedNotBusyCount = in.getInt();
+		long seed = in.getLong();
+		if(in.getInt() != placesById.length){
+			throw new IllegalArgumentException("Checkpoint "+path+" has a different number of places than this simulation");
+		}
+		if(in.getInt() != drones.size()){
+			throw new IllegalArgumentException("Checkpoint "+path+" has a different number of drones than this simulation");
+		}
+		
+		personStates = new StateCounter<PersonState>(PersonState.class);
+		people.clear();
+		for(Person p: in.getPeople()){
+			if(people.add(p)){
+				p.setStateCounter(personStates);
+			}
+		}
+		for(PersonState state: PersonState.values()){
+			personStates.add(state,in.getInt() - personStates.get(state));
+		}
+		List<Person> line = new ArrayList<Person>();
+		for(Place p: placesById){
+			in.getPeopleRefs(line);
+			p.clearWaiting();
+			for(Person person: line){
+				p.addWaitingToEmbark(person);
+			}
+		}
+		
+		Drone[] byIndex = new Drone[drones.size()];
+		for(int i = 0; i < byIndex.length; i++){
+			String id = in.getString();
+			byIndex[i] = dronesById.get(id);
+			if(byIndex[i] == null){
+				throw new IllegalArgumentException("Checkpoint "+path+" has a drone that isn't in this simulation: "+id);
+			}
+			in.getDrone(byIndex[i]);
+			byIndex[i].setNextEventTime(EventScheduler.NEVER);
+		}
+		List<Drone> schedule = null;
+		if(in.getBoolean()){
+			schedule = new ArrayList<Drone>();
+			int count = in.getCount(Integer.BYTES + Long.BYTES);
+			for(int i = 0; i < count; i++){
+				int index = in.getInt();
+				if((index < 0) || (index >= byIndex.length)){
+					throw in.broken("it schedules drone "+index+" of "+byIndex.length);
+				}
+				byIndex[index].setNextEventTime(in.getLong());
+				schedule.add(byIndex[index]);
+			}
+		}
+		retired.restore(in);
+		
+		List<DroneController> controllers = controllers();
+		if(in.getInt() != controllers.size()){
+			throw new IllegalArgumentException("Checkpoint "+path+" has a different number of drone controllers than this simulation");
+		}
+		for(DroneController c: controllers){
+			String companyName = in.getString();
+			byte[] state = in.getBytes();
+			if(!fleets.get(c).get(0).getCompanyName().equals(companyName)){
+				throw new IllegalArgumentException("Checkpoint "+path+" has drone controller "+companyName+" where this simulation has "+fleets.get(c).get(0).getCompanyName());
+			}
+			if((state != null) && !restoreState(c,state)){
+				throw new IllegalArgumentException("Checkpoint "+path+" has state for drone controller "+companyName+" which isn't Checkpointable in this simulation");
+			}
+		}
+		byte[] demandState = in.getBytes();
+		if(demandState != null){
+			if(!(demand instanceof Checkpointable)){
+				throw new IllegalArgumentException("Checkpoint "+path+" has a demand source and this simulation doesn't have one that is Checkpointable");
+			}
+			((Checkpointable) demand).restoreState(demandState);
+		}
+		in.finish();
+		
+		clockTick = savedClockTick;
+		fleet.setClock(clockTick,getTickSize());
+		notBusyCount = savedNotBusyCount;
+		simulationController.getRandom().setSeed(seed);
+		controllerSeed = seed;
+		restored = true;
+		restoredSchedule = schedule;
+	}
+	
+	/**
+	 * @return each drone controller once, in the order of their first drones
+	 */
+	private List<DroneController> controllers(){
+		List<DroneController> ret = new ArrayList<DroneController>();
+		Set<DroneController> seen = Collections.newSetFromMap(new IdentityHashMap<DroneController,Boolean>());
+		for(Drone d: drones){
+			if(seen.add(d.getController())){
+				ret.add(d.getController());
+			}
+		}
+		return ret;
+	}
+	
+	private static byte[] saveState(DroneController c){
+		if(c instanceof DroneControllerSafetyWrapper){
+			return ((DroneControllerSafetyWrapper) c).saveState();
+		}
+		else if(c instanceof Checkpointable){
+			return ((Checkpointable) c).saveState();
+		}
+		return null;
+	}
+	
+	/**
+	 * @return false if c isn't Checkpointable
+	 */
+	private static boolean restoreState(DroneController c, byte[] state){
+		if(c instanceof DroneControllerSafetyWrapper){
+			return ((DroneControllerSafetyWrapper) c).restoreState(state);
+		}
+		else if(c instanceof Checkpointable){
+			((Checkpointable) c).restoreState(state);
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Put everyone who has shown up by now in line
+	 */
+	private void arrive(){
+		if(demand == null){
+			return;
+		}
+		while(demand.getNextArrivalTime() <= clockTick){
+			Person p = demand.next(placeList);
+			if(people.add(p)){
+				p.setStateCounter(personStates);
+				p.setTelemetry(telemetry);
+				p.getStart().addWaitingToEmbark(p);
+			}
+		}
+	}
+	
+	/**
+	 * Stop keeping track of someone who has arrived where they were going
+	 */
+	private void retire(Person person){
+		people.remove(person);
+		retired.retire(person);
+	}
+	
+	/**
+	 * If controllers are PIPELINED, stop waiting for their call backs and start holding their commands
+	 */
+	private void startPipelining(){
+		if(simulationController.getControllerMode() != ControllerMode.PIPELINED){
+			return;
+		}
+		pipelinedControllers = new ArrayList<DroneControllerSafetyWrapper>();
+		commands = new CommandQueue();
+		world = null;
+		//A restored simulation carries on with the seed that was saved, a replay draws one too so that it uses the same random numbers
+		if(!restored){
+			controllerSeed = simulationController.getRandom().nextLong();
+		}
+		//Replays don't call the controllers but carry out the journaled commands at the same points
+		if(replay != null){
+			return;
+		}
+		Set<DroneController> seen = Collections.newSetFromMap(new IdentityHashMap<DroneController,Boolean>());
+		for(Drone d: drones){
+			DroneController c = d.getController();
+			if((c instanceof DroneControllerSafetyWrapper) && seen.add(c)){
+				DroneControllerSafetyWrapper wrapper = (DroneControllerSafetyWrapper) c;
+				if(wrapper.startPipelining(simulationController)){
+					pipelinedControllers.add(wrapper);
+				}
+				else{
+					System.err.println("Drone Controller can't be pipelined without a MAILBOX: "+d.getCompanyName());
+				}
+			}
+		}
+		seedControllers();
+	}
+	
+	/**
+	 * Give each pipelined controller random numbers of its own, so that they are the same on every run no matter which
+	 * controller's thread gets to them first
+	 */
+	private void seedControllers(){
+		Random seeds = new Random(controllerSeed);
+		for(DroneControllerSafetyWrapper c: pipelinedControllers){
+			c.seed(seeds.nextLong());
+		}
+	}
+	
+	/**
+	 * @return the world that pipelined call backs see on this tick, made the first time one is made on the tick
+	 */
+	WorldSnapshot getWorld(){
+		if(world == null){
+			world = new WorldSnapshot(placesById,people,drones);
+		}
+		return world;
+	}
+	
+	/**
+	 * Called on a controller's thread as it starts a pipelined call back, until endCallback the getters answer from world
+	 * and getSimulationController from controller
+	 */
+	void startCallback(WorldSnapshot world, SimulationController controller){
+		callbackWorld.set(world);
+		callbackController.set(controller);
+	}
+	
+	void endCallback(){
+		callbackWorld.remove();
+		callbackController.remove();
+	}
+	
+	/**
+	 * Wait for the pipelined call backs that are still running and carry out the commands that they gave
+	 */
+	private void applyCommands(){
+		int applied = Math.max(0,nextTurn());
+		if(commands != null){
+			for(DroneControllerSafetyWrapper c: pipelinedControllers){
+				c.awaitCallbacks();
+			}
+			//No one is looking at the world anymore, the next call back sees the world as it is then
+			world = null;
+			applied += commands.apply();
+		}
+		if((applied > 0) && (scheduler != null)){
+			//Drones that were given something to do are looked at on the next tick, as if they had been told during the last one
+			scheduler.applyWakeRequests(clockTick+tickSize);
+		}
+	}
+	
+	/**
+	 * Finish up with pipelined controllers and go back to carrying out commands as soon as they are given
+	 */
+	private void stopPipelining(){
+		if(commands == null){
+			return;
+		}
+		applyCommands();
+		for(DroneControllerSafetyWrapper c: pipelinedControllers){
+			c.stopPipelining();
+		}
+		commands = null;
+		pipelinedControllers = null;
+		world = null;
+	}
+	
+	/**
+	 * @return true if controllers' commands are being held until the next tick
+	 */
+	public boolean isPipelined(){
+		return commands != null;
+	}
+	
+	/**
+	 * Give each fleet controller its drones and what happened to them this tick, and carry out what it says to do
+	 */
+	private void tellFleets(){
+		for(Entry<DroneController,Function<FleetSnapshot,List<FleetCommand>>> e: fleetControllers.entrySet()){
+			if(!takeTurn()){
+				continue;
+			}
+			List<DroneView> views = new ArrayList<DroneView>();
+			Map<String,Set<DroneEvent>> fired = new HashMap<String,Set<DroneEvent>>();
+			for(Drone d: fleets.get(e.getKey())){
+				views.add(d.snapshot());
+				Set<DroneEvent> f = firedEvents.get(d);
+				if(f != null){
+					fired.put(d.getId(),f);
+				}
+			}
+			List<FleetCommand> batch = e.getValue().apply(new FleetSnapshot(clockTick,views,fired));
+			if(batch != null){
+				for(FleetCommand c: batch){
+					try{
+						c.apply(this);
+					}
+					catch(IllegalArgumentException ex){
+						System.out.println("Fleet Controller gave a bad command: "+c+", "+ex.getMessage());
+					}
+				}
+			}
+		}
+		firedEvents.clear();
+	}
+	
+	/**
+	 * A call back is about to be made
+	 * @return true if the controller of drone should be called, false if it doesn't want it or is told at the end of the tick
+	 */
+	private boolean tells(Drone drone, DroneEvent event){
+		if(!takeTurn()){
+			return false;
+		}
+		if(fleetControllers.containsKey(drone.getController())){
+			Set<DroneEvent> fired = firedEvents.get(drone);
+			if(fired == null){
+				fired = EnumSet.noneOf(DroneEvent.class);
+				firedEvents.put(drone,fired);
+			}
+			fired.add(event);
+			return false;
+		}
+		return wants(drone,event);
+	}
+	
+	/**
+	 * @return true if the controller of drone wants to be told about event
+	 */
+	private boolean wants(Drone drone, DroneEvent event){
+		Set<DroneEvent> events = droneEvents.get(drone.getController());
+		if(events == null){
+			events = ControllerEvents.of(drone.getController());
+			droneEvents.put(drone.getController(),events);
+		}
+		return events.contains(event);
+	}
+	
+	/**
+	 * Advance one drone through one tick of the simulation
+	 */
+	private void updateDrone(Drone drone){
+		//Only snapshot the drone if it's controller will be told something
+		Drone snapshot = null;
+		Set<DroneEvent> events = EVENTS_BY_STATE.get(drone.getState());
+		if(events != null){
+			for(DroneEvent e: events){
+				if(wants(drone,e)){
+					snapshot = drone.snapshot();
+					break;
+				}
+			}
+		}
+		switch (drone.getState()){
+			case BEGIN:{
+				setSimulationEnded(false);
+				if(!drone.getState().equals(DroneState.QUARANTINED)){
+					drone.setState(DroneState.EMBARKING);
+					if(tells(drone,DroneEvent.EMBARKING_START)){
+						drone.getController().droneEmbarkingStart(snapshot);
+					}
+				}
+			}
+			break;
+			case EMBARKING:{
+				setSimulationEnded(false);
+				//Check to see if the passengers have had enough time to get onboard 
+				if((clockTick - drone.getEmbarkingStart()) > drone.getEmbarkingDuration()){
+					
+					boolean embarkingSome = (drone.getEmbarkers().size() > 0);
+					for(Person person:drone.getEmbarkers()){
+						if(!drone.getEmbarkers().remove(person)){
+							throw new RuntimeException("Why didn't the person get on board?");
+						}
+						person.setState(PersonState.IN_DRONE);
+						synchronized(drone.getPassengers()){
+							if(!drone.getPassengers().add(person)){
+								throw new RuntimeException("Why didn't the person get become a passenger?");
+							}
+						}
+						person.board(drone);
+					}
+					
+					if(embarkingSome){
+						if(tells(drone,DroneEvent.EMBARKING_A_GROUP_END)){
+							drone.getController().droneEmbarkingAGroupEnd(snapshot);
+						}
+					}
+					
+					// If the drone is full then it takes off
+					synchronized(drone.getPassengers()){
+						if(drone.getPassengers().size() == drone.getCapacity()){
+							droneTakeOff(drone);
+						}
+						else if(drone.getPassengers().size() > drone.getCapacity()){
+							throw new IllegalArgumentException("Somehow we overloaded the drone"+drone);
+						}
+						else{
+							// Figure out how many people to load
+							int nextEmbarkGroupSize = drone.getEmbarkingCapacity();
+							int remainingCapacity = drone.getCapacity() - drone.getPassengers().size();
+							if(remainingCapacity < nextEmbarkGroupSize){
+								nextEmbarkGroupSize = remainingCapacity;
+							}
+							//Take the people who have waited the longest to go somewhere on the manifest out of line
+							List<Person> group = drone.getStart().embark(PEOPLE_ALWAYS_BOARD_DRONE ? null : drone.getManifest(),nextEmbarkGroupSize);
+							//If no one is waiting then the drone takes off
+							if(group.size() == 0){
+								droneTakeOff(drone);
+							}
+							else{
+								drone.setEmbarkingStart(clockTick);
+								for(Person loadMe: group){
+									loadMe.setDeliveryCompany(drone.getCompanyName());
+									loadMe.setStartTransitTime(clockTick);
+									loadMe.setState(PersonState.EMBARKING);
+									drone.getEmbarkers().add(loadMe);
+								}
+								if(tells(drone,DroneEvent.EMBARKING_A_GROUP_START)){
+									drone.getController().droneEmbarkingAGroupStart(snapshot);
+								}
+							}
+						}
+					}
+				}
+			}
+			break;
+			case ASCENDING:{
+				setSimulationEnded(false);
+				long timeToGo = drone.getTransitStart() - clockTick;
+				if(timeToGo > 0){
+					ascend(drone,timeToGo);
+				}
+				else{
+					if(tells(drone,DroneEvent.ASCENDING_END)){
+						drone.getController().droneAscendingEnd(snapshot);
+					}
+					if(!drone.getState().equals(DroneState.QUARANTINED)){
+						drone.setState(DroneState.IN_TRANSIT);
+						if(tells(drone,DroneEvent.TRANSITING_START)){
+							drone.getController().droneTransitingStart(drone.snapshot());
+						}
+					}
+				}
+			}
+			break;
+			case EXPLODING:{
+				setSimulationEnded(false);
+				
+				doomPassengers(drone);
+				
+				long timeToGo = drone.getTransitEnd() - clockTick;
+				if(timeToGo > 0){
+					descend(drone,timeToGo);
+				}
+				else{
+					drone.setState(DroneState.DYING);
+				}
+			}
+			break;
+			case IN_TRANSIT:{
+				setSimulationEnded(false);
+				//The whole fleet's flight is usually planned at the start of the tick, unless something about the drone has changed since
+				FleetState fleet = drone.getFleet();
+				int slot = drone.getSlot();
+				if(!fleet.isPlanned(slot)){
+					fleet.planTransit(slot,drone.getStart(),drone.getDestination(),distanceMatrix,TRANSIT_HEIGHT,DRONES_RUN_OUT_OF_CHARGE);
+				}
+				//How far the drone has to go from it's current position to it's destination
+				double metersToGoal = fleet.getPlannedToGoal(slot);
+				//How far the drone had to go from it's original destination at launch to it's current destination (It's destination might have changed)
+				double metersForTrip = fleet.getPlannedForTrip(slot);
+				
+				//Move the drone forward and deduct charge
+				int outcome = fleet.fly(slot);
+				
+				if(outcome == FleetState.OUT_OF_CHARGE){
+					drone.setState(DroneState.EXPLODING);
+					drone.setTransitEnd(clockTick+(drone.getDescensionTime()/2));
+					if(tells(drone,DroneEvent.EXPLODING)){
+						drone.getController().droneExploding(snapshot);
+					}
+				}
+				else{
+					//Close enough to call it an arrival
+					if(outcome == FleetState.ARRIVING){
+						//Arrival
+						drone.setTransitEnd(clockTick+drone.getDescensionTime());
+						if(tells(drone,DroneEvent.TRANSITING_END)){
+							drone.getController().droneTransitingEnd(snapshot);
+						}
+						if(!drone.getState().equals(DroneState.QUARANTINED)){
+							drone.setState(DroneState.DESCENDING);
+							//The transiting call back below is sent this snapshot too
+							if(wants(drone,DroneEvent.DESCENDING_START) || wants(drone,DroneEvent.TRANSITING)){
+								snapshot = drone.snapshot();
+							}
+							if(tells(drone,DroneEvent.DESCENDING_START)){
+								drone.getController().droneDescendingStart(snapshot);
+							}
+						}
+					}
+					if(drone.getEmbarkers().size() != 0){
+						throw new IllegalStateException("Simulator Error:There shouldn't be anyone embarking if we are in transit");
+					}
+					if(drone.getDisembarkers().size() != 0){
+						throw new IllegalStateException("Simulator Error:There shouldn't be anyone disembarking if we are in transit");
+					}
+
+					/* Call back to controller */
+					if(tells(drone,DroneEvent.TRANSITING)){
+						drone.getController().droneTransiting(snapshot, 1.0-(metersToGoal/metersForTrip));
+					}
+				}
+			}
+			break;
+			case DESCENDING:{
+				setSimulationEnded(false);
+				long timeToGo = drone.getTransitEnd() - clockTick;
+				if(timeToGo > 0){
+					descend(drone,timeToGo);
+				}
+				else{
+					droneLand(drone);
+				}
+			}
+			break;
+			case DISEMBARKING:{
+				setSimulationEnded(false);
+				//If we are done with the last set of disembarkers
+				if((clockTick - drone.getDisembarkingStart()) > drone.getDisembarkingDuration()){
+					boolean disembarkingSome = (drone.getDisembarkers().size() > 0);
+					for(Person person:drone.getDisembarkers()){
+						drone.getDisembarkers().remove(person);
+						person.setState(PersonState.ARRIVED);
+						person.setEndTransitTime(clockTick);
+						person.setPosition(drone.getDestination().getPosition());
+						if(demand != null){
+							retire(person);
+						}
+						//Do something with person after they arrived
+						//drone.getDestination().getWaitingToEmbark().add(person);
+					}
+					if(disembarkingSome){
+						if(tells(drone,DroneEvent.DISEMBARKING_GROUP_END)){
+							drone.getController().droneDisembarkingGroupEnd(snapshot);
+						}
+					}
+					//Find all the people who still want to disembark
+					LinkedList<Person> waiting = new LinkedList<Person>();
+					synchronized(drone.getPassengers()){
+						for(Person person:drone.getPassengers()){
+							if((person.getDestination().equals(drone.getDestination())) || (PEOPLE_ALWAYS_DISEMBARK_DRONE)){
+								waiting.add(person);
+							}
+						}
+					}
+					if(waiting.size() == 0){
+						droneStartRecharging(drone);
+					}
+					else{
+						// Figure out how many people to unload
+						int nextDisembarkGroupSize = drone.getDisembarkingCapacity();
+						if(waiting.size() < nextDisembarkGroupSize){
+							nextDisembarkGroupSize = waiting.size();
+						}
+						if(nextDisembarkGroupSize == 0){
+							throw new IllegalArgumentException("We should have already accounted for all cases where this is 0");
+						}
+						else{
+							for(int i =0; i< nextDisembarkGroupSize; i++){
+								Person person = waiting.remove();
+								synchronized(drone.getPassengers()){
+									if(!drone.getPassengers().remove(person)){
+										throw new RuntimeException("Why didn't the person get removed?");
+									}
+								}
+								person.alight();
+								person.setState(PersonState.DISEMBARKING);
+								drone.getDisembarkers().add(person);
+							}
+							if(tells(drone,DroneEvent.DISEMBARKING_GROUP_START)){
+								drone.getController().droneDisembarkingGroupStart(snapshot);
+							}
+							drone.setDisembarkingStart(clockTick);
+						}
+					}
+				}
+			}
+			break;
+			case RECHARGING:{
+				setSimulationEnded(false);
+				
+				//If the controller has told the drone to leave
+				if(!drone.getStart().equals(drone.getDestination())){
+					if(tells(drone,DroneEvent.RECHARGING_END)){
+						drone.getController().droneRechargingEnd(snapshot);
+					}
+					if(!drone.getState().equals(DroneState.QUARANTINED)){
+						drone.setState(DroneState.BEGIN);
+					}
+				}
+				//The charge is worked out when it is read, so there is nothing to do until it is full or passes an alert level
+				else if(clockTick >= drone.getFleet().getRechargeEvent(drone.getSlot())){
+					if(drone.getFleet().getRechargedCharge(drone.getSlot(),clockTick) > 1.0){
+						drone.setCharge(1.0);
+						if(tells(drone,DroneEvent.RECHARGING_END)){
+							drone.getController().droneRechargingEnd(snapshot);
+						}
+						if(!drone.getState().equals(DroneState.QUARANTINED)){
+							drone.setState(DroneState.IDLING);
+						}
+					}
+					else{
+						drone.getFleet().setRechargeEvent(drone.getSlot(),nextRechargeEvent(drone));
+						if(tells(drone,DroneEvent.RECHARGING)){
+							drone.getController().droneRecharging(snapshot,drone.getCharge());
+						}
+					}
+				}
+			}
+			break;
+			case IDLING:{
+				setSimulationEnded(false);
+				
+				synchronized(drone.getPassengers()){
+					for(Person p: drone.getPassengers()){
+						p.setState(PersonState.IN_DRONE);
+					}
+				}
+				
+				if(!drone.getStart().equals(drone.getDestination())){
+					drone.setState(DroneState.BEGIN);
+				}
+				else{
+					if(tells(drone,DroneEvent.IDLING)){
+						drone.getController().droneIdling(snapshot);
+					}
+				}
+			}
+			break;
+			case DYING:{
+				setSimulationEnded(false);
+				synchronized(drone.getPassengers()){
+					for(Person p: drone.getPassengers()){
+						p.setState(PersonState.DEAD);
+					}
+				}
+				drone.setState(DroneState.DEAD);
+				if(tells(drone,DroneEvent.HAS_DIED)){
+					drone.getController().droneHasDied(snapshot);
+				}
+			}
+			break;
+			case DEAD:{
+				//simulationEnded = false;
+				//If all drones explode the simulation is ended
+			}
+			break;
+			case QUARANTINED:{
+				//simulationEnded = false;
+				//If all drones are quarantined by the simulator, the simulation is ended
+			}
+			break;
+			case IGNORED:{
+			}
+			break;
+			default:
+				throw new IllegalArgumentException("Unhandled Drone State: "+drone.getState());
+		}
+	}
+
+	
+	private void ascend(Drone drone, long timeToGo){
+		double percentage = timeToGo/(0.0+drone.getAscensionTime());
+		double currentHeight = TRANSIT_HEIGHT - percentage*TRANSIT_HEIGHT;
+		drone.setHeight(currentHeight);
+	}
+	
+	private void descend(Drone drone, long timeToGo){
+		double percentage = timeToGo/(0.0+drone.getDescensionTime());
+		double currentHeight = percentage*TRANSIT_HEIGHT;
+		drone.setHeight(currentHeight);
+	}
+	
+	private void doomPassengers(Drone drone){
+		synchronized(drone.getPassengers()){
+			for(Person p: drone.getPassengers()){
+				p.setState(PersonState.DYING);
+			}
+		}
+	}
+	
+	/**
+	 * How much charge a recharging drone gains in one tick
+	 */
+	private double chargeDelta(Drone drone){
+		return (tickSize/1000.0) * drone.getRechargeRate();
+	}
+	
+	/**
+	 * Work out the next tick after this one on which a recharging drone is full or passes one of the levels that controllers are told about
+	 * @return the tick, or NEVER if it doesn't recharge
+	 */
+	private long nextRechargeEvent(Drone drone){
+		FleetState fleet = drone.getFleet();
+		int slot = drone.getSlot();
+		double perTick = fleet.getRechargePerTick(slot);
+		if(perTick <= 0.0){
+			return EventScheduler.NEVER;
+		}
+		double now = fleet.getRechargedCharge(slot,clockTick);
+		double nextAlert = Double.MAX_VALUE;
+		for(int i = 0; i < CHARGE_ALERTS.length; i++){
+			if(now < CHARGE_ALERTS[i]){
+				nextAlert = Math.min(nextAlert, CHARGE_ALERTS[i]);
+			}
+		}
+		//Start from a guess and step to the first tick that gets there, on which the charge is worked out the same way it is read
+		long tick = clockTick + tickSize * Math.max(1L,(long) Math.ceil((Math.min(nextAlert,1.0) - now)/perTick));
+		while((tick - tickSize > clockTick) && reachesRechargeEvent(fleet,slot,tick - tickSize,nextAlert)){
+			tick -= tickSize;
+		}
+		while(!reachesRechargeEvent(fleet,slot,tick,nextAlert)){
+			tick += tickSize;
+		}
+		return tick;
+	}
+	
+	/**
+	 * @return true if a recharging drone is full or has reached the alert level on tick
+	 */
+	private static boolean reachesRechargeEvent(FleetState fleet, int slot, long tick, double nextAlert){
+		double charge = fleet.getRechargedCharge(slot,tick);
+		return (charge > 1.0) || (charge >= nextAlert);
+	}
+	
+	/**
+	 * How far the drone has to go from it's current position to it's destination in meters
+	 */
+	private double metersToGoal(Drone drone){
+		double metersToGoal = distanceMatrix.distance(drone.getLatitude(),drone.getLongitude(),drone.getDestination());
+		if(metersToGoal <= 0){
+			metersToGoal = 1;
+		}
+		return metersToGoal;
+	}
+	
+	/**
+	 * How far the drone flies in one tick
+	 */
+	private double metersPerTick(Drone drone){
+		return drone.getSpeed() * (tickSize /1000.0);
 	}
-
-
 	
 	public void end(String reason){
 		System.out.println("Simulation ending");
@@ -675,17 +1535,15 @@ public class Simulator {
 
 
 	private void droneStartRecharging(Drone drone) {
-		Drone cloneDrone = new Drone(drone);
-		drone.getController().droneDisembarkingEnd(cloneDrone);
-		if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-			drone.quarantine();
+		if(tells(drone,DroneEvent.DISEMBARKING_END)){
+			drone.getController().droneDisembarkingEnd(drone.snapshot());
 		}
-		else{
+		if(!drone.getState().equals(DroneState.QUARANTINED)){
 			drone.setState(DroneState.RECHARGING);
-			cloneDrone = new Drone(drone);
-			drone.getController().droneRechargingStart(cloneDrone);
-			if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-				drone.quarantine();
+			drone.getFleet().startRecharging(drone.getSlot(),clockTick,chargeDelta(drone));
+			drone.getFleet().setRechargeEvent(drone.getSlot(),nextRechargeEvent(drone));
+			if(tells(drone,DroneEvent.RECHARGING_START)){
+				drone.getController().droneRechargingStart(drone.snapshot());
 			}
 		}
 	}
@@ -693,41 +1551,33 @@ public class Simulator {
 
 
 	private void droneTakeOff(Drone drone){
-		Drone cloneDrone = new Drone(drone);
-		drone.getController().droneEmbarkingEnd(cloneDrone);
-		if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-			drone.quarantine();
+		if(tells(drone,DroneEvent.EMBARKING_END)){
+			drone.getController().droneEmbarkingEnd(drone.snapshot());
 		}
-		else{
+		if(!drone.getState().equals(DroneState.QUARANTINED)){
 			drone.setState(DroneState.ASCENDING);
 			
-			cloneDrone = new Drone(drone);
-			drone.getController().droneAscendingStart(cloneDrone);
-			if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-				drone.quarantine();
+			if(tells(drone,DroneEvent.ASCENDING_START)){
+				drone.getController().droneAscendingStart(drone.snapshot());
 			}
-			else{
+			if(!drone.getState().equals(DroneState.QUARANTINED)){
 				drone.setTransitStart(clockTick+drone.getAscensionTime());
 			}
 		}
 	}
 	
 	private void droneLand(Drone drone) {
-		Drone cloneDrone = new Drone(drone);
-		drone.getController().droneDescendingEnd(cloneDrone);
-		if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-			drone.quarantine();
+		if(tells(drone,DroneEvent.DESCENDING_END)){
+			drone.getController().droneDescendingEnd(drone.snapshot());
 		}
-		else{
+		if(!drone.getState().equals(DroneState.QUARANTINED)){
 			drone.setStart(drone.getDestination());
 			drone.setState(DroneState.DISEMBARKING);
 			
-			cloneDrone = new Drone(drone);
-			drone.getController().droneDisembarkingStart(cloneDrone);
-			if(cloneDrone.getState().equals(DroneState.QUARANTINED)){
-				drone.quarantine();
+			if(tells(drone,DroneEvent.DISEMBARKING_START)){
+				drone.getController().droneDisembarkingStart(drone.snapshot());
 			}
-			else{
+			if(!drone.getState().equals(DroneState.QUARANTINED)){
 				//Make sure that disembarking starts by setting the last disembark time to before the simulation started
 				drone.setDisembarkingStart(-drone.getDisembarkingDuration());
 			}
@@ -747,10 +1597,13 @@ public class Simulator {
 	}
 	
 	/**
-	 * Returns a copy of all the places in the simulation
+	 * Returns a copy of all the places in the simulation, a pipelined call back gets them as they were when the first one on the tick was made
 	 * @return
 	 */
 	public TreeSet<Place> getPlaces(){
+		if(callbackWorld.get() != null){
+			return callbackWorld.get().getPlaces();
+		}
 		TreeSet<Place> ret = new TreeSet<Place>();
 		if(places != null){
 			for(Place p: places){
@@ -761,26 +1614,33 @@ public class Simulator {
 	};
 	
 	/**
-	 * Returns a copy of all the drones in the simulation
+	 * Returns a read only snapshot of all the drones in the simulation, a pipelined call back gets them as they were when the first one on the tick was made
 	 * @return
 	 * @throws IllegalAccessException 
 	 * @throws InstantiationException 
 	 */
 	public TreeSet<Drone> getDrones(){ 
+		if(callbackWorld.get() != null){
+			return callbackWorld.get().getDrones();
+		}
 		TreeSet<Drone> ret = new TreeSet<Drone>();
 		if(drones != null){
 			for(Drone d: drones){
-				ret.add(new Drone(d));
+				ret.add(d.snapshot());
 			}
 		}
 		return ret;
 	};
 	
 	/**
-	 * Returns a copy of all the people in the simulation
+	 * Returns a copy of all the people in the simulation, except the ones who have arrived when people show up as it goes.
+	 * A pipelined call back gets them as they were when the first one on the tick was made.
 	 * @return
 	 */
 	public TreeSet<Person> getPeople(){
+		if(callbackWorld.get() != null){
+			return callbackWorld.get().getPeople();
+		}
 		TreeSet<Person> ret = new TreeSet<Person>();
 		if(people != null){
 			for(Person p: people){
@@ -792,6 +1652,121 @@ public class Simulator {
 	
 	
 
+	/**
+	 * @return what is left of the people who have arrived and stopped being kept track of
+	 */
+	public PassengerStatistics getPassengerStatistics(){
+		return retired;
+	}
+	
+	/**
+	 * Score each company, including the people who have arrived and stopped being kept track of
+	 * @return a map from company name to (score, total transit time of the delivered passengers)
+	 */
+	public Map<String, Pair<Integer,Long>> getScores(){
+		Map<String, Pair<Integer,Long>> ret = calculateScores(people);
+		for(Entry<String, Pair<Integer,Long>> e: retired.getScores().entrySet()){
+			ret.merge(e.getKey(),e.getValue(),(v1,v2) ->{return (new Pair<Integer,Long>(v1.getKey()+v2.getKey(),v1.getValue()+v2.getValue()));});
+		}
+		return ret;
+	}
+	
+	/**
+	 * How close each company's controller has come to running out of time on it's call backs
+	 * @return a map from company name to (calls that took more than half their time, calls that ran out of time)
+	 */
+	public Map<String, Pair<Long,Long>> getControllerDeadlines(){
+		Map<String, Pair<Long,Long>> ret = new TreeMap<String, Pair<Long,Long>>();
+		for(Entry<String,DroneControllerSafetyWrapper> e: getWrappedControllers()){
+			DroneControllerSafetyWrapper w = e.getValue();
+			ret.merge(e.getKey(),new Pair<Long,Long>(w.getNearMissCount(),w.getExpiredCount()),(v1,v2) ->{return (new Pair<Long,Long>(v1.getKey()+v2.getKey(),v1.getValue()+v2.getValue()));});
+		}
+		return ret;
+	}
+	
+	/**
+	 * How long each company's controller takes on each kind of call back.  This can be asked while the simulation is running.
+	 * @return a map from company name to call back to (how long calls waited to be started, how long they ran), in nanoseconds
+	 */
+	public Map<String, Map<String, Pair<LatencyHistogram,LatencyHistogram>>> getControllerLatencies(){
+		Map<String, Map<String, Pair<LatencyHistogram,LatencyHistogram>>> ret = new TreeMap<String, Map<String, Pair<LatencyHistogram,LatencyHistogram>>>();
+		for(Entry<String,DroneControllerSafetyWrapper> e: getWrappedControllers()){
+			Map<String, Pair<LatencyHistogram,LatencyHistogram>> company = ret.computeIfAbsent(e.getKey(),k -> new TreeMap<String, Pair<LatencyHistogram,LatencyHistogram>>());
+			Map<String,LatencyHistogram> running = e.getValue().getRunningLatency();
+			for(Entry<String,LatencyHistogram> w: e.getValue().getWaitingLatency().entrySet()){
+				Pair<LatencyHistogram,LatencyHistogram> p = company.computeIfAbsent(w.getKey(),k -> new Pair<LatencyHistogram,LatencyHistogram>(new LatencyHistogram(),new LatencyHistogram()));
+				p.getKey().add(w.getValue());
+				if(running.containsKey(w.getKey())){
+					p.getValue().add(running.get(w.getKey()));
+				}
+			}
+		}
+		return ret;
+	}
+	
+	/**
+	 * How much CPU time each company's controller has used.  This can be asked while the simulation is running.
+	 * @return a map from company name to nanoseconds
+	 */
+	public Map<String, Long> getControllerCpuTimes(){
+		Map<String, Long> ret = new TreeMap<String, Long>();
+		for(Entry<String,DroneControllerSafetyWrapper> e: getWrappedControllers()){
+			ret.merge(e.getKey(),e.getValue().getCpuTimeNanos(),Long::sum);
+		}
+		return ret;
+	}
+	
+	/**
+	 * How long the simulator has taken on each tick, not counting the time spent keeping pace with the wall clock.
+	 * Compare with getControllerLatencies to see whether time goes to the simulator or to a controller.
+	 */
+	public LatencyHistogram getTickLatency(){
+		return new LatencyHistogram(tickLatency);
+	}
+	
+	/**
+	 * @return how many times a tick has waited to keep pace with the wall clock, which headless runs never do
+	 */
+	long getPacingWaits(){
+		return pacingWaits;
+	}
+	
+	/**
+	 * @return each controller that is wrapped for safety once, with the company name of its drones
+	 */
+	private List<Entry<String,DroneControllerSafetyWrapper>> getWrappedControllers(){
+		List<Entry<String,DroneControllerSafetyWrapper>> ret = new ArrayList<Entry<String,DroneControllerSafetyWrapper>>();
+		Set<DroneController> counted = Collections.newSetFromMap(new IdentityHashMap<DroneController,Boolean>());
+		for(Drone d: drones){
+			if((d.getController() instanceof DroneControllerSafetyWrapper) && counted.add(d.getController())){
+				ret.add(new AbstractMap.SimpleImmutableEntry<String,DroneControllerSafetyWrapper>(d.getCompanyName(),(DroneControllerSafetyWrapper) d.getController()));
+			}
+		}
+		return ret;
+	}
+	
+	/**
+	 * @return how many people are in state right now
+	 */
+	public int getPersonCount(PersonState state){
+		return personStates.get(state);
+	}
+	
+	/**
+	 * @return how many drones are in state right now
+	 */
+	public int getDroneCount(DroneState state){
+		return droneStates.get(state);
+	}
+	
+	/**
+	 * Distances between places are looked up instead of calculated
+	 * @return the distances between all the places in the simulation
+	 */
+	public DistanceMatrix getDistanceMatrix(){
+		return distanceMatrix;
+	}
+	
 	/**
 	 * 
 	 * @return the current simulated clock time in milliseconds
@@ -800,7 +1775,13 @@ public class Simulator {
 		return clockTick;
 	}
 	
+	/**
+	 * @return the simulation controller, which a pipelined call back sees with random numbers of its own
+	 */
 	public SimulationController getSimulationController(){
+		if(callbackController.get() != null){
+			return callbackController.get();
+		}
 		return this.simulationController;
 	}
 	
@@ -825,10 +1806,291 @@ public class Simulator {
 
 
 
+	/******************************************************************/
+	/* Discrete event support */
+	
+	public boolean isEventDriven(){
+		return this.simulationController.getEngineMode() == EngineMode.DISCRETE_EVENT;
+	}
+	
+	/**
+	 * The first tick at or after time
+	 */
+	private long tickAtOrAfter(long time){
+		return -Math.floorDiv(-time,(long)tickSize)*tickSize;
+	}
+	
+	/**
+	 * The first tick strictly after time
+	 */
+	private long tickAfter(long time){
+		return tickAtOrAfter(time+1);
+	}
+	
+	/**
+	 * The tick on which the next scheduled event or arrival happens without going past the end of the simulation
+	 */
+	private long nextEventTick(){
+		long next = clockTick + tickSize;
+		//Fleet controllers are told on every tick, and drones that aren't busy are counted on every tick until one is quarantined
+		if(!fleetControllers.isEmpty() || (notBusyCount > 0)){
+			return next;
+		}
+		long scheduled = scheduler.peekTime();
+		//Someone showing up is an event too
+		if(demand != null){
+			long arrival = demand.getNextArrivalTime();
+			if(arrival != DemandSource.NEVER){
+				scheduled = Math.min(scheduled, tickAtOrAfter(arrival));
+			}
+		}
+		if((scheduled != EventScheduler.NEVER) && (scheduled > next)){
+			long end = tickAfter(getSimulationController().getSimulationEndTime());
+			next = Math.min(scheduled, Math.max(next, end));
+		}
+		return next;
+	}
+	
+	/**
+	 * For drones that are waiting on a timer, the tick on which the timer runs out
+	 */
+	private long timerEventTick(Drone drone){
+		switch(drone.getState()){
+			case EMBARKING:
+				return tickAfter(drone.getEmbarkingStart()+drone.getEmbarkingDuration());
+			case DISEMBARKING:
+				return tickAfter(drone.getDisembarkingStart()+drone.getDisembarkingDuration());
+			case ASCENDING:
+				return tickAtOrAfter(drone.getTransitStart());
+			case DESCENDING:
+			case EXPLODING:
+				return tickAtOrAfter(drone.getTransitEnd());
+			default:
+				throw new IllegalArgumentException("Drone isn't waiting on a timer: "+drone.getState());
+		}
+	}
+	
+	/**
+	 * Predict the next tick on which a drone needs to be looked at. For flying and recharging drones this is
+	 * an underestimate, if nothing has happened by then it will be looked at and predicted again.
+	 * @param drone, a drone that was just brought up to date on this tick
+	 * @return a tick in the future or NEVER
+	 */
+	private long predictNextEvent(Drone drone){
+		long next = clockTick + tickSize;
+		//Fleet controllers hear about their drones on every tick
+		if(fleetControllers.containsKey(drone.getController())){
+			return next;
+		}
+		switch(drone.getState()){
+			case EMBARKING:
+			case DISEMBARKING:
+			case ASCENDING:
+			case DESCENDING:
+			case EXPLODING:
+				return Math.max(next, timerEventTick(drone));
+			case IN_TRANSIT:{
+				//A controller that wants to hear how the trip is going is told on every tick
+				if(wants(drone,DroneEvent.TRANSITING)){
+					return next;
+				}
+				double metersPerTick = metersPerTick(drone);
+				double quietTicks = metersToGoal(drone)/metersPerTick;
+				if(DRONES_RUN_OUT_OF_CHARGE){
+					quietTicks = Math.min(quietTicks, drone.getCharge()/(metersPerTick*drone.getDischargeRate()));
+				}
+				return next + tickSize * (long)(SKIP_MARGIN*quietTicks);
+			}
+			case RECHARGING:
+				if(!drone.getStart().equals(drone.getDestination())){
+					return next;
+				}
+				//Worked out exactly when it started recharging
+				return Math.max(next, drone.getFleet().getRechargeEvent(drone.getSlot()));
+			case IDLING:
+				//An idle drone that has been sent somewhere leaves on the next tick, otherwise only its controller might want to hear from it
+				if(!drone.getStart().equals(drone.getDestination()) || wants(drone,DroneEvent.IDLING)){
+					return next;
+				}
+				//Routing it wakes it up
+				return EventScheduler.NEVER;
+			case DEAD:
+			case QUARANTINED:
+			case IGNORED:
+				return EventScheduler.NEVER;
+			default:
+				return next;
+		}
+	}
+	
+	/**
+	 * Bring all the scheduled drones up to the tick before this one without calling their controllers, so that each one can be
+	 * brought through this tick when its turn comes.  Drones that turn out to need attention sooner than predicted are added
+	 * to the due drones.
+	 * @param due, the drones that have an event on this tick
+	 * @return the drones to update on this tick
+	 */
+	private Set<Drone> catchUp(List<Drone> due){
+		Set<Drone> ret = Collections.newSetFromMap(new IdentityHashMap<Drone,Boolean>());
+		for(Drone drone: due){
+			replayUntil(drone,clockTick - tickSize);
+			ret.add(drone);
+		}
+		for(Drone drone: drones){
+			if(drone.getNextEventTime() != EventScheduler.NEVER){
+				if(!replayUntil(drone,clockTick - tickSize)){
+					drone.setNextEventTime(EventScheduler.NEVER);
+					ret.add(drone);
+				}
+			}
+		}
+		return ret;
+	}
+	
+	/**
+	 * Go through the drones in the order that the fixed tick loop would update them in.  Drones that are due are updated,
+	 * scheduled drones that aren't due are brought through this tick without calling their controllers, and drones that a
+	 * call back wakes up before their turn are updated when it comes, the same as they would be on a fixed tick.
+	 * @param order, all of the drones, shuffled
+	 * @param due, the drones that have an event on this tick
+	 * @return the drones that were updated, in the order they were updated in
+	 */
+	private List<Drone> updateDue(List<Drone> order, Set<Drone> due){
+		List<Drone> ret = new ArrayList<Drone>(due.size());
+		List<Drone> late = new ArrayList<Drone>();
+		for(Drone drone: order){
+			takeWakeRequests(due,late);
+			boolean update = due.contains(drone);
+			if(!update && (drone.getNextEventTime() != EventScheduler.NEVER)){
+				update = !replayUntil(drone,clockTick);
+			}
+			if(update){
+				updateDrone(drone);
+				ret.add(drone);
+			}
+			drone.setLastUpdateTime(clockTick);
+		}
+		takeWakeRequests(due,late);
+		//Drones that were woken after their turn are looked at on the next tick
+		for(Drone drone: late){
+			scheduler.wake(drone);
+		}
+		return ret;
+	}
+	
+	/**
+	 * Sort the drones that call backs have woken up into the ones whose turn on this tick hasn't come yet and the ones whose has
+	 */
+	private void takeWakeRequests(Set<Drone> due, List<Drone> late){
+		Drone drone;
+		while((drone = scheduler.pollWakeRequest()) != null){
+			if(drone.getLastUpdateTime() < clockTick){
+				due.add(drone);
+			}
+			else{
+				late.add(drone);
+			}
+		}
+	}
+	
+	/**
+	 * Draw the random numbers that shuffling the drones on each skipped tick would have, so that an event driven simulation
+	 * goes on with the same random numbers, and the same order of drones, as one that stops on every tick
+	 */
+	private void skipShuffles(long ticks){
+		Random random = simulationController.getRandom();
+		int size = drones.size();
+		for(long t = 0; t < ticks; t++){
+			for(int i = size; i > 1; i--){
+				random.nextInt(i);
+			}
+		}
+	}
+	
+	/**
+	 * Do what the fixed tick loop would have done to a drone on the ticks since it was last updated, leaving out the controller call backs
+	 * @param drone
+	 * @param until, the last tick to replay
+	 * @return false if the drone changes state before until and needs to be processed normally
+	 */
+	private boolean replayUntil(Drone drone, long until){
+		long tick = drone.getLastUpdateTime() + tickSize;
+		switch(drone.getState()){
+			case IN_TRANSIT:{
+				if(until < tick){
+					return true;
+				}
+				int ticks = (int)((until - tick)/tickSize) + 1;
+				int flown = drone.getFleet().fly(drone.getSlot(),ticks,drone.getStart(),drone.getDestination(),distanceMatrix,metersPerTick(drone),TRANSIT_HEIGHT,DRONES_RUN_OUT_OF_CHARGE);
+				if(flown > 0){
+					drone.setLastUpdateTime(drone.getLastUpdateTime() + flown*(long)tickSize);
+				}
+				return flown == ticks;
+			}
+			case RECHARGING:{
+				//The charge is worked out when it is read, so only a drone that has been sent somewhere has anything to catch up on
+				if(!drone.getStart().equals(drone.getDestination())){
+					return until < tick;
+				}
+				long event = drone.getFleet().getRechargeEvent(drone.getSlot());
+				long last = Math.min(until, event - tickSize);
+				if(last >= tick){
+					drone.setLastUpdateTime(last);
+				}
+				return until < event;
+			}
+			case EMBARKING:
+			case DISEMBARKING:
+			case ASCENDING:
+			case DESCENDING:
+			case EXPLODING:{
+				long event = timerEventTick(drone);
+				long last = Math.min(until, event - tickSize);
+				if(last >= tick){
+					if(drone.getState() == DroneState.ASCENDING){
+						ascend(drone,drone.getTransitStart() - last);
+					}
+					else if(drone.getState() == DroneState.DESCENDING){
+						descend(drone,drone.getTransitEnd() - last);
+					}
+					else if(drone.getState() == DroneState.EXPLODING){
+						doomPassengers(drone);
+						descend(drone,drone.getTransitEnd() - last);
+					}
+					drone.setLastUpdateTime(last);
+				}
+				return until < event;
+			}
+			default:
+				//Everything else is either finished or has to be looked at every tick
+				return until < tick;
+		}
+	}
+	
+	
 	/******************************************************************/
 	/* Set up the simulation */
 
-	private static Set<Place> loadPlaces(SimulationController simulationController) {
+	static final String[] FIRST_NAMES = {"Yevgeny", "Will", "Benjamin", "Sam", "Sarah", "Samuel", "Nick", "Nathan", "Morgan", "Meghan", "Livingstone", "Lauren", "Kate", "Eli", "Joshua", "Jill", "Isaac", "Hannah", "Harrison", "Grant", "Griffin", "Derek", "David Ponce De", "David", "Darian", "Davis", "Connor", "Brycyn", "Bailey", "Anne Monique", "Amelia", "Allie", "Andrew"};
+	
+	static final String[] LAST_NAMES = {"Krahn", "Peterson", "Ubben", "Uwamahoro", "Fong", "Gossett", "Rogstad", "Peterson", "Choi", "Oyebade", "Leon", "Shoring", "Brown", "Oswald", "Bruggeman", "Desoto", "Jessop", "Ludwig", "Nielsen", "Tiao", "Ohara", "Landa", "Rwagatare", "Nugent", "Veth", "Colwell", "Taylor", "An", "Bean", "Tang", "Yeom", "Fittipaldi", "Beams"};
+	
+	/**
+	 * @return how many people the i'th of count drones for a controller can carry
+	 */
+	static int droneCapacity(int i, int count){
+		if(!DRONE_CAPACITY_VARIES){
+			return DRONE_MAX_CAPACITY;
+		}
+		int capacity = count - i;
+		if(capacity > DRONE_MAX_CAPACITY){
+			capacity = capacity % (DRONE_MAX_CAPACITY);
+			capacity++;
+		}
+		return capacity;
+	}
+
+	static Set<Place> loadPlaces(SimulationController simulationController) {
 		// Start with 10 basic locations
 		Set<Place> ret = new TreeSet<Place>();
 		ret.add(new Place("Winter Hall",new Position(34.448868,-119.6629439,0)));
@@ -888,11 +2150,12 @@ public class Simulator {
 			ret.add(new Place(""+ret.size(),new Position(lat,longi,0)));
 		}
 		
+		Place.assignIds(ret);
 		
 		return ret;
 	}
 
-	private static Set<Drone> loadDrones(Set<Place> places,DroneController controller,Random r) {
+	static Set<Drone> loadDrones(Set<Place> places,DroneController controller,Random r) {
 		
 		if((places == null) || (places.size() == 0)){
 			throw new IllegalArgumentException("Places is badly formed");
@@ -907,18 +2170,7 @@ public class Simulator {
 			//Start all drones at the same spot
 			Place thePlace = places.iterator().next();
 			
-			Drone drone;
-			if(DRONE_CAPACITY_VARIES){
-				int capacity = MAX_DRONES_PER_CONTROLLER - i;
-				if(capacity > DRONE_MAX_CAPACITY){
-					capacity = capacity % (DRONE_MAX_CAPACITY);
-					capacity++;
-				}
-				drone = new Drone(controller,thePlace,thePlace,capacity,r);
-			}
-			else{
-				drone = new Drone(controller,thePlace,thePlace,DRONE_MAX_CAPACITY,r);
-			}
+			Drone drone = new Drone(controller,thePlace,thePlace,droneCapacity(i,MAX_DRONES_PER_CONTROLLER),r);
 			drone.setState(DroneState.IDLING);
 			ret.add(drone);
 		}
@@ -926,18 +2178,14 @@ public class Simulator {
 		return (ret);
 	}
 
-	private static Set<Person> loadPeople(Set<Place> places, Random random) {
+	static Set<Person> loadPeople(Set<Place> places, Random random) {
 		ArrayList<Place> randomizePlaces = new ArrayList<Place>();
 		randomizePlaces.addAll(places);
 		Collections.shuffle(randomizePlaces,random);
 		
-		String[] namesFirst = {"Yevgeny", "Will", "Benjamin", "Sam", "Sarah", "Samuel", "Nick", "Nathan", "Morgan", "Meghan", "Livingstone", "Lauren", "Kate", "Eli", "Joshua", "Jill", "Isaac", "Hannah", "Harrison", "Grant", "Griffin", "Derek", "David Ponce De", "David", "Darian", "Davis", "Connor", "Brycyn", "Bailey", "Anne Monique", "Amelia", "Allie", "Andrew"};
-
-		List<String> randomizeFirst = Arrays.asList(namesFirst);
+		List<String> randomizeFirst = Arrays.asList(FIRST_NAMES);
 		
-		String[] namesLast = {"Krahn", "Peterson", "Ubben", "Uwamahoro", "Fong", "Gossett", "Rogstad", "Peterson", "Choi", "Oyebade", "Leon", "Shoring", "Brown", "Oswald", "Bruggeman", "Desoto", "Jessop", "Ludwig", "Nielsen", "Tiao", "Ohara", "Landa", "Rwagatare", "Nugent", "Veth", "Colwell", "Taylor", "An", "Bean", "Tang", "Yeom", "Fittipaldi", "Beams"};
-
-		List<String> randomizeLast = Arrays.asList(namesLast);
+		List<String> randomizeLast = Arrays.asList(LAST_NAMES);
 
 		Set<Person> ret = new TreeSet<Person>();
 		for (int i = 0; i < MAX_PEOPLE; i++) {
@@ -950,7 +2198,7 @@ public class Simulator {
 			int last = random.nextInt(randomizeLast.size());
 
 			Person person = new Person("" + i, randomizeFirst.get(first) + " " + randomizeLast.get(last), randomizePlaces.get(start), randomizePlaces.get(start).getPosition(), randomizePlaces.get(end), PersonState.WAITING);
-			randomizePlaces.get(start).getWaitingToEmbark().add(person);
+			randomizePlaces.get(start).addWaitingToEmbark(person);
 			ret.add(person);
 		}
 
@@ -970,40 +2218,40 @@ public class Simulator {
 		Random randomSource = simController.getRandom();
 		
 		//Add each companies drones here
-		drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneController(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerYeom(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerTiao(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerNickTaylor(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerTang(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerShoring(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerLivingstone(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerRogstad(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerDavisPeterson(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerAlliePeterson(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerDavidO(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerKate(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerNugent(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerNielsen(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerDavidPonceDeLeon(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerLaurAnne(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerAkrahn(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerIsaacJessop(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerBrycyn(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerBaileyDarian(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerFittipaldi(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerDeSoto(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerBruggeman(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerBrown(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerBeanLudwig(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerBeams(),simController.shouldQuarantineDrones()),randomSource));
-		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerSamuelAn(),simController.shouldQuarantineDrones()),randomSource));
+		drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneController(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerYeom(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerTiao(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerNickTaylor(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerTang(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerShoring(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerLivingstone(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerRogstad(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerDavisPeterson(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerAlliePeterson(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerDavidO(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerKate(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerNugent(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerNielsen(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerDavidPonceDeLeon(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerLaurAnne(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerAkrahn(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerIsaacJessop(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerBrycyn(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerBaileyDarian(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerFittipaldi(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerDeSoto(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerBruggeman(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerBrown(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerBeanLudwig(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerBeams(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
+		//drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new MyDroneControllerSamuelAn(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource));
 		
 		//Add reference drones here
-		drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new Borg(),simController.shouldQuarantineDrones()),randomSource)); //Professor's Controller
-		drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new DistanceAwarePromiscuousDroneController(),simController.shouldQuarantineDrones()),randomSource)); //Professor's Controller
-		drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new GreedyDroneController(),simController.shouldQuarantineDrones()),randomSource)); //Professor's Controller
-		drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new PromiscuousDroneController(),simController.shouldQuarantineDrones()),randomSource)); //Professor's Controller
-		drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new RandomDroneController(),simController.shouldQuarantineDrones()),randomSource)); //Professor's Controller
+		drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new Borg(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource)); //Professor's Controller
+		drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new DistanceAwarePromiscuousDroneController(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource)); //Professor's Controller
+		drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new GreedyDroneController(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource)); //Professor's Controller
+		drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new PromiscuousDroneController(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource)); //Professor's Controller
+		drones.addAll(loadDrones(places,new DroneControllerSafetyWrapper(new RandomDroneController(),simController.shouldQuarantineDrones(),simController.getDispatchMode()),randomSource)); //Professor's Controller
 		
 		//Generate people
 		Set<Person> people = loadPeople(places,randomSource);
@@ -1011,6 +2259,13 @@ public class Simulator {
 		//Build simulator
 		Simulator simulator = new Simulator(simController,people,places,drones);
 		
+		//Without a visualizer just run the simulation as fast as possible
+		if(simulator.isHeadless()){
+			simulator.start();
+			calculateWinners(people,drones, simulator.getClockTick());
+			return;
+		}
+		
 		//Attach simulation to a visualizer
 		Visualizer visualization = new Visualizer(simulator,people,places,drones);
 		
@@ -1026,13 +2281,40 @@ public class Simulator {
 
 
 
+	/**
+	 * Score each company, one point for each passenger it delivered and minus one for each passenger it picked up and didn't deliver
+	 * @param people
+	 * @return a map from company name to (score, total transit time of the delivered passengers)
+	 */
+	static Map<String, Pair<Integer,Long>> calculateScores(Collection<Person> people){
+		HashMap<String, Pair<Integer,Long>> total = new HashMap<String,Pair<Integer,Long>>();
+		for(Person p: people){
+			score(p,total);
+		}
+		return total;
+	}
+	
+	/**
+	 * Add one person to the scores in total
+	 */
+	static void score(Person p, Map<String, Pair<Integer,Long>> total){
+		if(p.getState().equals(PersonState.ARRIVED)){
+			//Score goes up by one for delivering a passenger
+			total.merge(p.deliveryCompany,new Pair<Integer,Long>(1,p.getEndTransitTime()-p.getStartTransitTime()),(v1,v2) ->{return (new Pair<Integer,Long>(v1.getKey()+v2.getKey(),v1.getValue()+v2.getValue()));});
+		}
+		else if(!p.getState().equals(PersonState.WAITING)){
+			//Score goes down by one for anything else if the passenger was associated with you
+			total.merge(p.deliveryCompany,new Pair<Integer,Long>(-1,0L),(v1,v2) ->{return (new Pair<Integer,Long>(v1.getKey()+v2.getKey(),v1.getValue()+v2.getValue()));});
+		}
+	}
+
 	private static void calculateWinners(Set<Person> people,Set<Drone> drones, Long timeElapsed) {
 		//Aggregate scores
 		Set<Person> waiting = new HashSet<Person>();
 		HashMap<String, Pair<Integer,Long>> delivered = new HashMap<String,Pair<Integer,Long>>();
 		HashMap<String, Pair<Integer,Long>> dead = new HashMap<String,Pair<Integer,Long>>();
 		HashMap<String, Pair<Integer,Long>> quarantined = new HashMap<String,Pair<Integer,Long>>();
-		HashMap<String, Pair<Integer,Long>> total = new HashMap<String,Pair<Integer,Long>>();
+		Map<String, Pair<Integer,Long>> total = calculateScores(people);
 		HashMap<String, Pair<Integer,Long>> onboard = new HashMap<String,Pair<Integer,Long>>();
 		HashMap<String, Pair<Integer,Long>> misc = new HashMap<String,Pair<Integer,Long>>();
 		for(Person p: people){
@@ -1041,13 +2323,8 @@ public class Simulator {
 			}
 			else if(p.getState().equals(PersonState.ARRIVED)){
 				delivered.merge(p.deliveryCompany,new Pair<Integer,Long>(1,p.getEndTransitTime()-p.getStartTransitTime()),(v1,v2) ->{return (new Pair<Integer,Long>(v1.getKey()+v2.getKey(),v1.getValue()+v2.getValue()));});
-				//Score goes up by one for delivering a passenger
-				total.merge(p.deliveryCompany,new Pair<Integer,Long>(1,p.getEndTransitTime()-p.getStartTransitTime()),(v1,v2) ->{return (new Pair<Integer,Long>(v1.getKey()+v2.getKey(),v1.getValue()+v2.getValue()));});
 			}
 			else {
-				//Score goes down by one for anything else if the passenger was associated with you
-				total.merge(p.deliveryCompany,new Pair<Integer,Long>(-1,0L),(v1,v2) ->{return (new Pair<Integer,Long>(v1.getKey()+v2.getKey(),v1.getValue()+v2.getValue()));});
-				
 				if(p.getState().equals(PersonState.QUARANTINED)){
 					quarantined.merge(p.deliveryCompany,new Pair<Integer,Long>(1,0L),(v1,v2) ->{return (new Pair<Integer,Long>(v1.getKey()+v2.getKey(),v1.getValue()+v2.getValue()));});
 				}
@@ -1215,6 +2492,44 @@ public class Simulator {
 	/********************************************************************************/
 	//These are the things that the student controller is supposed to be able to call
 	
+	/**
+	 * @return the drone in the simulation with the same id as drone, or null
+	 */
+	Drone findDrone(DroneView drone){
+		if((drone == null) || (drone.getId() == null)){
+			return null;
+		}
+		return dronesById.get(drone.getId());
+	}
+	
+	/**
+	 * @return the place in the simulation with this id, or null
+	 */
+	private Place findPlace(int id){
+		if((id < 0) || (id >= placesById.length)){
+			return null;
+		}
+		return placesById[id];
+	}
+	
+	/**
+	 * @return the place in the simulation that is the same as place, or null
+	 */
+	private Place findPlace(Place place){
+		if(place == null){
+			return null;
+		}
+		Place ret = findPlace(place.getId());
+		if((ret == null) || (!ret.getName().equals(place.getName()))){
+			ret = placesByName.get(place.getName());
+		}
+		//Places that controllers make themselves don't have ids and are matched by name and position
+		if((ret == null) || !((place.getId() == Place.UNASSIGNED) ? ret.hasNameAndPosition(place) : ret.equals(place))){
+			return null;
+		}
+		return ret;
+	}
+	
 	/**
 	 * MyController derivative classes call this function to send a drone to a new destination
 	 * @param drone
@@ -1228,19 +2543,62 @@ public class Simulator {
 	 * Convenience method to refer to a place by a string
 	 */
 	public void routeDrone(Drone drone, String place) {
-		boolean success = false;
-		for(Drone d:drones){
-			if(d.getId().equals(drone.getId())){
-				for(Place p: places){
-					if(p.getName().equals(place)){
-						d.setDestination(p);
-						success = true;
-					}
-				}
-			}
+		route(findDrone(drone),placesByName.get(place),drone,place);
+	}
+	
+	/**
+	 * Convenience method to refer to a place by its id
+	 */
+	public void routeDrone(Drone drone, int placeId) {
+		route(findDrone(drone),findPlace(placeId),drone,placeId);
+	}
+	
+	private void route(Drone d, Place p, Drone drone, Object place){
+		if((d == null) || (p == null)){
+			throw new IllegalArgumentException("Unable to find a drone with id:"+((drone == null) ? null : drone.getId())+" and/or a place called:"+place);
+		}
+		if(commands != null){
+			commands.add(d.getSlot(),() -> {setDestination(d,p);});
+		}
+		else{
+			setDestination(d,p);
+		}
+	}
+	
+	private void setDestination(Drone d, Place p){
+		if(journal != null){
+			journal.route(clockTick,turn,d,p);
 		}
-		if(!success){
-			throw new IllegalArgumentException("Unable to find a drone with id:"+drone.getId()+" and/or a place called:"+place);
+		d.setDestination(p);
+		if(scheduler != null){
+			scheduler.wake(d);
+		}
+	}
+	
+	/**
+	 * MyController derivative classes call this function to keep an idling drone where it is, taking back a route it was given
+	 * that it hasn't started on yet.  This is mostly useful for pipelined controllers, whose routes aren't carried out until the next tick.
+	 * @param drone
+	 */
+	public void holdDrone(Drone drone) {
+		Drone d = findDrone(drone);
+		if(d == null){
+			throw new IllegalArgumentException("Unable to find a drone with id:"+((drone == null) ? null : drone.getId()));
+		}
+		if(commands != null){
+			commands.add(d.getSlot(),() -> {hold(d);});
+		}
+		else{
+			hold(d);
+		}
+	}
+	
+	private void hold(Drone d){
+		if(journal != null){
+			journal.hold(clockTick,turn,d);
+		}
+		if(d.getState().equals(DroneState.IDLING)){
+			d.setDestination(d.getStart());
 		}
 	}
 	
@@ -1251,31 +2609,34 @@ public class Simulator {
 	 * @param placeManifest, a set of places that you want to tell the passengers you intend to go to in case you have to make a stop on the way
 	 */
 	public void setDroneManifest(Drone drone, Set<Place> placeManifest) {
-		boolean success = false;
-		Set<Place> validatedManifest = new TreeSet<Place>();
+		Drone d = findDrone(drone);
+		if(d == null){
+			throw new IllegalArgumentException("Unable to find a drone with id:"+((drone == null) ? null : drone.getId()));
+		}
 		
-		if(drone != null){
-			if((placeManifest == null) || (placeManifest.size() == 0)){
-				drone.setManifest(validatedManifest);
-				success = true;
-			}
-			else{
-				for(Place p: places){
-					if(placeManifest.contains(p)){
-						validatedManifest.add(p);
-					}
+		//Only places that are in the simulation make it onto the manifest
+		Set<Place> validatedManifest = new Manifest();
+		if(placeManifest != null){
+			for(Place p: placeManifest){
+				Place found = findPlace(p);
+				if(found != null){
+					validatedManifest.add(found);
 				}
-				for(Drone d:drones){
-					if(d.getId().equals(drone.getId())){
-						d.setManifest(validatedManifest);
-						success = true;
-					}
-				}	
 			}
 		}
-		if(!success){
-			throw new IllegalArgumentException("Unable to find a drone with id:"+drone.getId());
+		if(commands != null){
+			commands.add(d.getSlot(),() -> {setManifest(d,validatedManifest);});
+		}
+		else{
+			setManifest(d,validatedManifest);
+		}
+	}
+	
+	private void setManifest(Drone d, Set<Place> manifest){
+		if(journal != null){
+			journal.manifest(clockTick,turn,d,manifest);
 		}
+		d.setManifest(manifest);
 	}
 	
 	/**
@@ -1284,11 +2645,10 @@ public class Simulator {
 	 * @param placeManifest, where you tell the passengers you are going
 	 */
 	public void setDroneManifest(Drone drone, String placeManifest) {
-		TreeSet<Place> helper = new TreeSet<Place>();
-		for(Place p: places) {
-			if(p.getName().equals(placeManifest)) {
-				helper.add(p);
-			}
+		Set<Place> helper = new Manifest();
+		Place p = placesByName.get(placeManifest);
+		if(p != null) {
+			helper.add(p);
 		}
 		setDroneManifest(drone,helper);
 	}
@@ -1299,10 +2659,27 @@ public class Simulator {
 	 * @param placeManifest, where you tell the passengers you are going
 	 */
 	public void setDroneManifest(Drone drone, Place placeManifest) {
-		TreeSet<Place> helper = new TreeSet<Place>();
-		for(Place p: places) {
-			if(p.equals(placeManifest)) {
-				helper.add(p);
+		Set<Place> helper = new Manifest();
+		Place p = findPlace(placeManifest);
+		if(p != null) {
+			helper.add(p);
+		}
+		setDroneManifest(drone,helper);
+	}
+	
+	/**
+	 * This is just an overloaded version of the set manifest for places referred to by id
+	 * @param drone
+	 * @param placeIds, the ids of the places where you tell the passengers you are going
+	 */
+	public void setDroneManifest(Drone drone, int... placeIds) {
+		Set<Place> helper = new Manifest();
+		if(placeIds != null){
+			for(int id: placeIds){
+				Place p = findPlace(id);
+				if(p != null) {
+					helper.add(p);
+				}
 			}
 		}
 		setDroneManifest(drone,helper);
@@ -2,9 +2,16 @@ package simulator;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -19,10 +26,22 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import reference.DroneControllerSkeleton;
+import reference.FleetControllerSkeleton;
+import reference.MyDroneController;
 import reference.MySimulationController;
+import robodrones.GreedyDroneController;
+import robodrones.RandomDroneController;
+import simulator.enums.ControllerMode;
+import simulator.enums.DispatchMode;
+import simulator.enums.DroneEvent;
 import simulator.enums.DroneState;
+import simulator.enums.EngineMode;
 import simulator.enums.PersonState;
+import simulator.interfaces.Checkpointable;
+import simulator.interfaces.DemandSource;
 import simulator.interfaces.DroneController;
+import simulator.interfaces.DroneView;
+import simulator.interfaces.SimulationController;
 
 public class SimulatorTest {
 
@@ -141,7 +160,7 @@ public class SimulatorTest {
 			int last = random.nextInt(randomizeLast.size());
 			
 			Person person = new Person(""+i,randomizeFirst.get(first)+" "+randomizeLast.get(last),randomizePlaces.get(start),randomizePlaces.get(start).getPosition(),randomizePlaces.get(end),PersonState.WAITING);
-			randomizePlaces.get(start).getWaitingToEmbark().add(person);
+			randomizePlaces.get(start).addWaitingToEmbark(person);
 			ret.add(person);
 		}
 		
@@ -164,6 +183,53 @@ public class SimulatorTest {
 		
 	}
 
+	// Create a class to run the simulator without a visualization
+	static class TestHeadless_SimulationController extends TestManifest_SimulationController {
+		
+		static final int TICK_SIZE = 250;
+
+		@Override
+		public boolean isHeadless() {
+			return true;
+		}
+
+		@Override
+		public int getSimulatorTickSize() {
+			return TICK_SIZE;
+		}
+		
+	}
+
+	// Create a class to run the simulator without a visualization that only stops on ticks where something happens
+	static class TestEventDriven_SimulationController extends TestHeadless_SimulationController {
+		
+		@Override
+		public EngineMode getEngineMode() {
+			return EngineMode.DISCRETE_EVENT;
+		}
+		
+	}
+
+	// Create a class to run the simulator without a visualization that doesn't wait on controllers
+	static class TestPipelined_SimulationController extends TestHeadless_SimulationController {
+		
+		@Override
+		public ControllerMode getControllerMode() {
+			return ControllerMode.PIPELINED;
+		}
+		
+	}
+
+	// Create a class to run the simulator without a visualization that only stops on ticks where something happens and doesn't wait on controllers
+	static class TestEventDrivenPipelined_SimulationController extends TestEventDriven_SimulationController {
+		
+		@Override
+		public ControllerMode getControllerMode() {
+			return ControllerMode.PIPELINED;
+		}
+		
+	}
+
 	// Create a class to test the drones
 	static class TestManifest_DroneController extends DroneControllerSkeleton {
 		
@@ -322,4 +388,926 @@ public class SimulatorTest {
 		}
 	}
 
+	
+	@Test
+	//This test is to make sure that controllers can refer to drones and places by name or id
+	public void testCommands() {
+		SimulationTestParameters simParams = new SimulationTestParameters(2,1,0);
+		MySimulationController simController = new TestManifest_SimulationController();
+		Set<Place> places = loadTestPlaces();
+		TestManifest_DroneController controller = new TestManifest_DroneController(simParams);
+		Set<Drone> drones = loadTestDrones(simParams,places,controller);
+		Simulator simulator = new Simulator(simController,null,places,drones);
+		
+		//Places are numbered in order
+		int i = 0;
+		for(Place p: simulator.getPlaces()){
+			assertEquals(i++,p.getId());
+		}
+		
+		Drone drone = simulator.getDrones().first();
+		Place dogBeach = null;
+		Place sbcc = null;
+		for(Place p: simulator.getPlaces()){
+			if(p.getName().equals("Dog Beach")){
+				dogBeach = p;
+			}
+			if(p.getName().equals("SBCC")){
+				sbcc = p;
+			}
+		}
+		
+		simulator.routeDrone(drone,dogBeach.getId());
+		assertEquals("Dog Beach",simulator.getDrones().first().getDestination().getName());
+		simulator.routeDrone(drone,"SBCC");
+		assertEquals("SBCC",simulator.getDrones().first().getDestination().getName());
+		
+		simulator.setDroneManifest(drone,dogBeach.getId(),sbcc.getId());
+		Set<Place> manifest = simulator.getDrones().first().getManifest();
+		assertEquals(2,manifest.size());
+		assertTrue(manifest.contains(dogBeach));
+		assertTrue(manifest.contains(sbcc));
+		
+		//Places that aren't in the simulation are left off
+		Set<Place> request = new TreeSet<Place>();
+		request.add(new Place("Dog Beach",dogBeach.getPosition()));
+		request.add(new Place("Nowhere",new Position(0,0,0)));
+		simulator.setDroneManifest(drone,request);
+		manifest = simulator.getDrones().first().getManifest();
+		assertEquals(1,manifest.size());
+		assertTrue(manifest.contains(dogBeach));
+		
+		//Holding an idling drone takes back its route
+		simulator.holdDrone(drone);
+		assertEquals(simulator.getDrones().first().getStart(),simulator.getDrones().first().getDestination());
+		
+		//Clearing the manifest changes the drone in the simulation
+		simulator.setDroneManifest(drone,new TreeSet<Place>());
+		assertEquals(0,simulator.getDrones().first().getManifest().size());
+		
+		try{
+			simulator.routeDrone(drone,places.size());
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		try{
+			simulator.routeDrone(drone,"Nowhere");
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		Drone stranger = new Drone(controller,dogBeach,dogBeach,1,new Random(0));
+		try{
+			simulator.routeDrone(stranger,dogBeach.getId());
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		try{
+			simulator.setDroneManifest(stranger,dogBeach.getId());
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		try{
+			simulator.holdDrone(stranger);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+	}
+
+	@Test
+	//This test is to make sure that a headless simulation runs to completion without waiting on the wall clock
+	public void testHeadless() {
+		//Set up the simulation parameters
+		int maxDronesPerController = 5;
+		int droneCapacity = 1;
+		int maxPeople = 100;
+		SimulationTestParameters simParams = new SimulationTestParameters(maxDronesPerController,droneCapacity,maxPeople);
+		
+		//Make a simulation controller
+		MySimulationController simController = new TestHeadless_SimulationController();
+		
+		//Generate the places
+		Set<Place> places = loadTestPlaces();
+		
+		//Generate the drones
+		Set<Drone> drones = new TreeSet<Drone>();
+		TestManifest_DroneController controller = new TestManifest_DroneController(simParams);
+		drones.addAll(loadTestDrones(simParams,places,controller));
+		
+		//Generate people
+		Set<Person> people = loadTestPeople(simParams,simController.getRandom(),places);
+		
+		//Build simulator
+		Simulator simulator = new Simulator(simController,people,places,drones);
+		assertTrue(simulator.isHeadless());
+		
+		//Run it on this thread, it has to finish on it's own
+		simulator.start();
+		
+		assertTrue(simulator.isSimulationEnded());
+		assertEquals(maxDronesPerController,controller.passengerPickups.size());
+		
+		//The clock only moves in whole ticks
+		assertEquals(0,simulator.getClockTick() % TestHeadless_SimulationController.TICK_SIZE);
+		
+		//It never waited on the wall clock
+		assertTrue(simulator.getClockTick() > 0);
+		assertEquals(0,simulator.getPacingWaits());
+		
+		//The running counts agree with the people and drones
+		for(PersonState state: PersonState.values()){
+			int count = 0;
+			for(Person p: people){
+				if(p.getState() == state){
+					count++;
+				}
+			}
+			assertEquals(count,simulator.getPersonCount(state));
+		}
+		for(DroneState state: DroneState.values()){
+			int count = 0;
+			for(Drone d: drones){
+				if(d.getState() == state){
+					count++;
+				}
+			}
+			assertEquals(count,simulator.getDroneCount(state));
+		}
+	}
+
+	
+	@Test
+	//This test is to make sure that a simulation controller written before the engine and controller modes existed still works the way it did
+	public void testDefaultModes() {
+		Random random = new Random(10L);
+		SimulationController simController = new SimulationController(){
+			@Override
+			public Random getRandom() {
+				return random;
+			}
+			@Override
+			public boolean isHighResolution() {
+				return false;
+			}
+			@Override
+			public int getNumberOfDroneModels() {
+				return 1;
+			}
+			@Override
+			public int getSimulatorSpeed() {
+				return 20;
+			}
+			@Override
+			public boolean shouldQuarantineDrones() {
+				return true;
+			}
+			@Override
+			public long getSimulationEndTime() {
+				return 1000;
+			}
+		};
+		assertFalse(simController.isHeadless());
+		assertEquals(simController.getSimulatorSpeed(),simController.getSimulatorTickSize());
+		assertEquals(EngineMode.FIXED_TICK,simController.getEngineMode());
+		assertEquals(DispatchMode.POOLED,simController.getDispatchMode());
+		assertEquals(ControllerMode.SYNCHRONOUS,simController.getControllerMode());
+	}
+
+	
+	//Run a headless simulation with one drone to completion and return it
+	private static Simulator runSingleDroneSimulation(MySimulationController simController){
+		return runManifestSimulation(simController,1);
+	}
+	
+	//Run a headless simulation with some drones to completion and return it
+	private static Simulator runManifestSimulation(MySimulationController simController, int droneCount){
+		SimulationTestParameters simParams = new SimulationTestParameters(droneCount,1,100);
+		Set<Place> places = loadTestPlaces();
+		Set<Drone> drones = new TreeSet<Drone>();
+		TestManifest_DroneController controller = new TestManifest_DroneController(simParams);
+		drones.addAll(loadTestDrones(simParams,places,controller));
+		//Use the same people each time
+		Set<Person> people = loadTestPeople(simParams,new Random(10L),places);
+		
+		Simulator simulator = new Simulator(simController,people,places,drones);
+		simulator.start();
+		assertTrue(simulator.isSimulationEnded());
+		return simulator;
+	}
+	
+	
+	@Test
+	//This test is to make sure that skipping quiet ticks doesn't change the outcome of a simulation
+	public void testEventDriven() {
+		Simulator fixed = runSingleDroneSimulation(new TestHeadless_SimulationController());
+		Simulator eventDriven = runSingleDroneSimulation(new TestEventDriven_SimulationController());
+		assertFalse(fixed.isEventDriven());
+		assertTrue(eventDriven.isEventDriven());
+		
+		assertEquals(fixed.getClockTick(),eventDriven.getClockTick());
+		
+		Drone fixedDrone = fixed.getDrones().first();
+		Drone eventDrone = eventDriven.getDrones().first();
+		assertEquals(fixedDrone.getState(),eventDrone.getState());
+		assertEquals(fixedDrone.getCharge(),eventDrone.getCharge(),0.000001);
+		assertEquals(fixedDrone.getStart(),eventDrone.getStart());
+		
+		List<Person> fixedPeople = new ArrayList<Person>(fixed.getPeople());
+		List<Person> eventPeople = new ArrayList<Person>(eventDriven.getPeople());
+		assertEquals(fixedPeople.size(),eventPeople.size());
+		for(int i = 0 ; i < fixedPeople.size(); i++){
+			assertEquals(fixedPeople.get(i).getState(),eventPeople.get(i).getState());
+			assertEquals(fixedPeople.get(i).getStart(),eventPeople.get(i).getStart());
+			assertEquals(fixedPeople.get(i).getEndTransitTime(),eventPeople.get(i).getEndTransitTime());
+		}
+	}
+
+	
+	@Test
+	//This test is to make sure that skipping quiet ticks doesn't change who wins when drones take turns
+	public void testEventDrivenFleet() {
+		Simulator fixed = runManifestSimulation(new TestHeadless_SimulationController(),5);
+		Simulator eventDriven = runManifestSimulation(new TestEventDriven_SimulationController(),5);
+		//Some ticks were skipped
+		assertTrue(eventDriven.getTickLatency().getCount() < fixed.getTickLatency().getCount());
+		
+		assertEquals(fixed.getClockTick(),eventDriven.getClockTick());
+		Map<String,Pair<Integer,Long>> fixedScores = fixed.getScores();
+		Map<String,Pair<Integer,Long>> eventScores = eventDriven.getScores();
+		assertEquals(fixedScores.keySet(),eventScores.keySet());
+		for(String company: fixedScores.keySet()){
+			assertEquals(fixedScores.get(company).getKey(),eventScores.get(company).getKey());
+			assertEquals(fixedScores.get(company).getValue(),eventScores.get(company).getValue());
+		}
+		
+		List<Drone> fixedDrones = new ArrayList<Drone>(fixed.getDrones());
+		List<Drone> eventDrones = new ArrayList<Drone>(eventDriven.getDrones());
+		assertEquals(fixedDrones.size(),eventDrones.size());
+		for(int i = 0 ; i < fixedDrones.size(); i++){
+			assertEquals(fixedDrones.get(i).getName(),eventDrones.get(i).getName());
+			assertEquals(fixedDrones.get(i).getState(),eventDrones.get(i).getState());
+			assertEquals(fixedDrones.get(i).getCharge(),eventDrones.get(i).getCharge(),0.000001);
+			assertEquals(fixedDrones.get(i).getStart(),eventDrones.get(i).getStart());
+		}
+		
+		List<Person> fixedPeople = new ArrayList<Person>(fixed.getPeople());
+		List<Person> eventPeople = new ArrayList<Person>(eventDriven.getPeople());
+		assertEquals(fixedPeople.size(),eventPeople.size());
+		for(int i = 0 ; i < fixedPeople.size(); i++){
+			assertEquals(fixedPeople.get(i).getState(),eventPeople.get(i).getState());
+			assertEquals(fixedPeople.get(i).getStart(),eventPeople.get(i).getStart());
+			assertEquals(fixedPeople.get(i).getEndTransitTime(),eventPeople.get(i).getEndTransitTime());
+		}
+	}
+
+	
+	// Create a class to run the reference world without a visualization with controllers that run alongside the simulator
+	static class TestPipelinedBatch_SimulationController extends BatchRunner.HeadlessSimulationController {
+		
+		static final long END_TIME = 2_000_000;
+		
+		TestPipelinedBatch_SimulationController(long seed) {
+			super(seed);
+		}
+		
+		@Override
+		public ControllerMode getControllerMode() {
+			return ControllerMode.PIPELINED;
+		}
+		
+		@Override
+		public long getSimulationEndTime() {
+			return END_TIME;
+		}
+		
+	}
+	
+	//Run the reference world with pipelined controllers that use random numbers and look around, and return the scores
+	private static Map<String,Pair<Integer,Long>> runPipelinedSimulation(long seed, boolean demand, Set<Boolean> sawPipelined){
+		SimulationController simController = new TestPipelinedBatch_SimulationController(seed);
+		Set<Place> places = Simulator.loadPlaces(simController);
+		MyDroneController mine = new MyDroneController(){
+			@Override
+			public void droneIdling(Drone drone) {
+				sawPipelined.add(getSimulator().isPipelined());
+				super.droneIdling(drone);
+			}
+		};
+		Set<Drone> drones = new TreeSet<Drone>();
+		for(DroneController controller: Arrays.asList(new GreedyDroneController(),new RandomDroneController(),mine)){
+			drones.addAll(Simulator.loadDrones(places,new DroneControllerSafetyWrapper(controller,false,DispatchMode.MAILBOX),simController.getRandom()));
+		}
+		Set<Person> people = Simulator.loadPeople(places,simController.getRandom());
+		
+		Simulator simulator = new Simulator(simController,people,places,drones,demand ? new PoissonDemand(seed,60,TestPipelinedBatch_SimulationController.END_TIME) : null);
+		simulator.start();
+		assertTrue(simulator.isSimulationEnded());
+		assertFalse(simulator.isPipelined());
+		return simulator.getScores();
+	}
+	
+	//Run the same pipelined simulation twice and check that every controller gets the same score
+	private static void checkPipelined(boolean demand){
+		Set<Boolean> sawPipelined = Collections.synchronizedSet(new TreeSet<Boolean>());
+		Map<String,Pair<Integer,Long>> first = runPipelinedSimulation(7L,demand,sawPipelined);
+		Map<String,Pair<Integer,Long>> second = runPipelinedSimulation(7L,demand,sawPipelined);
+		assertTrue(sawPipelined.contains(true));
+		
+		assertFalse(first.isEmpty());
+		assertEquals(first.keySet(),second.keySet());
+		for(String company: first.keySet()){
+			assertEquals(first.get(company).getKey(),second.get(company).getKey());
+			assertEquals(first.get(company).getValue(),second.get(company).getValue());
+		}
+	}
+	
+	@Test
+	//This test is to make sure that controllers that run alongside the simulator, and each other, get the same answer every time
+	public void testPipelined() {
+		checkPipelined(false);
+		//People showing up and being let go of while the controllers look around doesn't change that
+		checkPipelined(true);
+	}
+
+	
+	// Create a class to test a controller that looks after all of its drones at once
+	static class TestFleet_DroneController extends FleetControllerSkeleton {
+		
+		int ticks = 0;
+		long lastTick = -1;
+		boolean everyTick = true;
+		Set<String> routed = new TreeSet<String>();
+		Set<String> pickups = new TreeSet<String>();
+		Set<DroneEvent> seen = EnumSet.noneOf(DroneEvent.class);
+		
+		private SimulationTestParameters params;
+		
+		TestFleet_DroneController(SimulationTestParameters params) {
+			super();
+			this.params = params;
+		}
+		
+		@Override
+		public List<FleetCommand> onTick(FleetSnapshot fleet) {
+			ticks++;
+			//One call on every tick, with all the drones (this runs on the controller's thread so it can't assert)
+			if((lastTick >= 0) && (fleet.getClockTick() != lastTick+TestHeadless_SimulationController.TICK_SIZE)){
+				everyTick = false;
+			}
+			if(fleet.getDrones().size() != params.maxDronesPerController){
+				everyTick = false;
+			}
+			lastTick = fleet.getClockTick();
+			List<FleetCommand> commands = new ArrayList<FleetCommand>();
+			for(DroneView drone: fleet.getDrones()){
+				Set<DroneEvent> events = fleet.getEvents(drone);
+				seen.addAll(events);
+				if(events.contains(DroneEvent.ASCENDING_START) && (drone.getPassengers().size() != 0)){
+					pickups.add(drone.getName());
+				}
+				// Route each drone once, the same way TestManifest_DroneController does
+				if(events.contains(DroneEvent.IDLING) && routed.add(drone.getName())){
+					Set<Place> places = getSimulator().getPlaces();
+					commands.add(FleetCommand.manifest(drone,places));
+					List<Place> placeList = new ArrayList<Place>(places);
+					placeList.remove(drone.getStart());
+					commands.add(FleetCommand.route(drone,placeList.get(Integer.parseInt(drone.getName()))));
+				}
+			}
+			return commands;
+		}
+		
+		@Override
+		public String getNextDroneName() {
+			String answer = "" + params.droneCounter;
+			params.incrementCounter();
+			return answer;
+		}
+		
+	}
+	
+	@Test
+	//This test is to make sure that a fleet controller hears about all of its drones once a tick and can command them
+	public void testFleetController() {
+		SimulationTestParameters simParams = new SimulationTestParameters(5,1,100);
+		Set<Place> places = loadTestPlaces();
+		TestFleet_DroneController controller = new TestFleet_DroneController(simParams);
+		Set<Drone> drones = new TreeSet<Drone>();
+		drones.addAll(loadTestDrones(simParams,places,new DroneControllerSafetyWrapper(controller,false)));
+		Set<Person> people = loadTestPeople(simParams,new Random(10L),places);
+		
+		Simulator simulator = new Simulator(new TestHeadless_SimulationController(),people,places,drones);
+		simulator.start();
+		assertTrue(simulator.isSimulationEnded());
+		
+		assertTrue(controller.ticks > 0);
+		assertTrue(controller.everyTick);
+		assertEquals(simulator.getClockTick(),controller.lastTick);
+		assertEquals(simParams.maxDronesPerController,controller.routed.size());
+		assertEquals(simParams.maxDronesPerController,controller.pickups.size());
+		assertTrue(controller.seen.contains(DroneEvent.TRANSITING));
+		assertTrue(controller.seen.contains(DroneEvent.DISEMBARKING_END));
+		
+		//Every call was timed
+		Pair<LatencyHistogram,LatencyHistogram> onTick = simulator.getControllerLatencies().get("Skeleton Drone Controller").get("onTick");
+		assertEquals(controller.ticks,onTick.getKey().getCount());
+		assertEquals(controller.ticks,onTick.getValue().getCount());
+		assertTrue(simulator.getControllerCpuTimes().containsKey("Skeleton Drone Controller"));
+		assertTrue(simulator.getTickLatency().getCount() >= controller.ticks);
+		
+		//Bad commands are ignored
+		assertNotNull(FleetCommand.hold(simulator.getDrones().first()));
+		try{
+			FleetCommand.route(simulator.getDrones().first(),null);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+	}
+
+	
+	// Create a class to test people showing up during a simulation, it takes whoever is waiting where it is or goes to find someone
+	static class TestDemand_DroneController extends DroneControllerSkeleton {
+		
+		@Override
+		public void droneIdling(Drone drone) {
+			Simulator s = getSimulator();
+			for(Person p: drone.getPassengers()){
+				s.setDroneManifest(drone,p.getDestination());
+				s.routeDrone(drone,p.getDestination());
+				return;
+			}
+			Place here = null;
+			Place someoneWaiting = null;
+			for(Place p: s.getPlaces()){
+				if(p.getName().equals(drone.getStart().getName())){
+					here = p;
+				}
+				if((someoneWaiting == null) && (p.getWaitingToEmbark().size() > 0)){
+					someoneWaiting = p;
+				}
+			}
+			if((here != null) && (here.getWaitingToEmbark().size() > 0)){
+				Place destination = here.getWaitingToEmbark().get(0).getDestination();
+				s.setDroneManifest(drone,destination);
+				s.routeDrone(drone,destination);
+			}
+			else if(someoneWaiting != null){
+				s.setDroneManifest(drone,new TreeSet<Place>());
+				s.routeDrone(drone,someoneWaiting);
+			}
+		}
+	}
+	
+	//Make a simulation where people show up for two hours
+	private static Simulator makeDemandSimulation(MySimulationController simController, DemandSource demand, DroneController controller){
+		SimulationTestParameters simParams = new SimulationTestParameters(5,4,0);
+		//Places close enough together that a drone never runs out of charge between them
+		Set<Place> places = new TreeSet<Place>();
+		for(Place p: loadTestPlaces()){
+			if(Arrays.asList("Trader Joe's","Show Grounds","Reservoir").contains(p.getName())){
+				places.add(p);
+			}
+		}
+		Set<Drone> drones = loadTestDrones(simParams,places,controller);
+		
+		return new Simulator(simController,new ArrayList<Person>(),places,drones,demand);
+	}
+	
+	//Run a headless simulation where people show up for two hours and return it
+	private static Simulator runDemandSimulation(MySimulationController simController, PoissonDemand demand){
+		Simulator simulator = makeDemandSimulation(simController,demand,new TestDemand_DroneController());
+		simulator.start();
+		assertTrue(simulator.isSimulationEnded());
+		return simulator;
+	}
+	
+	@Test
+	//This test is to make sure that people who show up during a simulation are picked up and let go of once they arrive
+	public void testDemand() {
+		long endTime = 2*60*60*Simulator.ONE_SECOND;
+		PoissonDemand demand = new PoissonDemand(3L,60,endTime);
+		Simulator simulator = runDemandSimulation(new TestHeadless_SimulationController(),demand);
+		assertEquals(DemandSource.NEVER,demand.getNextArrivalTime());
+		assertTrue(demand.getArrived() > 0);
+		//Everyone was delivered before the simulation ran out of time
+		assertTrue(simulator.getClockTick() < simulator.getSimulationController().getSimulationEndTime());
+		
+		//Everyone who showed up has either been let go of or is still being kept track of
+		PassengerStatistics statistics = simulator.getPassengerStatistics();
+		assertTrue(statistics.getRetired() > 0);
+		assertEquals(demand.getArrived(),statistics.getRetired()+simulator.getPeople().size());
+		for(Person p: simulator.getPeople()){
+			assertNotEquals(PersonState.ARRIVED,p.getState());
+		}
+		assertEquals(0,simulator.getPersonCount(PersonState.WAITING)+simulator.getPersonCount(PersonState.IN_DRONE)+simulator.getPersonCount(PersonState.EMBARKING)+simulator.getPersonCount(PersonState.DISEMBARKING));
+		assertEquals(statistics.getRetired(),simulator.getPersonCount(PersonState.ARRIVED));
+		assertTrue(statistics.getMeanTransitTime() > 0);
+		
+		//The scores include the people who were let go of
+		assertEquals(statistics.getRetired(),(int) simulator.getScores().get("Skeleton Drone Controller").getKey());
+		assertEquals(statistics.getTotalTransitTime(),(long) simulator.getScores().get("Skeleton Drone Controller").getValue());
+		
+		//Skipping quiet ticks doesn't change anything
+		PoissonDemand again = new PoissonDemand(3L,60,endTime);
+		Simulator eventDriven = runDemandSimulation(new TestEventDriven_SimulationController(),again);
+		assertEquals(simulator.getClockTick(),eventDriven.getClockTick());
+		assertEquals(statistics.getRetired(),eventDriven.getPassengerStatistics().getRetired());
+		assertEquals(statistics.getTotalTransitTime(),eventDriven.getPassengerStatistics().getTotalTransitTime());
+	}
+
+	
+	// People who show up at set times and the ticks they get in line on
+	static class TestArrivals_Demand implements DemandSource {
+		
+		private final long[] times;
+		private int arrived = 0;
+		Simulator simulator;
+		List<Long> ticks = new ArrayList<Long>();
+		
+		TestArrivals_Demand(long... times){
+			this.times = times;
+		}
+		
+		@Override
+		public long getNextArrivalTime() {
+			return (arrived < times.length) ? times[arrived] : NEVER;
+		}
+		
+		@Override
+		public Person next(List<Place> places) {
+			ticks.add(simulator.getClockTick());
+			Place start = places.get(arrived % places.size());
+			Place destination = places.get((arrived + 1) % places.size());
+			Person ret = new Person("arrival " + arrived, "Arrival " + arrived, start, start.getPosition(), destination, PersonState.WAITING);
+			arrived++;
+			return ret;
+		}
+	}
+	
+	@Test
+	//People get in line on the first tick at or after they show up, even if the event driven simulator has no drone to look at then
+	public void testEventDrivenArrivals() {
+		//Drones spend their first twenty seconds embarking, and the first arrivals are while nothing else is happening
+		long[] times = {1001, 5300, 12345, 90010, 200000};
+		List<Long> expected = Arrays.asList(1250L, 5500L, 12500L, 90250L, 200000L);
+		
+		TestArrivals_Demand fixedDemand = new TestArrivals_Demand(times);
+		Simulator fixed = makeDemandSimulation(new TestHeadless_SimulationController(),fixedDemand,new TestDemand_DroneController());
+		fixedDemand.simulator = fixed;
+		fixed.start();
+		assertEquals(expected,fixedDemand.ticks);
+		
+		TestArrivals_Demand eventDemand = new TestArrivals_Demand(times);
+		Simulator eventDriven = makeDemandSimulation(new TestEventDriven_SimulationController(),eventDemand,new TestDemand_DroneController());
+		eventDemand.simulator = eventDriven;
+		eventDriven.start();
+		assertEquals(expected,eventDemand.ticks);
+		assertEquals(fixed.getClockTick(),eventDriven.getClockTick());
+		assertEquals(fixed.getPassengerStatistics().getRetired(),eventDriven.getPassengerStatistics().getRetired());
+		assertEquals(fixed.getPassengerStatistics().getTotalTransitTime(),eventDriven.getPassengerStatistics().getTotalTransitTime());
+	}
+
+	
+	// Create a class to test a controller that saves what it knows in checkpoints
+	static class TestCheckpoint_DroneController extends TestDemand_DroneController implements Checkpointable {
+		
+		int idling = 0;
+		
+		@Override
+		public void droneIdling(Drone drone) {
+			idling++;
+			super.droneIdling(drone);
+		}
+
+		@Override
+		public byte[] saveState() {
+			return ByteBuffer.allocate(Integer.BYTES).putInt(idling).array();
+		}
+
+		@Override
+		public void restoreState(byte[] state) {
+			idling = ByteBuffer.wrap(state).getInt();
+		}
+	}
+	
+	//Save a demand simulation half way through and check that restoring it in a new simulator finishes the same way
+	private static void checkpointAndRestore(MySimulationController savedController, MySimulationController restoredController) throws IOException{
+		long endTime = 2*60*60*Simulator.ONE_SECOND;
+		Path path = Files.createTempFile("checkpoint",".bin");
+		try{
+			TestCheckpoint_DroneController savedDrones = new TestCheckpoint_DroneController();
+			Simulator saved = makeDemandSimulation(savedController,new PoissonDemand(3L,60,endTime),savedDrones);
+			saved.checkpointAt(endTime/2,path);
+			saved.start();
+			assertTrue(saved.isSimulationEnded());
+			
+			TestCheckpoint_DroneController restoredDrones = new TestCheckpoint_DroneController();
+			PoissonDemand restoredDemand = new PoissonDemand(3L,60,endTime);
+			Simulator restored = makeDemandSimulation(restoredController,restoredDemand,restoredDrones);
+			restored.restore(path);
+			assertTrue(restored.getClockTick() >= endTime/2);
+			assertTrue(restoredDemand.getArrived() > 0);
+			assertTrue(restoredDrones.idling > 0);
+			restored.start();
+			assertTrue(restored.isSimulationEnded());
+			
+			assertEquals(saved.getClockTick(),restored.getClockTick());
+			assertEquals(savedDrones.idling,restoredDrones.idling);
+			assertEquals(saved.getPassengerStatistics().getRetired(),restored.getPassengerStatistics().getRetired());
+			assertEquals(saved.getPassengerStatistics().getTotalTransitTime(),restored.getPassengerStatistics().getTotalTransitTime());
+			assertEquals(saved.getPassengerStatistics().getMaxTransitTime(),restored.getPassengerStatistics().getMaxTransitTime());
+			assertEquals(saved.getScores().keySet(),restored.getScores().keySet());
+			for(String company: saved.getScores().keySet()){
+				assertEquals(saved.getScores().get(company).getKey(),restored.getScores().get(company).getKey());
+				assertEquals(saved.getScores().get(company).getValue(),restored.getScores().get(company).getValue());
+			}
+			for(PersonState state: PersonState.values()){
+				assertEquals(saved.getPersonCount(state),restored.getPersonCount(state));
+			}
+			
+			List<Drone> savedDroneList = new ArrayList<Drone>(saved.getDrones());
+			List<Drone> restoredDroneList = new ArrayList<Drone>(restored.getDrones());
+			assertEquals(savedDroneList.size(),restoredDroneList.size());
+			for(int i = 0 ; i < savedDroneList.size(); i++){
+				assertEquals(savedDroneList.get(i).getId(),restoredDroneList.get(i).getId());
+				assertEquals(savedDroneList.get(i).getState(),restoredDroneList.get(i).getState());
+				assertEquals(savedDroneList.get(i).getStart(),restoredDroneList.get(i).getStart());
+				assertEquals(savedDroneList.get(i).getCharge(),restoredDroneList.get(i).getCharge(),0.0);
+			}
+		}
+		finally{
+			Files.deleteIfExists(path);
+		}
+	}
+	
+	@Test
+	//This test is to make sure that a simulation restored from a checkpoint carries on exactly like the one that was saved
+	public void testCheckpoint() throws IOException {
+		checkpointAndRestore(new TestHeadless_SimulationController(),new TestHeadless_SimulationController());
+		checkpointAndRestore(new TestEventDriven_SimulationController(),new TestEventDriven_SimulationController());
+	}
+	
+	@Test
+	//This test is to make sure that a checkpoint is only restored into the world that it was saved from
+	public void testCheckpointErrors() throws IOException {
+		long endTime = 2*60*60*Simulator.ONE_SECOND;
+		Path path = Files.createTempFile("checkpoint",".bin");
+		try{
+			Files.write(path,"not a checkpoint".getBytes(StandardCharsets.UTF_8));
+			try{
+				makeDemandSimulation(new TestHeadless_SimulationController(),new PoissonDemand(3L,60,endTime),new TestDemand_DroneController()).restore(path);
+				fail("Restored something that isn't a checkpoint");
+			}
+			catch(IOException e){
+			}
+			
+			makeDemandSimulation(new TestHeadless_SimulationController(),new PoissonDemand(3L,60,endTime),new TestDemand_DroneController()).checkpoint(path);
+			
+			//Cut short
+			byte[] whole = Files.readAllBytes(path);
+			Files.write(path,Arrays.copyOf(whole,whole.length - 1));
+			try{
+				makeDemandSimulation(new TestHeadless_SimulationController(),new PoissonDemand(3L,60,endTime),new TestDemand_DroneController()).restore(path);
+				fail("Restored a checkpoint that was cut short");
+			}
+			catch(IOException e){
+			}
+			Files.write(path,whole);
+			
+			//A different world
+			Set<Place> places = loadTestPlaces();
+			Simulator other = new Simulator(new TestHeadless_SimulationController(),new ArrayList<Person>(),places,loadTestDrones(new SimulationTestParameters(4,4,0),places,new TestDemand_DroneController()),new PoissonDemand(3L,60,endTime));
+			try{
+				other.restore(path);
+				fail("Restored a checkpoint into a different world");
+			}
+			catch(IllegalArgumentException e){
+			}
+			
+			//A controller that saved its state has to be able to take it back
+			makeDemandSimulation(new TestHeadless_SimulationController(),new PoissonDemand(3L,60,endTime),new TestCheckpoint_DroneController()).checkpoint(path);
+			try{
+				makeDemandSimulation(new TestHeadless_SimulationController(),new PoissonDemand(3L,60,endTime),new TestDemand_DroneController()).restore(path);
+				fail("Restored a controller's state into one that can't take it");
+			}
+			catch(IllegalArgumentException e){
+			}
+			
+			//Demand that can't be saved
+			DemandSource never = new DemandSource(){
+				@Override
+				public long getNextArrivalTime() {
+					return NEVER;
+				}
+
+				@Override
+				public Person next(List<Place> places) {
+					throw new IllegalArgumentException("No one else is coming");
+				}
+			};
+			try{
+				makeDemandSimulation(new TestHeadless_SimulationController(),never,new TestDemand_DroneController()).checkpoint(path);
+				fail("Saved a demand source that isn't Checkpointable");
+			}
+			catch(IllegalArgumentException e){
+			}
+		}
+		finally{
+			Files.deleteIfExists(path);
+		}
+	}
+
+
+	
+	// Create a class to test replays, which shouldn't call a controller at all
+	static class TestReplay_DroneController extends TestDemand_DroneController {
+		
+		int calls = 0;
+		
+		@Override
+		public void droneSimulationStart(Drone drone) {
+			calls++;
+		}
+		
+		@Override
+		public void droneIdling(Drone drone) {
+			calls++;
+			super.droneIdling(drone);
+		}
+	}
+	
+	//Journal a demand simulation, replay it in a new simulator without its controller and check that it finishes the same way
+	private static void journalAndReplay(MySimulationController journaledController, MySimulationController replayedController, boolean pipelined) throws IOException{
+		long endTime = 2*60*60*Simulator.ONE_SECOND;
+		Path path = Files.createTempFile("journal",".bin");
+		Path again = Files.createTempFile("journal",".bin");
+		try{
+			TestReplay_DroneController journaledDrones = new TestReplay_DroneController();
+			DroneController c = pipelined ? new DroneControllerSafetyWrapper(journaledDrones,false,DispatchMode.MAILBOX) : journaledDrones;
+			Simulator journaled = makeDemandSimulation(journaledController,new PoissonDemand(3L,60,endTime),c);
+			journaled.journal(path);
+			journaled.start();
+			assertTrue(journaled.isSimulationEnded());
+			assertTrue(journaledDrones.calls > 0);
+			
+			TestReplay_DroneController replayedDrones = new TestReplay_DroneController();
+			c = pipelined ? new DroneControllerSafetyWrapper(replayedDrones,false,DispatchMode.MAILBOX) : replayedDrones;
+			Simulator replayed = makeDemandSimulation(replayedController,new PoissonDemand(3L,60,endTime),c);
+			replayed.replay(path);
+			assertTrue(replayed.isReplaying());
+			//A replay can be journaled too, and gives the same journal back
+			replayed.journal(again);
+			replayed.start();
+			assertTrue(replayed.isSimulationEnded());
+			assertFalse(replayed.isReplaying());
+			
+			assertEquals(0,replayedDrones.calls);
+			assertTrue(Arrays.equals(Files.readAllBytes(path),Files.readAllBytes(again)));
+			assertEquals(journaled.getClockTick(),replayed.getClockTick());
+			assertEquals(journaled.getPassengerStatistics().getRetired(),replayed.getPassengerStatistics().getRetired());
+			assertEquals(journaled.getPassengerStatistics().getTotalTransitTime(),replayed.getPassengerStatistics().getTotalTransitTime());
+			assertEquals(journaled.getPassengerStatistics().getMaxTransitTime(),replayed.getPassengerStatistics().getMaxTransitTime());
+			for(PersonState state: PersonState.values()){
+				assertEquals(journaled.getPersonCount(state),replayed.getPersonCount(state));
+			}
+			List<Drone> journaledDroneList = new ArrayList<Drone>(journaled.getDrones());
+			List<Drone> replayedDroneList = new ArrayList<Drone>(replayed.getDrones());
+			assertEquals(journaledDroneList.size(),replayedDroneList.size());
+			for(int i = 0 ; i < journaledDroneList.size(); i++){
+				assertEquals(journaledDroneList.get(i).getId(),replayedDroneList.get(i).getId());
+				assertEquals(journaledDroneList.get(i).getState(),replayedDroneList.get(i).getState());
+				assertEquals(journaledDroneList.get(i).getStart(),replayedDroneList.get(i).getStart());
+				assertEquals(journaledDroneList.get(i).getCharge(),replayedDroneList.get(i).getCharge(),0.0);
+			}
+		}
+		finally{
+			Files.deleteIfExists(path);
+			Files.deleteIfExists(again);
+		}
+	}
+	
+	@Test
+	//This test is to make sure that a journaled simulation can be replayed without its controllers
+	public void testJournal() throws IOException {
+		journalAndReplay(new TestHeadless_SimulationController(),new TestHeadless_SimulationController(),false);
+		journalAndReplay(new TestEventDriven_SimulationController(),new TestEventDriven_SimulationController(),false);
+		journalAndReplay(new TestPipelined_SimulationController(),new TestPipelined_SimulationController(),true);
+		journalAndReplay(new TestEventDrivenPipelined_SimulationController(),new TestEventDrivenPipelined_SimulationController(),true);
+	}
+	
+	@Test
+	//This test is to make sure that a journal is only replayed into the world that it was made in
+	public void testJournalErrors() throws IOException {
+		long endTime = 2*60*60*Simulator.ONE_SECOND;
+		Path path = Files.createTempFile("journal",".bin");
+		try{
+			Files.write(path,"not a journal".getBytes(StandardCharsets.UTF_8));
+			try{
+				makeDemandSimulation(new TestHeadless_SimulationController(),new PoissonDemand(3L,60,endTime),new TestDemand_DroneController()).replay(path);
+				fail("Replayed something that isn't a journal");
+			}
+			catch(IOException e){
+			}
+			
+			Simulator journaled = makeDemandSimulation(new TestHeadless_SimulationController(),new PoissonDemand(3L,60,endTime),new TestDemand_DroneController());
+			journaled.journal(path);
+			journaled.start();
+			
+			//Cut short
+			byte[] whole = Files.readAllBytes(path);
+			Files.write(path,Arrays.copyOf(whole,whole.length - 1));
+			Simulator cut = makeDemandSimulation(new TestHeadless_SimulationController(),new PoissonDemand(3L,60,endTime),new TestDemand_DroneController());
+			try{
+				cut.replay(path);
+				cut.start();
+				fail("Replayed a journal that was cut short");
+			}
+			catch(UncheckedIOException e){
+			}
+			Files.write(path,whole);
+			
+			//A different engine
+			try{
+				makeDemandSimulation(new TestEventDriven_SimulationController(),new PoissonDemand(3L,60,endTime),new TestDemand_DroneController()).replay(path);
+				fail("Replayed a journal with a different engine");
+			}
+			catch(IllegalArgumentException e){
+			}
+			
+			//A different world
+			Set<Place> places = loadTestPlaces();
+			Simulator other = new Simulator(new TestHeadless_SimulationController(),new ArrayList<Person>(),places,loadTestDrones(new SimulationTestParameters(4,4,0),places,new TestDemand_DroneController()),new PoissonDemand(3L,60,endTime));
+			try{
+				other.replay(path);
+				fail("Replayed a journal into a different world");
+			}
+			catch(IllegalArgumentException e){
+			}
+			
+			//Different people show up, so the replay goes a different way
+			Simulator different = makeDemandSimulation(new TestHeadless_SimulationController(),new PoissonDemand(4L,60,endTime),new TestDemand_DroneController());
+			different.replay(path);
+			try{
+				different.start();
+				fail("Replayed a journal that went a different way");
+			}
+			catch(IllegalArgumentException e){
+			}
+		}
+		finally{
+			Files.deleteIfExists(path);
+		}
+	}
+
+	
+	@Test
+	//This test is to make sure that telemetry has every drone on every tick and everyone's changes of state
+	public void testTelemetry() throws IOException {
+		long endTime = 2*60*60*Simulator.ONE_SECOND;
+		Path path = Files.createTempFile("telemetry",".bin");
+		try{
+			Simulator simulator = makeDemandSimulation(new TestHeadless_SimulationController(),new PoissonDemand(3L,60,endTime),new TestDemand_DroneController());
+			simulator.telemetry(path,1 << 20);
+			simulator.start();
+			assertTrue(simulator.isSimulationEnded());
+			
+			TelemetryReader reader = new TelemetryReader(path);
+			assertEquals(simulator.getDrones().size(),reader.getDroneCount());
+			assertEquals(reader.getWritten(),reader.size());
+			int droneRecords = 0;
+			int arrived = 0;
+			long lastTick = Long.MIN_VALUE;
+			for(int i = 0; i < reader.size(); i++){
+				assertTrue(reader.getTick(i) >= lastTick);
+				lastTick = reader.getTick(i);
+				if(reader.isDrone(i)){
+					droneRecords++;
+					assertTrue(reader.getCharge(i) >= 0.0);
+				}
+				else if(reader.getToState(i) == PersonState.ARRIVED){
+					arrived++;
+				}
+			}
+			//A headless simulation updates every drone on every tick, starting with tick 0
+			assertEquals(simulator.getDrones().size() * (simulator.getClockTick() / TestHeadless_SimulationController.TICK_SIZE + 1),droneRecords);
+			assertEquals(simulator.getPersonCount(PersonState.ARRIVED),arrived);
+			assertEquals(simulator.getClockTick(),lastTick);
+			
+			try{
+				simulator.telemetry(path,0);
+				fail("Asked for telemetry with no room");
+			}
+			catch(IllegalArgumentException e){
+			}
+		}
+		finally{
+			Files.deleteIfExists(path);
+		}
+	}
+
 }
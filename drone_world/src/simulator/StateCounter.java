@@ -0,0 +1,87 @@
+package simulator;
+
+/**
+ * Keeps a running count of how many things are in each state so that the simulator doesn't have to look at
+ * everything to find out.  People and drones report to their counter whenever their state changes.
+ * Only the simulator thread changes states, so this isn't synchronized.
+ */
+class StateCounter<E extends Enum<E>> {
+
+	private int[] counts;
+	private int total;
+
+	StateCounter(Class<E> states){
+		counts = new int[states.getEnumConstants().length];
+		total = 0;
+	}
+
+	/**
+	 * Start counting something that is in state
+	 */
+	void add(E state){
+		if(state != null){
+			counts[state.ordinal()]++;
+		}
+		total++;
+	}
+
+	/**
+	 * Start counting some things that are in state, or stop counting them if count is negative
+	 */
+	void add(E state, int count){
+		counts[state.ordinal()] += count;
+		total += count;
+	}
+
+	/**
+	 * Stop counting something that is in state
+	 */
+	void remove(E state){
+		if(state != null){
+			counts[state.ordinal()]--;
+		}
+		total--;
+	}
+
+	/**
+	 * Something changed from one state to another
+	 */
+	void moved(E from, E to){
+		if(from == to){
+			return;
+		}
+		if(from != null){
+			counts[from.ordinal()]--;
+		}
+		if(to != null){
+			counts[to.ordinal()]++;
+		}
+	}
+
+	/**
+	 * @return how many things are in state
+	 */
+	int get(E state){
+		return counts[state.ordinal()];
+	}
+
+	/**
+	 * @return how many things are in any of the states
+	 */
+	@SafeVarargs
+	final int get(E... states){
+		int sum = 0;
+		for(E state: states){
+			sum += counts[state.ordinal()];
+		}
+		return sum;
+	}
+
+	/**
+	 * @return how many things are being counted
+	 */
+	int total(){
+		return total;
+	}
+
+}
@@ -0,0 +1,67 @@
+package simulator;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import simulator.enums.PersonState;
+
+public class StateCounterTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testPersonStates() {
+		Place start = new Place("Timbuktu",new Position(10.0,20.0,0.0));
+		Place destination = new Place("Timbuk3",new Position(15.0,25.0,0.0));
+		Person p1 = new Person("1","name",start,start.getPosition(),destination,PersonState.WAITING);
+		Person p2 = new Person("2","name",start,start.getPosition(),destination,PersonState.WAITING);
+
+		StateCounter<PersonState> counter = new StateCounter<PersonState>(PersonState.class);
+		p1.setStateCounter(counter);
+		p2.setStateCounter(counter);
+		assertEquals(2,counter.total());
+		assertEquals(2,counter.get(PersonState.WAITING));
+
+		p1.setState(PersonState.EMBARKING);
+		assertEquals(1,counter.get(PersonState.WAITING));
+		assertEquals(1,counter.get(PersonState.EMBARKING));
+
+		p1.setState(PersonState.ARRIVED);
+		p2.setState(PersonState.DEAD);
+		assertEquals(0,counter.get(PersonState.WAITING));
+		assertEquals(0,counter.get(PersonState.EMBARKING));
+		assertEquals(2,counter.get(PersonState.ARRIVED,PersonState.DEAD));
+
+		//Copies aren't counted
+		Person copy = new Person(p1);
+		copy.setState(PersonState.WAITING);
+		assertEquals(0,counter.get(PersonState.WAITING));
+
+		//Moving to a different counter
+		StateCounter<PersonState> other = new StateCounter<PersonState>(PersonState.class);
+		p1.setStateCounter(other);
+		assertEquals(1,counter.total());
+		assertEquals(0,counter.get(PersonState.ARRIVED));
+		assertEquals(1,other.get(PersonState.ARRIVED));
+	}
+
+}
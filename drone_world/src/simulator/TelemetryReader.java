@@ -0,0 +1,345 @@
+package simulator;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import simulator.enums.DroneState;
+import simulator.enums.PersonState;
+
+/**
+ * Reads the records in a telemetry ring, oldest first, and exports them for analysis, see TelemetryRing.
+ * Records are numbered from 0, the oldest one that hasn't been written over.
+ *
+ * From the command line:
+ *   TelemetryReader ring.bin out.csv          writes every record as a line of CSV
+ *   TelemetryReader ring.bin out [chunk rows] writes the drone and person records to out/drones.col and out/people.col
+ *
+ * The columnar files are a magic, version, column count, then each column's name and type (UTF-8 strings), followed by chunks
+ * of up to chunk rows records.  A chunk is its row count (int) and then each column's values for those rows, one column after
+ * another.  Types are long, int, byte and double, which are written as they are, and string, which is a length (int) and UTF-8.
+ */
+public class TelemetryReader {
+
+	static final int COLUMNS_MAGIC = 0x44575443; // "DWTC"
+	static final int COLUMNS_VERSION = 1;
+	static final int DEFAULT_CHUNK_ROWS = 1 << 16;
+
+	private static final String[] DRONE_COLUMNS = {"tick","long","drone","string","company","string","name","string","state","byte","latitude","double","longitude","double","height","double","charge","double","passengers","int"};
+	private static final String[] PERSON_COLUMNS = {"tick","long","person","string","from","byte","to","byte"};
+
+	private final Path path;
+	private final MappedByteBuffer map;
+	private final int capacity;
+	private final int recordsAt;
+	private final int tickSize;
+	private final String[] droneIds;
+	private final String[] companyNames;
+	private final String[] droneNames;
+	private final long written;
+
+	public TelemetryReader(Path path) throws IOException{
+		this.path = path;
+		try(FileChannel channel = FileChannel.open(path,StandardOpenOption.READ)){
+			this.map = channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+		}
+		if((map.remaining() < TelemetryRing.HEADER_SIZE) || (map.getInt() != TelemetryRing.MAGIC)){
+			throw new IOException("Not a telemetry file: "+path);
+		}
+		int version = map.getInt();
+		if(version != TelemetryRing.VERSION){
+			throw new IOException("Telemetry file "+path+" is version "+version+", expected version "+TelemetryRing.VERSION);
+		}
+		int recordSize = map.getInt();
+		this.capacity = map.getInt();
+		this.recordsAt = map.getInt();
+		int droneCount = map.getInt();
+		this.written = map.getLong();
+		this.tickSize = map.getInt();
+		if((recordSize != TelemetryRing.RECORD_SIZE) || (capacity <= 0) || (recordsAt < TelemetryRing.HEADER_SIZE) || (droneCount < 0) || (written < 0)
+				|| ((long) recordsAt + (long) capacity * recordSize > map.capacity())){
+			throw new IOException("Telemetry file "+path+" has a broken header");
+		}
+		droneIds = new String[droneCount];
+		companyNames = new String[droneCount];
+		droneNames = new String[droneCount];
+		for(int i = 0; i < droneCount; i++){
+			droneIds[i] = getString();
+			companyNames[i] = getString();
+			droneNames[i] = getString();
+		}
+		if(map.position() > recordsAt){
+			throw new IOException("Telemetry file "+path+" has a broken header");
+		}
+	}
+
+	private String getString() throws IOException{
+		int length = (map.remaining() < Integer.BYTES) ? -1 : map.getInt();
+		if((length < 0) || (length > map.remaining())){
+			throw new IOException("Telemetry file "+path+" has a broken header");
+		}
+		byte[] bytes = new byte[length];
+		map.get(bytes);
+		return new String(bytes,StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return how many records there are to read
+	 */
+	public int size(){
+		return (int) Math.min(written,capacity);
+	}
+
+	/**
+	 * @return how many records were written, including the ones that have been written over
+	 */
+	public long getWritten(){
+		return written;
+	}
+
+	public int getTickSize(){
+		return tickSize;
+	}
+
+	public int getDroneCount(){
+		return droneIds.length;
+	}
+
+	private int at(int record){
+		if((record < 0) || (record >= size())){
+			throw new IndexOutOfBoundsException("There is no telemetry record "+record+" of "+size());
+		}
+		long first = written - size();
+		return recordsAt + (int) ((first + record) % capacity) * TelemetryRing.RECORD_SIZE;
+	}
+
+	/**
+	 * @return true if the record is about a drone, false if it is about a person
+	 */
+	public boolean isDrone(int record){
+		return map.get(at(record)) == TelemetryRing.DRONE;
+	}
+
+	public long getTick(int record){
+		return map.getLong(at(record) + 8);
+	}
+
+	private int getSlot(int record){
+		int slot = map.getInt(at(record) + 4);
+		if((slot < 0) || (slot >= droneIds.length)){
+			throw new IllegalArgumentException("Telemetry file "+path+" has a record for drone "+slot+" of "+droneIds.length);
+		}
+		return slot;
+	}
+
+	public String getDroneId(int record){
+		return droneIds[getSlot(record)];
+	}
+
+	public String getCompanyName(int record){
+		return companyNames[getSlot(record)];
+	}
+
+	public String getDroneName(int record){
+		return droneNames[getSlot(record)];
+	}
+
+	public DroneState getDroneState(int record){
+		return state(DroneState.class,map.get(at(record) + 1));
+	}
+
+	public double getLatitude(int record){
+		return map.getDouble(at(record) + 16);
+	}
+
+	public double getLongitude(int record){
+		return map.getDouble(at(record) + 24);
+	}
+
+	public double getHeight(int record){
+		return map.getDouble(at(record) + 32);
+	}
+
+	public double getCharge(int record){
+		return map.getDouble(at(record) + 40);
+	}
+
+	public int getPassengerCount(int record){
+		return map.getInt(at(record) + 48);
+	}
+
+	/**
+	 * @return the person's id, cut short if it was longer than a record has room for
+	 */
+	public String getPersonId(int record){
+		int at = at(record);
+		int length = Math.min(Byte.toUnsignedInt(map.get(at + 3)),TelemetryRing.ID_SIZE);
+		byte[] bytes = new byte[length];
+		for(int i = 0; i < length; i++){
+			bytes[i] = map.get(at + 16 + i);
+		}
+		return new String(bytes,StandardCharsets.US_ASCII);
+	}
+
+	public PersonState getFromState(int record){
+		return state(PersonState.class,map.get(at(record) + 1));
+	}
+
+	public PersonState getToState(int record){
+		return state(PersonState.class,map.get(at(record) + 2));
+	}
+
+	private <E extends Enum<E>> E state(Class<E> type, byte ordinal){
+		E[] values = type.getEnumConstants();
+		if(ordinal == -1){
+			return null;
+		}
+		if((ordinal < 0) || (ordinal >= values.length)){
+			throw new IllegalArgumentException("Telemetry file "+path+" has a "+type.getSimpleName()+" of "+ordinal);
+		}
+		return values[ordinal];
+	}
+
+	/**
+	 * Write every record as a line of CSV, drone records leave the person columns empty and the other way around
+	 */
+	public void exportCsv(Path out) throws IOException{
+		try(BufferedWriter w = Files.newBufferedWriter(out,StandardCharsets.UTF_8)){
+			w.write("kind,tick,drone,company,name,state,latitude,longitude,height,charge,passengers,person,from,to");
+			w.newLine();
+			for(int i = 0; i < size(); i++){
+				if(isDrone(i)){
+					w.write("drone,"+getTick(i)+","+csv(getDroneId(i))+","+csv(getCompanyName(i))+","+csv(getDroneName(i))+","+getDroneState(i)+","
+							+getLatitude(i)+","+getLongitude(i)+","+getHeight(i)+","+getCharge(i)+","+getPassengerCount(i)+",,,");
+				}
+				else{
+					w.write("person,"+getTick(i)+",,,,,,,,,,"+csv(getPersonId(i))+","+getFromState(i)+","+getToState(i));
+				}
+				w.newLine();
+			}
+		}
+	}
+
+	private static String csv(String s){
+		if((s.indexOf(',') < 0) && (s.indexOf('"') < 0) && (s.indexOf('\n') < 0)){
+			return s;
+		}
+		return "\""+s.replace("\"","\"\"")+"\"";
+	}
+
+	/**
+	 * Write the drone records to dir/drones.col and the person records to dir/people.col in chunks of columns
+	 */
+	public void exportColumns(Path dir, int chunkRows) throws IOException{
+		if(chunkRows <= 0){
+			throw new IllegalArgumentException("Chunks need at least one row: "+chunkRows);
+		}
+		Files.createDirectories(dir);
+		exportColumns(dir.resolve("drones.col"),chunkRows,true,DRONE_COLUMNS);
+		exportColumns(dir.resolve("people.col"),chunkRows,false,PERSON_COLUMNS);
+	}
+
+	private void exportColumns(Path out, int chunkRows, boolean drones, String[] columns) throws IOException{
+		try(OutputStream file = Files.newOutputStream(out);
+				DataOutputStream data = new DataOutputStream(new BufferedOutputStream(file,1 << 16))){
+			data.writeInt(COLUMNS_MAGIC);
+			data.writeInt(COLUMNS_VERSION);
+			data.writeInt(columns.length / 2);
+			for(String s: columns){
+				writeString(data,s);
+			}
+			int[] rows = new int[chunkRows];
+			int i = 0;
+			while(i < size()){
+				int count = 0;
+				while((i < size()) && (count < chunkRows)){
+					if(isDrone(i) == drones){
+						rows[count++] = i;
+					}
+					i++;
+				}
+				if(count > 0){
+					writeChunk(data,rows,count,drones);
+				}
+			}
+		}
+	}
+
+	private void writeChunk(DataOutputStream data, int[] rows, int count, boolean drones) throws IOException{
+		data.writeInt(count);
+		for(int j = 0; j < count; j++){
+			data.writeLong(getTick(rows[j]));
+		}
+		if(drones){
+			for(int j = 0; j < count; j++){
+				writeString(data,getDroneId(rows[j]));
+			}
+			for(int j = 0; j < count; j++){
+				writeString(data,getCompanyName(rows[j]));
+			}
+			for(int j = 0; j < count; j++){
+				writeString(data,getDroneName(rows[j]));
+			}
+			for(int j = 0; j < count; j++){
+				data.writeByte(map.get(at(rows[j]) + 1));
+			}
+			for(int j = 0; j < count; j++){
+				data.writeDouble(getLatitude(rows[j]));
+			}
+			for(int j = 0; j < count; j++){
+				data.writeDouble(getLongitude(rows[j]));
+			}
+			for(int j = 0; j < count; j++){
+				data.writeDouble(getHeight(rows[j]));
+			}
+			for(int j = 0; j < count; j++){
+				data.writeDouble(getCharge(rows[j]));
+			}
+			for(int j = 0; j < count; j++){
+				data.writeInt(getPassengerCount(rows[j]));
+			}
+		}
+		else{
+			for(int j = 0; j < count; j++){
+				writeString(data,getPersonId(rows[j]));
+			}
+			for(int j = 0; j < count; j++){
+				data.writeByte(map.get(at(rows[j]) + 1));
+			}
+			for(int j = 0; j < count; j++){
+				data.writeByte(map.get(at(rows[j]) + 2));
+			}
+		}
+	}
+
+	private static void writeString(DataOutputStream data, String s) throws IOException{
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		data.writeInt(bytes.length);
+		data.write(bytes);
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 2){
+			System.out.println("Usage: TelemetryReader <telemetry file> <out.csv | out directory> [chunk rows]");
+			return;
+		}
+		TelemetryReader reader = new TelemetryReader(Paths.get(args[0]));
+		if(args[1].endsWith(".csv")){
+			reader.exportCsv(Paths.get(args[1]));
+		}
+		else{
+			reader.exportColumns(Paths.get(args[1]),(args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_CHUNK_ROWS);
+		}
+		System.out.println("Exported "+reader.size()+" of "+reader.getWritten()+" telemetry records");
+	}
+
+}
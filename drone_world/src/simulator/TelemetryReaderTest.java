@@ -0,0 +1,187 @@
+package simulator;
+
+import static org.junit.Assert.*;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import reference.DroneControllerSkeleton;
+import simulator.enums.DroneState;
+import simulator.enums.PersonState;
+
+public class TelemetryReaderTest {
+
+	private Path path;
+	private Path out;
+	private Drone drone;
+	private Person person;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		path = Files.createTempFile("telemetry",".bin");
+		out = Files.createTempDirectory("telemetry");
+		Place start = new Place("Timbuktu",new Position(10.0,20.0,0.0));
+		Place destination = new Place("Timbuk3",new Position(15.0,25.0,0.0));
+		drone = new Drone(new DroneControllerSkeleton(),start,destination,1,new Random(0));
+		person = new Person("arrival 1","Someone, Esq.",start,start.getPosition(),destination,PersonState.WAITING);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(path);
+		for(String name: new String[]{"telemetry.csv","drones.col","people.col"}){
+			Files.deleteIfExists(out.resolve(name));
+		}
+		Files.deleteIfExists(out);
+	}
+
+	@Test
+	//Records come back oldest first, and once the ring is full the oldest ones are written over
+	public void testRing() throws IOException {
+		try(TelemetryRing ring = new TelemetryRing(path,4,500,new Drone[]{drone})){
+			for(int tick = 0; tick < 6; tick++){
+				ring.setTick(tick * 500);
+				drone.setCharge(tick / 10.0);
+				ring.drone(drone);
+			}
+			ring.setTick(3000);
+			ring.person(person,PersonState.WAITING,PersonState.EMBARKING);
+			assertEquals(7,ring.getWritten());
+		}
+
+		TelemetryReader reader = new TelemetryReader(path);
+		assertEquals(4,reader.size());
+		assertEquals(7,reader.getWritten());
+		assertEquals(500,reader.getTickSize());
+		assertEquals(1,reader.getDroneCount());
+		for(int i = 0; i < 3; i++){
+			assertTrue(reader.isDrone(i));
+			assertEquals((i + 3) * 500,reader.getTick(i));
+			assertEquals(drone.getId(),reader.getDroneId(i));
+			assertEquals(drone.getCompanyName(),reader.getCompanyName(i));
+			assertEquals(drone.getName(),reader.getDroneName(i));
+			assertEquals(drone.getState(),reader.getDroneState(i));
+			assertEquals(10.0,reader.getLatitude(i),0.0);
+			assertEquals(20.0,reader.getLongitude(i),0.0);
+			assertEquals((i + 3) / 10.0,reader.getCharge(i),0.0);
+			assertEquals(0,reader.getPassengerCount(i));
+		}
+		assertFalse(reader.isDrone(3));
+		assertEquals(3000,reader.getTick(3));
+		assertEquals("arrival 1",reader.getPersonId(3));
+		assertEquals(PersonState.WAITING,reader.getFromState(3));
+		assertEquals(PersonState.EMBARKING,reader.getToState(3));
+		try{
+			reader.getTick(4);
+			fail("Read a record that isn't there");
+		}
+		catch(IndexOutOfBoundsException e){
+		}
+	}
+
+	@Test
+	//Someone who changes state is recorded by the ring they are given
+	public void testPerson() throws IOException {
+		try(TelemetryRing ring = new TelemetryRing(path,8,500,new Drone[]{drone})){
+			person.setTelemetry(ring);
+			person.setState(PersonState.WAITING);
+			person.setState(PersonState.IN_DRONE);
+			person.setTelemetry(null);
+			person.setState(PersonState.ARRIVED);
+		}
+		TelemetryReader reader = new TelemetryReader(path);
+		assertEquals(1,reader.size());
+		assertEquals(PersonState.WAITING,reader.getFromState(0));
+		assertEquals(PersonState.IN_DRONE,reader.getToState(0));
+	}
+
+	@Test
+	//Both exports have a row for every record
+	public void testExport() throws IOException {
+		try(TelemetryRing ring = new TelemetryRing(path,16,500,new Drone[]{drone})){
+			for(int tick = 0; tick < 5; tick++){
+				ring.setTick(tick * 500);
+				ring.drone(drone);
+			}
+			ring.person(person,PersonState.WAITING,PersonState.EMBARKING);
+		}
+		TelemetryReader reader = new TelemetryReader(path);
+
+		reader.exportCsv(out.resolve("telemetry.csv"));
+		List<String> lines = Files.readAllLines(out.resolve("telemetry.csv"),StandardCharsets.UTF_8);
+		assertEquals(7,lines.size());
+		assertTrue(lines.get(0).startsWith("kind,tick,"));
+		assertTrue(lines.get(1).startsWith("drone,0,"+drone.getId()+","));
+		assertTrue(lines.get(1).contains(","+DroneState.BEGIN+","));
+		assertEquals("person,2000,,,,,,,,,,arrival 1,WAITING,EMBARKING",lines.get(6));
+
+		reader.exportColumns(out,2);
+		try(DataInputStream in = new DataInputStream(Files.newInputStream(out.resolve("drones.col")))){
+			assertEquals(TelemetryReader.COLUMNS_MAGIC,in.readInt());
+			assertEquals(TelemetryReader.COLUMNS_VERSION,in.readInt());
+			int columns = in.readInt();
+			assertEquals(10,columns);
+			for(int i = 0; i < 2 * columns; i++){
+				in.skipBytes(in.readInt());
+			}
+			//Chunks of two, two and one drone records
+			assertEquals(2,in.readInt());
+			assertEquals(0,in.readLong());
+			assertEquals(500,in.readLong());
+		}
+		try(DataInputStream in = new DataInputStream(Files.newInputStream(out.resolve("people.col")))){
+			assertEquals(TelemetryReader.COLUMNS_MAGIC,in.readInt());
+			in.readInt();
+			int columns = in.readInt();
+			assertEquals(4,columns);
+			for(int i = 0; i < 2 * columns; i++){
+				in.skipBytes(in.readInt());
+			}
+			assertEquals(1,in.readInt());
+			assertEquals(2000,in.readLong());
+			byte[] id = new byte[in.readInt()];
+			in.readFully(id);
+			assertEquals("arrival 1",new String(id,StandardCharsets.UTF_8));
+			assertEquals(PersonState.WAITING.ordinal(),in.readByte());
+			assertEquals(PersonState.EMBARKING.ordinal(),in.readByte());
+			assertEquals(-1,in.read());
+		}
+	}
+
+	@Test
+	public void testDegenerate() throws IOException {
+		try{
+			new TelemetryRing(path,0,500,new Drone[]{drone});
+			fail("Made a ring with no room");
+		}
+		catch(IllegalArgumentException e){
+		}
+		Files.write(path,"not telemetry".getBytes(StandardCharsets.UTF_8));
+		try{
+			new TelemetryReader(path);
+			fail("Read something that isn't telemetry");
+		}
+		catch(IOException e){
+		}
+	}
+
+}
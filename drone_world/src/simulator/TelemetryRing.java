@@ -0,0 +1,151 @@
+package simulator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import simulator.enums.PersonState;
+
+/**
+ * Per tick telemetry written into a memory mapped file that is used as a ring, see Simulator.telemetry and TelemetryReader.
+ * Every record is the same size so writing one is a few puts into the map, with nothing allocated and nothing waiting
+ * on the disk.  When the ring is full the oldest records are written over.
+ *
+ * The file is laid out as:
+ *   header: magic, version, record size, capacity, where the records start, drone count (ints), records written (long),
+ *     tick size (int), then for each drone slot its id, company name and name (a length (int) and UTF-8 each)
+ *   records, at a multiple of the record size:
+ *     DRONE:  kind, state (bytes), slot (int), tick (long), latitude, longitude, height, charge (doubles), passengers (int)
+ *     PERSON: kind, from state, to state, id length (bytes), unused (int), tick (long), id (ID_SIZE bytes, truncated)
+ * States are enum ordinals and -1 for none.  Records written is updated after each record, so it is never ahead of the records.
+ */
+class TelemetryRing implements Closeable {
+
+	static final int MAGIC = 0x44575452; // "DWTR"
+	static final int VERSION = 1;
+
+	static final int RECORD_SIZE = 64;
+	static final int HEADER_SIZE = 6 * Integer.BYTES + Long.BYTES + Integer.BYTES;
+	static final int WRITTEN_AT = 6 * Integer.BYTES;
+	static final int ID_SIZE = RECORD_SIZE - 2 * Long.BYTES;
+
+	static final byte DRONE = 1;
+	static final byte PERSON = 2;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer map;
+	private final int capacity;
+	private final int recordsAt;
+	private long written = 0;
+	private long tick = 0;
+
+	/**
+	 * @param dronesBySlot, the simulation's drones by their slot, which records refer to
+	 */
+	TelemetryRing(Path path, int capacity, int tickSize, Drone[] dronesBySlot) throws IOException{
+		if(capacity <= 0){
+			throw new IllegalArgumentException("A telemetry ring needs room for at least one record: "+capacity);
+		}
+		byte[][] names = new byte[3 * dronesBySlot.length][];
+		long header = HEADER_SIZE;
+		for(int i = 0; i < dronesBySlot.length; i++){
+			names[3 * i] = dronesBySlot[i].getId().getBytes(StandardCharsets.UTF_8);
+			names[3 * i + 1] = dronesBySlot[i].getCompanyName().getBytes(StandardCharsets.UTF_8);
+			names[3 * i + 2] = dronesBySlot[i].getName().getBytes(StandardCharsets.UTF_8);
+			for(int j = 3 * i; j < 3 * i + 3; j++){
+				header += Integer.BYTES + names[j].length;
+			}
+		}
+		header = ((header + RECORD_SIZE - 1) / RECORD_SIZE) * RECORD_SIZE;
+		long size = header + (long) capacity * RECORD_SIZE;
+		if(size > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("A telemetry ring of "+capacity+" records is too big to map");
+		}
+		this.capacity = capacity;
+		this.recordsAt = (int) header;
+		this.channel = FileChannel.open(path,StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING,StandardOpenOption.READ,StandardOpenOption.WRITE);
+		try{
+			this.map = channel.map(FileChannel.MapMode.READ_WRITE,0,size);
+		}
+		catch(IOException e){
+			channel.close();
+			throw e;
+		}
+		map.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(capacity).putInt(recordsAt).putInt(dronesBySlot.length).putLong(written).putInt(tickSize);
+		for(byte[] name: names){
+			map.putInt(name.length).put(name);
+		}
+	}
+
+	/**
+	 * The tick that the records written from now on are for
+	 */
+	void setTick(long tick){
+		this.tick = tick;
+	}
+
+	/**
+	 * @return where the next record goes
+	 */
+	private int next(){
+		return recordsAt + (int) (written % capacity) * RECORD_SIZE;
+	}
+
+	private void wrote(){
+		written++;
+		map.putLong(WRITTEN_AT,written);
+	}
+
+	void drone(Drone d){
+		int at = next();
+		map.put(at,DRONE);
+		map.put(at + 1,(byte) ((d.getState() == null) ? -1 : d.getState().ordinal()));
+		map.putInt(at + 4,d.getSlot());
+		map.putLong(at + 8,tick);
+		map.putDouble(at + 16,d.getLatitude());
+		map.putDouble(at + 24,d.getLongitude());
+		map.putDouble(at + 32,d.getHeight());
+		map.putDouble(at + 40,d.getCharge());
+		map.putInt(at + 48,d.getPassengers().size());
+		wrote();
+	}
+
+	void person(Person p, PersonState from, PersonState to){
+		int at = next();
+		String id = (p.getId() == null) ? "" : p.getId();
+		int length = Math.min(id.length(),ID_SIZE);
+		map.put(at,PERSON);
+		map.put(at + 1,(byte) ((from == null) ? -1 : from.ordinal()));
+		map.put(at + 2,(byte) ((to == null) ? -1 : to.ordinal()));
+		map.put(at + 3,(byte) length);
+		map.putLong(at + 8,tick);
+		//Ids are written a character at a byte so that nothing is allocated, anything that isn't ASCII becomes ?
+		for(int i = 0; i < length; i++){
+			char c = id.charAt(i);
+			map.put(at + 16 + i,(byte) ((c < 0x80) ? c : '?'));
+		}
+		wrote();
+	}
+
+	/**
+	 * @return how many records have been written, including ones that have been written over
+	 */
+	long getWritten(){
+		return written;
+	}
+
+	@Override
+	public void close() throws IOException{
+		try{
+			map.force();
+		}
+		finally{
+			channel.close();
+		}
+	}
+
+}
@@ -0,0 +1,168 @@
+package simulator;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import simulator.enums.PersonState;
+import simulator.interfaces.Checkpointable;
+import simulator.interfaces.DemandSource;
+
+/**
+ * People who arrive when a recorded trace says they did.
+ * The trace is read one line at a time as the simulation gets to it, so a trace of any length takes the same memory.
+ * Each line is
+ *   time,start place name,destination place name,person name
+ * with times in milliseconds that never go backwards.  Blank lines and lines that start with # are skipped.
+ * A checkpoint only saves how many people have arrived, a restored trace has to be opened again on the same file and skips that many.
+ */
+public class TraceDemand implements DemandSource, Checkpointable, Closeable {
+
+	private final BufferedReader reader;
+	private int lineNumber;
+
+	// The next line of the trace, or null once it has all been read
+	private String[] pending;
+	private long pendingTime;
+	private int arrived;
+
+	// Places by name, for the places list that was last passed in
+	private List<Place> indexed;
+	private Map<String,Place> byName;
+
+	public TraceDemand(Reader reader){
+		if(reader == null){
+			throw new IllegalArgumentException("Please supply a trace");
+		}
+		this.reader = (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader);
+		this.lineNumber = 0;
+		this.pendingTime = Long.MIN_VALUE;
+		this.arrived = 0;
+		advance();
+	}
+
+	/**
+	 * Read a trace from a UTF-8 file
+	 */
+	public static TraceDemand open(Path path) throws IOException{
+		return new TraceDemand(Files.newBufferedReader(path,StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Read up to the next arrival
+	 */
+	private void advance(){
+		pending = null;
+		try{
+			String line;
+			while((line = reader.readLine()) != null){
+				lineNumber++;
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#")){
+					continue;
+				}
+				String[] fields = line.split(",",4);
+				if(fields.length != 4){
+					throw new IllegalArgumentException("Line "+lineNumber+" of the trace should be time,start,destination,name: "+line);
+				}
+				long time;
+				try{
+					time = Long.parseLong(fields[0].trim());
+				}
+				catch(NumberFormatException e){
+					throw new IllegalArgumentException("Line "+lineNumber+" of the trace has a bad time: "+fields[0]);
+				}
+				if(time < pendingTime){
+					throw new IllegalArgumentException("Line "+lineNumber+" of the trace goes back in time");
+				}
+				pending = fields;
+				pendingTime = time;
+				return;
+			}
+		}
+		catch(IOException e){
+			throw new UncheckedIOException("Couldn't read line "+(lineNumber+1)+" of the trace",e);
+		}
+	}
+
+	private Place place(List<Place> places, String name){
+		if(indexed != places){
+			byName = new HashMap<String,Place>();
+			for(Place p: places){
+				byName.putIfAbsent(p.getName(),p);
+			}
+			indexed = places;
+		}
+		Place ret = byName.get(name.trim());
+		if(ret == null){
+			throw new IllegalArgumentException("Line "+lineNumber+" of the trace goes to a place that isn't in the simulation: "+name);
+		}
+		return ret;
+	}
+
+	/**
+	 * @return how many people have arrived so far
+	 */
+	public int getArrived(){
+		return arrived;
+	}
+
+	@Override
+	public long getNextArrivalTime() {
+		return (pending == null) ? NEVER : pendingTime;
+	}
+
+	@Override
+	public Person next(List<Place> places) {
+		if((places == null) || (places.size() == 0)){
+			throw new IllegalArgumentException("Places is badly formed");
+		}
+		if(pending == null){
+			throw new IllegalArgumentException("No one else is coming");
+		}
+		Place start = place(places,pending[1]);
+		Place destination = place(places,pending[2]);
+		Person ret = new Person("arrival " + arrived, pending[3].trim(), start, start.getPosition(), destination, PersonState.WAITING);
+		arrived++;
+		advance();
+		return ret;
+	}
+
+	@Override
+	public byte[] saveState() {
+		return ByteBuffer.allocate(Integer.BYTES).putInt(arrived).array();
+	}
+
+	@Override
+	public void restoreState(byte[] state) {
+		if((state == null) || (state.length != Integer.BYTES)){
+			throw new IllegalArgumentException("Not the state of a TraceDemand");
+		}
+		int skip = ByteBuffer.wrap(state).getInt();
+		if(arrived != 0){
+			throw new IllegalArgumentException("Only a trace that no one has arrived from yet can be restored");
+		}
+		while(arrived < skip){
+			if(pending == null){
+				throw new IllegalArgumentException("The trace ends after "+arrived+" people, the checkpoint has "+skip);
+			}
+			arrived++;
+			advance();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+}
@@ -0,0 +1,140 @@
+package simulator;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import simulator.enums.PlaceDistribution;
+import simulator.interfaces.DemandSource;
+
+public class TraceDemandTest {
+
+	private static List<Place> places;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		places = new ScenarioGenerator(1L,10,0,0,PlaceDistribution.UNIFORM).generatePlaces();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	@Test
+	public void testTrace() throws IOException {
+		String trace = "# time,start,destination,name\n"
+				+ "0,Place 0,Place 1,Sam Fong\n"
+				+ "\n"
+				+ "1500, Place 2 , Place 0 ,Anne Monique Brown, Jr.\n"
+				+ "1500,Place 9,Place 3,Eli Tang\n";
+		try(TraceDemand demand = new TraceDemand(new StringReader(trace))){
+			assertEquals(0,demand.getNextArrivalTime());
+			Person p = demand.next(places);
+			assertEquals("Sam Fong",p.getName());
+			assertEquals(places.get(0),p.getStart());
+			assertEquals(places.get(1),p.getDestination());
+
+			assertEquals(1500,demand.getNextArrivalTime());
+			p = demand.next(places);
+			assertEquals("Anne Monique Brown, Jr.",p.getName());
+			assertEquals(places.get(2),p.getStart());
+			assertEquals(places.get(0),p.getDestination());
+
+			assertEquals(1500,demand.getNextArrivalTime());
+			p = demand.next(places);
+			assertEquals(places.get(9),p.getStart());
+			assertEquals(3,demand.getArrived());
+			assertEquals(DemandSource.NEVER,demand.getNextArrivalTime());
+		}
+	}
+
+	@Test
+	public void testCheckpoint() throws IOException {
+		String trace = "0,Place 0,Place 1,Sam Fong\n"
+				+ "# a comment\n"
+				+ "1500,Place 2,Place 0,Eli Tang\n"
+				+ "2500,Place 9,Place 3,Kate Oswald\n";
+		byte[] state;
+		try(TraceDemand saved = new TraceDemand(new StringReader(trace))){
+			saved.next(places);
+			saved.next(places);
+			state = saved.saveState();
+		}
+
+		//A new one on the same trace skips the people who have already arrived
+		try(TraceDemand restored = new TraceDemand(new StringReader(trace))){
+			restored.restoreState(state);
+			assertEquals(2,restored.getArrived());
+			assertEquals(2500,restored.getNextArrivalTime());
+			assertEquals("Kate Oswald",restored.next(places).getName());
+			assertEquals(DemandSource.NEVER,restored.getNextArrivalTime());
+			try{
+				restored.restoreState(state);
+				fail("This should fail");
+			}
+			catch(IllegalArgumentException e){
+			}
+		}
+
+		//A shorter trace can't be restored
+		try(TraceDemand restored = new TraceDemand(new StringReader("0,Place 0,Place 1,Sam Fong\n"))){
+			restored.restoreState(state);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+	}
+
+	@Test
+	public void testDegenerate() {
+		try{
+			new TraceDemand(new StringReader("10,Place 0,Place 1,A\n5,Place 0,Place 1,B\n")).next(places);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		try{
+			new TraceDemand(new StringReader("ten,Place 0,Place 1,A\n"));
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		try{
+			new TraceDemand(new StringReader("10,Place 0,Place 1\n"));
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		try{
+			new TraceDemand(new StringReader("10,Place 0,Nowhere,A\n")).next(places);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+		TraceDemand empty = new TraceDemand(new StringReader("# nothing\n"));
+		assertEquals(DemandSource.NEVER,empty.getNextArrivalTime());
+		try{
+			empty.next(places);
+			fail("This should fail");
+		}
+		catch(IllegalArgumentException e){
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package simulator;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The places, people and drones that pipelined controllers see during a tick.
+ * It is made on the simulator's thread when the first pipelined call back on a tick is made, so it doesn't change while the
+ * simulator keeps going and it is the same on every run.  The places and people are copies, and the drones are snapshots
+ * that point at the copies of their places.
+ */
+class WorldSnapshot {
+
+	//The copies of the places, indexed by id
+	private final Place[] placesById;
+	private final TreeSet<Place> places;
+	private final TreeSet<Person> people;
+	private final TreeSet<Drone> drones;
+
+	WorldSnapshot(Place[] placesById, Collection<Person> people, Collection<Drone> drones){
+		//The places first, so that the people can be given the copies of where they are going
+		this.placesById = new Place[placesById.length];
+		this.places = new TreeSet<Place>();
+		for(int i = 0; i < placesById.length; i++){
+			this.placesById[i] = new Place(placesById[i],false);
+			this.places.add(this.placesById[i]);
+		}
+
+		Map<Person,Person> copies = new IdentityHashMap<Person,Person>();
+		this.people = new TreeSet<Person>();
+		for(Person p: people){
+			Person copy = copy(p);
+			copies.put(p,copy);
+			this.people.add(copy);
+		}
+		for(int i = 0; i < placesById.length; i++){
+			for(Person p: placesById[i].getWaitingToEmbark()){
+				Person copy = copies.get(p);
+				this.placesById[i].addWaitingToEmbark((copy == null) ? copy(p) : copy);
+			}
+		}
+
+		this.drones = new TreeSet<Drone>();
+		for(Drone d: drones){
+			this.drones.add(snapshot(d));
+		}
+	}
+
+	/**
+	 * @return the copy of a place, or the place itself if it isn't in this world
+	 */
+	Place place(Place live){
+		if((live == null) || (live.getId() == Place.UNASSIGNED) || (live.getId() >= placesById.length) || !placesById[live.getId()].sharesIds(live)){
+			return live;
+		}
+		return placesById[live.getId()];
+	}
+
+	/**
+	 * @return copies of places, or a copy of the set as it is if some of them aren't in this world
+	 */
+	Set<Place> places(Set<Place> live){
+		Set<Place> ret = new Manifest();
+		for(Place p: live){
+			Place copy = place(p);
+			if(copy == p){
+				return Manifest.copyOf(live);
+			}
+			ret.add(copy);
+		}
+		return ret;
+	}
+
+	/**
+	 * @return a copy of someone as they are now, going between the copies of the places
+	 */
+	Person copy(Person live){
+		Person ret = new Person(live);
+		ret.setStart(place(live.getStart()));
+		ret.setDestination(place(live.getDestination()));
+		return ret;
+	}
+
+	/**
+	 * @return a snapshot of a drone as it is now, or of a snapshot as it was when it was taken, in this world
+	 */
+	Drone snapshot(Drone drone){
+		return new DroneSnapshot(drone,this);
+	}
+
+	/**
+	 * @return the copies of the places, in a set that can be changed
+	 */
+	TreeSet<Place> getPlaces(){
+		return new TreeSet<Place>(places);
+	}
+
+	/**
+	 * @return the copies of the people, in a set that can be changed
+	 */
+	TreeSet<Person> getPeople(){
+		return new TreeSet<Person>(people);
+	}
+
+	/**
+	 * @return the snapshots of the drones, in a set that can be changed
+	 */
+	TreeSet<Drone> getDrones(){
+		return new TreeSet<Drone>(drones);
+	}
+
+}
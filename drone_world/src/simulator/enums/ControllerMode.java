@@ -0,0 +1,10 @@
+package simulator.enums;
+
+/**
+ * When the simulator listens to drone controllers
+ * SYNCHRONOUS waits for each call back and applies commands as soon as they are given.
+ * PIPELINED lets call backs run while the simulator keeps going and applies their commands at the start of the next tick.
+ */
+public enum ControllerMode {
+	SYNCHRONOUS, PIPELINED;
+}
@@ -0,0 +1,10 @@
+package simulator.enums;
+
+/**
+ * How DroneControllerSafetyWrapper runs controller call backs
+ * POOLED hands each call to a pool of threads that belongs to the wrapper, which starts a thread whenever none are free.
+ * MAILBOX gives each controller a worker thread of its own that takes calls from a lock free queue.
+ */
+public enum DispatchMode {
+	POOLED, MAILBOX;
+}
@@ -0,0 +1,16 @@
+package simulator.enums;
+
+/**
+ * The call backs that a drone controller can be sent, one for each drone call back in DroneController
+ */
+public enum DroneEvent {
+	SIMULATION_START, SIMULATION_END, BEHAVING_BADLY,
+	EMBARKING_START, EMBARKING_A_GROUP_START, EMBARKING_A_GROUP_END, EMBARKING_END,
+	ASCENDING_START, ASCENDING_END,
+	TRANSITING_START, TRANSITING, TRANSITING_END,
+	EXPLODING, HAS_DIED,
+	DESCENDING_START, DESCENDING_END,
+	DISEMBARKING_START, DISEMBARKING_GROUP_START, DISEMBARKING_GROUP_END, DISEMBARKING_END,
+	RECHARGING_START, RECHARGING, RECHARGING_END,
+	IDLING;
+}
@@ -0,0 +1,10 @@
+package simulator.enums;
+
+/**
+ * How the simulator advances time
+ * FIXED_TICK polls every drone on every tick.
+ * DISCRETE_EVENT jumps the clock straight to the next tick on which some drone changes state.
+ */
+public enum EngineMode {
+	FIXED_TICK, DISCRETE_EVENT;
+}
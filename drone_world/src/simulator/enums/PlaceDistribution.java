@@ -0,0 +1,10 @@
+package simulator.enums;
+
+/**
+ * How ScenarioGenerator spreads places over the map
+ * UNIFORM scatters them evenly.
+ * CLUSTERED gathers them around a few centers, like neighborhoods in a city.
+ */
+public enum PlaceDistribution {
+	UNIFORM, CLUSTERED;
+}
@@ -0,0 +1,22 @@
+package simulator.interfaces;
+
+/**
+ * Something that can be saved in a checkpoint along with the simulation it is part of, see Simulator.checkpoint.
+ * Drone controllers and demand sources that keep track of things between calls implement this so that a restored
+ * simulation picks up where the saved one left off.  Ones that don't are restored as they were made.
+ */
+public interface Checkpointable {
+
+	/**
+	 * Called on the simulator thread between ticks
+	 * @return everything needed to pick up from here, or null if there is nothing to save
+	 */
+	byte[] saveState();
+
+	/**
+	 * Pick up from where saveState was called.  Called on a newly made one, before the restored simulation starts.
+	 * @param state, what saveState returned
+	 */
+	void restoreState(byte[] state);
+
+}
@@ -0,0 +1,28 @@
+package simulator.interfaces;
+
+import java.util.List;
+
+import simulator.Person;
+import simulator.Place;
+
+/**
+ * Where people come from when they show up over the course of a simulation instead of all waiting at the start.
+ * The simulator asks for everyone who has arrived by the current tick, in the order they arrived.
+ */
+public interface DemandSource {
+
+	long NEVER = Long.MAX_VALUE;
+
+	/**
+	 * @return when the next person arrives, or NEVER if no one else is coming
+	 */
+	long getNextArrivalTime();
+
+	/**
+	 * Make the person who arrives at getNextArrivalTime() and move on to the one after
+	 * @param places, every place in the simulation in the order of their ids
+	 * @return someone WAITING at one of the places who hasn't gotten in line yet
+	 */
+	Person next(List<Place> places);
+
+}
@@ -1,7 +1,10 @@
 package simulator.interfaces;
 
+import java.util.Set;
+
 import simulator.Drone;
 import simulator.Simulator;
+import simulator.enums.DroneEvent;
 
 public interface DroneController {
 	
@@ -25,6 +28,14 @@ public interface DroneController {
 	 * @return The company name, e.g., "Patterson Intelligent Drone Corporation"
 	 */
 	String getCompanyName();
+	
+	/**
+	 * The drone call backs this controller wants to be sent, the simulator doesn't bother with the others.
+	 * @return null to want the call backs that the controller overrides from DroneControllerSkeleton
+	 */
+	default Set<DroneEvent> getDroneEvents(){
+		return null;
+	}
 
 	
 	
@@ -53,6 +64,8 @@ public interface DroneController {
 	
 	/***********************************/
 	/* Drone Life cycle call backs */
+	/* The drone in each call back is a read only DroneView of the drone as it was when the call was made. Its collections */
+	/* and setters throw UnsupportedOperationException, use the simulator's routeDrone and setDroneManifest to change it  */
 	
 	// This is called when a drone starts embarking at all
 	void droneEmbarkingStart(Drone drone);
@@ -0,0 +1,78 @@
+package simulator.interfaces;
+
+import java.util.Set;
+
+import simulator.Person;
+import simulator.Place;
+import simulator.Position;
+import simulator.enums.DroneState;
+
+/**
+ * The read only part of a drone, which is all that controllers are given.  The drones handed to controllers are snapshots
+ * that capture everything, collections included, when the call is made.  They can't be modified and their places are
+ * shared with the simulator.  A FleetController only ever sees its drones through this.
+ */
+public interface DroneView {
+
+	String getId();
+
+	String getName();
+
+	String getCompanyName();
+
+	Place getStart();
+
+	Position getPosition();
+
+	Place getDestination();
+
+	/**
+	 * @return The places that passengers are told the drone is going to
+	 */
+	Set<Place> getManifest();
+
+	DroneState getState();
+
+	long getEmbarkingStart();
+
+	int getEmbarkingDuration();
+
+	int getEmbarkingCapacity();
+
+	Set<Person> getEmbarkers();
+
+	long getDisembarkingStart();
+
+	int getDisembarkingDuration();
+
+	int getDisembarkingCapacity();
+
+	Set<Person> getDisembarkers();
+
+	long getAscensionTime();
+
+	long getDescensionTime();
+
+	long getTransitStart();
+
+	long getTransitEnd();
+
+	/**
+	 * @return between 0.0 and 1.0 with 1.0 fully charged
+	 */
+	double getCharge();
+
+	double getRechargeRate();
+
+	double getDischargeRate();
+
+	int getCapacity();
+
+	Set<Person> getPassengers();
+
+	/**
+	 * @return meters per second
+	 */
+	double getSpeed();
+
+}
@@ -0,0 +1,21 @@
+package simulator.interfaces;
+
+import java.util.List;
+
+import simulator.FleetCommand;
+import simulator.FleetSnapshot;
+
+/**
+ * A controller that looks after all of its drones at once.  Instead of a call back for each thing that happens to each drone,
+ * it gets one call on each tick with all of its drones and what happened to them, and answers with what it wants them to do.
+ */
+public interface FleetController extends DroneController {
+
+	/**
+	 * Called once on each tick that the simulator stops at
+	 * @param fleet, all of this controller's drones as they are at the end of the tick and the call backs they would have had
+	 * @return what the drones should do, or null to leave them alone
+	 */
+	List<FleetCommand> onTick(FleetSnapshot fleet);
+
+}
@@ -0,0 +1,36 @@
+package simulator.interfaces;
+
+import java.util.List;
+import java.util.Random;
+
+import simulator.Drone;
+import simulator.Person;
+import simulator.Place;
+
+/**
+ * The places, people and drones that a simulation starts with.
+ * Every call makes new objects, so one scenario can set up any number of simulations, even at the same time.
+ */
+public interface Scenario {
+
+	/**
+	 * @return the places in the order of their ids
+	 */
+	List<Place> generatePlaces();
+
+	/**
+	 * Make the people and put them in line at their starting places
+	 * @param places, the places that generatePlaces made
+	 * @return the people in the order they got in line
+	 */
+	List<Person> generatePeople(List<Place> places);
+
+	/**
+	 * Make the drones for one controller
+	 * @param places, the places that generatePlaces made
+	 * @param controller, the controller that flies the drones
+	 * @param r, where the drones get their ids from, which has to be shared by all the controllers in a simulation so ids don't repeat
+	 */
+	List<Drone> generateDrones(List<Place> places, DroneController controller, Random r);
+
+}
@@ -2,6 +2,10 @@ package simulator.interfaces;
 
 import java.util.Random;
 
+import simulator.enums.ControllerMode;
+import simulator.enums.DispatchMode;
+import simulator.enums.EngineMode;
+
 public interface SimulationController {
 	
 
@@ -32,6 +36,61 @@ public interface SimulationController {
 	 */
 	int getSimulatorSpeed();
 	
+	
+	/**
+	 * return true to run the simulation without a visualization attached.
+	 * A headless simulation is not paced against the wall clock, ticks are advanced as fast as the CPU allows
+	 * and the size of each tick comes from getSimulatorTickSize() instead of getSimulatorSpeed().
+	 * By default the simulation is shown.
+	 */
+	default boolean isHeadless(){
+		return false;
+	}
+	
+	
+	/**
+	 * How many milliseconds of simulator time pass on each tick of a headless simulation.
+	 * This is only used when isHeadless() returns true.
+	 * By default it is the same size as a tick of a simulation that is shown.
+	 */
+	default int getSimulatorTickSize(){
+		return getSimulatorSpeed();
+	}
+	
+	
+	/**
+	 * FIXED_TICK looks at every drone on every tick.
+	 * DISCRETE_EVENT skips ticks on which no drone changes state. Drones still move and charge on the skipped ticks, but
+	 * droneTransiting is only called on the ticks that the simulator stops at.
+	 * By default every tick is looked at.
+	 */
+	default EngineMode getEngineMode(){
+		return EngineMode.FIXED_TICK;
+	}
+	
+	/**
+	 * How drone controller call backs are run
+	 * POOLED hands each call to a pool of threads.
+	 * MAILBOX runs each controller's calls on a worker thread of its own, which takes less time per call.
+	 * By default calls go to a pool of threads.
+	 */
+	default DispatchMode getDispatchMode(){
+		return DispatchMode.POOLED;
+	}
+	
+	/**
+	 * When drone controllers are listened to
+	 * SYNCHRONOUS waits for every call back and carries out routeDrone and setDroneManifest right away.
+	 * PIPELINED doesn't wait for call backs, they see a snapshot while the simulator keeps going. Commands are held and carried
+	 * out at the start of the next tick. Controllers have to use a MAILBOX.  During a call back the simulator's places, people
+	 * and drones are as they were when the first call back on the tick was made, and getRandom gives each controller random
+	 * numbers of its own, so that a seed still gives the same simulation every time.
+	 * By default every call back is waited for.
+	 */
+	default ControllerMode getControllerMode(){
+		return ControllerMode.SYNCHRONOUS;
+	}
+	
 
 	/**
 	 *  This returns true if the simulator should quarantine drones for responding to slowly.